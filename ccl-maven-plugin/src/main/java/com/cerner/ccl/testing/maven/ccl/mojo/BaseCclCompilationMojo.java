@@ -5,8 +5,10 @@ import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Parameter;
 
 import com.cerner.ccl.j4ccl.CclExecutor;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
 
 /**
  * Skeleton definition of a CCL mojo related to code compilation.
@@ -16,6 +18,29 @@ import com.cerner.ccl.j4ccl.CclExecutor;
  */
 
 public abstract class BaseCclCompilationMojo extends BaseCclMojo {
+    /**
+     * When set to {@code true}, scripts and include files that have not changed since they were last compiled
+     * successfully on the same host and environment are not compiled again. A script is only skipped if its object on
+     * the host still has the timestamp it had after that compilation. Compilations are tracked in a cache within the
+     * build directory, so a clean build compiles everything.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-incrementalCompile", defaultValue = "false")
+    protected boolean incrementalCompile;
+
+    /**
+     * The build directory, in which the compile cache is kept.
+     */
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    protected File buildDirectory;
+
+    /**
+     * The base directory of the project, relative to which include files are identified in the compile cache.
+     */
+    @Parameter(defaultValue = "${project.basedir}", readonly = true)
+    protected File baseDirectory;
+
     /**
      * Queue up any and all include files to be dynamically compiled.
      *
@@ -30,6 +55,7 @@ public abstract class BaseCclCompilationMojo extends BaseCclMojo {
      */
     protected void queueIncludeCompilation(final CclExecutor executor, final File directory)
             throws MojoExecutionException, MojoFailureException {
+        configureCompileCache();
         final List<File> files = getIncludeFiles(directory);
 
         if (files.isEmpty()) {
@@ -52,6 +78,7 @@ public abstract class BaseCclCompilationMojo extends BaseCclMojo {
      *            A {@link File} object representing the directory to be scanned for CCL scripts to be compiled.
      */
     protected void queueScriptCompilation(final CclExecutor executor, final File directory) {
+        configureCompileCache();
         final List<File> files = getFiles(directory, CCL_SCRIPTS);
         if (files.isEmpty()) {
             getLog().info("No scripts to compile in " + directory.getAbsolutePath());
@@ -65,4 +92,18 @@ public abstract class BaseCclCompilationMojo extends BaseCclMojo {
 
         getLog().info("Compiling all scripts in " + directory.getAbsolutePath());
     }
+
+    /**
+     * Enable or disable the compile cache according to the {@code incrementalCompile} setting. The setting is scoped to
+     * the current thread so that modules built in parallel each use the cache of their own build directory.
+     */
+    protected void configureCompileCache() {
+        if (incrementalCompile) {
+            CompileCache
+                    .setThreadFileProperty(new File(buildDirectory, "ccl-compile-cache.properties").getAbsolutePath());
+            CompileCache.setThreadSourceRoot(baseDirectory);
+        } else {
+            CompileCache.setThreadFileProperty("");
+        }
+    }
 }
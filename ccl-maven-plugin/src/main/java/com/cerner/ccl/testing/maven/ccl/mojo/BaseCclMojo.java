@@ -4,7 +4,6 @@ import static org.codehaus.plexus.util.StringUtils.isEmpty;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +32,7 @@ import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
 import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
 import com.cerner.ccl.j4ccl.impl.jaas.PrivateKeyPrincipal;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
 import com.cerner.ccl.testing.maven.ccl.util.CclLogFileOutputStream;
 import com.cerner.ccl.testing.maven.ccl.util.DelegatingOutputStream;
 import com.cerner.ccl.testing.maven.ccl.util.LogOutputStreamProxy;
@@ -216,6 +216,68 @@ public abstract class BaseCclMojo extends AbstractMojo {
     @Parameter(property = "ccl-skipEnvset", defaultValue = "false")
     protected boolean skipEnvset;
 
+    /**
+     * When set to {@code true}, causes all of the commands queued by a goal to be issued within a single CCL session
+     * rather than launching a new CCL session for each command. File transfers are still performed before and after the
+     * session and a failure is reported against the command that caused it.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-batchSessions", defaultValue = "false")
+    protected boolean batchSessions;
+
+    /**
+     * When set to {@code true}, causes the statements of each command group to be written to the CCL session in
+     * batches, each statement followed by an echoed marker, rather than waiting for the prompt after every line. This
+     * removes a round trip per statement; a failure is still reported against the statement that caused it.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-pipelineCommands", defaultValue = "false")
+    protected boolean pipelineCommands;
+
+    /**
+     * When set to {@code true}, causes the wrapper scripts of the dynamic includes queued by a goal to be uploaded
+     * together, compiled by a single compile call, validated from its one listing and dropped together when the CCL
+     * session closes, rather than each wrapper being compiled and dropped on its own. Includes whose listing output is
+     * kept are still compiled on their own.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-batchDynamicIncludes", defaultValue = "false")
+    protected boolean batchDynamicIncludes;
+
+    /**
+     * When set to {@code true}, causes the CCL commands of a goal that need no interaction with CCL, such as compiling,
+     * dropping and executing scripts, to be piped to a non-interactive CCL process run over a single exec channel, its
+     * output and exit status being collected once it ends, rather than being issued at the prompts of an interactive
+     * shell. Authenticated sessions and pooled sessions are still interactive.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-batchExecution", defaultValue = "false")
+    protected boolean batchExecution;
+
+    /**
+     * The size, in bytes, at which a file downloaded from the back end, such as a compile listing or the output of a
+     * test, is compressed on the back end before it is transferred. Smaller files are transferred as-is. When not set,
+     * no files are compressed.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-downloadCompressionThreshold")
+    protected Long downloadCompressionThreshold;
+
+    /**
+     * The number of seconds for which the locations of the back end environment's logicals, such as CCLUSERDIR and
+     * cer_temp, are kept in {@code .j4ccl/environment-cache.properties} beneath the user's home directory so that later
+     * builds need not retrieve them. The locations are not kept unless this is set to a positive value.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-environmentCacheTtl", defaultValue = "0")
+    protected long environmentCacheTtl;
+
     /**
      * A regular expression that will match the back end operating system prompt for the configured user. This is used
      * to recognize when the back end operating system has finished processing and is ready for another command. The
@@ -330,9 +392,6 @@ public abstract class BaseCclMojo extends AbstractMojo {
         if (!isEmpty(keyFile)) {
             subject.getPrincipals().add(new PrivateKeyPrincipal(keyFile));
         }
-        if (cclsourcePath != null) {
-            System.setProperty("ccl-cclsource", cclsourcePath);
-        }
     }
 
     /**
@@ -397,11 +456,11 @@ public abstract class BaseCclMojo extends AbstractMojo {
      */
     protected CclExecutor createCclExecutor() throws MojoExecutionException, MojoFailureException {
         final CclExecutor executor = CclExecutor.getExecutor();
-        final OutputStream outputStream = getLoggingOutputStream();
+        final DelegatingOutputStream outputStream = getLoggingOutputStream();
         if (outputStream != null) {
-            executor.setOutputStream(outputStream, enableFullDebug ? OutputType.FULL_DEBUG : OutputType.CCL_SESSION);
+            executor.setOutputConsumer(outputStream, enableFullDebug ? OutputType.FULL_DEBUG : OutputType.CCL_SESSION);
         }
-        executor.setTerminalProperties(TerminalProperties.getGlobalTerminalProperties());
+        executor.setTerminalProperties(TerminalProperties.getThreadTerminalProperties());
 
         return executor;
     }
@@ -419,7 +478,7 @@ public abstract class BaseCclMojo extends AbstractMojo {
                 System.out.println(e);
             }
         }
-        TerminalProperties.setGlobalTerminalProperties(TerminalProperties.getNewBuilder().setSkipEnvset(skipEnvset)
+        final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder().setSkipEnvset(skipEnvset)
                 .setOsPromptPattern(osPromptPattern != null && !osPromptPattern.isEmpty() ? osPromptPattern
                         : TerminalProperties.constructDefaultOsPromptPattern(host, environment,
                                 defaultOSPromptUsername))
@@ -427,7 +486,24 @@ public abstract class BaseCclMojo extends AbstractMojo {
                 .setCclLoginSuccessPromptPattern(cclLoginSuccessPromptPattern)
                 .setCclLoginFailurePromptPatterns(cclLoginFailurePromptPatterns)
                 .setExpectationTimeout(expectationTimeout).setLogfileLocation(logfileLocation)
-                .setSpecifyDebugCcl(specifyDebugCcl).build());
+                .setSpecifyDebugCcl(specifyDebugCcl).setBatchSessions(batchSessions)
+                .setPipelineCommands(pipelineCommands).setBatchDynamicIncludes(batchDynamicIncludes)
+                .setBatchExecution(batchExecution).setCclSource(cclsourcePath)
+                .setEnvironmentCacheTtl(environmentCacheTtl).setDownloadCompressionThreshold(
+                        downloadCompressionThreshold == null ? -1 : downloadCompressionThreshold.longValue())
+                .build();
+        TerminalProperties.setGlobalTerminalProperties(terminalProperties);
+        TerminalProperties.setThreadTerminalProperties(terminalProperties);
+    }
+
+    /**
+     * Clear the TerminalProperties and compile cache settings of the current thread, so that they do not carry over to
+     * the next mojo that Maven executes on this thread.
+     */
+    protected void clearThreadSettings() {
+        TerminalProperties.setThreadTerminalProperties(null);
+        CompileCache.setThreadFileProperty(null);
+        CompileCache.setThreadSourceRoot(null);
     }
 
     /**
@@ -503,10 +579,10 @@ public abstract class BaseCclMojo extends AbstractMojo {
     /**
      * Get the stream (if any) used for writing out debug output.
      *
-     * @return {@code null} if this mojo is not configured to write debug information; otherwise, an
-     *         {@link OutputStream} that can be used to write out debug information.
+     * @return {@code null} if this mojo is not configured to write debug information; otherwise, a
+     *         {@link DelegatingOutputStream} that can be used to write out debug information.
      */
-    final protected OutputStream getLoggingOutputStream() {
+    final protected DelegatingOutputStream getLoggingOutputStream() {
         if (logFile != null || isDebugging() || enableFullDebug) {
             final DelegatingOutputStream delegate = new DelegatingOutputStream();
             if (logFile != null) {
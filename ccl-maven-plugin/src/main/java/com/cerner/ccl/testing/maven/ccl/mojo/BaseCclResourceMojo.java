@@ -11,6 +11,7 @@ import javax.security.auth.Subject;
 
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.codehaus.plexus.util.FileUtils;
 
 import com.cerner.ccl.j4ccl.util.CclResourceUploader;
@@ -23,6 +24,66 @@ import com.cerner.ccl.j4ccl.util.CclResourceUploader;
  */
 
 public abstract class BaseCclResourceMojo extends BaseCclMojo {
+    /**
+     * When set to {@code true}, resources that have not changed since they were last uploaded to the same host and
+     * environment are not uploaded again. Uploaded resources are tracked in a manifest within the build directory, so a
+     * clean build uploads every resource.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-incrementalUpload", defaultValue = "false")
+    protected boolean incrementalUpload;
+
+    /**
+     * When set to {@code true} along with {@code incrementalUpload}, each remote directory is listed to confirm that
+     * the resources recorded as unchanged are still present with the expected size before they are skipped.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-verifyIncrementalUpload", defaultValue = "false")
+    protected boolean verifyIncrementalUpload;
+
+    /**
+     * The number of resources at or above which the resources are streamed to the host as a single compressed tar
+     * archive that is extracted there, rather than uploaded one by one. A value less than one disables this.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-bulkUploadMinimumFiles", defaultValue = "0")
+    protected int bulkUploadMinimumFiles;
+
+    /**
+     * The maximum total size, in bytes, of the resources for which they are streamed to the host as a single archive.
+     * Larger sets of resources are uploaded one by one.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-bulkUploadMaximumBytes", defaultValue = "268435456")
+    protected long bulkUploadMaximumBytes;
+
+    /**
+     * When set to {@code false}, the archive in which resources are streamed to the host is not gzipped in transit.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-compressBulkUploads", defaultValue = "true")
+    protected boolean compressBulkUploads;
+
+    /**
+     * The number of SFTP channels over which resources that are uploaded one by one are transferred concurrently. A
+     * value of 1 uploads them one after another.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-uploadChannels", defaultValue = "1")
+    protected int uploadChannels;
+
+    /**
+     * The build directory, in which the incremental upload manifest is kept.
+     */
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true)
+    protected File buildDirectory;
+
     /**
      * Upload all files within a given set of resources.
      *
@@ -39,6 +100,18 @@ public abstract class BaseCclResourceMojo extends BaseCclMojo {
 
         try {
             final CclResourceUploader uploader = CclResourceUploader.getUploader();
+            if (incrementalUpload) {
+                uploader.setManifestFile(new File(buildDirectory, "ccl-upload-manifest.properties"));
+                uploader.setVerifyRemote(verifyIncrementalUpload);
+            }
+            if (bulkUploadMinimumFiles > 0) {
+                uploader.setBulkUploadMinimumFiles(bulkUploadMinimumFiles);
+                uploader.setBulkUploadMaximumBytes(bulkUploadMaximumBytes);
+                uploader.setCompressBulkUploads(compressBulkUploads);
+            }
+            if (uploadChannels > 1) {
+                uploader.setChannelCount(uploadChannels);
+            }
             for (final Resource resource : resources) {
                 if (FileUtils.fileExists(resource.getDirectory())) {
                     List<File> files;
@@ -62,6 +135,8 @@ public abstract class BaseCclResourceMojo extends BaseCclMojo {
             });
         } catch (final PrivilegedActionException e) {
             throw new MojoExecutionException("Failed to upload all files.", e);
+        } finally {
+            clearThreadSettings();
         }
     }
 }
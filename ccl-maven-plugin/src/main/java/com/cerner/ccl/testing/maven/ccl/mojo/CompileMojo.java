@@ -23,7 +23,7 @@ import com.cerner.ccl.j4ccl.util.CclResourceUploader;
  * @author Joshua Hyde
  *
  */
-@Mojo(name = "compile")
+@Mojo(name = "compile", threadSafe = true)
 public class CompileMojo extends BaseCclCompilationMojo {
 
     /**
@@ -55,16 +55,20 @@ public class CompileMojo extends BaseCclCompilationMojo {
             throw new MojoFailureException("Source directory does not exist: " + sourceDirectory.getAbsolutePath());
         }
 
-        uploadIncludeFiles(sourceDirectory);
-        final CclExecutor executor = createCclExecutor();
-        queueScriptCompilation(executor, sourceDirectory);
-        Subject.doAs(getSubject(), new PrivilegedAction<Void>() {
-            @Override
-            public Void run() {
-                executor.execute();
-                return null;
-            }
-        });
+        try {
+            uploadIncludeFiles(sourceDirectory);
+            final CclExecutor executor = createCclExecutor();
+            queueScriptCompilation(executor, sourceDirectory);
+            Subject.doAs(getSubject(), new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    executor.execute();
+                    return null;
+                }
+            });
+        } finally {
+            clearThreadSettings();
+        }
     }
 
     private List<File> uploadIncludeFiles(final File directory) throws MojoExecutionException, MojoFailureException {
@@ -0,0 +1,150 @@
+package com.cerner.ccl.testing.maven.ccl.mojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.cerner.ccl.testing.maven.ccl.util.TestRunHistory;
+
+/**
+ * A mojo to combine the outputs of test goals that each ran a {@code shard} of the test cases into the single layout
+ * that the reporting goals expect. <br>
+ * The directory of each test case under {@code test-results} is copied from the shard that ran it; a test case found in
+ * more than one shard fails the merge. The environment XML and the program listings, which every shard produces, are
+ * taken from the first shard that has them. The test run histories of the shards are combined, so that the next run can
+ * balance its shards by the durations recorded by all of them.
+ */
+@Mojo(name = "merge-results", threadSafe = true)
+public class MergeResultsMojo extends AbstractMojo {
+    private static final String TEST_RESULTS = "test-results";
+    private static final String PROGRAM_LISTINGS = "program-listings";
+    private static final String TEST_HISTORY = "ccl-test-history.properties";
+
+    /**
+     * The output directories of the shards to be merged, each holding the {@code test-results} and
+     * {@code program-listings} directories written by the test goal.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-shardOutputDirectories", required = true)
+    protected List<File> shardOutputDirectories;
+
+    /**
+     * The directory to which the merged output is written.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-outputDirectory", defaultValue = "${project.build.directory}")
+    protected File outputDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final File mergedTestResults = new File(outputDirectory, TEST_RESULTS);
+        final File mergedListings = new File(outputDirectory, PROGRAM_LISTINGS);
+        final Map<String, File> testCaseShards = new HashMap<String, File>();
+        final Set<File> copiedFiles = new HashSet<File>();
+        TestRunHistory mergedHistory = null;
+
+        try {
+            for (final File shardOutputDirectory : shardOutputDirectories) {
+                if (shardOutputDirectory.getCanonicalFile().equals(outputDirectory.getCanonicalFile())) {
+                    throw new MojoFailureException("Shard output directory " + shardOutputDirectory
+                            + " cannot be the merged output directory.");
+                }
+                if (!shardOutputDirectory.isDirectory()) {
+                    throw new MojoFailureException(
+                            "Shard output directory " + shardOutputDirectory + " does not exist.");
+                }
+
+                getLog().info("merging test results from " + shardOutputDirectory);
+                for (final File testCaseDirectory : listFiles(new File(shardOutputDirectory, TEST_RESULTS))) {
+                    if (testCaseDirectory.isDirectory()) {
+                        final File otherShard = testCaseShards.put(testCaseDirectory.getName(), shardOutputDirectory);
+                        if (otherShard != null) {
+                            throw new MojoFailureException("Test case " + testCaseDirectory.getName()
+                                    + " was run by both " + otherShard + " and " + shardOutputDirectory + ".");
+                        }
+
+                        final File merged = new File(mergedTestResults, testCaseDirectory.getName());
+                        FileUtils.deleteDirectory(merged);
+                        FileUtils.copyDirectory(testCaseDirectory, merged);
+                    } else {
+                        copyIfAbsent(testCaseDirectory, mergedTestResults, copiedFiles);
+                    }
+                }
+
+                for (final File listing : listFiles(new File(shardOutputDirectory, PROGRAM_LISTINGS))) {
+                    copyIfAbsent(listing, mergedListings, copiedFiles);
+                }
+
+                File shardHistory = new File(shardOutputDirectory, TestRunHistory.SHARD_HISTORY_FILE_NAME);
+                if (!shardHistory.isFile()) {
+                    shardHistory = new File(shardOutputDirectory, TEST_HISTORY);
+                }
+                if (shardHistory.isFile()) {
+                    if (mergedHistory == null) {
+                        final File mergedHistoryFile = new File(outputDirectory, TEST_HISTORY);
+                        FileUtils.deleteQuietly(mergedHistoryFile);
+                        mergedHistory = new TestRunHistory(mergedHistoryFile);
+                    }
+                    mergedHistory.recordAll(new TestRunHistory(shardHistory));
+                }
+            }
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Failed to merge shard test results.", e);
+        }
+
+        getLog().info("merged " + testCaseShards.size() + " test cases from " + shardOutputDirectories.size()
+                + " shards into " + outputDirectory);
+    }
+
+    /**
+     * Copy a file that every shard produces into a merged directory, unless it was already copied from an earlier shard
+     * during this merge.
+     *
+     * @param file
+     *            The {@link File} to be copied.
+     * @param mergedDirectory
+     *            The directory into which it is to be copied.
+     * @param copiedFiles
+     *            A {@link Set} of the merged files copied so far during this merge, to which the file is added.
+     * @throws IOException
+     *             If the file cannot be copied.
+     */
+    private static void copyIfAbsent(final File file, final File mergedDirectory, final Set<File> copiedFiles)
+            throws IOException {
+        final File merged = new File(mergedDirectory, file.getName());
+        if (copiedFiles.add(merged)) {
+            FileUtils.copyFile(file, merged);
+        }
+    }
+
+    /**
+     * List the files in a directory in name order.
+     *
+     * @param directory
+     *            The directory whose files are to be listed.
+     * @return A {@link List} of the files in the directory; empty if it does not exist.
+     */
+    private static List<File> listFiles(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+}
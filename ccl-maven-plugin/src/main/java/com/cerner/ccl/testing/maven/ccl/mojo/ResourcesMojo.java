@@ -13,7 +13,7 @@ import org.apache.maven.plugins.annotations.Parameter;
  * @author Mark Cummings
  * @author Joshua Hyde
  */
-@Mojo(name = "process-resources")
+@Mojo(name = "process-resources", threadSafe = true)
 public class ResourcesMojo extends BaseCclResourceMojo {
     /**
      * The list of project resources
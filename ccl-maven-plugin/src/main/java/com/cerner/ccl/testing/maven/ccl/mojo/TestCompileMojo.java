@@ -19,7 +19,7 @@ import com.cerner.ccl.j4ccl.CclExecutor;
  * @author Joshua Hyde
  *
  */
-@Mojo(name = "test-compile")
+@Mojo(name = "test-compile", threadSafe = true)
 public class TestCompileMojo extends BaseCclCompilationMojo {
 
     /**
@@ -44,16 +44,20 @@ public class TestCompileMojo extends BaseCclCompilationMojo {
             return;
         }
 
-        Subject subject = getSubject();
-        final CclExecutor executor = createCclExecutor();
-        queueIncludeCompilation(executor, cclTestSourceDirectory);
-        queueScriptCompilation(executor, cclTestSourceDirectory);
-        Subject.doAs(subject, new PrivilegedAction<Void>() {
-            @Override
-            public Void run() {
-                executor.execute();
-                return null;
-            }
-        });
+        try {
+            Subject subject = getSubject();
+            final CclExecutor executor = createCclExecutor();
+            queueIncludeCompilation(executor, cclTestSourceDirectory);
+            queueScriptCompilation(executor, cclTestSourceDirectory);
+            Subject.doAs(subject, new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    executor.execute();
+                    return null;
+                }
+            });
+        } finally {
+            clearThreadSettings();
+        }
     }
 }
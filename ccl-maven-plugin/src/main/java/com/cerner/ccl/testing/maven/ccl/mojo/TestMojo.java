@@ -4,9 +4,22 @@ import java.io.File;
 import java.io.IOException;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
 
 import javax.security.auth.Subject;
 
@@ -20,9 +33,13 @@ import com.cerner.ccl.j4ccl.CclExecutor;
 import com.cerner.ccl.j4ccl.record.Record;
 import com.cerner.ccl.testing.maven.ccl.data.UnitTest;
 import com.cerner.ccl.testing.maven.ccl.exception.TestFailureException;
+import com.cerner.ccl.testing.maven.ccl.util.CoverageCollector;
 import com.cerner.ccl.testing.maven.ccl.util.ProgramListingWriter;
+import com.cerner.ccl.testing.maven.ccl.util.TestResultCollector;
 import com.cerner.ccl.testing.maven.ccl.util.TestResultScanner;
 import com.cerner.ccl.testing.maven.ccl.util.TestResultWriter;
+import com.cerner.ccl.testing.maven.ccl.util.TestRunHistory;
+import com.cerner.ccl.testing.maven.ccl.util.TestSelectionCache;
 import com.cerner.ccl.testing.maven.ccl.util.factory.CclUnitRecordFactory;
 import com.cerner.ccl.testing.maven.ccl.util.factory.ProgramListingWriterFactory;
 import com.cerner.ccl.testing.maven.ccl.util.factory.TestResultScannerFactory;
@@ -35,7 +52,7 @@ import com.cerner.ccl.testing.maven.ccl.util.factory.TestResultWriterFactory;
  * @author Joshua Hyde
  *
  */
-@Mojo(name = "test")
+@Mojo(name = "test", threadSafe = true)
 public class TestMojo extends BaseCclMojo {
     private static final TestResultWriterFactory DEFAULT_RESULT_WRITER_FACTORY = new TestResultWriterFactory();
     private static final ProgramListingWriterFactory DEFAULT_LISTING_WRITER_FACTORY = new ProgramListingWriterFactory();
@@ -140,9 +157,88 @@ public class TestMojo extends BaseCclMojo {
     @Parameter(property = "ccl-failOnTestFailures", defaultValue = "true")
     protected boolean failOnTestFailures;
 
+    /**
+     * The number of CCL sessions over which test cases are run concurrently. The first test case, which compiles the
+     * programs under test and produces their listings, is always run by itself before the others are started. The
+     * output of each test case is written and scanned in the order of the test cases, whatever the order in which they
+     * finish. A value of 1 runs the test cases one after another. The asynchronous execution threads and the connection
+     * pool limit of the host are raised to match if they are lower.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-parallelSessions", defaultValue = "1")
+    protected int parallelSessions;
+
+    /**
+     * Run only the test cases that a change may affect. The programs covered by each test case are recorded in
+     * {@code ccl-test-selection.properties} in the output directory; a test case is skipped, and its results from the
+     * previous run are kept, if all of its tests passed when it was last run with the same settings and neither its own
+     * source nor the source of any program it covered has changed since. A test case with failed or errored tests is
+     * always run again.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-incrementalTest", defaultValue = "false")
+    protected boolean incrementalTest;
+
+    /**
+     * Run only one shard of the test cases, given as {@code <index>/<count>}, such as {@code 2/8} for the second of
+     * eight shards. Each test case is assigned to a shard by a stable hash of its name, so that the shards of a suite
+     * are disjoint and together cover every test case, whichever machine runs them. The outputs of the shards can be
+     * combined with the {@code merge-results} goal.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-shard")
+    protected String shard;
+
+    /**
+     * The file in which the wall-clock duration of each test case, and whether it had failed tests, is recorded after
+     * each run. Test cases are run longest first, those never recorded before any other, so that parallel sessions
+     * finish together, except that the quickest of them is run first, by itself, since it compiles the programs being
+     * tested. A {@link #shard} reads this file but records its runs to {@code ccl-test-history-shard.properties} in the
+     * output directory instead, which the {@code merge-results} goal combines.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-testHistoryFile", defaultValue = "${project.build.directory}/ccl-test-history.properties")
+    protected File testHistoryFile;
+
+    /**
+     * Run the test cases that had failed tests the last time they were run before any other, for faster feedback on
+     * regressions.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-failedTestsFirst", defaultValue = "false")
+    protected boolean failedTestsFirst;
+
+    /**
+     * Assign the test cases to {@link #shard shards} by their recorded durations rather than by a hash of their names,
+     * so that the shards take about the same time. Every shard must read the same {@link #testHistoryFile}, such as one
+     * combined from the shards of a previous run by the {@code merge-results} goal; otherwise the shards may overlap or
+     * miss test cases.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-balanceShards", defaultValue = "false")
+    protected boolean balanceShards;
+
+    /**
+     * Indent the XML of the test results, coverage and listings written to the output directory. The XML is streamed to
+     * disk in either case; turning this off writes it as the CCL Testing Framework returned it, which is smaller for
+     * large coverage output.
+     *
+     * @since 3.5
+     */
+    @Parameter(property = "ccl-indentTestOutput", defaultValue = "true")
+    protected boolean indentTestOutput;
+
     private final TestResultWriterFactory resultWriterFactory;
     private final ProgramListingWriterFactory listingWriterFactory;
     private final TestResultScannerFactory resultScannerFactory;
+    private TestSelectionCache selectionCache;
+    private TestRunHistory runHistory;
 
     /**
      * Create a mojo to execute tests.
@@ -189,7 +285,11 @@ public class TestMojo extends BaseCclMojo {
         if (testSources.isEmpty()) {
             getLog().info("No tests to execute");
         } else {
-            executeTests(getFiles(cclSourceDirectory, CCL_SCRIPTS), testSources, outputDirectory);
+            try {
+                executeTests(getFiles(cclSourceDirectory, CCL_SCRIPTS), testSources, outputDirectory);
+            } finally {
+                clearThreadSettings();
+            }
         }
     }
 
@@ -212,9 +312,15 @@ public class TestMojo extends BaseCclMojo {
     private void executeTests(final List<File> sources, final List<File> testSources, final File outputDirectory)
             throws MojoExecutionException, MojoFailureException {
         final ProgramListingWriter listingWriter = listingWriterFactory.create(outputDirectory);
+        listingWriter.setIndentXml(indentTestOutput);
         final TestResultScanner resultScanner = resultScannerFactory.create();
         final List<String> scriptNames = new ArrayList<String>(sources.size());
         final Collection<UnitTest> failedTests = new ArrayList<UnitTest>();
+        // A shard records its runs apart from the history, so that every shard balances from the same history
+        final boolean sharded = shard != null && !shard.trim().isEmpty();
+        runHistory = testHistoryFile == null ? null
+                : new TestRunHistory(testHistoryFile,
+                        sharded ? new File(outputDirectory, TestRunHistory.SHARD_HISTORY_FILE_NAME) : testHistoryFile);
 
         /*
          * If the test name is set, remove all but the specified test
@@ -239,6 +345,10 @@ public class TestMojo extends BaseCclMojo {
             }
         }
 
+        if (sharded) {
+            selectShard(testSources);
+        }
+
         /*
          * Build the list of source script names by removing the source file extensions
          */
@@ -246,61 +356,47 @@ public class TestMojo extends BaseCclMojo {
             scriptNames.add(sources.indexOf(sourceFile), FileUtils.removeExtension(sourceFile.getName()));
         }
 
-        // Run unit tests for each test include file
-        boolean firstTest = true;
-        for (final File testFile : testSources) {
-            final Record request = CclUnitRecordFactory.createRequest(scriptNames, testFile.getName(),
-                    testSources.indexOf(testFile) == 0, optimizerMode, enforcePredeclare, deprecatedFlag,
-                    testSubroutineName);
-            final Record reply = CclUnitRecordFactory.createReply();
-
-            if (isDebugging()) {
-                getLog().debug("Executing " + CCL_UNIT_PROGRAM + " on " + host + " (" + environment + ")");
-            }
+        if (incrementalTest) {
+            selectTestCases(sources, testSources, scriptNames, testSubroutineName, resultScanner, failedTests);
+        }
 
-            Subject subject = getSubject();
-            final CclExecutor cclExecutor = createCclExecutor();
-            cclExecutor.addScriptExecution(CCL_UNIT_PROGRAM).withReplace("cclutRequest", request)
-                    .withReplace("cclutReply", reply).withAuthentication(true).commit();
-
-            Subject.doAs(subject, new PrivilegedAction<Void>() {
-                @Override
-                public Void run() {
-                    getLog().info("");
-                    getLog().info("executing test case " + testFile.getName());
-                    cclExecutor.execute();
-                    return null;
-                }
-            });
+        if (runHistory != null) {
+            scheduleTestCases(testSources);
+        }
 
-            // Check for failure
-            if ("F".equalsIgnoreCase(reply.getRecord("status_data").getChar("status"))) {
-                throw new MojoFailureException("CCL Testing Framework has reported a failure: "
-                        + reply.getRecord("status_data").getList("subeventstatus").get(0).getVC("TargetObjectValue"));
-            }
+        // Run the first test case by itself, since it compiles the programs under test and produces their listings
+        if (!testSources.isEmpty()) {
+            final File testFile = testSources.get(0);
+            final Record reply = CclUnitRecordFactory.createReply();
+            final CclExecutor cclExecutor = createTestCaseExecutor(scriptNames, testFile, true, testSubroutineName,
+                    reply);
+            final long startTime = System.nanoTime();
+            executeTestCase(testFile, cclExecutor);
+            // Its duration includes the compilation of the programs, so it only stands in for a duration never recorded
+            final long durationMillis = runHistory == null || runHistory.getDuration(testFile.getName()) >= 0 ? -1
+                    : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            processTestCaseReply(testFile, reply, listingWriter, resultScanner, failedTests, durationMillis);
+        }
 
-            try {
-                writeTestOutput(outputDirectory, testFile, reply);
-            } catch (final IOException e) {
-                throw new MojoExecutionException("Failed to write test result data for " + testFile.getName() + ".", e);
-            }
+        if (selectionCache != null && !testSources.isEmpty()) {
+            selectionCache.recordPrograms();
+        }
 
-            if (firstTest) {
-                // Write program listings to target directory
-                for (final Record program : reply.getDynamicList("programs")) {
-                    try {
-                        getLog().info("writing listing for " + program.getVC("programName"));
-                        listingWriter.writeListing(program.getVC("programName"), program.getVC("listingXML"));
-                    } catch (final IOException e) {
-                        throw new MojoExecutionException(
-                                "Failed to write listing data for " + program.getVC("programName"), e);
-                    }
-                }
-                firstTest = false;
+        // Run unit tests for each remaining test include file
+        final List<File> remainingTestFiles = testSources.isEmpty() ? testSources
+                : testSources.subList(1, testSources.size());
+        if (parallelSessions > 1 && remainingTestFiles.size() > 1) {
+            executeTestsConcurrently(scriptNames, remainingTestFiles, testSubroutineName, resultScanner, failedTests);
+        } else {
+            for (final File testFile : remainingTestFiles) {
+                final Record reply = CclUnitRecordFactory.createReply();
+                final CclExecutor cclExecutor = createTestCaseExecutor(scriptNames, testFile, false, testSubroutineName,
+                        reply);
+                final long startTime = System.nanoTime();
+                executeTestCase(testFile, cclExecutor);
+                processTestCaseReply(testFile, reply, null, resultScanner, failedTests,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
             }
-
-            // Check for test failures
-            failedTests.addAll(resultScanner.scanForFailures(reply.getVC("testINCResultsXML")));
         }
 
         if (!failedTests.isEmpty()) {
@@ -317,6 +413,499 @@ public class TestMojo extends BaseCclMojo {
         }
     }
 
+    /**
+     * Execute a test case on the current thread.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file to be executed.
+     * @param cclExecutor
+     *            The {@link CclExecutor} to which the execution of the test case has been committed.
+     * @throws MojoExecutionException
+     *             If the subject as which the test case is to be executed cannot be created.
+     */
+    private void executeTestCase(final File testFile, final CclExecutor cclExecutor) throws MojoExecutionException {
+        Subject.doAs(getSubject(), new PrivilegedAction<Void>() {
+            @Override
+            public Void run() {
+                getLog().info("");
+                getLog().info("executing test case " + testFile.getName());
+                cclExecutor.execute();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Execute test cases concurrently over at most {@link #parallelSessions} CCL sessions. The replies are processed in
+     * the order of the given test files; a reply is processed as soon as it and every reply before it are available. If
+     * a test case cannot be executed or its reply cannot be processed, the test cases still running are cancelled.
+     *
+     * @param scriptNames
+     *            The names of the scripts being tested.
+     * @param testFiles
+     *            A {@link List} of {@link File} objects representing the test include files to be executed.
+     * @param testSubroutineName
+     *            The pattern of the names of the tests to be executed; {@code null} to execute every test.
+     * @param resultScanner
+     *            The {@link TestResultScanner} used to detect failed tests.
+     * @param failedTests
+     *            A {@link Collection} to which the failed tests are to be added.
+     * @throws MojoExecutionException
+     *             If a test case cannot be executed or its output cannot be written.
+     * @throws MojoFailureException
+     *             If the CCL Testing Framework reports a failure.
+     */
+    private void executeTestsConcurrently(final List<String> scriptNames, final List<File> testFiles,
+            final String testSubroutineName, final TestResultScanner resultScanner,
+            final Collection<UnitTest> failedTests) throws MojoExecutionException, MojoFailureException {
+        final Semaphore sessions = new Semaphore(parallelSessions);
+        final List<Record> replies = new ArrayList<Record>(testFiles.size());
+        final List<CompletableFuture<Void>> executions = new ArrayList<CompletableFuture<Void>>(testFiles.size());
+        final List<CompletableFuture<Void>> timedExecutions = new ArrayList<CompletableFuture<Void>>(testFiles.size());
+        final long[] startTimes = new long[testFiles.size()];
+        final AtomicLongArray finishTimes = new AtomicLongArray(testFiles.size());
+        final BiConsumer<Void, Throwable> releaseSession = new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(final Void result, final Throwable failure) {
+                sessions.release();
+            }
+        };
+
+        // Otherwise the executions could be held to fewer threads or connections than there are sessions
+        CclExecutor.getExecutor().ensureAsyncCapacity(parallelSessions);
+        getLog().info("executing " + testFiles.size() + " test cases over " + parallelSessions + " sessions");
+        int processed = 0;
+        try {
+            for (final File testFile : testFiles) {
+                final Record reply = CclUnitRecordFactory.createReply();
+                final CclExecutor cclExecutor = createTestCaseExecutor(scriptNames, testFile, false, testSubroutineName,
+                        reply);
+                try {
+                    sessions.acquire();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while waiting for a CCL session.", e);
+                }
+
+                final int index = executions.size();
+                startTimes[index] = System.nanoTime();
+                final CompletableFuture<Void> execution = Subject.doAs(getSubject(),
+                        new PrivilegedAction<CompletableFuture<Void>>() {
+                            @Override
+                            public CompletableFuture<Void> run() {
+                                getLog().info("executing test case " + testFile.getName());
+                                return cclExecutor.executeAsync();
+                            }
+                        });
+                execution.whenComplete(releaseSession);
+                replies.add(reply);
+                executions.add(execution);
+                // Completes once the finish time is set, so that it is visible when the reply is processed
+                timedExecutions.add(execution.whenComplete(new BiConsumer<Void, Throwable>() {
+                    @Override
+                    public void accept(final Void result, final Throwable failure) {
+                        finishTimes.set(index, System.nanoTime());
+                    }
+                }));
+
+                while (processed < timedExecutions.size() && timedExecutions.get(processed).isDone()) {
+                    awaitTestCase(testFiles.get(processed), timedExecutions.get(processed));
+                    processTestCaseReply(testFiles.get(processed), replies.set(processed, null), null, resultScanner,
+                            failedTests,
+                            TimeUnit.NANOSECONDS.toMillis(finishTimes.get(processed) - startTimes[processed]));
+                    processed++;
+                }
+            }
+
+            for (; processed < timedExecutions.size(); processed++) {
+                awaitTestCase(testFiles.get(processed), timedExecutions.get(processed));
+                processTestCaseReply(testFiles.get(processed), replies.set(processed, null), null, resultScanner,
+                        failedTests, TimeUnit.NANOSECONDS.toMillis(finishTimes.get(processed) - startTimes[processed]));
+            }
+        } finally {
+            for (final CompletableFuture<Void> execution : executions) {
+                execution.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Wait for the execution of a test case to finish.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file being executed.
+     * @param execution
+     *            The {@link CompletableFuture} of the execution.
+     * @throws MojoExecutionException
+     *             If the wait is interrupted or the execution failed with a checked exception.
+     */
+    private void awaitTestCase(final File testFile, final CompletableFuture<Void> execution)
+            throws MojoExecutionException {
+        try {
+            execution.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while executing test case " + testFile.getName() + ".", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MojoExecutionException("Failed to execute test case " + testFile.getName() + ".", cause);
+        }
+    }
+
+    /**
+     * Create an executor that runs a test case.
+     *
+     * @param scriptNames
+     *            The names of the scripts being tested.
+     * @param testFile
+     *            A {@link File} representing the test include file to be executed.
+     * @param compileScripts
+     *            {@code true} if the CCL Testing Framework is to compile the scripts being tested; {@code false}
+     *            otherwise.
+     * @param testSubroutineName
+     *            The pattern of the names of the tests to be executed; {@code null} to execute every test.
+     * @param reply
+     *            The {@link Record} into which the reply of the CCL Testing Framework is to be returned.
+     * @return A {@link CclExecutor} to which the execution of the test case has been committed.
+     * @throws MojoExecutionException
+     *             If the executor cannot be created.
+     * @throws MojoFailureException
+     *             If the executor cannot be created.
+     */
+    private CclExecutor createTestCaseExecutor(final List<String> scriptNames, final File testFile,
+            final boolean compileScripts, final String testSubroutineName, final Record reply)
+            throws MojoExecutionException, MojoFailureException {
+        final Record request = CclUnitRecordFactory.createRequest(scriptNames, testFile.getName(), compileScripts,
+                optimizerMode, enforcePredeclare, deprecatedFlag, testSubroutineName);
+
+        if (isDebugging()) {
+            getLog().debug("Executing " + CCL_UNIT_PROGRAM + " on " + host + " (" + environment + ")");
+        }
+
+        final CclExecutor cclExecutor = createCclExecutor();
+        cclExecutor.addScriptExecution(CCL_UNIT_PROGRAM).withReplace("cclutRequest", request)
+                .withReplace("cclutReply", reply).withAuthentication(true).commit();
+        return cclExecutor;
+    }
+
+    /**
+     * Check the reply of a test case for a failure of the CCL Testing Framework, write its output and collect its
+     * failed tests.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file that was executed.
+     * @param reply
+     *            The {@link Record} holding the reply of the CCL Testing Framework.
+     * @param listingWriter
+     *            The {@link ProgramListingWriter} to which the listings of the programs being tested are to be written;
+     *            {@code null} if they are not to be written.
+     * @param resultScanner
+     *            The {@link TestResultScanner} used to detect failed tests.
+     * @param failedTests
+     *            A {@link Collection} to which the failed tests are to be added.
+     * @param durationMillis
+     *            The wall-clock duration of the test case, in milliseconds, to be recorded in the run history; a
+     *            negative value keeps the duration previously recorded.
+     * @throws MojoExecutionException
+     *             If the output of the test case cannot be written.
+     * @throws MojoFailureException
+     *             If the CCL Testing Framework reports a failure.
+     */
+    private void processTestCaseReply(final File testFile, final Record reply, final ProgramListingWriter listingWriter,
+            final TestResultScanner resultScanner, final Collection<UnitTest> failedTests, final long durationMillis)
+            throws MojoExecutionException, MojoFailureException {
+        // Check for failure
+        if ("F".equalsIgnoreCase(reply.getRecord("status_data").getChar("status"))) {
+            throw new MojoFailureException("CCL Testing Framework has reported a failure: "
+                    + reply.getRecord("status_data").getList("subeventstatus").get(0).getVC("TargetObjectValue"));
+        }
+
+        // The test results are scanned for failures as they are written
+        final TestResultCollector testResults = resultScanner.createCollector();
+        final Collection<String> coveredPrograms = new ArrayList<String>();
+        try {
+            writeTestOutput(outputDirectory, testFile, reply, testResults, coveredPrograms);
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Failed to write test result data for " + testFile.getName() + ".", e);
+        }
+
+        if (listingWriter != null) {
+            // Write program listings to target directory
+            for (final Record program : reply.getDynamicList("programs")) {
+                try {
+                    getLog().info("writing listing for " + program.getVC("programName"));
+                    listingWriter.writeListing(program.getVC("programName"), program.getVC("listingXML"));
+                } catch (final IOException e) {
+                    throw new MojoExecutionException("Failed to write listing data for " + program.getVC("programName"),
+                            e);
+                }
+            }
+        }
+
+        // Check for test failures
+        final Collection<UnitTest> testCaseFailures = testResults.getFailedTests();
+        failedTests.addAll(testCaseFailures);
+        getLog().info(testFile.getName() + ": " + testResults.getPassedCount() + " passed, "
+                + testResults.getFailedCount() + " failed, " + testResults.getErroredCount() + " errored");
+
+        if (runHistory != null) {
+            runHistory.record(testFile.getName(), durationMillis, !testCaseFailures.isEmpty());
+        }
+
+        // Only a test case that passed can be skipped the next time; any other is run again
+        if (selectionCache != null) {
+            if (testCaseFailures.isEmpty() && testResults.getErroredCount() == 0) {
+                selectionCache.record(testFile.getName(), testFile, coveredPrograms);
+            } else {
+                selectionCache.remove(testFile.getName());
+            }
+        }
+    }
+
+    /**
+     * Remove from the test cases to be run those that are current in the test selection cache and whose results from
+     * the previous run are still present, collecting the failed tests from those results instead. If a program has
+     * changed but no test case is left to run, the first test case is run anyway, so that the programs are compiled and
+     * their listings written.
+     *
+     * @param sources
+     *            A {@link List} of {@link File} objects representing the sources of the programs being tested.
+     * @param testSources
+     *            A {@link List} of {@link File} objects representing the test include files, from which the current
+     *            test cases are removed.
+     * @param scriptNames
+     *            The names of the scripts being tested.
+     * @param testSubroutineName
+     *            The pattern of the names of the tests to be executed; {@code null} to execute every test.
+     * @param resultScanner
+     *            The {@link TestResultScanner} used to detect failed tests.
+     * @param failedTests
+     *            A {@link Collection} to which the failed tests of the skipped test cases are to be added.
+     * @throws MojoExecutionException
+     *             If the results of a skipped test case cannot be read.
+     */
+    private void selectTestCases(final List<File> sources, final List<File> testSources, final List<String> scriptNames,
+            final String testSubroutineName, final TestResultScanner resultScanner,
+            final Collection<UnitTest> failedTests) throws MojoExecutionException {
+        final Map<String, File> programSources = new HashMap<String, File>();
+        for (final File sourceFile : sources) {
+            programSources.put(FileUtils.removeExtension(sourceFile.getName()), sourceFile);
+        }
+        final String settings = String.join(",", scriptNames) + "|" + testSubroutineName + "|" + optimizerMode + "|"
+                + enforcePredeclare + "|" + deprecatedFlag + "|" + host + "|" + environment;
+        selectionCache = new TestSelectionCache(new File(outputDirectory, "ccl-test-selection.properties"),
+                programSources, Arrays.asList(cclSourceDirectory, cclTestSourceDirectory), settings);
+
+        final Map<File, Collection<UnitTest>> keptFailures = new LinkedHashMap<File, Collection<UnitTest>>();
+        for (final File testFile : testSources) {
+            final File resultsFile = TestResultWriter.getTestResultsFile(getTestName(testFile), outputDirectory);
+            if (!resultsFile.isFile() || !selectionCache.isCurrent(testFile.getName(), testFile)) {
+                continue;
+            }
+
+            try {
+                keptFailures.put(testFile, resultScanner.scanForFailures(FileUtils.fileRead(resultsFile, "utf-8")));
+            } catch (final IOException e) {
+                throw new MojoExecutionException("Failed to read previous test results for " + testFile.getName(), e);
+            }
+        }
+
+        if (keptFailures.size() == testSources.size() && !testSources.isEmpty()
+                && selectionCache.haveProgramsChanged()) {
+            keptFailures.remove(testSources.get(0));
+        }
+
+        for (final Map.Entry<File, Collection<UnitTest>> kept : keptFailures.entrySet()) {
+            getLog().info("test case " + kept.getKey().getName() + " is unchanged; keeping its previous results");
+            failedTests.addAll(kept.getValue());
+            testSources.remove(kept.getKey());
+        }
+    }
+
+    /**
+     * Remove from the test cases to be run those that do not belong to the configured {@link #shard}.
+     *
+     * @param testSources
+     *            A {@link List} of {@link File} objects representing the test include files, from which the test cases
+     *            of other shards are removed.
+     * @throws MojoFailureException
+     *             If the shard is not of the form {@code <index>/<count>} with {@code 1 <= index <= count}.
+     */
+    private void selectShard(final List<File> testSources) throws MojoFailureException {
+        final int separator = shard.indexOf('/');
+        int shardIndex = 0;
+        int shardCount = 0;
+        try {
+            if (separator > 0) {
+                shardIndex = Integer.parseInt(shard.substring(0, separator).trim());
+                shardCount = Integer.parseInt(shard.substring(separator + 1).trim());
+            }
+        } catch (final NumberFormatException e) {
+            throw new MojoFailureException("Invalid shard " + shard + "; expected <index>/<count>.", e);
+        }
+        if (shardCount < 1 || shardIndex < 1 || shardIndex > shardCount) {
+            throw new MojoFailureException("Invalid shard " + shard + "; expected <index>/<count>.");
+        }
+
+        final Map<File, Integer> balancedShards = balanceShards && runHistory != null
+                ? getBalancedShardIndexes(testSources, shardCount)
+                : null;
+        final Iterator<File> it = testSources.iterator();
+        while (it.hasNext()) {
+            final File testFile = it.next();
+            final int testShardIndex = balancedShards == null ? getShardIndex(testFile, shardCount)
+                    : balancedShards.get(testFile);
+            if (testShardIndex != shardIndex) {
+                it.remove();
+            }
+        }
+        getLog().info("running " + testSources.size() + " test cases of shard " + shardIndex + " of " + shardCount
+                + (balancedShards == null ? "" : ", balanced by recorded duration"));
+    }
+
+    /**
+     * Assign test cases to shards so that the shards take about the same time: each test case, the longest first, is
+     * added to the shard with the least total duration so far. A test case with no recorded duration is assumed to take
+     * the average recorded duration. The assignment depends only on the test cases and the run history, not on their
+     * order, so that every shard that reads the same history makes the same assignment.
+     *
+     * @param testSources
+     *            A {@link List} of {@link File} objects representing the test include files of every shard.
+     * @param shardCount
+     *            The number of shards.
+     * @return A {@link Map} of each test include file to the 1-based index of its shard; {@code null} if no duration is
+     *         recorded for any of the test cases.
+     */
+    private Map<File, Integer> getBalancedShardIndexes(final List<File> testSources, final int shardCount) {
+        long totalDuration = 0;
+        int recordedCount = 0;
+        for (final File testFile : testSources) {
+            final long duration = runHistory.getDuration(testFile.getName());
+            if (duration >= 0) {
+                totalDuration += duration;
+                recordedCount++;
+            }
+        }
+        if (recordedCount == 0) {
+            getLog().info("no test case durations are recorded; assigning shards by test case name");
+            return null;
+        }
+
+        final Map<File, Long> durations = new HashMap<File, Long>();
+        for (final File testFile : testSources) {
+            final long duration = runHistory.getDuration(testFile.getName());
+            durations.put(testFile, duration >= 0 ? duration : totalDuration / recordedCount);
+        }
+
+        final List<File> longestFirst = new ArrayList<File>(testSources);
+        Collections.sort(longestFirst, new Comparator<File>() {
+            @Override
+            public int compare(final File first, final File second) {
+                final int byDuration = Long.compare(durations.get(second), durations.get(first));
+                return byDuration != 0 ? byDuration
+                        : getTestName(first).toLowerCase(Locale.ROOT)
+                                .compareTo(getTestName(second).toLowerCase(Locale.ROOT));
+            }
+        });
+
+        final long[] shardDurations = new long[shardCount];
+        final Map<File, Integer> shardIndexes = new HashMap<File, Integer>();
+        for (final File testFile : longestFirst) {
+            int shortestShard = 0;
+            for (int index = 1; index < shardCount; index++) {
+                if (shardDurations[index] < shardDurations[shortestShard]) {
+                    shortestShard = index;
+                }
+            }
+            shardDurations[shortestShard] += durations.get(testFile);
+            shardIndexes.put(testFile, shortestShard + 1);
+        }
+        return shardIndexes;
+    }
+
+    /**
+     * Order the test cases to be run by their run history: those that had failed tests first, if
+     * {@link #failedTestsFirst} is set, then the longest first, with those never recorded before any other. The
+     * quickest of the test cases that would be run first is then moved to the front, since the first test case is run
+     * by itself while it compiles the programs being tested, and its duration is not representative; this also lets a
+     * test case that has never been recorded be run later and recorded.
+     *
+     * @param testSources
+     *            A {@link List} of {@link File} objects representing the test include files, which is sorted in place.
+     */
+    private void scheduleTestCases(final List<File> testSources) {
+        final Comparator<File> byFailure = new Comparator<File>() {
+            @Override
+            public int compare(final File first, final File second) {
+                return failedTestsFirst
+                        ? Boolean.compare(runHistory.hasFailed(second.getName()), runHistory.hasFailed(first.getName()))
+                        : 0;
+            }
+        };
+        Collections.sort(testSources, new Comparator<File>() {
+            @Override
+            public int compare(final File first, final File second) {
+                final int byFailed = byFailure.compare(first, second);
+                return byFailed != 0 ? byFailed
+                        : Long.compare(getScheduledDuration(second), getScheduledDuration(first));
+            }
+        });
+
+        if (testSources.size() > 1) {
+            int quickest = 0;
+            for (int index = 1; index < testSources.size()
+                    && byFailure.compare(testSources.get(0), testSources.get(index)) == 0; index++) {
+                final long duration = getScheduledDuration(testSources.get(index));
+                if (duration < getScheduledDuration(testSources.get(quickest))) {
+                    quickest = index;
+                }
+            }
+            testSources.add(0, testSources.remove(quickest));
+        }
+    }
+
+    /**
+     * Get the duration by which a test case is scheduled.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file.
+     * @return The recorded duration of the test case, in milliseconds; {@link Long#MAX_VALUE} if none is recorded.
+     */
+    private long getScheduledDuration(final File testFile) {
+        final long duration = runHistory.getDuration(testFile.getName());
+        return duration < 0 ? Long.MAX_VALUE : duration;
+    }
+
+    /**
+     * Get the shard to which a test case belongs.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file.
+     * @param shardCount
+     *            The number of shards.
+     * @return The 1-based index of the shard of the test case.
+     */
+    static int getShardIndex(final File testFile, final int shardCount) {
+        return Math.floorMod(getTestName(testFile).toLowerCase(Locale.ROOT).hashCode(), shardCount) + 1;
+    }
+
+    /**
+     * Get the name of a test case, which is the name of its test include file without its extension.
+     *
+     * @param testFile
+     *            A {@link File} representing the test include file.
+     * @return The name of the test case.
+     */
+    private static String getTestName(final File testFile) {
+        return testFile.getName().substring(0, testFile.getName().lastIndexOf('.'));
+    }
+
     /**
      * Writes the test output to the local disk.
      *
@@ -327,25 +916,34 @@ public class TestMojo extends BaseCclMojo {
      *            A {@link File} object representing the test file for which test data is to be written out.
      * @param reply
      *            A {@link Record} object containing the reply data from the CCL unit testing framework.
+     * @param testResults
+     *            The {@link TestResultCollector} to which the test results are passed as they are written.
+     * @param coveredPrograms
+     *            A {@link Collection} to which the names of the programs in which at least one line was covered are
+     *            added as their coverage is written.
      * @throws IOException
      *             If any errors occur during the test run.
      */
-    private void writeTestOutput(final File outputDirectory, final File testFile, final Record reply)
-            throws IOException {
-        final String nonSuffixedName = testFile.getName().substring(0, testFile.getName().lastIndexOf('.'));
-        final TestResultWriter writer = resultWriterFactory.create(nonSuffixedName, outputDirectory);
+    private void writeTestOutput(final File outputDirectory, final File testFile, final Record reply,
+            final TestResultCollector testResults, final Collection<String> coveredPrograms) throws IOException {
+        final TestResultWriter writer = resultWriterFactory.create(getTestName(testFile), outputDirectory);
+        writer.setIndentXml(indentTestOutput);
 
         writer.writeEnvironmentXml(reply.getVC("environmentXml"));
         getLog().info("writing listing for " + testFile.getName());
         writer.writeTestListing(reply.getVC("testINCListingXML"));
         getLog().info("writing results for " + testFile.getName());
-        writer.writeTestResults(reply.getVC("testINCResultsXML"));
+        writer.writeTestResults(reply.getVC("testINCResultsXML"), testResults);
         getLog().info("writing coverage for " + testFile.getName());
         writer.writeTestCoverage(reply.getVC("testINCCoverageXML"));
 
         for (final Record record : reply.getDynamicList("programs")) {
             getLog().info("writing test case coverage for " + record.getVC("programName"));
-            writer.writeTestProgramCoverage(record.getVC("programName"), record.getVC("coverageXML"));
+            final CoverageCollector coverage = new CoverageCollector();
+            writer.writeTestProgramCoverage(record.getVC("programName"), record.getVC("coverageXML"), coverage);
+            if (coverage.isCovered()) {
+                coveredPrograms.add(record.getVC("programName"));
+            }
         }
     }
 }
@@ -14,7 +14,7 @@ import org.apache.maven.plugins.annotations.Parameter;
  * @author Joshua Hyde
  *
  */
-@Mojo(name = "process-test-resources")
+@Mojo(name = "process-test-resources", threadSafe = true)
 public class TestResourcesMojo extends BaseCclResourceMojo {
     /**
      * The list of project test resources
@@ -30,7 +30,7 @@ import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
  * @author Joshua Hyde
  * @since 1.1
  */
-@Mojo(name = "validate", defaultPhase = LifecyclePhase.VALIDATE)
+@Mojo(name = "validate", defaultPhase = LifecyclePhase.VALIDATE, threadSafe = true)
 public class ValidateMojo extends BaseCclMojo {
     /**
      * The rule that dictates the required state of the environment. An example configuration is:
@@ -52,7 +52,11 @@ public class ValidateMojo extends BaseCclMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        validateTestFrameworkVersion();
+        try {
+            validateTestFrameworkVersion();
+        } finally {
+            clearThreadSettings();
+        }
     }
 
     /**
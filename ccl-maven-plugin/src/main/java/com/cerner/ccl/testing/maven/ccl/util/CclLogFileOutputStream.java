@@ -6,19 +6,23 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 import org.apache.commons.io.FileUtils;
 
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+
 /**
- * An {@link OutputStream} that pipes input to a file.
+ * An {@link OutputStream} that pipes input to a file. Lines handed to it as a {@link LineConsumer} are written to the
+ * file as UTF-8, each terminated by {@code \n}.
  *
  * @author Joshua Hyde
  *
  */
 
-public class CclLogFileOutputStream extends OutputStream {
+public class CclLogFileOutputStream extends OutputStream implements LineConsumer {
     private final FileOutputStream out;
     private final File logFile;
 
@@ -83,4 +87,18 @@ public class CclLogFileOutputStream extends OutputStream {
     public void write(final int b) throws IOException {
         out.write(b);
     }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void consume(final String line) {
+        try {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write line to CCL console log file.", e);
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+/**
+ * An {@link XmlContentListener} that determines, as a coverage XML document from the CCL unit testing framework is
+ * streamed, whether any line of the program it describes was covered, which is the case if any {@code <TYPE/>} element
+ * holds {@code C}.
+ */
+
+public class CoverageCollector implements XmlContentListener {
+    private final StringBuilder text = new StringBuilder();
+    private boolean covered;
+
+    @Override
+    public void startElement(final String name) {
+        text.setLength(0);
+    }
+
+    @Override
+    public void characters(final String characters) {
+        if (!covered)
+            text.append(characters);
+    }
+
+    @Override
+    public void endElement(final String name) {
+        if ("TYPE".equalsIgnoreCase(name) && "C".equalsIgnoreCase(text.toString().trim()))
+            covered = true;
+        text.setLength(0);
+    }
+
+    /**
+     * Determine whether the program was covered.
+     *
+     * @return {@code true} if at least one line was covered; {@code false} otherwise.
+     */
+    public boolean isCovered() {
+        return covered;
+    }
+}
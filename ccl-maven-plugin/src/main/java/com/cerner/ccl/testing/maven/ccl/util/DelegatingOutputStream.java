@@ -2,19 +2,25 @@ package com.cerner.ccl.testing.maven.ccl.util;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+
 /**
- * An {@link OutputStream} that delegates its work to an underlying collection of {@code OutputStream} objects.
+ * An {@link OutputStream} that delegates its work to an underlying collection of {@code OutputStream} objects. <br>
+ * As a {@link LineConsumer}, it hands each line to the delegates that are line consumers themselves and writes it,
+ * terminated by {@code \n}, to the others.
  *
  * @author Joshua Hyde
  *
  */
 
-public class DelegatingOutputStream extends OutputStream {
+public class DelegatingOutputStream extends OutputStream implements LineConsumer {
     private final List<OutputStream> streams = new ArrayList<OutputStream>();
 
     /**
@@ -60,4 +66,29 @@ public class DelegatingOutputStream extends OutputStream {
             stream.write(b);
     }
 
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        for (final OutputStream stream : streams)
+            stream.write(b, off, len);
+    }
+
+    @Override
+    public void consume(final String line) {
+        byte[] bytes = null;
+        for (final OutputStream stream : streams) {
+            if (stream instanceof LineConsumer) {
+                ((LineConsumer) stream).consume(line);
+                continue;
+            }
+
+            if (bytes == null)
+                bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            try {
+                stream.write(bytes);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to write line to output stream.", e);
+            }
+        }
+    }
+
 }
@@ -4,14 +4,17 @@ import java.io.OutputStream;
 
 import org.apache.maven.plugin.logging.Log;
 
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+
 /**
- * An output stream that proxies its input to {@link Log#debug(CharSequence)}.
+ * An output stream that proxies its input to {@link Log#debug(CharSequence)}. Lines handed to it as a
+ * {@link LineConsumer} are logged as they are.
  *
  * @author Joshua Hyde
  *
  */
 
-public class LogOutputStreamProxy extends OutputStream {
+public class LogOutputStreamProxy extends OutputStream implements LineConsumer {
     /**
      * An interface that provides an anonymous method of injecting the desired behavior of the logger into this proxy.
      * For example, the injector may want to use {@link Log#info(CharSequence)} or {@link Log#debug(CharSequence)}; this
@@ -57,6 +60,11 @@ public class LogOutputStreamProxy extends OutputStream {
         flush();
     }
 
+    @Override
+    public void consume(final String line) {
+        logProxy.log(line);
+    }
+
     @Override
     public void flush() {
         if (builder.length() > 0) {
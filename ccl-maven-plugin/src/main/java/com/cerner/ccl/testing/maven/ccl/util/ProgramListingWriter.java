@@ -25,8 +25,8 @@ import org.apache.commons.io.FileUtils;
 
 public class ProgramListingWriter {
     private final Set<String> listingsWritten = new HashSet<String>();
-    private final XmlFormatter formatter;
     private final File listingsDirectory;
+    private XmlFormatter formatter;
 
     /**
      * Create a compilation listing writer.
@@ -46,6 +46,17 @@ public class ProgramListingWriter {
         formatter = new XmlFormatter();
     }
 
+    /**
+     * Set whether the listings written by this writer are indented.
+     *
+     * @param indentXml
+     *            {@code true} if the XML is to be indented; {@code false} if it is to be written as it is. The default
+     *            is {@code true}.
+     */
+    public void setIndentXml(final boolean indentXml) {
+        formatter = new XmlFormatter(indentXml);
+    }
+
     /**
      * Determine whether or not this instance has written out the listing information for the given object.
      *
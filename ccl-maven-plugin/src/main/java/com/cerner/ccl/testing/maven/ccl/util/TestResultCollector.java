@@ -0,0 +1,178 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import com.cerner.ccl.testing.maven.ccl.data.Assertion;
+import com.cerner.ccl.testing.maven.ccl.data.UnitTest;
+import com.cerner.ccl.testing.maven.ccl.data.enums.AssertionStatus;
+import com.cerner.ccl.testing.maven.ccl.data.enums.UnitTestStatus;
+
+/**
+ * An {@link XmlContentListener} that collects the outcome of the tests in a test execution XML document from the CCL
+ * unit testing framework as the document is streamed: the number of tests that passed, failed or errored, and the
+ * failed tests together with their failed assertions.
+ */
+
+public class TestResultCollector implements XmlContentListener {
+    private static final String UNAVAILABLE_TEST_NAME = "<Test Name Unavailable>";
+
+    private final Deque<String> elements = new ArrayDeque<String>();
+    private final StringBuilder text = new StringBuilder();
+    private final Collection<UnitTest> failedTests = new ArrayList<UnitTest>();
+    private int passedCount;
+    private int failedCount;
+    private int erroredCount;
+
+    private String testName;
+    private String testResult;
+    private final List<Assertion> failedAssertions = new ArrayList<Assertion>();
+
+    private String assertLineNumber;
+    private String assertContext;
+    private String assertResult;
+    private String assertCondition;
+
+    @Override
+    public void startElement(final String name) {
+        final String parent = elements.peek();
+        elements.push(name);
+        text.setLength(0);
+
+        if (isTest(name, parent)) {
+            testName = null;
+            testResult = null;
+            failedAssertions.clear();
+        } else if ("ASSERT".equalsIgnoreCase(name)) {
+            assertLineNumber = null;
+            assertContext = null;
+            assertResult = null;
+            assertCondition = null;
+        }
+    }
+
+    @Override
+    public void characters(final String characters) {
+        text.append(characters);
+    }
+
+    @Override
+    public void endElement(final String name) {
+        elements.pop();
+        final String parent = elements.peek();
+        final String value = text.toString();
+        text.setLength(0);
+
+        if ("TEST".equalsIgnoreCase(parent)) {
+            if ("NAME".equalsIgnoreCase(name))
+                testName = value;
+            else if ("RESULT".equalsIgnoreCase(name))
+                testResult = value;
+        } else if ("ASSERT".equalsIgnoreCase(parent)) {
+            if ("LINENUMBER".equalsIgnoreCase(name))
+                assertLineNumber = value;
+            else if ("CONTEXT".equalsIgnoreCase(name))
+                assertContext = value;
+            else if ("RESULT".equalsIgnoreCase(name))
+                assertResult = value;
+            else if ("TEST".equalsIgnoreCase(name) || "CONDITION".equalsIgnoreCase(name))
+                assertCondition = value;
+        } else if ("ASSERTS".equalsIgnoreCase(parent) && "ASSERT".equalsIgnoreCase(name)) {
+            collectAssertion();
+        }
+
+        if (isTest(name, parent))
+            collectTest();
+    }
+
+    /**
+     * Get the tests that failed or errored.
+     *
+     * @return A {@link Collection} of {@link UnitTest} objects representing the tests that did not pass, each holding
+     *         its failed assertions.
+     */
+    public Collection<UnitTest> getFailedTests() {
+        if (failedTests.isEmpty())
+            return Collections.<UnitTest> emptyList();
+        return Collections.unmodifiableCollection(failedTests);
+    }
+
+    /**
+     * Get the number of tests that passed.
+     *
+     * @return The number of tests whose result was {@code PASSED}.
+     */
+    public int getPassedCount() {
+        return passedCount;
+    }
+
+    /**
+     * Get the number of tests that failed.
+     *
+     * @return The number of tests whose result was neither {@code PASSED} nor {@code ERRORED}.
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Get the number of tests that errored.
+     *
+     * @return The number of tests whose result was {@code ERRORED}.
+     */
+    public int getErroredCount() {
+        return erroredCount;
+    }
+
+    /**
+     * Determine whether an element is a test, as opposed to the condition of an assertion.
+     *
+     * @param name
+     *            The name of the element.
+     * @param parent
+     *            The name of the parent of the element; {@code null} for the root element.
+     * @return {@code true} if the element is a {@code <TEST/>} element outside of an {@code <ASSERT/>} element.
+     */
+    private static boolean isTest(final String name, final String parent) {
+        return "TEST".equalsIgnoreCase(name) && !"ASSERT".equalsIgnoreCase(parent);
+    }
+
+    /**
+     * Add the assertion that has just ended to the failed assertions of the current test, if it did not pass.
+     */
+    private void collectAssertion() {
+        if (assertResult == null || "PASSED".equalsIgnoreCase(assertResult))
+            return;
+
+        final int lineNumber = assertLineNumber == null ? -1 : Integer.parseInt(assertLineNumber.trim());
+        final String context = assertContext == null ? "null" : assertContext;
+        failedAssertions.add(new Assertion(assertCondition, context, AssertionStatus.FAILED, lineNumber));
+    }
+
+    /**
+     * Count the test that has just ended and, if it did not pass, add it to the failed tests.
+     */
+    private void collectTest() {
+        if (testResult == null)
+            return;
+
+        if ("PASSED".equalsIgnoreCase(testResult)) {
+            passedCount++;
+            return;
+        }
+
+        if ("ERRORED".equalsIgnoreCase(testResult))
+            erroredCount++;
+        else
+            failedCount++;
+
+        final UnitTest test = new UnitTest(testName == null ? UNAVAILABLE_TEST_NAME : testName, UnitTestStatus.FAILED);
+        for (final Assertion failure : failedAssertions)
+            test.addAssertion(failure);
+        failedTests.add(test);
+    }
+}
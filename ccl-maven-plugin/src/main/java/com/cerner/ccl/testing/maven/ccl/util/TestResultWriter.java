@@ -29,12 +29,14 @@ import org.codehaus.plexus.util.FileUtils;
 
 public class TestResultWriter {
     private static final XmlFormatter formatter = new XmlFormatter();
+    private static final XmlFormatter unindentedFormatter = new XmlFormatter(false);
 
     private final String testName;
     private final File testResultsDirectory;
     private final File testDataDirectory;
     private final File testCoverageDirectory;
     private boolean environmentXmlHasBeenWritten = false;
+    private boolean indentXml = true;
 
     /**
      * Create a test result writer.
@@ -60,6 +62,32 @@ public class TestResultWriter {
             FileUtils.mkdir(testCoverageDirectory.getAbsolutePath());
     }
 
+    /**
+     * Get the file to which the results of a test are written.
+     *
+     * @param testName
+     *            The name of the test.
+     * @param outputDirectory
+     *            A {@link File} object representing the directory under which the test data is written. This should be
+     *            ${project.build.directory}.
+     * @return A {@link File} representing the test results XML of the test.
+     */
+    public static File getTestResultsFile(final String testName, final File outputDirectory) {
+        return new File(new File(new File(outputDirectory, "test-results"), testName.toLowerCase(Locale.getDefault())),
+                "test-results.xml");
+    }
+
+    /**
+     * Set whether the XML written by this writer is indented.
+     *
+     * @param indentXml
+     *            {@code true} if the XML is to be indented; {@code false} if it is to be written as it is. The default
+     *            is {@code true}.
+     */
+    public void setIndentXml(final boolean indentXml) {
+        this.indentXml = indentXml;
+    }
+
     /**
      * Writes xml data to a file named environment.xml in the test-results directory, but only if this has not been done
      * previously by this instance.
@@ -100,8 +128,21 @@ public class TestResultWriter {
      *            The XML representing the test results.
      */
     public void writeTestResults(final String xml) {
+        writeTestResults(xml, null);
+    }
+
+    /**
+     * Write the results of the test run to the local disk, passing their content to a listener in the same pass.
+     *
+     * @param xml
+     *            The XML representing the test results.
+     * @param listener
+     *            An {@link XmlContentListener}, such as a {@link TestResultCollector}, to which the content of the
+     *            results is passed as it is written; may be {@code null}.
+     */
+    public void writeTestResults(final String xml, final XmlContentListener listener) {
         try {
-            writeXmlToFile(xml, new File(testDataDirectory, "test-results.xml"));
+            writeXmlToFile(xml, new File(testDataDirectory, "test-results.xml"), listener);
         } catch (RuntimeException e) {
             throw new RuntimeException("failed to write test results for " + testName, e);
         }
@@ -131,9 +172,26 @@ public class TestResultWriter {
      *            The XML representing the code coverage.
      */
     public void writeTestProgramCoverage(final String cclObjectName, final String xml) {
+        writeTestProgramCoverage(cclObjectName, xml, null);
+    }
+
+    /**
+     * Write the coverage of a program by the given test, passing its content to a listener in the same pass.
+     *
+     * @param cclObjectName
+     *            The name of the CCL script (without the .prg extension) that was tested. This will be the base of the
+     *            name of the file created.
+     * @param xml
+     *            The XML representing the code coverage.
+     * @param listener
+     *            An {@link XmlContentListener}, such as a {@link CoverageCollector}, to which the content of the
+     *            coverage is passed as it is written; may be {@code null}.
+     */
+    public void writeTestProgramCoverage(final String cclObjectName, final String xml,
+            final XmlContentListener listener) {
         try {
             writeXmlToFile(xml,
-                    new File(testCoverageDirectory, cclObjectName.toLowerCase(Locale.getDefault()) + ".xml"));
+                    new File(testCoverageDirectory, cclObjectName.toLowerCase(Locale.getDefault()) + ".xml"), listener);
         } catch (RuntimeException e) {
             throw new RuntimeException(
                     "failed to write program coverage for " + cclObjectName.toLowerCase(Locale.getDefault()), e);
@@ -149,6 +207,20 @@ public class TestResultWriter {
      *            The file to which the XML data is to be written.
      */
     private void writeXmlToFile(final String xml, final File file) {
-        formatter.formatAndWriteXml(xml, file);
+        writeXmlToFile(xml, file, null);
+    }
+
+    /**
+     * Write XML out to a file.
+     *
+     * @param xml
+     *            The XML to be written.
+     * @param file
+     *            The file to which the XML data is to be written.
+     * @param listener
+     *            An {@link XmlContentListener} to which the content of the XML is passed; may be {@code null}.
+     */
+    private void writeXmlToFile(final String xml, final File file, final XmlContentListener listener) {
+        (indentXml ? formatter : unindentedFormatter).formatAndWriteXml(xml, file, listener);
     }
 }
@@ -0,0 +1,168 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * A record, kept between builds, of how long each test case took to run and whether it had failed tests the last time
+ * it was run. It is used to schedule test cases: the longest first, so that parallel sessions finish together, the
+ * previously failed first, for faster feedback, and to balance shards by run time.
+ */
+
+public class TestRunHistory {
+    /**
+     * The name of the file, in the output directory of a shard, to which the runs of the shard are recorded.
+     */
+    public static final String SHARD_HISTORY_FILE_NAME = "ccl-test-history-shard.properties";
+    private static final String TEST_PREFIX = "test.";
+    private static final String SEPARATOR = "\t";
+    private static final String FAILED = "failed";
+    private static final String PASSED = "passed";
+
+    private final File file;
+    private final Properties entries = new Properties();
+    private final Properties storedEntries;
+
+    /**
+     * Create a history, loading the entries previously saved to the given file. The entries are discarded if the file
+     * cannot be read.
+     *
+     * @param file
+     *            A {@link File} representing the location of the history.
+     */
+    public TestRunHistory(final File file) {
+        this(file, file);
+    }
+
+    /**
+     * Create a history, loading the entries previously saved to one file and saving only the runs recorded from now on
+     * to another, so that the loaded history is left as it is for others reading it, such as the other shards of a
+     * suite. The loaded entries are discarded if the file cannot be read.
+     *
+     * @param file
+     *            A {@link File} representing the location of the history to be loaded.
+     * @param resultsFile
+     *            A {@link File} representing the location to which the recorded runs are to be saved; if it is the same
+     *            as the history to be loaded, the whole history is saved there.
+     */
+    public TestRunHistory(final File file, final File resultsFile) {
+        this.file = resultsFile;
+        this.storedEntries = file.equals(resultsFile) ? entries : new Properties();
+        if (!file.isFile())
+            return;
+
+        try (InputStream in = new FileInputStream(file)) {
+            entries.load(in);
+        } catch (final IOException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get the duration of the last run of a test case.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @return The duration, in milliseconds, of the last run of the test case; {@code -1} if it has not been recorded.
+     */
+    public long getDuration(final String testName) {
+        final String[] fields = getFields(testName);
+        if (fields == null)
+            return -1;
+
+        try {
+            return Long.parseLong(fields[0]);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Determine whether a test case had failed tests the last time it was run.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @return {@code true} if the last recorded run of the test case had failed tests; {@code false} otherwise.
+     */
+    public boolean hasFailed(final String testName) {
+        final String[] fields = getFields(testName);
+        return fields != null && fields.length > 1 && FAILED.equals(fields[1]);
+    }
+
+    /**
+     * Record the run of a test case and save the history.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @param durationMillis
+     *            The wall-clock duration of the run, in milliseconds; a negative value, for a run whose duration is not
+     *            representative, keeps the duration previously recorded.
+     * @param failed
+     *            {@code true} if the test case had failed tests; {@code false} otherwise.
+     */
+    public void record(final String testName, final long durationMillis, final boolean failed) {
+        final long duration = durationMillis < 0 ? getDuration(testName) : durationMillis;
+        final String value = duration + SEPARATOR + (failed ? FAILED : PASSED);
+        entries.setProperty(getKey(testName), value);
+        storedEntries.setProperty(getKey(testName), value);
+        store();
+    }
+
+    /**
+     * Add the test cases recorded in another history, such as that of a shard, replacing those recorded in this
+     * history, and save the history.
+     *
+     * @param other
+     *            The {@link TestRunHistory} to be added.
+     */
+    public void recordAll(final TestRunHistory other) {
+        entries.putAll(other.entries);
+        storedEntries.putAll(other.entries);
+        store();
+    }
+
+    /**
+     * Get the recorded fields of a test case.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @return The fields of the test case; {@code null} if it has not been recorded.
+     */
+    private String[] getFields(final String testName) {
+        final String value = entries.getProperty(getKey(testName));
+        return value == null ? null : value.split(SEPARATOR, -1);
+    }
+
+    /**
+     * Get the key of a test case.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @return The key under which the test case is recorded.
+     */
+    private static String getKey(final String testName) {
+        return TEST_PREFIX + testName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Write the history file.
+     */
+    private void store() {
+        try {
+            FileUtils.forceMkdirParent(file);
+            try (OutputStream out = new FileOutputStream(file)) {
+                storedEntries.store(out, "ccl-maven-plugin test run history");
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to write test run history " + file, e);
+        }
+    }
+}
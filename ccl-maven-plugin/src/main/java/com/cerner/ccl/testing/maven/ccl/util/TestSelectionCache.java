@@ -0,0 +1,265 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.cerner.ccl.j4ccl.impl.util.IncludeResolver;
+import com.cerner.ftp.util.DigestUtils;
+import com.cerner.ftp.util.PropertiesUtils;
+
+/**
+ * A record, kept between builds, of the programs covered by each test case, used to run only the test cases that a
+ * change may affect. <br>
+ * A test case is current, so that its results from a previous run can be kept, if it was last run with the same
+ * settings and neither its own source nor the source of any program it covered has changed since. Sources are
+ * fingerprinted together with every file they pull in through a {@code %i cclsource:} directive; a source whose
+ * includes cannot all be found locally is never considered unchanged. <br>
+ * The sources of all programs are also recorded each time they are compiled, so that a change to a program that no test
+ * case covered can be detected.
+ */
+
+public class TestSelectionCache {
+    private static final String SETTINGS_KEY = "settings";
+    private static final String TEST_PREFIX = "test.";
+    private static final String PROGRAM_PREFIX = "program.";
+    private static final String SEPARATOR = "\t";
+    private static final String ASSIGNMENT = "=";
+
+    private final File file;
+    private final Map<String, File> programSources;
+    private final IncludeResolver includeResolver;
+    private final Properties entries = new Properties();
+    private final Map<File, String> fingerprints = new HashMap<File, String>();
+
+    /**
+     * Create a cache, loading the entries previously saved to the given file. The entries are discarded if they were
+     * recorded with different settings or the file cannot be read, which causes every test case to be run.
+     *
+     * @param file
+     *            A {@link File} representing the location of the cache.
+     * @param programSources
+     *            A {@link Map} of the names of the programs being tested to their source files.
+     * @param searchDirectories
+     *            A {@link Collection} of the directories in which the files included by sources are sought.
+     * @param settings
+     *            A description of the settings with which the test cases are run.
+     */
+    public TestSelectionCache(final File file, final Map<String, File> programSources,
+            final Collection<File> searchDirectories, final String settings) {
+        this.file = file;
+        this.programSources = new HashMap<String, File>();
+        for (final Map.Entry<String, File> program : programSources.entrySet())
+            this.programSources.put(program.getKey().toLowerCase(Locale.getDefault()), program.getValue());
+        this.includeResolver = new IncludeResolver(searchDirectories);
+
+        load();
+        if (!settings.equals(entries.getProperty(SETTINGS_KEY))) {
+            entries.clear();
+            entries.setProperty(SETTINGS_KEY, settings);
+        }
+    }
+
+    /**
+     * Determine whether a test case is current.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @param testSource
+     *            A {@link File} representing the source of the test case.
+     * @return {@code true} if the test case was last run with the current settings and neither it nor any program it
+     *         covered has changed since; {@code false} otherwise.
+     */
+    public boolean isCurrent(final String testName, final File testSource) {
+        final String value = entries.getProperty(TEST_PREFIX + testName);
+        if (value == null)
+            return false;
+
+        final String[] fields = value.split(SEPARATOR, -1);
+        final String testFingerprint = fingerprint(testSource);
+        if (testFingerprint == null || !testFingerprint.equals(fields[0]))
+            return false;
+
+        for (int i = 1; i < fields.length; i++) {
+            final int assignment = fields[i].indexOf(ASSIGNMENT);
+            if (assignment < 0)
+                return false;
+
+            final File programSource = programSources.get(fields[i].substring(0, assignment));
+            if (programSource == null)
+                return false;
+
+            final String programFingerprint = fingerprint(programSource);
+            if (programFingerprint == null || !programFingerprint.equals(fields[i].substring(assignment + 1)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record the run of a test case and save the cache.
+     *
+     * @param testName
+     *            The name of the test case.
+     * @param testSource
+     *            A {@link File} representing the source of the test case.
+     * @param coveredPrograms
+     *            A {@link Collection} of the names of the programs the test case covered. Programs that are not being
+     *            tested are ignored.
+     */
+    public void record(final String testName, final File testSource, final Collection<String> coveredPrograms) {
+        final String testFingerprint = fingerprint(testSource);
+        if (testFingerprint == null) {
+            remove(testName);
+            return;
+        }
+
+        final StringBuilder value = new StringBuilder(testFingerprint);
+        for (final String program : new TreeSet<String>(lowerCase(coveredPrograms))) {
+            final File programSource = programSources.get(program);
+            if (programSource == null)
+                continue;
+
+            final String programFingerprint = fingerprint(programSource);
+            if (programFingerprint == null) {
+                remove(testName);
+                return;
+            }
+            value.append(SEPARATOR).append(program).append(ASSIGNMENT).append(programFingerprint);
+        }
+
+        entries.setProperty(TEST_PREFIX + testName, value.toString());
+        store();
+    }
+
+    /**
+     * Forget the run of a test case, so that it is run the next time, and save the cache.
+     *
+     * @param testName
+     *            The name of the test case.
+     */
+    public void remove(final String testName) {
+        if (entries.remove(TEST_PREFIX + testName) != null)
+            store();
+    }
+
+    /**
+     * Determine whether the set of programs being tested, or the source of any of them, has changed since they were
+     * last {@link #recordPrograms() recorded}.
+     *
+     * @return {@code true} if any program has been added, removed or changed; {@code false} otherwise.
+     */
+    public boolean haveProgramsChanged() {
+        final Set<String> recorded = new HashSet<String>();
+        for (final String key : entries.stringPropertyNames())
+            if (key.startsWith(PROGRAM_PREFIX))
+                recorded.add(key.substring(PROGRAM_PREFIX.length()));
+
+        if (!recorded.equals(programSources.keySet()))
+            return true;
+
+        for (final Map.Entry<String, File> program : programSources.entrySet()) {
+            final String programFingerprint = fingerprint(program.getValue());
+            if (programFingerprint == null
+                    || !programFingerprint.equals(entries.getProperty(PROGRAM_PREFIX + program.getKey())))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the sources of every program being tested, which have just been compiled, and save the cache.
+     */
+    public void recordPrograms() {
+        for (final String key : entries.stringPropertyNames())
+            if (key.startsWith(PROGRAM_PREFIX))
+                entries.remove(key);
+
+        for (final Map.Entry<String, File> program : programSources.entrySet()) {
+            final String programFingerprint = fingerprint(program.getValue());
+            if (programFingerprint != null)
+                entries.setProperty(PROGRAM_PREFIX + program.getKey(), programFingerprint);
+        }
+        store();
+    }
+
+    /**
+     * Compute the fingerprint of a source: the SHA-256 digest of the source and of every file it includes.
+     *
+     * @param source
+     *            The source {@link File}.
+     * @return The hex-encoded fingerprint; {@code null} if the source or any of its includes cannot be read.
+     */
+    private String fingerprint(final File source) {
+        final File absoluteSource = source.getAbsoluteFile();
+        if (fingerprints.containsKey(absoluteSource))
+            return fingerprints.get(absoluteSource);
+
+        String fingerprint = null;
+        try {
+            final Set<File> files = includeResolver.resolve(Collections.singleton(absoluteSource));
+            if (files == null)
+                return null;
+
+            final MessageDigest digest = DigestUtils.createSha256();
+            for (final File file : files) {
+                digest.update((SEPARATOR + file.getName() + SEPARATOR).getBytes(StandardCharsets.UTF_8));
+                DigestUtils.update(digest, file);
+            }
+            fingerprint = DigestUtils.toHex(digest);
+            return fingerprint;
+        } catch (final IOException e) {
+            return null;
+        } finally {
+            fingerprints.put(absoluteSource, fingerprint);
+        }
+    }
+
+    /**
+     * Convert names to lower case.
+     *
+     * @param names
+     *            A {@link Collection} of names.
+     * @return A {@link Collection} of the names in lower case.
+     */
+    private static Collection<String> lowerCase(final Collection<String> names) {
+        final List<String> lowerCased = new ArrayList<String>(names.size());
+        for (final String name : names)
+            lowerCased.add(name.toLowerCase(Locale.getDefault()));
+        return lowerCased;
+    }
+
+    /**
+     * Read the cache file, if it exists.
+     */
+    private void load() {
+        try {
+            entries.putAll(PropertiesUtils.load(file));
+        } catch (final IOException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Write the cache file.
+     */
+    private void store() {
+        try {
+            PropertiesUtils.store(file, entries, "ccl-maven-plugin test selection cache");
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to write test selection cache " + file, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+/**
+ * A listener to the content of an XML document as it is streamed by {@link XmlFormatter}, so that the document can be
+ * examined in the same pass in which it is written.
+ */
+
+public interface XmlContentListener {
+    /**
+     * Receive the start of an element.
+     *
+     * @param name
+     *            The local name of the element.
+     */
+    void startElement(String name);
+
+    /**
+     * Receive text within the current element. The text of an element may be received in more than one piece.
+     *
+     * @param text
+     *            The text.
+     */
+    void characters(String text);
+
+    /**
+     * Receive the end of an element.
+     *
+     * @param name
+     *            The local name of the element.
+     */
+    void endElement(String name);
+}
@@ -1,23 +1,66 @@
 package com.cerner.ccl.testing.maven.ccl.util;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 
 import org.apache.commons.io.FileUtils;
-import org.dom4j.DocumentException;
-import org.dom4j.DocumentHelper;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 
 /**
- * A utility class to format XML into a more readable format.
+ * A utility class to format XML into a more readable format. <br>
+ * The XML is streamed from its source to the file in a single pass, without building a document tree, optionally
+ * indented by four spaces per level. An {@link XmlContentListener} can examine the XML during the same pass.
  *
  * @author Joshua Hyde
  *
  */
 
 public class XmlFormatter {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String INDENT = "    ";
+    private static final String REPORT_CDATA_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private final boolean indent;
+
+    /**
+     * Create a formatter that indents the XML.
+     */
+    public XmlFormatter() {
+        this(true);
+    }
+
+    /**
+     * Create a formatter.
+     *
+     * @param indent
+     *            {@code true} if the XML is to be indented; {@code false} if it is to be written as it is.
+     */
+    public XmlFormatter(final boolean indent) {
+        this.indent = indent;
+    }
+
     /**
      * Format a given XML string.
      *
@@ -27,33 +70,273 @@ public class XmlFormatter {
      *            A {@link File} representing the directory to which the XML is to be written.
      */
     public void formatAndWriteXml(final String xml, final File file) {
-        final OutputFormat formatter = OutputFormat.createPrettyPrint();
-        formatter.setIndentSize(4);
+        formatAndWriteXml(xml, file, null);
+    }
 
-        final StringWriter writer = new StringWriter();
-        XMLWriter xmlWriter = null;
-        try {
-            xmlWriter = new XMLWriter(writer, formatter);
-            xmlWriter.write(DocumentHelper.parseText(xml));
-            xmlWriter.flush();
+    /**
+     * Format a given XML string, passing its content to a listener as it is written. If the XML cannot be parsed, it is
+     * written to the file as it is.
+     *
+     * @param xml
+     *            The XML to be formatted.
+     * @param file
+     *            A {@link File} representing the directory to which the XML is to be written.
+     * @param listener
+     *            An {@link XmlContentListener} to which the content of the XML is passed; may be {@code null}.
+     */
+    public void formatAndWriteXml(final String xml, final File file, final XmlContentListener listener) {
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            final XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(new StringReader(xml));
+            final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(out);
+            try {
+                copy(reader, writer, out, listener);
+                writer.flush();
+            } finally {
+                reader.close();
+                writer.close();
+            }
+        } catch (final XMLStreamException e) {
+            try {
+                FileUtils.writeStringToFile(file, xml, "utf-8");
+            } catch (final IOException ioe) {
+                // swallow
+            }
+            throw new RuntimeException("Failed to properly parse XML document.", e);
         } catch (final IOException e) {
-            throw new RuntimeException("Failed to serialize XML data in formatting.", e);
-        } catch (final DocumentException e) {
+            throw new RuntimeException("Failed to write formatted XML to file " + file, e);
+        }
+    }
+
+    /**
+     * Pass the content of a given XML string to a listener without writing it.
+     *
+     * @param xml
+     *            The XML to be scanned.
+     * @param listener
+     *            The {@link XmlContentListener} to which the content of the XML is passed.
+     */
+    public static void scan(final String xml, final XmlContentListener listener) {
+        try {
+            final XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(new StringReader(xml));
+            try {
+                while (reader.hasNext()) {
+                    notify(reader.nextEvent(), listener);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
             throw new RuntimeException("Failed to properly parse XML document.", e);
-        } finally {
-            if (xmlWriter != null) {
-                try {
-                    xmlWriter.close();
-                    FileUtils.writeStringToFile(file, xml, "utf-8");
-                } catch (final IOException e) {
-                    // swallow
+        }
+    }
+
+    /**
+     * Copy XML from a reader to a writer.
+     *
+     * @param reader
+     *            The {@link XMLEventReader} from which the XML is read.
+     * @param writer
+     *            The {@link XMLStreamWriter} to which the XML is written.
+     * @param out
+     *            The {@link Writer} underlying the XML writer, to which the XML declaration is written.
+     * @param listener
+     *            An {@link XmlContentListener} to which the content of the XML is passed; may be {@code null}.
+     * @throws XMLStreamException
+     *             If the XML cannot be read or written.
+     * @throws IOException
+     *             If the XML declaration cannot be written.
+     */
+    private void copy(final XMLEventReader reader, final XMLStreamWriter writer, final Writer out,
+            final XmlContentListener listener) throws XMLStreamException, IOException {
+        int depth = 0;
+        // Whether the element being written has text of its own, in which case its end tag is not indented
+        boolean hasText = false;
+        while (reader.hasNext()) {
+            final XMLEvent event = reader.nextEvent();
+            notify(event, listener);
+            switch (event.getEventType()) {
+            case XMLEvent.START_DOCUMENT:
+                // Written directly, since XML writers differ in how they quote the declaration
+                out.write(DECLARATION);
+                if (indent) {
+                    out.write('\n');
+                }
+                break;
+            case XMLEvent.START_ELEMENT:
+                writeIndent(writer, depth);
+                if (reader.peek() != null && reader.peek().isEndElement()) {
+                    notify(reader.nextEvent(), listener);
+                    writeStartElement(writer, event.asStartElement(), true);
+                } else {
+                    writeStartElement(writer, event.asStartElement(), false);
+                    depth++;
+                }
+                hasText = false;
+                break;
+            case XMLEvent.END_ELEMENT:
+                depth--;
+                if (!hasText) {
+                    writeIndent(writer, depth);
+                }
+                writer.writeEndElement();
+                hasText = false;
+                break;
+            case XMLEvent.CHARACTERS:
+            case XMLEvent.CDATA:
+            case XMLEvent.SPACE:
+                final Characters characters = event.asCharacters();
+                if (indent && characters.isWhiteSpace() && !characters.isCData()) {
+                    break;
                 }
+                if (characters.isCData()) {
+                    writer.writeCData(characters.getData());
+                } else {
+                    writer.writeCharacters(characters.getData());
+                }
+                hasText = true;
+                break;
+            case XMLEvent.COMMENT:
+                writeIndent(writer, depth);
+                writer.writeComment(((Comment) event).getText());
+                break;
+            case XMLEvent.PROCESSING_INSTRUCTION:
+                final ProcessingInstruction instruction = (ProcessingInstruction) event;
+                writeIndent(writer, depth);
+                writer.writeProcessingInstruction(instruction.getTarget(), instruction.getData());
+                break;
+            case XMLEvent.END_DOCUMENT:
+                writer.writeEndDocument();
+                writer.flush();
+                if (indent) {
+                    out.write('\n');
+                }
+                break;
+            default:
+                break;
             }
         }
-        try {
-            FileUtils.writeStringToFile(file, writer.toString(), "utf-8");
-        } catch (final IOException e) {
-            throw new RuntimeException("Failed to write formatted XML to file " + file, e);
+    }
+
+    /**
+     * Write the start tag of an element.
+     *
+     * @param writer
+     *            The {@link XMLStreamWriter} to which the tag is written.
+     * @param element
+     *            The {@link StartElement} to be written.
+     * @param empty
+     *            {@code true} if the element has no content and is to be written as an empty-element tag.
+     * @throws XMLStreamException
+     *             If the tag cannot be written.
+     */
+    private static void writeStartElement(final XMLStreamWriter writer, final StartElement element, final boolean empty)
+            throws XMLStreamException {
+        final QName name = element.getName();
+        if (isUnqualified(name)) {
+            if (empty) {
+                writer.writeEmptyElement(name.getLocalPart());
+            } else {
+                writer.writeStartElement(name.getLocalPart());
+            }
+        } else if (empty) {
+            writer.writeEmptyElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+        } else {
+            writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+        }
+
+        final Iterator<?> namespaces = element.getNamespaces();
+        while (namespaces.hasNext()) {
+            final Namespace namespace = (Namespace) namespaces.next();
+            if (namespace.isDefaultNamespaceDeclaration()) {
+                writer.writeDefaultNamespace(namespace.getNamespaceURI());
+            } else {
+                writer.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+            }
+        }
+
+        final Iterator<?> attributes = element.getAttributes();
+        while (attributes.hasNext()) {
+            final Attribute attribute = (Attribute) attributes.next();
+            final QName attributeName = attribute.getName();
+            if (isUnqualified(attributeName)) {
+                writer.writeAttribute(attributeName.getLocalPart(), attribute.getValue());
+            } else {
+                writer.writeAttribute(attributeName.getPrefix(), attributeName.getNamespaceURI(),
+                        attributeName.getLocalPart(), attribute.getValue());
+            }
+        }
+    }
+
+    /**
+     * Determine whether a name is in no namespace.
+     *
+     * @param name
+     *            The {@link QName} of an element or attribute.
+     * @return {@code true} if the name has neither a prefix nor a namespace.
+     */
+    private static boolean isUnqualified(final QName name) {
+        return name.getPrefix().isEmpty() && name.getNamespaceURI().isEmpty();
+    }
+
+    /**
+     * Start a new, indented line, if the XML is being indented.
+     *
+     * @param writer
+     *            The {@link XMLStreamWriter} to which the line is written.
+     * @param depth
+     *            The depth of the line's content.
+     * @throws XMLStreamException
+     *             If the line cannot be written.
+     */
+    private void writeIndent(final XMLStreamWriter writer, final int depth) throws XMLStreamException {
+        if (!indent) {
+            return;
+        }
+
+        final StringBuilder line = new StringBuilder("\n");
+        for (int i = 0; i < depth; i++) {
+            line.append(INDENT);
+        }
+        writer.writeCharacters(line.toString());
+    }
+
+    /**
+     * Pass an event to a listener.
+     *
+     * @param event
+     *            The {@link XMLEvent} read from the XML.
+     * @param listener
+     *            The {@link XmlContentListener} to be notified; may be {@code null}.
+     */
+    private static void notify(final XMLEvent event, final XmlContentListener listener) {
+        if (listener == null) {
+            return;
+        }
+
+        if (event.isStartElement()) {
+            listener.startElement(event.asStartElement().getName().getLocalPart());
+        } else if (event.isEndElement()) {
+            listener.endElement(event.asEndElement().getName().getLocalPart());
+        } else if (event.isCharacters()) {
+            listener.characters(event.asCharacters().getData());
+        }
+    }
+
+    /**
+     * Create the factory of XML readers, which do not resolve external entities and, where supported, report CDATA
+     * sections so that they are kept as such.
+     *
+     * @return An {@link XMLInputFactory}.
+     */
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        if (factory.isPropertySupported(REPORT_CDATA_PROPERTY)) {
+            factory.setProperty(REPORT_CDATA_PROPERTY, Boolean.TRUE);
         }
+        return factory;
     }
 }
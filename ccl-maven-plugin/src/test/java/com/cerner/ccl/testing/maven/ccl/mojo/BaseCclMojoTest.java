@@ -35,11 +35,13 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.sonatype.plexus.components.sec.dispatcher.SecDispatcher;
 
 import com.cerner.ccl.j4ccl.CclExecutor;
+import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.enums.OutputType;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
 import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 import com.cerner.ccl.testing.maven.ccl.util.CclLogFileOutputStream;
 import com.cerner.ccl.testing.maven.ccl.util.DelegatingOutputStream;
 import com.cerner.ccl.testing.maven.ccl.util.LogOutputStreamProxy;
@@ -100,6 +102,48 @@ public class BaseCclMojoTest {
         assertThat(subject.getPrivateCredentials()).containsOnly(credential);
     }
 
+    /**
+     * Verify that a configured download compression threshold is given to the terminal properties, and that no files
+     * are compressed if it is not configured.
+     */
+    @Test
+    public void testSetGlobalTerminalPropertiesDownloadCompressionThreshold() {
+        mojo.environment = "environment.name";
+        mojo.host = "host";
+
+        try {
+            mojo.setGlobalTerminalProperties();
+            assertThat(TerminalProperties.getThreadTerminalProperties().getDownloadCompressionThreshold())
+                    .isEqualTo(-1L);
+
+            mojo.downloadCompressionThreshold = Long.valueOf(65536);
+            mojo.setGlobalTerminalProperties();
+            assertThat(TerminalProperties.getThreadTerminalProperties().getDownloadCompressionThreshold())
+                    .isEqualTo(65536L);
+        } finally {
+            TerminalProperties.setGlobalTerminalProperties(null);
+            TerminalProperties.setThreadTerminalProperties(null);
+        }
+    }
+
+    /**
+     * Verify that a configured environment cache time to live is given to the terminal properties.
+     */
+    @Test
+    public void testSetGlobalTerminalPropertiesEnvironmentCacheTtl() {
+        mojo.environment = "environment.name";
+        mojo.host = "host";
+        mojo.environmentCacheTtl = 3600;
+
+        try {
+            mojo.setGlobalTerminalProperties();
+            assertThat(TerminalProperties.getThreadTerminalProperties().getEnvironmentCacheTtl()).isEqualTo(3600L);
+        } finally {
+            TerminalProperties.setGlobalTerminalProperties(null);
+            TerminalProperties.setThreadTerminalProperties(null);
+        }
+    }
+
     /**
      * Construction of a principal with no server ID and a blank username should fail.
      *
@@ -440,14 +484,14 @@ public class BaseCclMojoTest {
         final Log log = mock(Log.class);
         when(log.isDebugEnabled()).thenReturn(Boolean.TRUE);
 
-        final ArgumentCaptor<OutputStream> streamCaptor = ArgumentCaptor.forClass(OutputStream.class);
+        final ArgumentCaptor<LineConsumer> streamCaptor = ArgumentCaptor.forClass(LineConsumer.class);
 
         mojo.logFile = new File("target/unit/ccl.log");
         mojo.setLog(log);
         mojo.createCclExecutor();
 
-        verify(executor).setOutputStream(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
-        final OutputStream captured = streamCaptor.getValue();
+        verify(executor).setOutputConsumer(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
+        final LineConsumer captured = streamCaptor.getValue();
         assertThat(captured).isInstanceOf(DelegatingOutputStream.class);
 
         final DelegatingOutputStream delegate = (DelegatingOutputStream) captured;
@@ -489,6 +533,7 @@ public class BaseCclMojoTest {
         mojo.createCclExecutor();
 
         verify(executor, never()).setOutputStream(any(OutputStream.class), any(OutputType.class));
+        verify(executor, never()).setOutputConsumer(any(LineConsumer.class), any(OutputType.class));
     }
 
     /**
@@ -505,14 +550,14 @@ public class BaseCclMojoTest {
         final Log log = mock(Log.class);
         when(log.isDebugEnabled()).thenReturn(Boolean.TRUE);
 
-        final ArgumentCaptor<OutputStream> streamCaptor = ArgumentCaptor.forClass(OutputStream.class);
+        final ArgumentCaptor<LineConsumer> streamCaptor = ArgumentCaptor.forClass(LineConsumer.class);
 
         mojo.logFile = new File("target/unit/ccl.log");
         mojo.setLog(log);
         mojo.createCclExecutor();
 
-        verify(executor).setOutputStream(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
-        final OutputStream captured = streamCaptor.getValue();
+        verify(executor).setOutputConsumer(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
+        final LineConsumer captured = streamCaptor.getValue();
         assertThat(captured).isInstanceOf(DelegatingOutputStream.class);
 
         final DelegatingOutputStream delegate = (DelegatingOutputStream) captured;
@@ -544,13 +589,13 @@ public class BaseCclMojoTest {
         mockStatic(CclExecutor.class);
         when(CclExecutor.getExecutor()).thenReturn(executor);
 
-        final ArgumentCaptor<OutputStream> streamCaptor = ArgumentCaptor.forClass(OutputStream.class);
+        final ArgumentCaptor<LineConsumer> streamCaptor = ArgumentCaptor.forClass(LineConsumer.class);
 
         mojo.enableFullDebug = true;
         mojo.createCclExecutor();
 
-        verify(executor).setOutputStream(streamCaptor.capture(), eq(OutputType.FULL_DEBUG));
-        final OutputStream captured = streamCaptor.getValue();
+        verify(executor).setOutputConsumer(streamCaptor.capture(), eq(OutputType.FULL_DEBUG));
+        final LineConsumer captured = streamCaptor.getValue();
         assertThat(captured).isInstanceOf(DelegatingOutputStream.class);
 
         final DelegatingOutputStream delegate = (DelegatingOutputStream) captured;
@@ -585,14 +630,14 @@ public class BaseCclMojoTest {
         final Log log = mock(Log.class);
         when(log.isDebugEnabled()).thenReturn(Boolean.TRUE);
 
-        final ArgumentCaptor<OutputStream> streamCaptor = ArgumentCaptor.forClass(OutputStream.class);
+        final ArgumentCaptor<LineConsumer> streamCaptor = ArgumentCaptor.forClass(LineConsumer.class);
 
         mojo.setLog(log);
         mojo.enableFullDebug = true;
         mojo.createCclExecutor();
 
-        verify(executor).setOutputStream(streamCaptor.capture(), eq(OutputType.FULL_DEBUG));
-        final OutputStream captured = streamCaptor.getValue();
+        verify(executor).setOutputConsumer(streamCaptor.capture(), eq(OutputType.FULL_DEBUG));
+        final LineConsumer captured = streamCaptor.getValue();
         assertThat(captured).isInstanceOf(DelegatingOutputStream.class);
 
         final DelegatingOutputStream delegate = (DelegatingOutputStream) captured;
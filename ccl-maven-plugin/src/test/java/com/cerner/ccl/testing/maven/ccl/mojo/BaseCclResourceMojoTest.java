@@ -65,6 +65,42 @@ public class BaseCclResourceMojoTest {
         verifyNoMoreInteractions(uploader);
     }
 
+    /**
+     * Verify that the uploader is given a manifest within the build directory when uploading incrementally and the bulk
+     * upload threshold and channel count when they are configured.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteIncremental() throws Exception {
+        final CclResourceUploader uploader = mock(CclResourceUploader.class);
+        mockStatic(CclResourceUploader.class);
+        when(CclResourceUploader.getUploader()).thenReturn(uploader);
+
+        final Resource resource = mock(Resource.class);
+        when(resource.getDirectory()).thenReturn(new File("target/unit/does-not-exist").getAbsolutePath());
+
+        final StubMojo mojo = new StubMojo();
+        mojo.setSubject(new Subject());
+        mojo.buildDirectory = new File("target");
+        mojo.incrementalUpload = true;
+        mojo.verifyIncrementalUpload = true;
+        mojo.bulkUploadMinimumFiles = 10;
+        mojo.bulkUploadMaximumBytes = 1024;
+        mojo.compressBulkUploads = false;
+        mojo.uploadChannels = 4;
+        mojo.upload(Collections.singletonList(resource));
+
+        verify(uploader).setManifestFile(new File("target", "ccl-upload-manifest.properties"));
+        verify(uploader).setVerifyRemote(true);
+        verify(uploader).setBulkUploadMinimumFiles(10);
+        verify(uploader).setBulkUploadMaximumBytes(1024);
+        verify(uploader).setCompressBulkUploads(false);
+        verify(uploader).setChannelCount(4);
+        verify(uploader).upload();
+    }
+
     /**
      * A stub of {@link ResourcesMojo}.
      *
@@ -0,0 +1,155 @@
+package com.cerner.ccl.testing.maven.ccl.mojo;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ccl.testing.maven.ccl.util.TestRunHistory;
+
+/**
+ * Unit tests of {@link MergeResultsMojo}.
+ */
+
+public class MergeResultsMojoTest {
+    private static final File DIRECTORY = new File("target/unit/merge-results");
+    private static final File SHARD_1 = new File(DIRECTORY, "shard1");
+    private static final File SHARD_2 = new File(DIRECTORY, "shard2");
+    private static final File MERGED = new File(DIRECTORY, "merged");
+
+    private MergeResultsMojo mojo;
+
+    /**
+     * Create the outputs of two shards.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        write(new File(SHARD_1, "test-results/environment.xml"), "<ENVIRONMENT>1</ENVIRONMENT>");
+        write(new File(SHARD_1, "test-results/test_a/test-results.xml"), "<TESTCASE>a</TESTCASE>");
+        write(new File(SHARD_1, "test-results/test_a/coverage/program.xml"), "<COVERAGE>a</COVERAGE>");
+        write(new File(SHARD_1, "program-listings/program.xml"), "<LISTING>1</LISTING>");
+        write(new File(SHARD_2, "test-results/environment.xml"), "<ENVIRONMENT>2</ENVIRONMENT>");
+        write(new File(SHARD_2, "test-results/test_b/test-results.xml"), "<TESTCASE>b</TESTCASE>");
+        write(new File(SHARD_2, "program-listings/program.xml"), "<LISTING>2</LISTING>");
+
+        mojo = new MergeResultsMojo();
+        mojo.setLog(mock(Log.class));
+        mojo.shardOutputDirectories = Arrays.asList(SHARD_1, SHARD_2);
+        mojo.outputDirectory = MERGED;
+    }
+
+    /**
+     * Remove the shard and merged outputs after each test.
+     *
+     * @throws Exception
+     *             If any errors occur during the cleanup.
+     */
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    /**
+     * The test cases of every shard are merged, and the files every shard produces are taken from the first shard.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecute() throws Exception {
+        mojo.execute();
+
+        assertThat(read(new File(MERGED, "test-results/test_a/test-results.xml"))).isEqualTo("<TESTCASE>a</TESTCASE>");
+        assertThat(read(new File(MERGED, "test-results/test_a/coverage/program.xml")))
+                .isEqualTo("<COVERAGE>a</COVERAGE>");
+        assertThat(read(new File(MERGED, "test-results/test_b/test-results.xml"))).isEqualTo("<TESTCASE>b</TESTCASE>");
+        assertThat(read(new File(MERGED, "test-results/environment.xml"))).isEqualTo("<ENVIRONMENT>1</ENVIRONMENT>");
+        assertThat(read(new File(MERGED, "program-listings/program.xml"))).isEqualTo("<LISTING>1</LISTING>");
+    }
+
+    /**
+     * The test run histories of the shards are combined.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteHistory() throws Exception {
+        new TestRunHistory(new File(SHARD_1, "ccl-test-history.properties")).record("test_a.inc", 100, false);
+        new TestRunHistory(new File(SHARD_2, TestRunHistory.SHARD_HISTORY_FILE_NAME)).record("test_b.inc", 200, true);
+
+        mojo.execute();
+
+        final TestRunHistory merged = new TestRunHistory(new File(MERGED, "ccl-test-history.properties"));
+        assertThat(merged.getDuration("test_a.inc")).isEqualTo(100);
+        assertThat(merged.getDuration("test_b.inc")).isEqualTo(200);
+        assertThat(merged.hasFailed("test_b.inc")).isTrue();
+    }
+
+    /**
+     * A test case run by more than one shard fails the merge.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteDuplicateTestCase() throws Exception {
+        write(new File(SHARD_2, "test-results/test_a/test-results.xml"), "<TESTCASE>a</TESTCASE>");
+
+        final MojoFailureException e = assertThrows(MojoFailureException.class, () -> mojo.execute());
+        assertThat(e.getMessage()).contains("test_a");
+    }
+
+    /**
+     * A missing shard output directory fails the merge.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteMissingShard() throws Exception {
+        mojo.shardOutputDirectories = Arrays.asList(SHARD_1, new File(DIRECTORY, "shard3"));
+
+        assertThrows(MojoFailureException.class, () -> mojo.execute());
+    }
+
+    /**
+     * Write a file.
+     *
+     * @param file
+     *            The {@link File} to be written.
+     * @param content
+     *            The content of the file.
+     * @throws Exception
+     *             If the file cannot be written.
+     */
+    private static void write(final File file, final String content) throws Exception {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a file.
+     *
+     * @param file
+     *            The {@link File} to be read.
+     * @return The content of the file.
+     * @throws Exception
+     *             If the file cannot be read.
+     */
+    private static String read(final File file) throws Exception {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+}
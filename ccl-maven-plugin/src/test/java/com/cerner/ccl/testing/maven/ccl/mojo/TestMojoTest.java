@@ -2,6 +2,7 @@ package com.cerner.ccl.testing.maven.ccl.mojo;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
@@ -11,10 +12,12 @@ import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 
 import java.io.File;
-import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoFailureException;
@@ -36,12 +39,16 @@ import com.cerner.ccl.j4ccl.enums.OutputType;
 import com.cerner.ccl.j4ccl.record.DynamicRecordList;
 import com.cerner.ccl.j4ccl.record.Record;
 import com.cerner.ccl.j4ccl.record.RecordList;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 import com.cerner.ccl.testing.maven.ccl.data.UnitTest;
 import com.cerner.ccl.testing.maven.ccl.exception.TestFailureException;
+import com.cerner.ccl.testing.maven.ccl.util.CoverageCollector;
 import com.cerner.ccl.testing.maven.ccl.util.DelegatingOutputStream;
 import com.cerner.ccl.testing.maven.ccl.util.ProgramListingWriter;
+import com.cerner.ccl.testing.maven.ccl.util.TestResultCollector;
 import com.cerner.ccl.testing.maven.ccl.util.TestResultScanner;
 import com.cerner.ccl.testing.maven.ccl.util.TestResultWriter;
+import com.cerner.ccl.testing.maven.ccl.util.TestRunHistory;
 import com.cerner.ccl.testing.maven.ccl.util.factory.CclUnitRecordFactory;
 import com.cerner.ccl.testing.maven.ccl.util.factory.ProgramListingWriterFactory;
 import com.cerner.ccl.testing.maven.ccl.util.factory.TestResultScannerFactory;
@@ -114,8 +121,10 @@ public class TestMojoTest {
         when(test.getName()).thenReturn(testName);
 
         // Build the scanner
+        final TestResultCollector collector = mock(TestResultCollector.class);
+        when(collector.getFailedTests()).thenReturn(Collections.singleton(test));
         final TestResultScanner scanner = mock(TestResultScanner.class);
-        when(scanner.scanForFailures(ExecutionAdderReplyWriter.RESULTS_XML)).thenReturn(Collections.singleton(test));
+        when(scanner.createCollector()).thenReturn(collector);
         final TestResultScannerFactory scannerFactory = new MockResultScannerFactory(scanner);
 
         // Build the script execution adder
@@ -352,9 +361,10 @@ public class TestMojoTest {
 
         verify(writer, times(1)).writeTestCoverage(ExecutionAdderReplyWriter.COVERAGE_XML);
         verify(writer, times(1)).writeTestListing(ExecutionAdderReplyWriter.LISTING_XML);
-        verify(writer, times(1)).writeTestResults(ExecutionAdderReplyWriter.RESULTS_XML);
-        verify(writer, times(1)).writeTestProgramCoverage(ExecutionAdderReplyWriter.PROGRAM_NAME,
-                ExecutionAdderReplyWriter.PROGRAM_COVERAGE_XML);
+        verify(writer, times(1)).writeTestResults(eq(ExecutionAdderReplyWriter.RESULTS_XML),
+                any(TestResultCollector.class));
+        verify(writer, times(1)).writeTestProgramCoverage(eq(ExecutionAdderReplyWriter.PROGRAM_NAME),
+                eq(ExecutionAdderReplyWriter.PROGRAM_COVERAGE_XML), any(CoverageCollector.class));
     }
 
     /**
@@ -396,6 +406,280 @@ public class TestMojoTest {
                 ExecutionAdderReplyWriter.PROGRAM_LISTING_XML);
     }
 
+    /**
+     * Verify that, with parallel sessions, the first test case is run by itself to compile the programs, the others are
+     * run asynchronously, and the output of every test case is written in the order of the test cases.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteParallelSessions() throws Exception {
+        final List<String> writtenTestNames = Collections.synchronizedList(new ArrayList<String>());
+        final TestResultWriterFactory resultWriterFactory = new TestResultWriterFactory() {
+            @Override
+            public TestResultWriter create(final String testName, final File outputDirectory) {
+                writtenTestNames.add(testName);
+                return mock(TestResultWriter.class);
+            }
+        };
+
+        final ExecutionAdderRequestArchiver answer = new ExecutionAdderRequestArchiver();
+        final ScriptExecutionAdder adder = mock(ScriptExecutionAdder.class, answer);
+        answer.setAdder(adder);
+        doNothing().when(adder).commit();
+
+        final CompletableFuture<Void> slowExecution = new CompletableFuture<Void>();
+        final CclExecutor executor = mock(CclExecutor.class);
+        when(executor.addScriptExecution("cclut_execute_test_case")).thenReturn(adder);
+        when(executor.executeAsync()).thenReturn(slowExecution, CompletableFuture.<Void> completedFuture(null));
+
+        mockStatic(CclExecutor.class);
+        when(CclExecutor.getExecutor()).thenReturn(executor);
+
+        FileUtils.touch(new File(CCLSOURCE_DIR, "test.prg"));
+        FileUtils.touch(new File(CCLTEST_DIR, "test1.inc"));
+        FileUtils.touch(new File(CCLTEST_DIR, "test2.inc"));
+        FileUtils.touch(new File(CCLTEST_DIR, "test3.inc"));
+
+        final TestMojo mojo = new TestMojo(resultWriterFactory, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+        setParameters(mojo);
+        mojo.parallelSessions = 2;
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowExecution.complete(null);
+        }).start();
+        mojo.execute();
+
+        verify(executor, times(1)).execute();
+        verify(executor, times(2)).executeAsync();
+        verify(executor).ensureAsyncCapacity(2);
+
+        final List<Record> requests = answer.getRequests();
+        assertThat(requests.size()).isEqualTo(3);
+        final List<String> requestedTestNames = new ArrayList<String>();
+        for (int index = 0; index < requests.size(); index++) {
+            final Record request = requests.get(index);
+            assertThat(request.getDynamicList("programs").get(0).getI2Boolean("compile")).isEqualTo(index == 0);
+            requestedTestNames.add(request.getVC("testINCName").replace(".inc", ""));
+        }
+        assertThat(writtenTestNames).isEqualTo(requestedTestNames);
+    }
+
+    /**
+     * Verify that the shards of a suite are disjoint and together run every test case.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteShard() throws Exception {
+        final ExecutionAdderRequestArchiver answer = new ExecutionAdderRequestArchiver();
+        final ScriptExecutionAdder adder = mock(ScriptExecutionAdder.class, answer);
+        answer.setAdder(adder);
+        doNothing().when(adder).commit();
+
+        final CclExecutor executor = mock(CclExecutor.class);
+        when(executor.addScriptExecution("cclut_execute_test_case")).thenReturn(adder);
+
+        mockStatic(CclExecutor.class);
+        when(CclExecutor.getExecutor()).thenReturn(executor);
+
+        FileUtils.touch(new File(CCLSOURCE_DIR, "test.prg"));
+        for (int index = 0; index < 10; index++) {
+            FileUtils.touch(new File(CCLTEST_DIR, "test" + index + ".inc"));
+        }
+
+        final List<String> shardTestNames = new ArrayList<String>();
+        for (int shardIndex = 1; shardIndex <= 3; shardIndex++) {
+            final int requestsBefore = answer.getRequests().size();
+            final TestMojo mojo = new TestMojo(RESULT_WRITER_FACTORY, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+            setParameters(mojo);
+            mojo.shard = shardIndex + "/3";
+            mojo.execute();
+
+            final List<Record> requests = answer.getRequests();
+            for (int index = requestsBefore; index < requests.size(); index++) {
+                final String testName = requests.get(index).getVC("testINCName");
+                assertThat(TestMojo.getShardIndex(new File(testName), 3)).isEqualTo(shardIndex);
+                shardTestNames.add(testName);
+            }
+        }
+
+        assertThat(shardTestNames.size()).isEqualTo(10);
+        assertThat(new HashSet<String>(shardTestNames).size()).isEqualTo(10);
+    }
+
+    /**
+     * Verify that test cases are run in the order of their run history, previously failed first, then longest first
+     * with unrecorded ones before the rest, and that their runs are recorded.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteScheduledByHistory() throws Exception {
+        final File historyFile = new File(OUTPUT_DIR, "ccl-test-history.properties");
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("test1.inc", 100, false);
+        history.record("test2.inc", 300, false);
+        history.record("test3.inc", 200, true);
+
+        final ExecutionAdderRequestArchiver answer = new ExecutionAdderRequestArchiver();
+        final ScriptExecutionAdder adder = mock(ScriptExecutionAdder.class, answer);
+        answer.setAdder(adder);
+        doNothing().when(adder).commit();
+
+        final CclExecutor executor = mock(CclExecutor.class);
+        when(executor.addScriptExecution("cclut_execute_test_case")).thenReturn(adder);
+
+        mockStatic(CclExecutor.class);
+        when(CclExecutor.getExecutor()).thenReturn(executor);
+
+        FileUtils.touch(new File(CCLSOURCE_DIR, "test.prg"));
+        for (int index = 1; index <= 4; index++) {
+            FileUtils.touch(new File(CCLTEST_DIR, "test" + index + ".inc"));
+        }
+
+        final TestMojo mojo = new TestMojo(RESULT_WRITER_FACTORY, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+        setParameters(mojo);
+        mojo.testHistoryFile = historyFile;
+        mojo.failedTestsFirst = true;
+        mojo.execute();
+
+        final List<String> requestedTestNames = new ArrayList<String>();
+        for (final Record request : answer.getRequests()) {
+            requestedTestNames.add(request.getVC("testINCName"));
+        }
+        assertThat(requestedTestNames).isEqualTo(Arrays.asList("test3.inc", "test4.inc", "test2.inc", "test1.inc"));
+
+        final TestRunHistory recorded = new TestRunHistory(historyFile);
+        assertThat(recorded.hasFailed("test3.inc")).isFalse();
+        // The first test case compiles the programs, so its duration is not recorded
+        assertThat(recorded.getDuration("test3.inc")).isEqualTo(200);
+        assertThat(recorded.getDuration("test4.inc")).isGreaterThanOrEqualTo(0);
+    }
+
+    /**
+     * Verify that a test case that has never been recorded is not run first, where its duration would include the
+     * compilation of the programs, so that its duration is recorded.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteScheduledUnrecorded() throws Exception {
+        final File historyFile = new File(OUTPUT_DIR, "ccl-test-history.properties");
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("test1.inc", 100, false);
+        history.record("test2.inc", 300, false);
+
+        final ExecutionAdderRequestArchiver answer = new ExecutionAdderRequestArchiver();
+        final ScriptExecutionAdder adder = mock(ScriptExecutionAdder.class, answer);
+        answer.setAdder(adder);
+        doNothing().when(adder).commit();
+
+        final CclExecutor executor = mock(CclExecutor.class);
+        when(executor.addScriptExecution("cclut_execute_test_case")).thenReturn(adder);
+
+        mockStatic(CclExecutor.class);
+        when(CclExecutor.getExecutor()).thenReturn(executor);
+
+        FileUtils.touch(new File(CCLSOURCE_DIR, "test.prg"));
+        for (int index = 1; index <= 3; index++) {
+            FileUtils.touch(new File(CCLTEST_DIR, "test" + index + ".inc"));
+        }
+
+        final TestMojo mojo = new TestMojo(RESULT_WRITER_FACTORY, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+        setParameters(mojo);
+        mojo.testHistoryFile = historyFile;
+        mojo.execute();
+
+        final List<String> requestedTestNames = new ArrayList<String>();
+        for (final Record request : answer.getRequests()) {
+            requestedTestNames.add(request.getVC("testINCName"));
+        }
+        assertThat(requestedTestNames).isEqualTo(Arrays.asList("test1.inc", "test3.inc", "test2.inc"));
+
+        final TestRunHistory recorded = new TestRunHistory(historyFile);
+        assertThat(recorded.getDuration("test1.inc")).isEqualTo(100);
+        assertThat(recorded.getDuration("test3.inc")).isGreaterThanOrEqualTo(0);
+    }
+
+    /**
+     * Verify that, when shards are balanced, test cases are assigned to shards by their recorded durations.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteBalancedShard() throws Exception {
+        final File historyFile = new File(OUTPUT_DIR, "ccl-test-history.properties");
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("test0.inc", 400, false);
+        history.record("test1.inc", 300, false);
+        history.record("test2.inc", 200, false);
+        history.record("test3.inc", 100, false);
+
+        final ExecutionAdderRequestArchiver answer = new ExecutionAdderRequestArchiver();
+        final ScriptExecutionAdder adder = mock(ScriptExecutionAdder.class, answer);
+        answer.setAdder(adder);
+        doNothing().when(adder).commit();
+
+        final CclExecutor executor = mock(CclExecutor.class);
+        when(executor.addScriptExecution("cclut_execute_test_case")).thenReturn(adder);
+
+        mockStatic(CclExecutor.class);
+        when(CclExecutor.getExecutor()).thenReturn(executor);
+
+        FileUtils.touch(new File(CCLSOURCE_DIR, "test.prg"));
+        for (int index = 0; index < 4; index++) {
+            FileUtils.touch(new File(CCLTEST_DIR, "test" + index + ".inc"));
+        }
+
+        final TestMojo mojo = new TestMojo(RESULT_WRITER_FACTORY, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+        setParameters(mojo);
+        mojo.testHistoryFile = historyFile;
+        mojo.balanceShards = true;
+        mojo.shard = "1/2";
+        mojo.execute();
+
+        final List<String> requestedTestNames = new ArrayList<String>();
+        for (final Record request : answer.getRequests()) {
+            requestedTestNames.add(request.getVC("testINCName"));
+        }
+        // The quicker test case of the shard is run first, since it compiles the programs
+        assertThat(requestedTestNames).isEqualTo(Arrays.asList("test3.inc", "test0.inc"));
+
+        // The runs of the shard are recorded apart from the history from which the shards are balanced
+        assertThat(new TestRunHistory(historyFile).getDuration("test0.inc")).isEqualTo(400);
+        final TestRunHistory shardHistory = new TestRunHistory(
+                new File(OUTPUT_DIR, TestRunHistory.SHARD_HISTORY_FILE_NAME));
+        assertThat(shardHistory.getDuration("test3.inc")).isEqualTo(100);
+        assertThat(shardHistory.getDuration("test0.inc")).isGreaterThanOrEqualTo(0);
+        assertThat(shardHistory.getDuration("test1.inc")).isEqualTo(-1);
+    }
+
+    /**
+     * Verify that a shard that is not of the form {@code <index>/<count>} fails the build.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteInvalidShard() throws Exception {
+        FileUtils.touch(new File(CCLTEST_DIR, "test.inc"));
+
+        final TestMojo mojo = new TestMojo(RESULT_WRITER_FACTORY, LISTING_WRITER_FACTORY, RESULT_SCANNER_FACTORY);
+        setParameters(mojo);
+        mojo.shard = "4/3";
+        assertThrows(MojoFailureException.class, () -> mojo.execute());
+    }
+
     /**
      * Verify that, if debugging is enabled, the CCL session output of the executor is forwarded.
      *
@@ -429,12 +713,12 @@ public class TestMojoTest {
         mojo.setLog(log);
         mojo.execute();
 
-        final ArgumentCaptor<OutputStream> streamCaptor = ArgumentCaptor.forClass(OutputStream.class);
-        verify(executor).setOutputStream(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
+        final ArgumentCaptor<LineConsumer> streamCaptor = ArgumentCaptor.forClass(LineConsumer.class);
+        verify(executor).setOutputConsumer(streamCaptor.capture(), eq(OutputType.CCL_SESSION));
 
-        final OutputStream caught = streamCaptor.getValue();
+        final LineConsumer caught = streamCaptor.getValue();
         assertThat(caught).isInstanceOf(DelegatingOutputStream.class);
-        caught.close();
+        ((DelegatingOutputStream) caught).close();
     }
 
     /**
@@ -668,10 +952,11 @@ public class TestMojoTest {
         private final TestResultScanner scanner;
 
         /**
-         * Create a factory to return a mock scanner.
+         * Create a factory to return a scanner that finds no failures, since the mock result writers pass no results to
+         * its collectors.
          */
         public MockResultScannerFactory() {
-            this(mock(TestResultScanner.class));
+            this(new TestResultScanner());
         }
 
         /**
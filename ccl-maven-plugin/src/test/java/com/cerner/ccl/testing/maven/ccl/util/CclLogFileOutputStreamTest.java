@@ -120,6 +120,29 @@ public class CclLogFileOutputStreamTest {
         }
     }
 
+    /**
+     * Verify that consumed lines are written to the log file, each on its own line.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testConsume() throws Exception {
+        final File destination = new File("target/unit/testConsume" + Long.toString(new Date().getTime()) + ".log");
+        FileUtils.deleteQuietly(destination);
+
+        final CclLogFileOutputStream out = new CclLogFileOutputStream(destination);
+        try {
+            out.consume("first line");
+            out.consume("second line");
+
+            final List<String> lines = FileUtils.readLines(destination, "UTF-8");
+            assertThat(lines.subList(2, lines.size())).containsExactly("first line", "second line");
+        } finally {
+            out.close();
+        }
+    }
+
     /**
      * Verify that, if the same log file is opened multiple times, the output stream does not overwrite what was
      * previously written
@@ -0,0 +1,33 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoverageCollector}.
+ */
+
+public class CoverageCollectorTest {
+    /**
+     * Verify that a program is covered if any of its lines is covered.
+     */
+    @Test
+    public void testCovered() {
+        final CoverageCollector collector = new CoverageCollector();
+        XmlFormatter.scan("<COVERAGE><LINES><LINE><NBR>1</NBR><TYPE>N</TYPE></LINE>"
+                + "<LINE><NBR>2</NBR><TYPE> c </TYPE></LINE></LINES></COVERAGE>", collector);
+        assertThat(collector.isCovered()).isTrue();
+    }
+
+    /**
+     * Verify that a program is not covered if none of its lines is covered, even if other elements hold {@code C}.
+     */
+    @Test
+    public void testNotCovered() {
+        final CoverageCollector collector = new CoverageCollector();
+        XmlFormatter.scan("<COVERAGE><NAME>C</NAME><LINES><LINE><NBR>1</NBR><TYPE>N</TYPE></LINE>"
+                + "<LINE><NBR>2</NBR><TYPE>U</TYPE></LINE></LINES></COVERAGE>", collector);
+        assertThat(collector.isCovered()).isFalse();
+    }
+}
@@ -6,11 +6,17 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+
 /**
  * Unit tests for {@link DelegatingOutputStream}.
  *
@@ -48,6 +54,38 @@ public class DelegatingOutputStreamTest {
         verifyNoMoreInteractions(stream);
     }
 
+    /**
+     * Verify that an array of bytes is written to each underlying stream in a single call.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteArray() throws Exception {
+        final byte[] bytes = new byte[] { 1, 2, 3 };
+        delegate.write(bytes, 1, 2);
+        verify(stream).write(bytes, 1, 2);
+        verifyNoMoreInteractions(stream);
+    }
+
+    /**
+     * Verify that a consumed line is handed to the underlying line consumers and written, with a line terminator, to
+     * the other underlying streams.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testConsume() throws Exception {
+        final ConsumingStream consumingStream = new ConsumingStream();
+        delegate.addStream(consumingStream);
+
+        delegate.consume("a line");
+        verify(stream).write("a line\n".getBytes(StandardCharsets.UTF_8));
+        verifyNoMoreInteractions(stream);
+        assertThat(consumingStream.lines).containsExactly("a line");
+    }
+
     /**
      * Verify that, if the delegate is closed, so are all of its underlying streams.
      *
@@ -135,4 +173,24 @@ public class DelegatingOutputStreamTest {
             return super.hashCode();
         }
     }
+
+    /**
+     * Stub implementation of {@link OutputStream} that is also a {@link LineConsumer}.
+     */
+    private static class ConsumingStream extends OutputStream implements LineConsumer {
+        private final List<String> lines = new ArrayList<String>();
+
+        public ConsumingStream() {
+        }
+
+        @Override
+        public void write(final int b) {
+            throw new UnsupportedOperationException("Lines should be consumed rather than written.");
+        }
+
+        @Override
+        public void consume(final String line) {
+            lines.add(line);
+        }
+    }
 }
@@ -98,4 +98,19 @@ public class LogOutputStreamProxyTest {
         verify(logProxy).log(line);
         verifyNoMoreInteractions(logProxy);
     }
+
+    /**
+     * Verify that a consumed line is logged as it is.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testConsume() throws Exception {
+        final LogOutputStreamProxy proxy = new LogOutputStreamProxy(logProxy);
+        proxy.consume("i am a line");
+        verify(logProxy).log("i am a line");
+        verifyNoMoreInteractions(logProxy);
+        proxy.close();
+    }
 }
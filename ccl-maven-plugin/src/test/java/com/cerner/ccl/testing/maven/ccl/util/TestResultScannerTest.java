@@ -79,6 +79,29 @@ public class TestResultScannerTest {
         assertThat(new TestResultScanner().scanForFailures(xml)).isEmpty();
     }
 
+    /**
+     * Verify that a collector counts the tests that passed, failed and errored.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCreateCollector() throws Exception {
+        final TestResultCollector collector = new TestResultScanner().createCollector();
+        XmlFormatter.scan(readXml(getClass().getResourceAsStream("failedTestResults.xml")), collector);
+        assertThat(collector.getPassedCount()).isEqualTo(4);
+        assertThat(collector.getFailedCount()).isEqualTo(1);
+        assertThat(collector.getErroredCount()).isEqualTo(0);
+
+        final TestResultCollector erroredCollector = new TestResultScanner().createCollector();
+        XmlFormatter.scan("<TESTCASE><TESTS><TEST><NAME>TESTERROR</NAME><ASSERTS/><ERRORS><ERROR>"
+                + "<LINENUMBER>12</LINENUMBER><ERRORTEXT>oops</ERRORTEXT></ERROR></ERRORS><RESULT>ERRORED</RESULT>"
+                + "</TEST></TESTS></TESTCASE>", erroredCollector);
+        assertThat(erroredCollector.getErroredCount()).isEqualTo(1);
+        assertThat(erroredCollector.getFailedTests()).hasSize(1);
+        assertThat(erroredCollector.getFailedTests().iterator().next().getName()).isEqualTo("TESTERROR");
+    }
+
     /**
      * Verify that the scanner returns an empty collection if the {@code <TEST
      * />} elements have no child elements.
@@ -0,0 +1,114 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TestRunHistory}.
+ */
+
+public class TestRunHistoryTest {
+    private File directory;
+    private File historyFile;
+
+    /**
+     * Create a directory of its own for each test.
+     */
+    @Before
+    public void setUp() {
+        directory = new File("target/unit/test-history-" + Long.toString(new Date().getTime()));
+        historyFile = new File(directory, "ccl-test-history.properties");
+    }
+
+    /**
+     * Remove the test directory after each test.
+     */
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * A recorded run is read back by a later instance, and a test case that has not been recorded has no duration and
+     * has not failed.
+     */
+    @Test
+    public void testRecord() {
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        assertThat(history.getDuration("a_test.inc")).isEqualTo(-1);
+        assertThat(history.hasFailed("a_test.inc")).isFalse();
+
+        history.record("a_test.inc", 1500, true);
+        final TestRunHistory loaded = new TestRunHistory(historyFile);
+        assertThat(loaded.getDuration("A_TEST.INC")).isEqualTo(1500);
+        assertThat(loaded.hasFailed("a_test.inc")).isTrue();
+        assertThat(loaded.getDuration("other_test.inc")).isEqualTo(-1);
+    }
+
+    /**
+     * Recording a run without a duration keeps the duration previously recorded.
+     */
+    @Test
+    public void testRecordWithoutDuration() {
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("a_test.inc", 1500, true);
+        history.record("a_test.inc", -1, false);
+        assertThat(history.getDuration("a_test.inc")).isEqualTo(1500);
+        assertThat(history.hasFailed("a_test.inc")).isFalse();
+
+        history.record("b_test.inc", -1, false);
+        assertThat(history.getDuration("b_test.inc")).isEqualTo(-1);
+    }
+
+    /**
+     * The runs recorded in another history replace those of the same test cases.
+     */
+    @Test
+    public void testRecordAll() {
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("a_test.inc", 100, false);
+        history.record("b_test.inc", 200, false);
+
+        final TestRunHistory other = new TestRunHistory(new File(directory, "other.properties"));
+        other.record("b_test.inc", 300, true);
+        history.recordAll(other);
+
+        final TestRunHistory loaded = new TestRunHistory(historyFile);
+        assertThat(loaded.getDuration("a_test.inc")).isEqualTo(100);
+        assertThat(loaded.getDuration("b_test.inc")).isEqualTo(300);
+        assertThat(loaded.hasFailed("b_test.inc")).isTrue();
+    }
+
+    /**
+     * A history saved to a separate results file leaves the loaded history unchanged and saves only the runs recorded
+     * after it was loaded.
+     */
+    @Test
+    public void testRecordToResultsFile() {
+        final TestRunHistory history = new TestRunHistory(historyFile);
+        history.record("a_test.inc", 100, false);
+        history.record("b_test.inc", 200, false);
+
+        final File resultsFile = new File(directory, TestRunHistory.SHARD_HISTORY_FILE_NAME);
+        final TestRunHistory shardHistory = new TestRunHistory(historyFile, resultsFile);
+        shardHistory.record("b_test.inc", 300, true);
+        shardHistory.record("a_test.inc", -1, true);
+        assertThat(shardHistory.getDuration("b_test.inc")).isEqualTo(300);
+
+        final TestRunHistory loaded = new TestRunHistory(historyFile);
+        assertThat(loaded.getDuration("b_test.inc")).isEqualTo(200);
+        assertThat(loaded.hasFailed("a_test.inc")).isFalse();
+
+        final TestRunHistory results = new TestRunHistory(resultsFile);
+        assertThat(results.getDuration("a_test.inc")).isEqualTo(100);
+        assertThat(results.hasFailed("a_test.inc")).isTrue();
+        assertThat(results.getDuration("b_test.inc")).isEqualTo(300);
+    }
+}
@@ -0,0 +1,169 @@
+package com.cerner.ccl.testing.maven.ccl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TestSelectionCache}.
+ */
+
+public class TestSelectionCacheTest {
+    private File directory;
+    private File cacheFile;
+    private File testSource;
+    private File coveredSource;
+    private File otherSource;
+    private File include;
+    private Map<String, File> programSources;
+
+    /**
+     * Create a test case and program sources in a directory of their own for each test.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/unit/test-selection-" + Long.toString(new Date().getTime()));
+        cacheFile = new File(directory, "ccl-test-selection.properties");
+        testSource = new File(directory, "a_test.inc");
+        coveredSource = new File(directory, "covered.prg");
+        otherSource = new File(directory, "other.prg");
+        include = new File(directory, "an_include.inc");
+        write(testSource, "subroutine testIt(null)\nend");
+        write(coveredSource, "create program covered\n%i cclsource:an_include.inc\nend go");
+        write(otherSource, "create program other\nend go");
+        write(include, "declare x = i4");
+
+        programSources = new HashMap<String, File>();
+        programSources.put("covered", coveredSource);
+        programSources.put("other", otherSource);
+    }
+
+    /**
+     * Remove the test directory after each test.
+     */
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * A test case is current after it is recorded, and stays current across instances when sources it did not cover
+     * change.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testIsCurrent() throws Exception {
+        final TestSelectionCache cache = createCache("settings");
+        assertThat(cache.isCurrent("a_test.inc", testSource)).isFalse();
+
+        cache.record("a_test.inc", testSource, Collections.singleton("COVERED"));
+        assertThat(cache.isCurrent("a_test.inc", testSource)).isTrue();
+
+        write(otherSource, "create program other\ncall echo('changed') go\nend go");
+        assertThat(createCache("settings").isCurrent("a_test.inc", testSource)).isTrue();
+    }
+
+    /**
+     * A test case is not current once its own source, a covered program or a file included by a covered program
+     * changes.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testIsCurrentChanged() throws Exception {
+        createCache("settings").record("a_test.inc", testSource, Collections.singleton("covered"));
+
+        write(include, "declare x = f8");
+        assertThat(createCache("settings").isCurrent("a_test.inc", testSource)).isFalse();
+
+        createCache("settings").record("a_test.inc", testSource, Collections.singleton("covered"));
+        write(testSource, "subroutine testIt(null)\ncall echo('changed')\nend");
+        assertThat(createCache("settings").isCurrent("a_test.inc", testSource)).isFalse();
+    }
+
+    /**
+     * A change of settings discards every recorded test case.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testChangedSettings() throws Exception {
+        createCache("settings").record("a_test.inc", testSource, Collections.singleton("covered"));
+        assertThat(createCache("other settings").isCurrent("a_test.inc", testSource)).isFalse();
+    }
+
+    /**
+     * A test case whose covered program includes a file that cannot be found is never recorded.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRecordUnresolvedInclude() throws Exception {
+        FileUtils.forceDelete(include);
+        final TestSelectionCache cache = createCache("settings");
+        cache.record("a_test.inc", testSource, Collections.singleton("covered"));
+        assertThat(cache.isCurrent("a_test.inc", testSource)).isFalse();
+    }
+
+    /**
+     * Program changes are detected relative to the last time the programs were recorded.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testHaveProgramsChanged() throws Exception {
+        final TestSelectionCache cache = createCache("settings");
+        assertThat(cache.haveProgramsChanged()).isTrue();
+
+        cache.recordPrograms();
+        assertThat(createCache("settings").haveProgramsChanged()).isFalse();
+
+        write(otherSource, "create program other\ncall echo('changed') go\nend go");
+        assertThat(createCache("settings").haveProgramsChanged()).isTrue();
+    }
+
+    /**
+     * Create a cache backed by the test's cache file.
+     *
+     * @param settings
+     *            The settings of the cache.
+     * @return A {@link TestSelectionCache}.
+     */
+    private TestSelectionCache createCache(final String settings) {
+        return new TestSelectionCache(cacheFile, programSources, Arrays.asList(directory), settings);
+    }
+
+    /**
+     * Write a file.
+     *
+     * @param file
+     *            The {@link File} to be written.
+     * @param content
+     *            The content of the file.
+     * @throws Exception
+     *             If the file cannot be written.
+     */
+    private static void write(final File file, final String content) throws Exception {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -1,26 +1,18 @@
 package com.cerner.ccl.testing.maven.ccl.util;
 
-import static org.mockito.Mockito.verify;
-import static org.powermock.api.mockito.PowerMockito.mock;
-import static org.powermock.api.mockito.PowerMockito.mockStatic;
-import static org.powermock.api.mockito.PowerMockito.verifyStatic;
-import static org.powermock.api.mockito.PowerMockito.when;
-import static org.powermock.api.mockito.PowerMockito.whenNew;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertThrows;
 
 import java.io.File;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
-
-import com.cerner.ccl.testing.maven.ccl.util.XmlFormatter;
 
 /**
  * Unit test of {@link XmlFormatter}.
@@ -29,10 +21,36 @@ import com.cerner.ccl.testing.maven.ccl.util.XmlFormatter;
  *
  */
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest(value = { DocumentHelper.class, FileUtils.class, OutputFormat.class, StringWriter.class,
-        XmlFormatter.class, XMLWriter.class })
 public class XmlFormatterTest {
+    private static final File DIRECTORY = new File("target/unit/xmlFormatterTest");
+    private static final String XML = "<?xml version=\"1.0\"?>\n<ROOT a=\"1\">\n  <CHILD>TEXT &amp; MORE</CHILD>"
+            + "<EMPTY/><DATA><![CDATA[1<2]]></DATA></ROOT>";
+
+    private File outputFile;
+
+    /**
+     * Create the output directory.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.forceMkdir(DIRECTORY);
+        outputFile = new File(DIRECTORY, "output.xml");
+    }
+
+    /**
+     * Remove the output directory.
+     *
+     * @throws Exception
+     *             If any errors occur during the cleanup.
+     */
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
     /**
      * Test the formatting and writing of XML.
      *
@@ -41,31 +59,69 @@ public class XmlFormatterTest {
      */
     @Test
     public void testFormatAndWriteXml() throws Exception {
-        final String xml = "i am the xml";
-        final File outputFile = mock(File.class);
+        new XmlFormatter().formatAndWriteXml(XML, outputFile);
 
-        final OutputFormat outputFormat = mock(OutputFormat.class);
-        mockStatic(OutputFormat.class);
-        when(OutputFormat.createPrettyPrint()).thenReturn(outputFormat);
-
-        final StringWriter writer = mock(StringWriter.class);
-        whenNew(StringWriter.class).withNoArguments().thenReturn(writer);
+        assertThat(FileUtils.readLines(outputFile, StandardCharsets.UTF_8)).isEqualTo(Arrays.asList(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>", "", "<ROOT a=\"1\">",
+                "    <CHILD>TEXT &amp; MORE</CHILD>", "    <EMPTY/>", "    <DATA><![CDATA[1<2]]></DATA>", "</ROOT>"));
+    }
 
-        final XMLWriter xmlWriter = mock(XMLWriter.class);
-        whenNew(XMLWriter.class).withArguments(writer, outputFormat).thenReturn(xmlWriter);
+    /**
+     * Test that XML that is not to be indented keeps its original whitespace.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFormatAndWriteXmlNoIndent() throws Exception {
+        new XmlFormatter(false).formatAndWriteXml(XML, outputFile);
 
-        mockStatic(FileUtils.class);
+        assertThat(FileUtils.readFileToString(outputFile, StandardCharsets.UTF_8))
+                .isEqualTo("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ROOT a=\"1\">\n  <CHILD>TEXT &amp; MORE</CHILD>"
+                        + "<EMPTY/><DATA><![CDATA[1<2]]></DATA></ROOT>");
+    }
 
-        final Document document = mock(Document.class);
-        mockStatic(DocumentHelper.class);
-        when(DocumentHelper.parseText(xml)).thenReturn(document);
+    /**
+     * Test that the content of the XML is passed to a listener as it is written.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFormatAndWriteXmlListener() throws Exception {
+        final List<String> content = new ArrayList<String>();
+        new XmlFormatter().formatAndWriteXml(XML, outputFile, new XmlContentListener() {
+            @Override
+            public void startElement(final String name) {
+                content.add("<" + name);
+            }
 
-        new XmlFormatter().formatAndWriteXml(xml, outputFile);
+            @Override
+            public void characters(final String text) {
+                if (!text.trim().isEmpty()) {
+                    content.add(text);
+                }
+            }
 
-        verify(xmlWriter).write(document);
+            @Override
+            public void endElement(final String name) {
+                content.add(name + ">");
+            }
+        });
 
-        verifyStatic(FileUtils.class);
-        FileUtils.writeStringToFile(outputFile, writer.toString(), "utf-8");
+        assertThat(String.join("", content)).isEqualTo("<ROOT<CHILDTEXT & MORECHILD><EMPTYEMPTY><DATA1<2DATA>ROOT>");
     }
 
+    /**
+     * Test that XML that cannot be parsed is written as it is before the failure is reported.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFormatAndWriteXmlInvalid() throws Exception {
+        final String xml = "<ROOT><CHILD></ROOT>";
+        assertThrows(RuntimeException.class, () -> new XmlFormatter().formatAndWriteXml(xml, outputFile));
+        assertThat(FileUtils.readFileToString(outputFile, StandardCharsets.UTF_8)).isEqualTo(xml);
+    }
 }
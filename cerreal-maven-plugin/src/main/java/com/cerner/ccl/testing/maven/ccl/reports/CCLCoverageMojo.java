@@ -20,7 +20,7 @@ import com.cerner.ccl.testing.maven.ccl.reports.common.ReportErrorLogger;
  *
  * @author Jeff Wiedemann
  */
-@Mojo(name = "coverage-report", defaultPhase = LifecyclePhase.SITE)
+@Mojo(name = "coverage-report", defaultPhase = LifecyclePhase.SITE, threadSafe = true)
 
 public class CCLCoverageMojo extends AbstractCCLMavenReport {
     /**
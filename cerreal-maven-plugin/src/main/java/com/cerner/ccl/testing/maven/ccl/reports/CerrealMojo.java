@@ -16,7 +16,7 @@ import com.cerner.ccl.testing.maven.ccl.reports.common.ResultsTestSuite;
  * @author Jeff Wiedemann
  *
  */
-@Mojo(name = "test-report", defaultPhase = LifecyclePhase.SITE)
+@Mojo(name = "test-report", defaultPhase = LifecyclePhase.SITE, threadSafe = true)
 public class CerrealMojo extends AbstractCCLMavenReport {
     /**
      * The filename to use for the report.
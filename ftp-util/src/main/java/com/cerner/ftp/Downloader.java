@@ -1,5 +1,7 @@
 package com.cerner.ftp;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Collection;
 
 import com.cerner.ftp.data.FileRequest;
@@ -13,6 +15,31 @@ import com.cerner.ftp.exception.TransferException;
  *
  */
 public interface Downloader {
+    /**
+     * Set the number of SFTP channels over which the downloads are spread. By default, a single channel is used and
+     * files are transferred one after another; implementations that cannot transfer files concurrently ignore this.
+     *
+     * @param channelCount
+     *            The number of channels over which to transfer files concurrently.
+     * @throws IllegalArgumentException
+     *             If the given count is less than one.
+     */
+    default void setChannelCount(final int channelCount) {
+        // Files are transferred one after another unless the implementation supports more channels
+    }
+
+    /**
+     * Set the size at which files are compressed on the remote server before they are transferred and decompressed as
+     * they are received. Compression costs an extra round-trip per file, so it only pays off for larger files. By
+     * default, no files are compressed; implementations that cannot compress files ignore this.
+     *
+     * @param minimumBytes
+     *            The minimum size, in bytes, of a file to be compressed; a negative value disables compression.
+     */
+    default void setCompressionThreshold(final long minimumBytes) {
+        // Files are downloaded as-is unless the implementation supports compressing them
+    }
+
     /**
      * Download all requested files.
      *
@@ -24,4 +51,46 @@ public interface Downloader {
      *             If an error occurs during the transfer of files.
      */
     void download(Collection<? extends FileRequest> requests);
+
+    /**
+     * Open a stream of the contents of a remote file, reading it directly from the server rather than first writing it
+     * to a local file. The connection used to read the file is held until the returned stream is closed. By default,
+     * streaming is unsupported and a {@link TransferException} is thrown; callers that need to work with any
+     * implementation should fall back to {@link #download(Collection)}.
+     *
+     * @param remoteFile
+     *            A {@link URI} representing the remote file to be read.
+     * @return An {@link InputStream} of the file's contents; the caller is responsible for closing it.
+     * @throws NullPointerException
+     *             If the given URI is {@code null}.
+     * @throws ConnectionException
+     *             If an error occurs while attempting to establish the connection.
+     * @throws TransferException
+     *             If the remote file cannot be read, or the implementation does not support streaming.
+     */
+    default InputStream openStream(final URI remoteFile) {
+        if (remoteFile == null) {
+            throw new NullPointerException("Remote file cannot be null.");
+        }
+
+        throw new TransferException(getClass().getName() + " does not support streaming downloads: " + remoteFile,
+                null);
+    }
+
+    /**
+     * Remove a remote file, such as a temporary file that has been read through {@link #openStream(URI)}. By default,
+     * files are left on the server; implementations that cannot remove files ignore this.
+     *
+     * @param remoteFile
+     *            A {@link URI} representing the remote file to be removed.
+     * @throws NullPointerException
+     *             If the given URI is {@code null}.
+     * @throws ConnectionException
+     *             If an error occurs while attempting to establish the connection.
+     * @throws TransferException
+     *             If the remote file cannot be removed.
+     */
+    default void remove(final URI remoteFile) {
+        // Files are left on the server unless the implementation can remove them
+    }
 }
@@ -6,6 +6,7 @@ import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.exception.ConnectionException;
 import com.cerner.ftp.exception.TransferException;
 import com.cerner.ftp.util.PermissionsBuilder;
+import com.cerner.ftp.util.UploadManifest;
 
 /**
  * Definition of an object that is used to upload files.
@@ -29,6 +30,58 @@ public interface Uploader {
      */
     void ignoreChmodErrors(boolean ignoreChmodErrors);
 
+    /**
+     * Set the thresholds at which files are uploaded as a single tar archive that is streamed to, and extracted by, the
+     * remote server instead of one by one. The archive is used when at least {@code minimumFiles} files are uploaded at
+     * once, their total size does not exceed {@code maximumBytes} and every target is an absolute path; a failure is
+     * then reported for the archive as a whole rather than for an individual file. By default, files are always
+     * uploaded one by one.
+     *
+     * @param minimumFiles
+     *            The minimum number of files for which an archive is used; less than one to never use an archive.
+     * @param maximumBytes
+     *            The maximum total size, in bytes, of the files for which an archive is used.
+     */
+    default void setBulkThreshold(final int minimumFiles, final long maximumBytes) {
+        // Files are uploaded one by one unless the implementation supports archives
+    }
+
+    /**
+     * Set the uploader to gzip the archive used for bulk uploads in transit. By default, this property of the uploader
+     * is {@code false}.
+     *
+     * @param compressBulkUploads
+     *            A {@code boolean} value. {@code true} indicates that bulk upload archives should be compressed.
+     */
+    default void compressBulkUploads(final boolean compressBulkUploads) {
+        // There is no archive to compress unless the implementation supports archives
+    }
+
+    /**
+     * Set the manifest used to upload incrementally. When a manifest is set, files that it records as unchanged since
+     * they were last uploaded are skipped, and every file that is uploaded is recorded in the manifest, which is then
+     * saved. By default, no manifest is used and every requested file is uploaded.
+     *
+     * @param manifest
+     *            An {@link UploadManifest}; {@code null} to upload every requested file.
+     */
+    default void setManifest(final UploadManifest manifest) {
+        // Every requested file is uploaded unless the implementation supports incremental uploads
+    }
+
+    /**
+     * Set the uploader to confirm, with a listing of each remote directory, that the files the manifest records as
+     * unchanged are still present on the remote server with the expected size. Files that are not are uploaded again.
+     * This has no effect unless a manifest is set. By default, this property of the uploader is {@code false}.
+     *
+     * @param verifyRemote
+     *            A {@code boolean} value. {@code true} indicates that unchanged files should be verified against the
+     *            remote server.
+     */
+    default void verifyRemote(final boolean verifyRemote) {
+        // Nothing to verify unless the implementation supports incremental uploads
+    }
+
     /**
      * Set the permissions level to be set on each file uploaded to the remote server. By default, these will be god
      * permissions (777), in which every user has read and write access to the file. <br>
@@ -41,6 +94,19 @@ public interface Uploader {
      */
     void setPermissions(int permissions);
 
+    /**
+     * Set the number of SFTP channels over which the uploads are spread. By default, a single channel is used and files
+     * are transferred one after another; implementations that cannot transfer files concurrently ignore this.
+     *
+     * @param channelCount
+     *            The number of channels over which to transfer files concurrently.
+     * @throws IllegalArgumentException
+     *             If the given count is less than one.
+     */
+    default void setChannelCount(final int channelCount) {
+        // Files are transferred one after another unless the implementation supports more channels
+    }
+
     /**
      * Upload all requested files.
      *
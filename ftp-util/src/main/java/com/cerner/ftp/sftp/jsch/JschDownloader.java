@@ -1,5 +1,7 @@
 package com.cerner.ftp.sftp.jsch;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Collection;
 
 import com.cerner.ftp.Downloader;
@@ -31,6 +33,16 @@ public class JschDownloader implements Downloader {
         this.processor = processor;
     }
 
+    @Override
+    public void setChannelCount(final int channelCount) {
+        processor.setChannelCount(channelCount);
+    }
+
+    @Override
+    public void setCompressionThreshold(final long minimumBytes) {
+        processor.setCompressionThreshold(minimumBytes);
+    }
+
     @Override
     public void download(final Collection<? extends FileRequest> requests) {
         final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": download(Collection)");
@@ -51,4 +63,21 @@ public class JschDownloader implements Downloader {
         }
     }
 
+    @Override
+    public InputStream openStream(final URI remoteFile) {
+        if (remoteFile == null) {
+            throw new NullPointerException("Remote file cannot be null.");
+        }
+
+        return processor.openDownloadStream(remoteFile);
+    }
+
+    @Override
+    public void remove(final URI remoteFile) {
+        if (remoteFile == null) {
+            throw new NullPointerException("Remote file cannot be null.");
+        }
+
+        processor.removeFile(remoteFile);
+    }
 }
@@ -1,11 +1,15 @@
 package com.cerner.ftp.sftp.jsch;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.cerner.ftp.Uploader;
 import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.instrument.EtmMonitorFactory;
 import com.cerner.ftp.sftp.jsch.processor.JschSftpProcessor;
+import com.cerner.ftp.util.UploadManifest;
 
 import etm.core.monitor.EtmMonitor;
 import etm.core.monitor.EtmPoint;
@@ -23,6 +27,11 @@ public class JschUploader implements Uploader {
     private final JschSftpProcessor processor;
     private int permissions = Uploader.GOD_PERMISSIONS;
     private boolean ignoreChmodErrors = false;
+    private UploadManifest manifest;
+    private boolean verifyRemote = false;
+    private int bulkMinimumFiles = 0;
+    private long bulkMaximumBytes = 0;
+    private boolean compressBulkUploads = false;
 
     /**
      * Create an uploader.
@@ -39,11 +48,37 @@ public class JschUploader implements Uploader {
         this.ignoreChmodErrors = ignoreChmodErrors;
     }
 
+    @Override
+    public void setBulkThreshold(final int minimumFiles, final long maximumBytes) {
+        this.bulkMinimumFiles = minimumFiles;
+        this.bulkMaximumBytes = maximumBytes;
+    }
+
+    @Override
+    public void compressBulkUploads(final boolean compressBulkUploads) {
+        this.compressBulkUploads = compressBulkUploads;
+    }
+
+    @Override
+    public void setManifest(final UploadManifest manifest) {
+        this.manifest = manifest;
+    }
+
+    @Override
+    public void verifyRemote(final boolean verifyRemote) {
+        this.verifyRemote = verifyRemote;
+    }
+
     @Override
     public void setPermissions(final int permissions) {
         this.permissions = permissions;
     }
 
+    @Override
+    public void setChannelCount(final int channelCount) {
+        processor.setChannelCount(channelCount);
+    }
+
     @Override
     public void upload(final Collection<? extends FileRequest> requests) {
         final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": upload(Collection)");
@@ -53,14 +88,76 @@ public class JschUploader implements Uploader {
                 return;
             }
 
-            for (final FileRequest request : requests) {
+            final Collection<? extends FileRequest> changed = manifest == null ? requests : findChanged(requests);
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            for (final FileRequest request : changed) {
                 processor.queueUpload(request, ignoreChmodErrors, permissions);
             }
 
-            processor.upload();
+            if (isBulk(changed)) {
+                processor.uploadArchive(compressBulkUploads);
+            } else {
+                processor.upload();
+            }
+
+            if (manifest != null) {
+                for (final FileRequest request : changed) {
+                    manifest.record(request);
+                }
+                manifest.save();
+            }
         } finally {
             point.collect();
         }
     }
 
+    /**
+     * Determine which of the given requests need to be uploaded according to the manifest.
+     *
+     * @param requests
+     *            A {@link Collection} of {@link FileRequest} objects representing the requested uploads.
+     * @return A {@link List} of the requests whose files have changed or, if so configured, are missing from the remote
+     *         server.
+     */
+    private List<FileRequest> findChanged(final Collection<? extends FileRequest> requests) {
+        final List<FileRequest> changed = new ArrayList<FileRequest>();
+        final List<FileRequest> unchanged = new ArrayList<FileRequest>();
+        for (final FileRequest request : requests) {
+            if (manifest.isUnchanged(request)) {
+                unchanged.add(request);
+            } else {
+                changed.add(request);
+            }
+        }
+
+        if (verifyRemote && !unchanged.isEmpty()) {
+            changed.addAll(processor.findMissing(unchanged));
+        }
+        return changed;
+    }
+
+    /**
+     * Determine whether the given requests should be uploaded as a single archive.
+     *
+     * @param requests
+     *            A {@link Collection} of {@link FileRequest} objects representing the files to be uploaded.
+     * @return {@code true} if the requests meet the bulk upload thresholds and all target absolute paths.
+     */
+    private boolean isBulk(final Collection<? extends FileRequest> requests) {
+        if (bulkMinimumFiles < 1 || requests.size() < bulkMinimumFiles) {
+            return false;
+        }
+
+        long totalBytes = 0;
+        for (final FileRequest request : requests) {
+            if (!request.getTargetFile().getPath().startsWith("/")) {
+                return false;
+            }
+            totalBytes += new File(request.getSourceFile()).length();
+        }
+        return totalBytes <= bulkMaximumBytes;
+    }
 }
@@ -0,0 +1,191 @@
+package com.cerner.ftp.sftp.jsch.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import com.cerner.ftp.data.FileRequest;
+import com.cerner.ftp.exception.ConnectionException;
+import com.cerner.ftp.exception.TransferException;
+import com.cerner.ftp.instrument.EtmMonitorFactory;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+
+import etm.core.monitor.EtmMonitor;
+import etm.core.monitor.EtmPoint;
+
+/**
+ * Uploads a set of files in a single pass by streaming them, as a tar archive generated on the fly, into a remote
+ * {@code tar} extraction running on an exec channel. The permissions requested for each file are recorded in the
+ * archive and applied by the extraction. <br>
+ * Every target file must be an absolute path, since the archive is extracted relative to the root directory.
+ */
+public class ArchiveUploadProcessor {
+    private static final EtmMonitor MONITOR = EtmMonitorFactory.getEtmMonitor();
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    /**
+     * The default number of milliseconds to wait for the remote extraction to exit once the archive has been sent.
+     */
+    public static final long DEFAULT_EXIT_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+    private final List<UploadProcessor> uploads;
+    private final boolean compress;
+    private final long exitTimeoutMillis;
+
+    /**
+     * Create a processor that uploads the files of the given upload requests.
+     *
+     * @param uploads
+     *            A {@link Collection} of {@link UploadProcessor} objects describing the files to be uploaded and the
+     *            permissions to be placed on them.
+     * @param compress
+     *            {@code true} if the archive should be gzipped in transit.
+     */
+    public ArchiveUploadProcessor(final Collection<UploadProcessor> uploads, final boolean compress) {
+        this(uploads, compress, DEFAULT_EXIT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Create a processor that uploads the files of the given upload requests.
+     *
+     * @param uploads
+     *            A {@link Collection} of {@link UploadProcessor} objects describing the files to be uploaded and the
+     *            permissions to be placed on them.
+     * @param compress
+     *            {@code true} if the archive should be gzipped in transit.
+     * @param exitTimeoutMillis
+     *            The number of milliseconds to wait for the remote extraction to exit once the archive has been sent.
+     * @throws IllegalArgumentException
+     *             If the given timeout is not positive.
+     */
+    public ArchiveUploadProcessor(final Collection<UploadProcessor> uploads, final boolean compress,
+            final long exitTimeoutMillis) {
+        if (exitTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Exit timeout must be positive: " + exitTimeoutMillis);
+        }
+
+        this.uploads = new ArrayList<UploadProcessor>(uploads);
+        this.compress = compress;
+        this.exitTimeoutMillis = exitTimeoutMillis;
+    }
+
+    /**
+     * Get the command that extracts the archive on the remote server.
+     *
+     * @return The command to be executed on the exec channel.
+     */
+    public String getCommand() {
+        return compress ? "cd / && gzip -dc | tar -xpf -" : "cd / && tar -xpf -";
+    }
+
+    /**
+     * Stream the archive into the remote extraction and wait for it to complete.
+     *
+     * @param channel
+     *            An unconnected {@link ChannelExec} on which the extraction is to be run.
+     * @throws ConnectionException
+     *             If the exec channel cannot be connected.
+     * @throws TransferException
+     *             If the archive cannot be sent, or the remote extraction fails or does not exit in time.
+     */
+    public void run(final ChannelExec channel) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": run(ChannelExec)");
+        try {
+            final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            channel.setCommand(getCommand());
+            channel.setErrStream(errors);
+
+            try {
+                final OutputStream remoteInput = channel.getOutputStream();
+                channel.connect();
+                writeArchive(compress ? new GZIPOutputStream(remoteInput) : remoteInput);
+            } catch (final JSchException e) {
+                throw new ConnectionException("Failed to start remote archive extraction.", e);
+            } catch (final IOException e) {
+                throw new TransferException("Failed to stream archive of " + uploads.size() + " files.", e);
+            }
+
+            awaitExit(channel);
+            if (channel.getExitStatus() != 0) {
+                throw new TransferException("Remote archive extraction failed with exit status "
+                        + channel.getExitStatus() + ": " + new String(errors.toByteArray(), StandardCharsets.UTF_8),
+                        null);
+            }
+        } finally {
+            point.collect();
+        }
+    }
+
+    /**
+     * Write every requested file to a tar archive on the given stream, closing the stream once done.
+     *
+     * @param stream
+     *            The {@link OutputStream} to which the archive is to be written.
+     * @throws IOException
+     *             If any errors occur while reading the files or writing the archive.
+     */
+    void writeArchive(final OutputStream stream) throws IOException {
+        final TarArchiveOutputStream tar = new TarArchiveOutputStream(stream, StandardCharsets.UTF_8.name());
+        try {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (final UploadProcessor upload : uploads) {
+                final FileRequest request = upload.getRequest();
+                final File sourceFile = new File(request.getSourceFile());
+                final TarArchiveEntry entry = new TarArchiveEntry(
+                        request.getTargetFile().getPath().replaceFirst("^/+", ""));
+                entry.setSize(sourceFile.length());
+                entry.setModTime(sourceFile.lastModified());
+                entry.setMode((TarArchiveEntry.DEFAULT_FILE_MODE & ~0777) | upload.getPermissions());
+                tar.putArchiveEntry(entry);
+
+                final InputStream input = new FileInputStream(sourceFile);
+                try {
+                    IOUtils.copy(input, tar);
+                } finally {
+                    input.close();
+                }
+                tar.closeArchiveEntry();
+            }
+            tar.finish();
+        } finally {
+            tar.close();
+        }
+    }
+
+    /**
+     * Wait for the remote command to exit.
+     *
+     * @param channel
+     *            The {@link ChannelExec} running the command.
+     * @throws TransferException
+     *             If interrupted while waiting or the command does not exit within the timeout.
+     */
+    private void awaitExit(final ChannelExec channel) {
+        final long deadline = System.currentTimeMillis() + exitTimeoutMillis;
+        while (!channel.isClosed()) {
+            if (System.currentTimeMillis() >= deadline) {
+                throw new TransferException(
+                        "Remote archive extraction did not exit within " + exitTimeoutMillis + " milliseconds.", null);
+            }
+
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransferException("Interrupted while waiting for remote archive extraction.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.cerner.ftp.sftp.jsch.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import com.cerner.ftp.exception.ConnectionException;
+import com.cerner.ftp.exception.TransferException;
+import com.cerner.ftp.instrument.EtmMonitorFactory;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+
+import etm.core.monitor.EtmMonitor;
+import etm.core.monitor.EtmPoint;
+
+/**
+ * Reads a remote file by running {@code gzip} over it on an exec channel and decompressing its output as it arrives,
+ * which reduces the number of bytes sent over the wire for large text files.
+ */
+public class CompressedDownloadProcessor {
+    private static final EtmMonitor MONITOR = EtmMonitorFactory.getEtmMonitor();
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final String path;
+
+    /**
+     * Create a processor that reads the given remote file.
+     *
+     * @param path
+     *            The path of the remote file to be read.
+     * @throws NullPointerException
+     *             If the given path is {@code null}.
+     */
+    public CompressedDownloadProcessor(final String path) {
+        if (path == null) {
+            throw new NullPointerException("Path cannot be null.");
+        }
+        this.path = path;
+    }
+
+    /**
+     * Get the command that compresses the file on the remote server.
+     *
+     * @return The command to be executed on the exec channel.
+     */
+    public String getCommand() {
+        return "gzip -c '" + path.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Start the remote compression and open a stream of the decompressed contents of the file. Once the end of the
+     * stream is reached, it waits for {@code gzip} to exit and fails the read if {@code gzip} did not succeed.
+     *
+     * @param channel
+     *            An unconnected {@link ChannelExec} on which the compression is to be run. The caller is responsible
+     *            for disconnecting it once the returned stream has been read.
+     * @return An {@link InputStream} of the file's uncompressed contents.
+     * @throws ConnectionException
+     *             If the exec channel cannot be connected.
+     * @throws TransferException
+     *             If the remote file cannot be compressed.
+     */
+    public InputStream open(final ChannelExec channel) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": open(ChannelExec)");
+        try {
+            final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            channel.setCommand(getCommand());
+            channel.setErrStream(errors);
+
+            try {
+                final InputStream remoteOutput = channel.getInputStream();
+                channel.connect();
+                return new ExitCheckingInputStream(new GZIPInputStream(remoteOutput), channel, errors);
+            } catch (final JSchException e) {
+                throw new ConnectionException("Failed to start remote compression.", e);
+            } catch (final EOFException e) {
+                // gzip wrote nothing, so it failed before it could compress anything
+                awaitExit(channel);
+                throw new TransferException("Failed to compress remote file " + path + ": "
+                        + new String(errors.toByteArray(), StandardCharsets.UTF_8), e);
+            } catch (final IOException e) {
+                throw new TransferException("Failed to read compressed remote file: " + path, e);
+            }
+        } finally {
+            point.collect();
+        }
+    }
+
+    /**
+     * Wait for the remote command to exit and verify that it succeeded.
+     *
+     * @param channel
+     *            The {@link ChannelExec} running the command.
+     * @param errors
+     *            The {@link ByteArrayOutputStream} holding the error output of the command.
+     * @throws TransferException
+     *             If the command exited with a non-zero status or if interrupted while waiting.
+     */
+    private void verifyExit(final ChannelExec channel, final ByteArrayOutputStream errors) {
+        awaitExit(channel);
+        final int exitStatus = channel.getExitStatus();
+        if (exitStatus != 0) {
+            throw new TransferException("Failed to compress remote file " + path + " (exit status " + exitStatus + "): "
+                    + new String(errors.toByteArray(), StandardCharsets.UTF_8), null);
+        }
+    }
+
+    /**
+     * Wait for the remote command to exit.
+     *
+     * @param channel
+     *            The {@link ChannelExec} running the command.
+     * @throws TransferException
+     *             If interrupted while waiting.
+     */
+    private void awaitExit(final ChannelExec channel) {
+        while (!channel.isClosed()) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransferException("Interrupted while waiting for remote compression.", e);
+            }
+        }
+    }
+
+    /**
+     * A stream that verifies that the remote compression succeeded once the end of its output has been read.
+     */
+    private class ExitCheckingInputStream extends FilterInputStream {
+        private final ChannelExec channel;
+        private final ByteArrayOutputStream errors;
+        private boolean verified;
+
+        /**
+         * Create a stream.
+         *
+         * @param stream
+         *            The {@link InputStream} of the decompressed output of the remote compression.
+         * @param channel
+         *            The {@link ChannelExec} running the compression.
+         * @param errors
+         *            The {@link ByteArrayOutputStream} holding the error output of the compression.
+         */
+        public ExitCheckingInputStream(final InputStream stream, final ChannelExec channel,
+                final ByteArrayOutputStream errors) {
+            super(stream);
+            this.channel = channel;
+            this.errors = errors;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return verifyAtEnd(super.read());
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return verifyAtEnd(super.read(b, off, len));
+        }
+
+        /**
+         * Verify the exit status of the remote compression if the end of the stream has been reached.
+         *
+         * @param result
+         *            The result of a read from the underlying stream.
+         * @return The given result.
+         * @throws TransferException
+         *             If the end of the stream has been reached and the compression did not succeed.
+         */
+        @SuppressWarnings("synthetic-access")
+        private int verifyAtEnd(final int result) {
+            if (result < 0 && !verified) {
+                verified = true;
+                verifyExit(channel, errors);
+            }
+            return result;
+        }
+    }
+}
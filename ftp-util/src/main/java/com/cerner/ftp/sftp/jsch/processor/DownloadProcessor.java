@@ -36,6 +36,15 @@ public class DownloadProcessor implements FileTransferProcessor {
         this.request = request;
     }
 
+    /**
+     * Get the request describing the file to be downloaded.
+     *
+     * @return A {@link FileRequest} object.
+     */
+    FileRequest getRequest() {
+        return request;
+    }
+
     @Override
     public void run(final ChannelSftp channel) {
         final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": run(ChannelSftp)");
@@ -1,8 +1,28 @@
 package com.cerner.ftp.sftp.jsch.processor;
 
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
 
 import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.data.FtpProduct;
@@ -13,9 +33,12 @@ import com.cerner.ftp.exception.TransferException;
 import com.cerner.ftp.instrument.EtmMonitorFactory;
 import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.jsch.ConnectionPoolFactory;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
 
 import etm.core.monitor.EtmMonitor;
 import etm.core.monitor.EtmPoint;
@@ -32,6 +55,8 @@ public abstract class JschSftpProcessor {
 
     private final Set<DownloadProcessor> downloadQueue = new HashSet<DownloadProcessor>(0);
     private final Set<UploadProcessor> uploadQueue = new HashSet<UploadProcessor>(0);
+    private int channelCount = 1;
+    private long compressionThreshold = -1;
 
     /**
      * Get an SFTP processor.
@@ -64,7 +89,195 @@ public abstract class JschSftpProcessor {
      *             If an error occurs while downloading a file.
      */
     public void download() {
-        process(downloadQueue);
+        if (compressionThreshold < 0) {
+            process(downloadQueue);
+            return;
+        }
+
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": download()");
+        try {
+            if (downloadQueue.isEmpty()) {
+                return;
+            }
+
+            final List<FileRequest> compressed = new ArrayList<FileRequest>();
+            final List<DownloadProcessor> uncompressed = new ArrayList<DownloadProcessor>();
+            ChannelSftp channel = null;
+            Connection conn = null;
+            try {
+                conn = getConnection();
+
+                channel = conn.getSFtp();
+                channel.connect();
+
+                for (final DownloadProcessor download : downloadQueue) {
+                    final Long remoteSize = getSize(channel, download.getRequest().getSourceFile().getPath());
+                    if (remoteSize != null && remoteSize.longValue() >= compressionThreshold) {
+                        compressed.add(download.getRequest());
+                    } else {
+                        uncompressed.add(download);
+                    }
+                }
+
+                downloadCompressed(conn, compressed);
+            } catch (final JSchException e) {
+                throw new ConnectionException("Failed to establish SSH connection.", e);
+            } finally {
+                if (channel != null) {
+                    channel.disconnect();
+                }
+
+                if (conn != null) {
+                    conn.close();
+                }
+            }
+
+            process(uncompressed);
+        } finally {
+            point.collect();
+        }
+    }
+
+    /**
+     * Open a stream of the contents of a remote file. The file is read from the wire as the stream is consumed, so no
+     * local copy of it is made. The SFTP channel and connection backing the stream are held until the stream is closed,
+     * so callers must close it.
+     *
+     * @param remoteFile
+     *            A {@link URI} representing the remote file to be read.
+     * @return An {@link InputStream} of the file's contents.
+     * @throws ConnectionException
+     *             If an error occurs establishing the connection.
+     * @throws TransferException
+     *             If the remote file cannot be read.
+     */
+    public InputStream openDownloadStream(final URI remoteFile) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": openDownloadStream(URI)");
+        Channel channel = null;
+        Connection conn = null;
+        try {
+            conn = getConnection();
+
+            final ChannelSftp sftp = conn.getSFtp();
+            channel = sftp;
+            sftp.connect();
+
+            final InputStream stream;
+            if (compressionThreshold >= 0 && sftp.stat(remoteFile.getPath()).getSize() >= compressionThreshold) {
+                sftp.disconnect();
+                final ChannelExec exec = conn.getExec();
+                channel = exec;
+                stream = new RemoteFileInputStream(new CompressedDownloadProcessor(remoteFile.getPath()).open(exec),
+                        exec, conn);
+            } else {
+                stream = new RemoteFileInputStream(sftp.get(remoteFile.getPath()), sftp, conn);
+            }
+            channel = null;
+            conn = null;
+            return stream;
+        } catch (final JSchException e) {
+            throw new ConnectionException("Failed to establish SSH connection.", e);
+        } catch (final SftpException e) {
+            throw new TransferException("Failed to open remote file: " + remoteFile.getPath(), e);
+        } finally {
+            if (channel != null) {
+                channel.disconnect();
+            }
+
+            if (conn != null) {
+                conn.close();
+            }
+
+            point.collect();
+        }
+    }
+
+    /**
+     * Remove a remote file.
+     *
+     * @param remoteFile
+     *            A {@link URI} representing the remote file to be removed.
+     * @throws ConnectionException
+     *             If an error occurs establishing the connection.
+     * @throws TransferException
+     *             If the remote file cannot be removed.
+     */
+    public void removeFile(final URI remoteFile) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": removeFile(URI)");
+        ChannelSftp channel = null;
+        Connection conn = null;
+        try {
+            conn = getConnection();
+
+            channel = conn.getSFtp();
+            channel.connect();
+            channel.rm(remoteFile.getPath());
+        } catch (final JSchException e) {
+            throw new ConnectionException("Failed to establish SSH connection.", e);
+        } catch (final SftpException e) {
+            throw new TransferException("Failed to remove remote file: " + remoteFile.getPath(), e);
+        } finally {
+            if (channel != null) {
+                channel.disconnect();
+            }
+
+            if (conn != null) {
+                conn.close();
+            }
+
+            point.collect();
+        }
+    }
+
+    /**
+     * Find the files that are absent from the remote server or whose remote size differs from that of the local file.
+     * Only the given files are looked up, however many other files their remote directories hold.
+     *
+     * @param requests
+     *            A {@link Collection} of {@link FileRequest} objects describing the local files and the remote files to
+     *            which they were uploaded.
+     * @return A {@link List} of the given requests whose remote files are missing or differ in size.
+     * @throws ConnectionException
+     *             If an error occurs establishing the connection.
+     */
+    public List<FileRequest> findMissing(final Collection<? extends FileRequest> requests) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": findMissing(Collection)");
+        try {
+            final List<FileRequest> missing = new ArrayList<FileRequest>();
+            if (requests.isEmpty()) {
+                return missing;
+            }
+
+            ChannelSftp channel = null;
+            Connection conn = null;
+            try {
+                conn = getConnection();
+
+                channel = conn.getSFtp();
+                channel.connect();
+
+                for (final FileRequest request : requests) {
+                    final Long remoteSize = getSize(channel, request.getTargetFile().getPath());
+                    if (remoteSize == null || remoteSize.longValue() != new File(request.getSourceFile()).length()) {
+                        missing.add(request);
+                    }
+                }
+            } catch (final JSchException e) {
+                throw new ConnectionException("Failed to establish SSH connection.", e);
+            } finally {
+                if (channel != null) {
+                    channel.disconnect();
+                }
+
+                if (conn != null) {
+                    conn.close();
+                }
+            }
+
+            return missing;
+        } finally {
+            point.collect();
+        }
     }
 
     /**
@@ -92,6 +305,34 @@ public abstract class JschSftpProcessor {
         uploadQueue.add(new UploadProcessor(request, ignoreChmodErrors, permissions));
     }
 
+    /**
+     * Set the number of SFTP channels over which queued transfers are spread. Each channel is serviced by its own
+     * worker thread, so up to this many files are in flight at once. By default, a single channel is used.
+     *
+     * @param channelCount
+     *            The number of channels to open on the connection.
+     * @throws IllegalArgumentException
+     *             If the given count is less than one.
+     */
+    public void setChannelCount(final int channelCount) {
+        if (channelCount < 1) {
+            throw new IllegalArgumentException("Channel count must be at least 1: " + channelCount);
+        }
+        this.channelCount = channelCount;
+    }
+
+    /**
+     * Set the size at which downloaded files are compressed on the remote server before being transferred. Files at
+     * least this large are read through {@code gzip} on an exec channel and decompressed locally; smaller files are
+     * read as-is so that they do not pay for the extra channel. By default, no files are compressed.
+     *
+     * @param minimumBytes
+     *            The minimum size, in bytes, of a file to be compressed; a negative value disables compression.
+     */
+    public void setCompressionThreshold(final long minimumBytes) {
+        this.compressionThreshold = minimumBytes;
+    }
+
     /**
      * Establish a connection to the remote server.
      *
@@ -113,6 +354,44 @@ public abstract class JschSftpProcessor {
         process(uploadQueue);
     }
 
+    /**
+     * Perform all queued upload operations as a single archive that is extracted on the remote server, rather than file
+     * by file. Every queued upload must target an absolute path.
+     *
+     * @param compress
+     *            {@code true} if the archive should be gzipped in transit.
+     * @throws ConnectionException
+     *             If an error occurs while establishing the connection.
+     * @throws TransferException
+     *             If the archive cannot be sent or extracted.
+     */
+    public void uploadArchive(final boolean compress) {
+        final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": uploadArchive(boolean)");
+        try {
+            if (uploadQueue.isEmpty()) {
+                return;
+            }
+
+            ChannelExec channel = null;
+            Connection conn = null;
+            try {
+                conn = getConnection();
+                channel = conn.getExec();
+                new ArchiveUploadProcessor(uploadQueue, compress).run(channel);
+            } finally {
+                if (channel != null) {
+                    channel.disconnect();
+                }
+
+                if (conn != null) {
+                    conn.close();
+                }
+            }
+        } finally {
+            point.collect();
+        }
+    }
+
     /**
      * Execute the {@link FileTransferProcessor#run(ChannelSftp)} within a given collection of objects.
      *
@@ -128,22 +407,29 @@ public abstract class JschSftpProcessor {
                 return;
             }
 
-            ChannelSftp channel = null;
+            final int workerCount = Math.min(channelCount, queue.size());
+            final List<ChannelSftp> channels = new ArrayList<ChannelSftp>(workerCount);
             Connection conn = null;
             try {
                 conn = getConnection();
 
-                channel = conn.getSFtp();
-                channel.connect();
-
-                for (final FileTransferProcessor request : queue) {
-                    request.run(channel);
+                for (int i = 0; i < workerCount; i++) {
+                    final ChannelSftp channel = conn.getSFtp();
+                    channels.add(channel);
+                    channel.connect();
                 }
 
+                if (workerCount == 1) {
+                    for (final FileTransferProcessor request : queue) {
+                        request.run(channels.get(0));
+                    }
+                } else {
+                    processInParallel(channels, queue);
+                }
             } catch (final JSchException e) {
                 throw new ConnectionException("Failed to establish SSH connection.", e);
             } finally {
-                if (channel != null) {
+                for (final ChannelSftp channel : channels) {
                     channel.disconnect();
                 }
 
@@ -155,4 +441,233 @@ public abstract class JschSftpProcessor {
             point.collect();
         }
     }
+
+    /**
+     * Download files by compressing them on the remote server, spreading them over as many exec channels as the
+     * {@link #setChannelCount(int) channel count} allows.
+     *
+     * @param conn
+     *            The {@link Connection} on which to open the exec channels that compress the files.
+     * @param requests
+     *            A {@link List} of {@link FileRequest} objects describing the files to be downloaded.
+     * @throws TransferException
+     *             If a file cannot be compressed, transferred or written.
+     */
+    private void downloadCompressed(final Connection conn, final List<FileRequest> requests) {
+        final int workerCount = Math.min(channelCount, requests.size());
+        if (workerCount <= 1) {
+            for (final FileRequest request : requests) {
+                downloadCompressed(conn.getExec(), request);
+            }
+            return;
+        }
+
+        /*
+         * Open every exec channel on this thread before fanning out, so that the workers never open channels on the
+         * shared connection concurrently.
+         */
+        final Map<FileRequest, ChannelExec> execs = new LinkedHashMap<FileRequest, ChannelExec>(requests.size());
+        final Set<ChannelExec> unstarted = ConcurrentHashMap.newKeySet();
+        try {
+            for (final FileRequest request : requests) {
+                final ChannelExec exec = conn.getExec();
+                execs.put(request, exec);
+                unstarted.add(exec);
+            }
+
+            final QueueWorker<Map.Entry<FileRequest, ChannelExec>> worker = new QueueWorker<Map.Entry<FileRequest, ChannelExec>>() {
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public void process(final Map.Entry<FileRequest, ChannelExec> download) {
+                    unstarted.remove(download.getValue());
+                    downloadCompressed(download.getValue(), download.getKey());
+                }
+            };
+            runInParallel(Collections.nCopies(workerCount, worker), execs.entrySet());
+        } finally {
+            // Release the channels of any downloads that were not started because another one failed
+            for (final ChannelExec exec : unstarted) {
+                exec.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Download a file by compressing it on the remote server and decompressing it as it is written to the local disk.
+     *
+     * @param exec
+     *            The unconnected {@link ChannelExec} that compresses the file; it is disconnected once the file is
+     *            written.
+     * @param request
+     *            A {@link FileRequest} describing the file to be downloaded.
+     * @throws TransferException
+     *             If the file cannot be compressed, transferred or written.
+     */
+    private void downloadCompressed(final ChannelExec exec, final FileRequest request) {
+        try {
+            final InputStream stream = new CompressedDownloadProcessor(request.getSourceFile().getPath()).open(exec);
+            try {
+                FileUtils.copyInputStreamToFile(stream, new File(request.getTargetFile()));
+            } finally {
+                stream.close();
+            }
+        } catch (final IOException e) {
+            throw new TransferException("Failed to download file to local disk: " + request.getSourceFile().getPath(),
+                    e);
+        } finally {
+            exec.disconnect();
+        }
+    }
+
+    /**
+     * Get the size of a remote file.
+     *
+     * @param channel
+     *            The connected {@link ChannelSftp} used to look up the file.
+     * @param path
+     *            The path of the remote file.
+     * @return The size of the file; {@code null} if it does not exist or cannot be looked up.
+     */
+    private Long getSize(final ChannelSftp channel, final String path) {
+        try {
+            return Long.valueOf(channel.stat(path).getSize());
+        } catch (final SftpException e) {
+            // Treat a file that cannot be looked up as missing so that it is uploaded, or downloaded as-is
+            return null;
+        }
+    }
+
+    /**
+     * Spread the given transfers over the given channels, one worker thread per channel.
+     *
+     * @param channels
+     *            A {@link List} of connected {@link ChannelSftp} objects; each is used by exactly one worker.
+     * @param queue
+     *            A {@link Collection} of {@link FileTransferProcessor} objects that will be run.
+     */
+    private void processInParallel(final List<ChannelSftp> channels,
+            final Collection<? extends FileTransferProcessor> queue) {
+        final List<QueueWorker<FileTransferProcessor>> workers = new ArrayList<QueueWorker<FileTransferProcessor>>(
+                channels.size());
+        for (final ChannelSftp channel : channels) {
+            workers.add(new QueueWorker<FileTransferProcessor>() {
+                @Override
+                public void process(final FileTransferProcessor request) {
+                    request.run(channel);
+                }
+            });
+        }
+        runInParallel(workers, queue);
+    }
+
+    /**
+     * Spread the given items over the given workers, one thread per worker. Once an item fails, no further items are
+     * started; the first failure is rethrown as-is, with any failures of items already in flight attached to it as
+     * suppressed exceptions.
+     *
+     * @param <T>
+     *            The type of the items.
+     * @param workers
+     *            A {@link List} of {@link QueueWorker} objects; each is run by exactly one thread.
+     * @param queue
+     *            A {@link Collection} of the items to be processed.
+     */
+    private <T> void runInParallel(final List<? extends QueueWorker<T>> workers, final Collection<? extends T> queue) {
+        final Queue<T> pending = new ConcurrentLinkedQueue<T>(queue);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        final ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>(workers.size());
+            for (final QueueWorker<T> worker : workers) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        T item;
+                        while (failure.get() == null && (item = pending.poll()) != null) {
+                            try {
+                                worker.process(item);
+                            } catch (final RuntimeException e) {
+                                if (!failure.compareAndSet(null, e)) {
+                                    failure.get().addSuppressed(e);
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TransferException("Interrupted while waiting for transfers to complete.", e);
+                } catch (final ExecutionException e) {
+                    throw new TransferException("Transfer worker failed.", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * A worker that processes the items of a queue, one at a time, on a thread of its own.
+     *
+     * @param <T>
+     *            The type of the items.
+     */
+    private interface QueueWorker<T> {
+        /**
+         * Process an item of the queue.
+         *
+         * @param item
+         *            The item to be processed.
+         */
+        void process(T item);
+    }
+
+    /**
+     * A stream of a remote file that releases the channel and connection from which it reads once it is closed.
+     */
+    private static class RemoteFileInputStream extends FilterInputStream {
+        private final Channel channel;
+        private final Connection conn;
+        private boolean closed;
+
+        /**
+         * Create a stream.
+         *
+         * @param stream
+         *            The {@link InputStream} of the remote file's contents.
+         * @param channel
+         *            The {@link Channel} from which the file is read.
+         * @param conn
+         *            The {@link Connection} on which the channel is open.
+         */
+        public RemoteFileInputStream(final InputStream stream, final Channel channel, final Connection conn) {
+            super(stream);
+            this.channel = channel;
+            this.conn = conn;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                channel.disconnect();
+                conn.close();
+            }
+        }
+    }
 }
@@ -39,6 +39,24 @@ public class UploadProcessor implements FileTransferProcessor {
         this.permissions = permissions;
     }
 
+    /**
+     * Get the request describing the file to be uploaded.
+     *
+     * @return A {@link FileRequest} object.
+     */
+    FileRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Get the permissions to be placed on the uploaded file.
+     *
+     * @return The bitwise representation of the permissions.
+     */
+    int getPermissions() {
+        return permissions;
+    }
+
     @Override
     public void run(final ChannelSftp channel) {
         final EtmPoint point = MONITOR.createPoint(getClass().getName() + ": run(ChannelSftp)");
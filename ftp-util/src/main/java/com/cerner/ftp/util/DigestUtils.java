@@ -0,0 +1,81 @@
+package com.cerner.ftp.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utilities to compute the SHA-256 digests by which local files are recognized as unchanged.
+ */
+
+public class DigestUtils {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Create a SHA-256 digest.
+     *
+     * @return A {@link MessageDigest}.
+     * @throws IllegalStateException
+     *             If SHA-256 is not supported by the runtime.
+     */
+    public static MessageDigest createSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this runtime.", e);
+        }
+    }
+
+    /**
+     * Add the contents of a file to a digest.
+     *
+     * @param digest
+     *            The {@link MessageDigest} to be updated.
+     * @param file
+     *            The {@link File} whose contents are to be digested.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public static void update(final MessageDigest digest, final File file) throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Compute the SHA-256 digest of a file.
+     *
+     * @param file
+     *            The {@link File} to be digested.
+     * @return The hex-encoded digest of the file's contents.
+     * @throws IOException
+     *             If the file cannot be read.
+     */
+    public static String sha256(final File file) throws IOException {
+        final MessageDigest digest = createSha256();
+        update(digest, file);
+        return toHex(digest);
+    }
+
+    /**
+     * Complete a digest.
+     *
+     * @param digest
+     *            The {@link MessageDigest} to be completed; it is reset.
+     * @return The hex-encoded digest.
+     */
+    public static String toHex(final MessageDigest digest) {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
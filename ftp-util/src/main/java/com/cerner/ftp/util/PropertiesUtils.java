@@ -0,0 +1,68 @@
+package com.cerner.ftp.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Utilities to read and write the properties files in which local caches are kept between builds. <br>
+ * A file is written to a temporary file beside it that then replaces it, so that a reader never sees a partly written
+ * file.
+ */
+
+public class PropertiesUtils {
+    /**
+     * Read a properties file.
+     *
+     * @param file
+     *            The {@link File} to be read.
+     * @return The {@link Properties} read from the file; empty if the file does not exist.
+     * @throws IOException
+     *             If the file exists but cannot be read.
+     */
+    public static Properties load(final File file) throws IOException {
+        final Properties properties = new Properties();
+        if (!file.isFile()) {
+            return properties;
+        }
+
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    /**
+     * Replace a properties file, creating its directory if needed.
+     *
+     * @param file
+     *            The {@link File} to be written.
+     * @param properties
+     *            The {@link Properties} to be written.
+     * @param comments
+     *            The comment written at the top of the file.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public static void store(final File file, final Properties properties, final String comments) throws IOException {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(directory);
+        final File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (OutputStream out = new FileOutputStream(temporary)) {
+                properties.store(out, comments);
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            FileUtils.deleteQuietly(temporary);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cerner.ftp.util;
 
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,7 +15,7 @@ import org.apache.commons.discovery.tools.Service;
  */
 
 public class SpiFactory {
-    private static final Map<Class<?>, Object> overrides = new HashMap<Class<?>, Object>();
+    private static final Map<Class<?>, Object> overrides = Collections.synchronizedMap(new HashMap<Class<?>, Object>());
 
     /**
      * Set an override of the provider lookup.
@@ -56,8 +57,10 @@ public class SpiFactory {
      */
     @SuppressWarnings("unchecked")
     public static <T> T getProvider(final Class<T> clazz) {
-        if (overrides.containsKey(clazz))
-            return (T) overrides.get(clazz);
+        synchronized (overrides) {
+            if (overrides.containsKey(clazz))
+                return (T) overrides.get(clazz);
+        }
 
         final Enumeration<T> providers = Service.providers(clazz);
         if (!providers.hasMoreElements())
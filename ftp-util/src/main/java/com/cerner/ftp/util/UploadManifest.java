@@ -0,0 +1,221 @@
+package com.cerner.ftp.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.cerner.ftp.data.FileRequest;
+
+/**
+ * A local record of the files that have been uploaded, used to skip the upload of files that have not changed since
+ * they were last uploaded. <br>
+ * For each local file, the manifest records its size, last-modified time and SHA-256 digest along with the remote file
+ * to which it was uploaded and the scope (such as the host and environment) into which it was uploaded. A file is
+ * considered unchanged if it is being uploaded to the same remote file within the same scope and either its size and
+ * last-modified time or its content digest match what was recorded.
+ */
+
+public class UploadManifest {
+    private static final char SEPARATOR = '\t';
+
+    private final File manifestFile;
+    private final String scope;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * Create a manifest, loading any entries previously saved to the given file. A manifest file that cannot be read is
+     * ignored, which causes every file to be uploaded.
+     *
+     * @param manifestFile
+     *            A {@link File} representing the location of the manifest.
+     * @param scope
+     *            A description of the destination of the uploads, such as the host and environment; entries recorded
+     *            under a different scope are not considered to be unchanged.
+     * @throws NullPointerException
+     *             If either of the given arguments is {@code null}.
+     */
+    public UploadManifest(final File manifestFile, final String scope) {
+        if (manifestFile == null) {
+            throw new NullPointerException("Manifest file cannot be null.");
+        }
+
+        if (scope == null) {
+            throw new NullPointerException("Scope cannot be null.");
+        }
+
+        this.manifestFile = manifestFile;
+        this.scope = scope;
+        load();
+    }
+
+    /**
+     * Determine whether a file has changed since it was last recorded in this manifest.
+     *
+     * @param request
+     *            A {@link FileRequest} describing the local file and the remote file to which it is to be uploaded.
+     * @return {@code true} if the file was previously uploaded to the same remote location and has not changed since;
+     *         {@code false} otherwise.
+     */
+    public synchronized boolean isUnchanged(final FileRequest request) {
+        final File sourceFile = new File(request.getSourceFile());
+        final Entry entry = entries.get(sourceFile.getAbsolutePath());
+        if (entry == null || !sourceFile.isFile() || !entry.scope.equals(scope)
+                || !entry.target.equals(request.getTargetFile().toString()) || entry.size != sourceFile.length()) {
+            return false;
+        }
+
+        if (entry.lastModified == sourceFile.lastModified()) {
+            return true;
+        }
+
+        final Entry current = createEntry(sourceFile, request.getTargetFile());
+        if (!current.digest.equals(entry.digest)) {
+            return false;
+        }
+
+        entries.put(sourceFile.getAbsolutePath(), current);
+        return true;
+    }
+
+    /**
+     * Record that a file has been uploaded.
+     *
+     * @param request
+     *            A {@link FileRequest} describing the local file and the remote file to which it was uploaded.
+     */
+    public synchronized void record(final FileRequest request) {
+        final File sourceFile = new File(request.getSourceFile());
+        entries.put(sourceFile.getAbsolutePath(), createEntry(sourceFile, request.getTargetFile()));
+    }
+
+    /**
+     * Write this manifest to its file.
+     *
+     * @throws RuntimeException
+     *             If the manifest cannot be written.
+     */
+    public synchronized void save() {
+        final Properties properties = new Properties();
+        for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+
+        try {
+            PropertiesUtils.store(manifestFile, properties, "Upload manifest");
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to write upload manifest: " + manifestFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Read the entries of the manifest file, if it exists.
+     */
+    private void load() {
+        final Properties properties;
+        try {
+            properties = PropertiesUtils.load(manifestFile);
+        } catch (final IOException e) {
+            return;
+        }
+
+        for (final String path : properties.stringPropertyNames()) {
+            final Entry entry = Entry.parse(properties.getProperty(path));
+            if (entry != null) {
+                entries.put(path, entry);
+            }
+        }
+    }
+
+    /**
+     * Create a manifest entry describing the current state of a file.
+     *
+     * @param sourceFile
+     *            The local {@link File}.
+     * @param target
+     *            A {@link URI} representing the remote file.
+     * @return An {@link Entry}.
+     */
+    private Entry createEntry(final File sourceFile, final URI target) {
+        return new Entry(scope, target.toString(), sourceFile.length(), sourceFile.lastModified(), digest(sourceFile));
+    }
+
+    /**
+     * Compute the SHA-256 digest of a file.
+     *
+     * @param file
+     *            The {@link File} to be digested.
+     * @return The hex-encoded digest of the file's contents.
+     * @throws RuntimeException
+     *             If the file cannot be read.
+     */
+    private static String digest(final File file) {
+        try {
+            return DigestUtils.sha256(file);
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to read file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * The recorded state of a single uploaded file.
+     */
+    private static class Entry {
+        private final String scope;
+        private final String target;
+        private final long size;
+        private final long lastModified;
+        private final String digest;
+
+        /**
+         * Create an entry.
+         *
+         * @param scope
+         *            The scope into which the file was uploaded.
+         * @param target
+         *            The remote file to which the file was uploaded.
+         * @param size
+         *            The size, in bytes, of the file.
+         * @param lastModified
+         *            The last-modified time of the file.
+         * @param digest
+         *            The hex-encoded SHA-256 digest of the file.
+         */
+        public Entry(final String scope, final String target, final long size, final long lastModified,
+                final String digest) {
+            this.scope = scope;
+            this.target = target;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        /**
+         * Parse an entry written by {@link #toString()}.
+         *
+         * @param value
+         *            The written form of the entry.
+         * @return An {@link Entry}, or {@code null} if the given value is not a well-formed entry.
+         */
+        public static Entry parse(final String value) {
+            final String[] fields = value.split(String.valueOf(SEPARATOR), -1);
+            if (fields.length != 5) {
+                return null;
+            }
+
+            try {
+                return new Entry(fields[4], fields[3], Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]);
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder().append(size).append(SEPARATOR).append(lastModified).append(SEPARATOR)
+                    .append(digest).append(SEPARATOR).append(target).append(SEPARATOR).append(scope).toString();
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.cerner.ftp.sftp.jsch;
 
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -49,4 +54,65 @@ public class JschDownloaderTest {
 
         verify(processor, never()).download();
     }
+
+    /**
+     * Verify that the channel count is passed through to the processor.
+     */
+    @Test
+    public void testSetChannelCountPassthrough() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        new JschDownloader(processor).setChannelCount(4);
+        verify(processor, times(1)).setChannelCount(4);
+    }
+
+    /**
+     * Verify that the compression threshold is passed through to the processor.
+     */
+    @Test
+    public void testSetCompressionThresholdPassthrough() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        new JschDownloader(processor).setCompressionThreshold(1024);
+        verify(processor, times(1)).setCompressionThreshold(1024);
+    }
+
+    /**
+     * Verify that opening a stream is delegated to the processor.
+     */
+    @Test
+    public void testOpenStream() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final URI remoteFile = URI.create("/cer_temp/data.json");
+        final InputStream stream = new ByteArrayInputStream(new byte[0]);
+        when(processor.openDownloadStream(remoteFile)).thenReturn(stream);
+
+        assertThat(new JschDownloader(processor).openStream(remoteFile)).isSameAs(stream);
+    }
+
+    /**
+     * Opening a stream of a {@code null} remote file should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testOpenStreamNullFile() {
+        new JschDownloader(mock(StubbedJschSftpProcessor.class)).openStream(null);
+    }
+
+    /**
+     * Verify that removing a file is delegated to the processor.
+     */
+    @Test
+    public void testRemove() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final URI remoteFile = URI.create("/cer_temp/data.json");
+
+        new JschDownloader(processor).remove(remoteFile);
+        verify(processor).removeFile(remoteFile);
+    }
+
+    /**
+     * Removing a {@code null} remote file should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testRemoveNullFile() {
+        new JschDownloader(mock(StubbedJschSftpProcessor.class)).remove(null);
+    }
 }
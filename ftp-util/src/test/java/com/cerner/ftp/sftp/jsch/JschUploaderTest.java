@@ -4,7 +4,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -16,6 +18,7 @@ import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.sftp.jsch.internal.StubbedJschSftpProcessor;
 import com.cerner.ftp.sftp.jsch.processor.JschSftpProcessor;
 import com.cerner.ftp.util.PermissionsBuilder;
+import com.cerner.ftp.util.UploadManifest;
 
 /**
  * Unit tests for {@link JschUploader}.
@@ -83,4 +86,129 @@ public class JschUploaderTest {
 
         verify(processor, times(1)).queueUpload(request, true, Uploader.GOD_PERMISSIONS);
     }
+
+    /**
+     * Verify that the channel count is passed through to the processor.
+     */
+    @Test
+    public void testSetChannelCountPassthrough() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        new JschUploader(processor).setChannelCount(4);
+        verify(processor, times(1)).setChannelCount(4);
+    }
+
+    /**
+     * Verify that files the manifest records as unchanged are skipped and that uploaded files are recorded.
+     */
+    @Test
+    public void testUploadWithManifest() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final UploadManifest manifest = mock(UploadManifest.class);
+        final FileRequest changed = mock(FileRequest.class);
+        final FileRequest unchanged = mock(FileRequest.class);
+        when(manifest.isUnchanged(unchanged)).thenReturn(true);
+
+        final JschUploader uploader = new JschUploader(processor);
+        uploader.setManifest(manifest);
+        uploader.upload(Arrays.asList(changed, unchanged));
+
+        verify(processor).queueUpload(changed, false, Uploader.GOD_PERMISSIONS);
+        verify(processor, never()).queueUpload(unchanged, false, Uploader.GOD_PERMISSIONS);
+        verify(processor).upload();
+        verify(processor, never()).findMissing(Arrays.asList(unchanged));
+        verify(manifest).record(changed);
+        verify(manifest, never()).record(unchanged);
+        verify(manifest).save();
+    }
+
+    /**
+     * Verify that nothing is uploaded when the manifest records every file as unchanged.
+     */
+    @Test
+    public void testUploadWithManifestNothingChanged() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final UploadManifest manifest = mock(UploadManifest.class);
+        final FileRequest unchanged = mock(FileRequest.class);
+        when(manifest.isUnchanged(unchanged)).thenReturn(true);
+
+        final JschUploader uploader = new JschUploader(processor);
+        uploader.setManifest(manifest);
+        uploader.upload(Arrays.asList(unchanged));
+
+        verify(processor, never()).upload();
+        verify(manifest, never()).save();
+    }
+
+    /**
+     * Verify that unchanged files missing from the remote server are uploaded again when remote verification is on.
+     */
+    @Test
+    public void testUploadWithManifestVerifyRemote() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final UploadManifest manifest = mock(UploadManifest.class);
+        final FileRequest missing = mock(FileRequest.class);
+        when(manifest.isUnchanged(missing)).thenReturn(true);
+        when(processor.findMissing(Arrays.asList(missing))).thenReturn(Arrays.asList(missing));
+
+        final JschUploader uploader = new JschUploader(processor);
+        uploader.setManifest(manifest);
+        uploader.verifyRemote(true);
+        uploader.upload(Arrays.asList(missing));
+
+        verify(processor).queueUpload(missing, false, Uploader.GOD_PERMISSIONS);
+        verify(processor).upload();
+        verify(manifest).record(missing);
+    }
+
+    /**
+     * Verify that files are uploaded as an archive once the bulk threshold is met.
+     */
+    @Test
+    public void testUploadBulk() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final FileRequest first = createAbsoluteRequest("/cer_install/first.dat");
+        final FileRequest second = createAbsoluteRequest("/cer_install/second.dat");
+
+        final JschUploader uploader = new JschUploader(processor);
+        uploader.setBulkThreshold(2, Long.MAX_VALUE);
+        uploader.compressBulkUploads(true);
+        uploader.upload(Arrays.asList(first, second));
+
+        verify(processor).uploadArchive(true);
+        verify(processor, never()).upload();
+    }
+
+    /**
+     * Verify that files are uploaded one by one when below the bulk threshold or when any target is relative.
+     */
+    @Test
+    public void testUploadBulkNotApplicable() {
+        final JschSftpProcessor processor = mock(StubbedJschSftpProcessor.class);
+        final JschUploader uploader = new JschUploader(processor);
+        uploader.setBulkThreshold(2, Long.MAX_VALUE);
+
+        uploader.upload(Arrays.asList(createAbsoluteRequest("/cer_install/first.dat")));
+
+        final FileRequest relative = mock(FileRequest.class);
+        when(relative.getTargetFile()).thenReturn(URI.create("relative.dat"));
+        uploader.upload(Arrays.asList(createAbsoluteRequest("/cer_install/first.dat"), relative));
+
+        verify(processor, times(2)).upload();
+        verify(processor, never()).uploadArchive(true);
+        verify(processor, never()).uploadArchive(false);
+    }
+
+    /**
+     * Create a request to upload a nonexistent local file to the given absolute path.
+     *
+     * @param target
+     *            The absolute remote path.
+     * @return A mock {@link FileRequest}.
+     */
+    private FileRequest createAbsoluteRequest(final String target) {
+        final FileRequest request = mock(FileRequest.class);
+        when(request.getSourceFile()).thenReturn(URI.create("file:/does/not/exist"));
+        when(request.getTargetFile()).thenReturn(URI.create(target));
+        return request;
+    }
 }
@@ -0,0 +1,180 @@
+package com.cerner.ftp.sftp.jsch.processor;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ftp.data.FileRequest;
+import com.cerner.ftp.exception.TransferException;
+import com.cerner.ftp.util.PermissionsBuilder;
+import com.jcraft.jsch.ChannelExec;
+
+/**
+ * Unit tests for {@link ArchiveUploadProcessor}.
+ */
+
+public class ArchiveUploadProcessorTest {
+    private File first;
+    private File second;
+
+    /**
+     * Create the files to be archived.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        final File directory = new File("target/unit/archive");
+        FileUtils.forceMkdir(directory);
+        first = new File(directory, "first.prg");
+        second = new File(directory, "second.dat");
+        FileUtils.writeStringToFile(first, "drop program first go", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(second, "data", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verify that each file is written to the archive relative to the root directory with its requested permissions.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteArchive() throws Exception {
+        final ArchiveUploadProcessor processor = new ArchiveUploadProcessor(
+                Arrays.asList(createUpload(first, "/cclsource/first.prg", PermissionsBuilder.build(7, 7, 7)),
+                        createUpload(second, "/cer_install/second.dat", PermissionsBuilder.build(6, 4, 0))),
+                false);
+
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        processor.writeArchive(archive);
+
+        final TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive.toByteArray()));
+        try {
+            TarArchiveEntry entry = tar.getNextTarEntry();
+            assertThat(entry.getName()).isEqualTo("cclsource/first.prg");
+            assertThat(entry.getMode() & 0777).isEqualTo(0777);
+            assertThat(IOUtils.toString(tar, StandardCharsets.UTF_8)).isEqualTo("drop program first go");
+
+            entry = tar.getNextTarEntry();
+            assertThat(entry.getName()).isEqualTo("cer_install/second.dat");
+            assertThat(entry.getMode() & 0777).isEqualTo(0640);
+            assertThat(IOUtils.toString(tar, StandardCharsets.UTF_8)).isEqualTo("data");
+
+            assertThat(tar.getNextTarEntry()).isNull();
+        } finally {
+            tar.close();
+        }
+    }
+
+    /**
+     * Verify that the archive is gzipped into the remote extraction when compression is requested.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRunCompressed() throws Exception {
+        final ChannelExec channel = mock(ChannelExec.class);
+        final ByteArrayOutputStream remoteInput = new ByteArrayOutputStream();
+        when(channel.getOutputStream()).thenReturn(remoteInput);
+        when(channel.isClosed()).thenReturn(true);
+        when(channel.getExitStatus()).thenReturn(0);
+
+        new ArchiveUploadProcessor(Collections
+                .singletonList(createUpload(first, "/cclsource/first.prg", PermissionsBuilder.build(7, 7, 7))), true)
+                        .run(channel);
+
+        verify(channel).setCommand("cd / && gzip -dc | tar -xpf -");
+        verify(channel).connect();
+        final TarArchiveInputStream tar = new TarArchiveInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(remoteInput.toByteArray())));
+        try {
+            assertThat(tar.getNextTarEntry().getName()).isEqualTo("cclsource/first.prg");
+        } finally {
+            tar.close();
+        }
+    }
+
+    /**
+     * Verify that a failed remote extraction is reported.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRunFailure() throws Exception {
+        final ChannelExec channel = mock(ChannelExec.class);
+        when(channel.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(channel.isClosed()).thenReturn(true);
+        when(channel.getExitStatus()).thenReturn(2);
+
+        try {
+            new ArchiveUploadProcessor(Collections.singletonList(
+                    createUpload(first, "/cclsource/first.prg", PermissionsBuilder.build(7, 7, 7))), false)
+                            .run(channel);
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).startsWith("Remote archive extraction failed with exit status 2");
+        }
+        verify(channel).setCommand("cd / && tar -xpf -");
+    }
+
+    /**
+     * Verify that a remote extraction that does not exit within the timeout fails the upload.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRunTimeout() throws Exception {
+        final ChannelExec channel = mock(ChannelExec.class);
+        when(channel.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(channel.isClosed()).thenReturn(false);
+
+        try {
+            new ArchiveUploadProcessor(Collections.singletonList(
+                    createUpload(first, "/cclsource/first.prg", PermissionsBuilder.build(7, 7, 7))), false, 100)
+                            .run(channel);
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).isEqualTo("Remote archive extraction did not exit within 100 milliseconds.");
+        }
+    }
+
+    /**
+     * Create an upload of a file.
+     *
+     * @param source
+     *            The local {@link File} to be uploaded.
+     * @param target
+     *            The remote path to which the file is to be uploaded.
+     * @param permissions
+     *            The permissions to be placed on the uploaded file.
+     * @return An {@link UploadProcessor}.
+     */
+    private UploadProcessor createUpload(final File source, final String target, final int permissions) {
+        final FileRequest request = mock(FileRequest.class);
+        when(request.getSourceFile()).thenReturn(source.toURI());
+        when(request.getTargetFile()).thenReturn(URI.create(target));
+        return new UploadProcessor(request, false, permissions);
+    }
+}
@@ -0,0 +1,115 @@
+package com.cerner.ftp.sftp.jsch.processor;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.cerner.ftp.exception.TransferException;
+import com.jcraft.jsch.ChannelExec;
+
+/**
+ * Unit tests for {@link CompressedDownloadProcessor}.
+ */
+
+public class CompressedDownloadProcessorTest {
+    /**
+     * Construction with a {@code null} path should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullPath() {
+        new CompressedDownloadProcessor(null);
+    }
+
+    /**
+     * Verify that the path is quoted for the remote shell.
+     */
+    @Test
+    public void testGetCommand() {
+        assertThat(new CompressedDownloadProcessor("/cer_temp/it's.lis").getCommand())
+                .isEqualTo("gzip -c '/cer_temp/it'\\''s.lis'");
+    }
+
+    /**
+     * Verify that the output of the remote compression is decompressed as it is read.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpen() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write("listing".getBytes(StandardCharsets.UTF_8));
+        gzip.close();
+
+        final ChannelExec channel = mock(ChannelExec.class);
+        when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+        when(channel.isClosed()).thenReturn(true);
+        when(channel.getExitStatus()).thenReturn(0);
+
+        assertThat(IOUtils.toString(new CompressedDownloadProcessor("/cer_temp/out.lis").open(channel),
+                StandardCharsets.UTF_8)).isEqualTo("listing");
+        verify(channel).setCommand("gzip -c '/cer_temp/out.lis'");
+        verify(channel).connect();
+        verify(channel).getExitStatus();
+    }
+
+    /**
+     * Verify that a remote compression that exits with a non-zero status fails the read once its output has been
+     * consumed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenExitStatus() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write("partial".getBytes(StandardCharsets.UTF_8));
+        gzip.close();
+
+        final ChannelExec channel = mock(ChannelExec.class);
+        when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+        when(channel.isClosed()).thenReturn(true);
+        when(channel.getExitStatus()).thenReturn(1);
+
+        final InputStream stream = new CompressedDownloadProcessor("/cer_temp/out.lis").open(channel);
+        try {
+            IOUtils.toString(stream, StandardCharsets.UTF_8);
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).startsWith("Failed to compress remote file /cer_temp/out.lis (exit status 1)");
+        }
+    }
+
+    /**
+     * Verify that a remote compression that produces no output is reported.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenFailure() throws Exception {
+        final ChannelExec channel = mock(ChannelExec.class);
+        when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(channel.isClosed()).thenReturn(true);
+
+        try {
+            new CompressedDownloadProcessor("/cer_temp/missing.lis").open(channel);
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).startsWith("Failed to compress remote file /cer_temp/missing.lis");
+        }
+    }
+}
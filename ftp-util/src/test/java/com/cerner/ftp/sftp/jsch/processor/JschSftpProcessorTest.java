@@ -1,27 +1,49 @@
 package com.cerner.ftp.sftp.jsch.processor;
 
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import com.cerner.ftp.Uploader;
 import com.cerner.ftp.data.FileRequest;
+import com.cerner.ftp.exception.TransferException;
 import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.sftp.jsch.internal.StubbedJschSftpProcessor;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
 
 /**
  * Automated unit test of {@link JschSftpProcessor}.
@@ -36,6 +58,8 @@ public class JschSftpProcessorTest {
     @Mock
     private Connection conn;
     @Mock
+    private ChannelSftp secondChannel;
+    @Mock
     private InputStream serverStream;
 
     /**
@@ -76,6 +100,91 @@ public class JschSftpProcessorTest {
         verify(channel, times(1)).get(sourceFile.toURI().getPath());
     }
 
+    /**
+     * Verify that a remote file can be read as a stream and that closing the stream releases the channel and
+     * connection.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenDownloadStream() throws Exception {
+        when(channel.get("/cer_temp/data.json")).thenReturn(new ByteArrayInputStream("{}".getBytes("utf-8")));
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+
+        final InputStream stream = processor.openDownloadStream(URI.create("/cer_temp/data.json"));
+        verify(channel, never()).disconnect();
+        verify(conn, never()).close();
+
+        assertThat(IOUtils.toString(stream, "utf-8")).isEqualTo("{}");
+        stream.close();
+        stream.close();
+        verify(channel, times(1)).disconnect();
+        verify(conn, times(1)).close();
+    }
+
+    /**
+     * Verify that a remote file that cannot be read is reported and that the channel and connection are released.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenDownloadStreamFailure() throws Exception {
+        when(channel.get("/cer_temp/data.json")).thenThrow(new SftpException(2, "No such file"));
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+
+        try {
+            processor.openDownloadStream(URI.create("/cer_temp/data.json"));
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).isEqualTo("Failed to open remote file: /cer_temp/data.json");
+        }
+        verify(channel).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a remote file can be removed and that the channel and connection are released.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRemoveFile() throws Exception {
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+
+        processor.removeFile(URI.create("/cer_temp/data.json"));
+        verify(channel).rm("/cer_temp/data.json");
+        verify(channel).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a remote file that cannot be removed is reported and that the channel and connection are released.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRemoveFileFailure() throws Exception {
+        doThrow(new SftpException(2, "No such file")).when(channel).rm("/cer_temp/data.json");
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+
+        try {
+            processor.removeFile(URI.create("/cer_temp/data.json"));
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).isEqualTo("Failed to remove remote file: /cer_temp/data.json");
+        }
+        verify(channel).disconnect();
+        verify(conn).close();
+    }
+
     /**
      * Test of {@link JschSftpProcessor#upload()}.
      *
@@ -100,6 +209,338 @@ public class JschSftpProcessorTest {
         verify(channel, times(1)).put(sourceFile.getAbsolutePath(), targetFile.toURI().getPath());
     }
 
+    /**
+     * Verify that uploads are spread over multiple channels when more than one channel is requested.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testUploadParallel() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+
+        final Set<String> uploaded = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final Answer<Void> recordPut = new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                uploaded.add(invocation.<String> getArgument(1));
+                return null;
+            }
+        };
+        lenient().doAnswer(recordPut).when(channel).put(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        lenient().doAnswer(recordPut).when(secondChannel).put(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyString());
+        when(conn.getSFtp()).thenReturn(channel, secondChannel);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setChannelCount(2);
+        for (int i = 0; i < 3; i++) {
+            processor.queueUpload(createMockFileRequest(new File(unitDirectory, "source" + i).toURI(),
+                    new File(unitDirectory, "target" + i).toURI()), false, Uploader.GOD_PERMISSIONS);
+        }
+        processor.upload();
+
+        assertThat(uploaded).hasSize(3);
+        verify(channel).connect();
+        verify(secondChannel).connect();
+        verify(channel).disconnect();
+        verify(secondChannel).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that the failure of a single file in a parallel transfer is reported with its own exception.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testUploadParallelFailure() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+
+        final File failedSource = new File(unitDirectory, "failed");
+        final File failedTarget = new File(unitDirectory, "failed.target");
+        final SftpException cause = new SftpException(ChannelSftp.SSH_FX_FAILURE, "failed");
+        final Answer<Void> failPut = new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws SftpException {
+                if (failedSource.getAbsolutePath().equals(invocation.getArgument(0))) {
+                    throw cause;
+                }
+                return null;
+            }
+        };
+        lenient().doAnswer(failPut).when(channel).put(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        lenient().doAnswer(failPut).when(secondChannel).put(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        when(conn.getSFtp()).thenReturn(channel, secondChannel);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setChannelCount(2);
+        processor.queueUpload(createMockFileRequest(failedSource.toURI(), failedTarget.toURI()), false,
+                Uploader.GOD_PERMISSIONS);
+        processor.queueUpload(createMockFileRequest(new File(unitDirectory, "succeeded").toURI(),
+                new File(unitDirectory, "succeeded.target").toURI()), false, Uploader.GOD_PERMISSIONS);
+
+        try {
+            processor.upload();
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).isEqualTo("Failed to upload: " + failedSource.getAbsolutePath());
+            assertThat(e.getCause()).isSameAs(cause);
+            verify(channel).disconnect();
+            verify(secondChannel).disconnect();
+            return;
+        }
+        throw new AssertionError("The upload should have failed.");
+    }
+
+    /**
+     * Verify that files absent from, or of a different size on, the remote server are found by looking up only those
+     * files rather than listing their directory.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testFindMissing() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+        final File present = new File(unitDirectory, "present.txt");
+        final File resized = new File(unitDirectory, "resized.txt");
+        final File absent = new File(unitDirectory, "absent.txt");
+        for (final File file : Arrays.asList(present, resized, absent)) {
+            FileUtils.writeStringToFile(file, "content", "utf-8");
+        }
+
+        stubSize("/remote/present.txt", present.length());
+        stubSize("/remote/resized.txt", present.length() + 1);
+        when(channel.stat("/remote/absent.txt")).thenThrow(new SftpException(2, "No such file"));
+
+        final FileRequest presentRequest = createMockFileRequest(present.toURI(), URI.create("/remote/present.txt"));
+        final FileRequest resizedRequest = createMockFileRequest(resized.toURI(), URI.create("/remote/resized.txt"));
+        final FileRequest absentRequest = createMockFileRequest(absent.toURI(), URI.create("/remote/absent.txt"));
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        assertThat(processor.findMissing(Arrays.asList(presentRequest, resizedRequest, absentRequest)))
+                .containsOnly(resizedRequest, absentRequest);
+
+        verify(channel, never()).ls(ArgumentMatchers.<String> any());
+        verify(channel).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that an archive upload is run on an exec channel that is then disconnected.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testUploadArchive() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+        final File sourceFile = new File(unitDirectory, "archived.txt");
+        FileUtils.writeStringToFile(sourceFile, "content", "utf-8");
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(exec.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(exec.isClosed()).thenReturn(true);
+        when(conn.getExec()).thenReturn(exec);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.queueUpload(createMockFileRequest(sourceFile.toURI(), URI.create("/remote/archived.txt")), false,
+                Uploader.GOD_PERMISSIONS);
+        processor.uploadArchive(false);
+
+        verify(exec).setCommand("cd / && tar -xpf -");
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that, once a compression threshold is set, files at least that large are downloaded through remote
+     * compression while smaller files are downloaded as-is.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testDownloadCompressed() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+        final File largeTarget = new File(unitDirectory, "large.lis");
+        final File smallTarget = new File(unitDirectory, "small.lis");
+
+        stubSize("/remote/large.lis", 4096);
+        stubSize("/remote/small.lis", 10);
+        when(channel.get("/remote/small.lis")).thenReturn(new ByteArrayInputStream("small".getBytes("utf-8")));
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(gzip("large")));
+        when(exec.isClosed()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(0);
+        when(conn.getExec()).thenReturn(exec);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setCompressionThreshold(1024);
+        processor.queueDownload(createMockFileRequest(URI.create("/remote/large.lis"), largeTarget.toURI()));
+        processor.queueDownload(createMockFileRequest(URI.create("/remote/small.lis"), smallTarget.toURI()));
+        processor.download();
+
+        verify(exec).setCommand("gzip -c '/remote/large.lis'");
+        verify(exec).disconnect();
+        verify(channel, never()).get("/remote/large.lis");
+        assertThat(FileUtils.readFileToString(largeTarget, "utf-8")).isEqualTo("large");
+        assertThat(FileUtils.readFileToString(smallTarget, "utf-8")).isEqualTo("small");
+    }
+
+    /**
+     * Verify that files downloaded through remote compression are spread over as many exec channels as the channel
+     * count allows.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testDownloadCompressedParallel() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+        final File firstTarget = new File(unitDirectory, "first.lis");
+        final File secondTarget = new File(unitDirectory, "second.lis");
+
+        stubSize("/remote/first.lis", 4096);
+        stubSize("/remote/second.lis", 4096);
+
+        // each compression waits for the other to start, so the test only passes if both run at once
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final Answer<InputStream> awaitOther = new Answer<InputStream>() {
+            @Override
+            public InputStream answer(final InvocationOnMock invocation) throws Exception {
+                barrier.await(10, TimeUnit.SECONDS);
+                return new ByteArrayInputStream(gzip("large"));
+            }
+        };
+        final ChannelExec firstExec = mock(ChannelExec.class);
+        when(firstExec.getInputStream()).thenAnswer(awaitOther);
+        when(firstExec.isClosed()).thenReturn(true);
+        when(firstExec.getExitStatus()).thenReturn(0);
+        final ChannelExec secondExec = mock(ChannelExec.class);
+        when(secondExec.getInputStream()).thenAnswer(awaitOther);
+        when(secondExec.isClosed()).thenReturn(true);
+        when(secondExec.getExitStatus()).thenReturn(0);
+        when(conn.getExec()).thenReturn(firstExec, secondExec);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setChannelCount(2);
+        processor.setCompressionThreshold(1024);
+        processor.queueDownload(createMockFileRequest(URI.create("/remote/first.lis"), firstTarget.toURI()));
+        processor.queueDownload(createMockFileRequest(URI.create("/remote/second.lis"), secondTarget.toURI()));
+        processor.download();
+
+        verify(firstExec).disconnect();
+        verify(secondExec).disconnect();
+        assertThat(FileUtils.readFileToString(firstTarget, "utf-8")).isEqualTo("large");
+        assertThat(FileUtils.readFileToString(secondTarget, "utf-8")).isEqualTo("large");
+    }
+
+    /**
+     * Verify that a download through remote compression fails if the compression exits with a non-zero status.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testDownloadCompressedExitStatus() throws Exception {
+        final File unitDirectory = new File("target/unit");
+        FileUtils.forceMkdir(unitDirectory);
+
+        stubSize("/remote/large.lis", 4096);
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(gzip("large")));
+        when(exec.isClosed()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(2);
+        when(conn.getExec()).thenReturn(exec);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setCompressionThreshold(1024);
+        processor.queueDownload(
+                createMockFileRequest(URI.create("/remote/large.lis"), new File(unitDirectory, "large.lis").toURI()));
+        try {
+            processor.download();
+            fail("No exception thrown.");
+        } catch (final TransferException e) {
+            assertThat(e.getMessage()).startsWith("Failed to compress remote file /remote/large.lis (exit status 2)");
+        }
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a stream of a file at least as large as the compression threshold is read through remote compression,
+     * and that closing it releases the exec channel and connection.
+     *
+     * @throws Exception
+     *             If any errors occur while running the test.
+     */
+    @Test
+    public void testOpenDownloadStreamCompressed() throws Exception {
+        final SftpATTRS attrs = mock(SftpATTRS.class);
+        when(attrs.getSize()).thenReturn(4096L);
+        when(channel.stat("/cer_temp/data.json")).thenReturn(attrs);
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(gzip("{}")));
+        when(exec.isClosed()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(0);
+        when(conn.getExec()).thenReturn(exec);
+
+        final StubbedJschSftpProcessor processor = new StubbedJschSftpProcessor();
+        processor.setConnection(conn);
+        processor.setCompressionThreshold(1024);
+
+        final InputStream stream = processor.openDownloadStream(URI.create("/cer_temp/data.json"));
+        verify(channel).disconnect();
+        verify(channel, never()).get(ArgumentMatchers.<String> any());
+
+        assertThat(IOUtils.toString(stream, "utf-8")).isEqualTo("{}");
+        stream.close();
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * A channel count of less than one should be rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetChannelCountZero() {
+        new StubbedJschSftpProcessor().setChannelCount(0);
+    }
+
+    /**
+     * Make the channel report the given size for a remote file.
+     *
+     * @param path
+     *            The path of the remote file.
+     * @param size
+     *            The size of the remote file.
+     * @throws SftpException
+     *             Never; declared by the stubbed method.
+     */
+    private void stubSize(final String path, final long size) throws SftpException {
+        final SftpATTRS attrs = mock(SftpATTRS.class);
+        when(attrs.getSize()).thenReturn(size);
+        when(channel.stat(path)).thenReturn(attrs);
+    }
+
     /**
      * Create a mock file request.
      *
@@ -115,4 +556,21 @@ public class JschSftpProcessorTest {
         when(request.getTargetFile()).thenReturn(targetLocation);
         return request;
     }
+
+    /**
+     * Compress text as {@code gzip} would.
+     *
+     * @param text
+     *            The text to be compressed.
+     * @return The compressed bytes.
+     * @throws IOException
+     *             If the text cannot be compressed.
+     */
+    private byte[] gzip(final String text) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final GZIPOutputStream stream = new GZIPOutputStream(compressed);
+        stream.write(text.getBytes("utf-8"));
+        stream.close();
+        return compressed.toByteArray();
+    }
 }
@@ -0,0 +1,73 @@
+package com.cerner.ftp.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DigestUtils}.
+ */
+
+public class DigestUtilsTest {
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private File file;
+
+    /**
+     * Create a file to be digested.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        file = new File("target/unit/digest-utils/abc.txt");
+        FileUtils.writeStringToFile(file, "abc", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Verify the digest of a file.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSha256() throws Exception {
+        assertThat(DigestUtils.sha256(file)).isEqualTo(ABC_SHA256);
+    }
+
+    /**
+     * Verify that a file digested along with other data matches the digest of the same bytes.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testUpdate() throws Exception {
+        final MessageDigest digest = DigestUtils.createSha256();
+        digest.update("a".getBytes(StandardCharsets.UTF_8));
+        DigestUtils.update(digest, file);
+
+        final MessageDigest expected = DigestUtils.createSha256();
+        expected.update("aabc".getBytes(StandardCharsets.UTF_8));
+        assertThat(DigestUtils.toHex(digest)).isEqualTo(DigestUtils.toHex(expected));
+    }
+
+    /**
+     * Digesting a file that does not exist should fail.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IOException.class)
+    public void testSha256Missing() throws Exception {
+        DigestUtils.sha256(new File(file.getParentFile(), "missing.txt"));
+    }
+}
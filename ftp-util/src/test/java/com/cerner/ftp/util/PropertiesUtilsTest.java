@@ -0,0 +1,83 @@
+package com.cerner.ftp.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PropertiesUtils}.
+ */
+
+public class PropertiesUtilsTest {
+    private File directory;
+
+    /**
+     * Start each test with an empty directory.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/unit/properties-utils");
+        FileUtils.deleteDirectory(directory);
+    }
+
+    /**
+     * Verify that stored properties are loaded back, that the missing directory is created and that no temporary file
+     * is left behind.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testStoreLoad() throws Exception {
+        final File file = new File(directory, "nested/cache.properties");
+        final Properties properties = new Properties();
+        properties.setProperty("key", "value");
+        PropertiesUtils.store(file, properties, "comments");
+
+        properties.setProperty("key", "changed");
+        PropertiesUtils.store(file, properties, "comments");
+
+        assertThat(PropertiesUtils.load(file)).isEqualTo(properties);
+        assertThat(file.getParentFile().list()).containsOnly("cache.properties");
+    }
+
+    /**
+     * Verify that a file that does not exist is loaded as empty.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testLoadMissing() throws Exception {
+        assertThat(PropertiesUtils.load(new File(directory, "missing.properties"))).isEmpty();
+    }
+
+    /**
+     * Storing over a directory should fail without leaving a temporary file behind.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testStoreFailure() throws Exception {
+        final File file = new File(directory, "cache.properties");
+        FileUtils.forceMkdir(new File(file, "child"));
+
+        try {
+            PropertiesUtils.store(file, new Properties(), "comments");
+        } catch (final IOException e) {
+            assertThat(directory.list()).containsOnly("cache.properties");
+            return;
+        }
+        throw new AssertionError("Storing over a directory should have failed.");
+    }
+}
@@ -0,0 +1,143 @@
+package com.cerner.ftp.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ftp.data.FileRequest;
+
+/**
+ * Unit tests for {@link UploadManifest}.
+ */
+
+public class UploadManifestTest {
+    private static final String SCOPE = "user@host:env";
+    private static final URI TARGET = URI.create("/cer_install/source.txt");
+
+    private File directory;
+    private File manifestFile;
+    private File sourceFile;
+
+    /**
+     * Create a fresh source file and manifest location for each test.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/unit/upload-manifest");
+        FileUtils.deleteDirectory(directory);
+        FileUtils.forceMkdir(directory);
+
+        manifestFile = new File(directory, "manifest.properties");
+        sourceFile = new File(directory, "source.txt");
+        FileUtils.writeStringToFile(sourceFile, "original", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Construction with a {@code null} manifest file should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullFile() {
+        new UploadManifest(null, SCOPE);
+    }
+
+    /**
+     * Construction with a {@code null} scope should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullScope() {
+        new UploadManifest(manifestFile, null);
+    }
+
+    /**
+     * Verify that a recorded file is considered unchanged by a manifest loaded from the saved file.
+     */
+    @Test
+    public void testRecordAndSave() {
+        final UploadManifest manifest = new UploadManifest(manifestFile, SCOPE);
+        assertThat(manifest.isUnchanged(createRequest(TARGET))).isFalse();
+
+        manifest.record(createRequest(TARGET));
+        manifest.save();
+
+        assertThat(new UploadManifest(manifestFile, SCOPE).isUnchanged(createRequest(TARGET))).isTrue();
+    }
+
+    /**
+     * Verify that a file whose content has changed is detected.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testContentChanged() throws Exception {
+        final UploadManifest manifest = new UploadManifest(manifestFile, SCOPE);
+        manifest.record(createRequest(TARGET));
+
+        FileUtils.writeStringToFile(sourceFile, "modified", StandardCharsets.UTF_8);
+        sourceFile.setLastModified(sourceFile.lastModified() + 5000);
+        assertThat(manifest.isUnchanged(createRequest(TARGET))).isFalse();
+    }
+
+    /**
+     * Verify that a file that has been touched without its content changing is considered unchanged.
+     */
+    @Test
+    public void testTouchedOnly() {
+        final UploadManifest manifest = new UploadManifest(manifestFile, SCOPE);
+        manifest.record(createRequest(TARGET));
+
+        sourceFile.setLastModified(sourceFile.lastModified() + 5000);
+        assertThat(manifest.isUnchanged(createRequest(TARGET))).isTrue();
+    }
+
+    /**
+     * Verify that a file recorded for a different target or scope is considered changed.
+     */
+    @Test
+    public void testDifferentDestination() {
+        final UploadManifest manifest = new UploadManifest(manifestFile, SCOPE);
+        manifest.record(createRequest(TARGET));
+        manifest.save();
+
+        assertThat(manifest.isUnchanged(createRequest(URI.create("/cer_proc/source.txt")))).isFalse();
+        assertThat(new UploadManifest(manifestFile, "user@host:other").isUnchanged(createRequest(TARGET))).isFalse();
+    }
+
+    /**
+     * Verify that a malformed manifest file is ignored.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testMalformedManifest() throws Exception {
+        FileUtils.writeStringToFile(manifestFile, sourceFile.getAbsolutePath().replace("\\", "\\\\") + "=garbage",
+                StandardCharsets.UTF_8);
+        assertThat(new UploadManifest(manifestFile, SCOPE).isUnchanged(createRequest(TARGET))).isFalse();
+    }
+
+    /**
+     * Create a request to upload the source file.
+     *
+     * @param target
+     *            The location to which the file is to be uploaded.
+     * @return A mock {@link FileRequest}.
+     */
+    private FileRequest createRequest(final URI target) {
+        final FileRequest request = mock(FileRequest.class);
+        when(request.getSourceFile()).thenReturn(sourceFile.toURI());
+        when(request.getTargetFile()).thenReturn(target);
+        return request;
+    }
+}
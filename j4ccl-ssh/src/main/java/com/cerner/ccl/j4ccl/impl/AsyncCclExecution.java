@@ -0,0 +1,184 @@
+package com.cerner.ccl.j4ccl.impl;
+
+import java.io.File;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.security.auth.Subject;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
+import com.cerner.ccl.j4ccl.ssh.SessionCancellation;
+
+/**
+ * A {@link CompletableFuture} of an execution run on a shared, bounded pool of threads. <br>
+ * The execution is run as the {@link Subject} in context when it was submitted, with the {@link TerminalProperties} and
+ * compile cache of the submitting thread and with a {@link SessionCancellation} bound to its thread.
+ * {@link #cancel(boolean) Cancelling} the future aborts and disconnects every channel that the execution has open, so
+ * that the remote CCL session is interrupted rather than left to run to completion. The number of threads is given by
+ * the {@value #THREADS_PROPERTY} system property; it defaults to {@value #DEFAULT_THREADS}, which matches the default
+ * number of connections the connection pool allows per server, and is raised by {@link #ensureThreads(int)}.
+ */
+
+class AsyncCclExecution extends CompletableFuture<Void> {
+    /**
+     * The name of the system property giving the number of threads on which asynchronous executions are run.
+     */
+    static final String THREADS_PROPERTY = "j4ccl.async.threads";
+    /**
+     * The number of threads on which asynchronous executions are run if the {@value #THREADS_PROPERTY} property is not
+     * set.
+     */
+    static final int DEFAULT_THREADS = 8;
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private final SessionCancellation cancellation = new SessionCancellation();
+    private volatile Future<?> task;
+
+    /**
+     * Submit an execution to be run asynchronously.
+     *
+     * @param execution
+     *            A {@link Runnable} that performs the execution.
+     * @return An {@link AsyncCclExecution} that completes when the execution does.
+     */
+    static AsyncCclExecution submit(final Runnable execution) {
+        return submit(EXECUTOR, execution);
+    }
+
+    /**
+     * Submit an execution to be run asynchronously by the given executor. This method is package-private for testing.
+     *
+     * @param executor
+     *            The {@link ExecutorService} by which the execution is to be run.
+     * @param execution
+     *            A {@link Runnable} that performs the execution.
+     * @return An {@link AsyncCclExecution} that completes when the execution does.
+     */
+    static AsyncCclExecution submit(final ExecutorService executor, final Runnable execution) {
+        final Subject subject = Subject.getSubject(AccessController.getContext());
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        final String compileCacheFile = CompileCache.getFileProperty();
+        final File compileSourceRoot = CompileCache.getSourceRoot();
+        final AsyncCclExecution future = new AsyncCclExecution();
+        future.task = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                TerminalProperties.setThreadTerminalProperties(terminalProperties);
+                CompileCache.setThreadFileProperty(compileCacheFile == null ? "" : compileCacheFile);
+                CompileCache.setThreadSourceRoot(compileSourceRoot);
+                try {
+                    future.run(subject, execution);
+                } finally {
+                    TerminalProperties.setThreadTerminalProperties(null);
+                    CompileCache.setThreadFileProperty(null);
+                    CompileCache.setThreadSourceRoot(null);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Raise the number of threads on which asynchronous executions are run.
+     *
+     * @param minimum
+     *            The number of threads there must at least be; if there already are at least this many, the number is
+     *            left as it is.
+     */
+    static void ensureThreads(final int minimum) {
+        ensureThreads(EXECUTOR, minimum);
+    }
+
+    /**
+     * Raise the number of threads of the given executor. This method is package-private for testing.
+     *
+     * @param executor
+     *            The {@link ThreadPoolExecutor} whose threads are to be raised.
+     * @param minimum
+     *            The number of threads there must at least be.
+     */
+    static void ensureThreads(final ThreadPoolExecutor executor, final int minimum) {
+        synchronized (executor) {
+            if (minimum > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(minimum);
+                executor.setCorePoolSize(minimum);
+            }
+        }
+    }
+
+    /**
+     * Cancel the execution. If it is running, the remote CCL session is aborted and its channel closed, and the
+     * execution fails.
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            cancellation.cancel();
+            final Future<?> submitted = task;
+            if (submitted != null)
+                submitted.cancel(mayInterruptIfRunning);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Run the execution, unless it has already been cancelled, and complete this future with its outcome.
+     *
+     * @param subject
+     *            The {@link Subject} as which the execution is to be run.
+     * @param execution
+     *            A {@link Runnable} that performs the execution.
+     */
+    private void run(final Subject subject, final Runnable execution) {
+        if (isDone())
+            return;
+
+        cancellation.bind();
+        try {
+            Subject.doAs(subject, new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    execution.run();
+                    return null;
+                }
+            });
+            complete(null);
+        } catch (final RuntimeException e) {
+            completeExceptionally(e);
+        } catch (final Error e) {
+            completeExceptionally(e);
+            throw e;
+        } finally {
+            SessionCancellation.unbind();
+        }
+    }
+
+    /**
+     * Create the pool of daemon threads on which asynchronous executions are run.
+     *
+     * @return A {@link ThreadPoolExecutor}.
+     */
+    private static ThreadPoolExecutor createExecutor() {
+        final int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS).intValue());
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "j4ccl-async-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -2,6 +2,7 @@ package com.cerner.ccl.j4ccl.impl;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
 
 import javax.security.auth.Subject;
 
@@ -12,6 +13,7 @@ import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.adders.ScriptDropAdder;
 import com.cerner.ccl.j4ccl.adders.ScriptExecutionAdder;
 import com.cerner.ccl.j4ccl.enums.OutputType;
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.impl.adders.DynamicCompilerAdderImpl;
 import com.cerner.ccl.j4ccl.impl.adders.ScriptCompilerAdderImpl;
 import com.cerner.ccl.j4ccl.impl.adders.ScriptDropAdderImpl;
@@ -22,6 +24,11 @@ import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamConfiguration;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.CclSession;
+import com.cerner.ccl.j4ccl.ssh.CclSessionPool;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+import com.cerner.ftp.jsch.impl.DefaultConnectionPool;
 
 /**
  * An implementation of {@link CclExecutor}. <br>
@@ -49,6 +56,8 @@ public class BaseCclExecutor extends CclExecutor {
     private final CommandQueue commandQueue;
     private OutputStreamConfiguration outputStreamConfiguration;
     private TerminalProperties terminalProperties;
+    private final CclSessionPool sessionPool;
+    private CclSession session;
 
     /**
      * Create a CCL command executor.
@@ -73,12 +82,34 @@ public class BaseCclExecutor extends CclExecutor {
      *             If the given command queue is {@code null}.
      */
     public BaseCclExecutor(final TerminalProperties terminalProperties, final CommandQueue commandQueue) {
+        this(terminalProperties, commandQueue, CclSessionPool.getInstance());
+    }
+
+    /**
+     * Create a CCL command executor that draws its open sessions from the given pool. This constructor is
+     * package-private for testing.
+     *
+     * @param terminalProperties
+     *            The TerminalProperties to apply.
+     * @param commandQueue
+     *            A {@link CommandQueue} managed by this executor.
+     * @param sessionPool
+     *            The {@link CclSessionPool} from which {@link #open()} obtains a session.
+     * @throws NullPointerException
+     *             If the given command queue or session pool is {@code null}.
+     */
+    BaseCclExecutor(final TerminalProperties terminalProperties, final CommandQueue commandQueue,
+            final CclSessionPool sessionPool) {
         if (commandQueue == null)
             throw new NullPointerException("Command queue cannot be null.");
 
+        if (sessionPool == null)
+            throw new NullPointerException("Session pool cannot be null.");
+
         this.commandQueue = commandQueue;
+        this.sessionPool = sessionPool;
         this.terminalProperties = terminalProperties != null ? terminalProperties
-                : TerminalProperties.getGlobalTerminalProperties();
+                : TerminalProperties.getThreadTerminalProperties();
     }
 
     @Override
@@ -130,15 +161,67 @@ public class BaseCclExecutor extends CclExecutor {
         if (getCommandQueue().isEmpty())
             return;
 
-        final CclCommandTerminal cclTerminal = new CclCommandTerminal(terminalProperties, outputStreamConfiguration);
+        final CclCommandTerminal cclTerminal = session == null
+                ? new CclCommandTerminal(terminalProperties, outputStreamConfiguration)
+                : new CclCommandTerminal(terminalProperties, outputStreamConfiguration, session);
         getCommandQueue().execute(cclTerminal);
     }
 
+    @Override
+    public CompletableFuture<Void> executeAsync() {
+        return AsyncCclExecution.submit(new Runnable() {
+            @Override
+            public void run() {
+                execute();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc} The asynchronous executions are given at least that many threads, and the connection pool lets
+     * twice as many connections be checked out at once per server and credentials: one for the shell of each execution
+     * and one for its file transfers.
+     */
+    @Override
+    public void ensureAsyncCapacity(final int executions) {
+        AsyncCclExecution.ensureThreads(executions);
+        DefaultConnectionPool.ensureMaxPerKey(2 * executions);
+    }
+
+    @Override
+    public void open() {
+        if (session != null)
+            throw new IllegalStateException("Executor is already open.");
+
+        try {
+            session = sessionPool.borrowSession(terminalProperties);
+        } catch (final SshException e) {
+            throw new CclCommandException("Failed to open a CCL session.", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (session == null)
+            return;
+
+        try {
+            sessionPool.returnSession(session);
+        } finally {
+            session = null;
+        }
+    }
+
     @Override
     public void setOutputStream(final OutputStream stream, final OutputType outputType) {
         this.outputStreamConfiguration = new OutputStreamConfiguration(stream, outputType);
     }
 
+    @Override
+    public void setOutputConsumer(final LineConsumer consumer, final OutputType outputType) {
+        this.outputStreamConfiguration = new OutputStreamConfiguration(consumer, outputType);
+    }
+
     @Override
     public void setTerminalProperties(final TerminalProperties terminalProperties) {
         this.terminalProperties = terminalProperties;
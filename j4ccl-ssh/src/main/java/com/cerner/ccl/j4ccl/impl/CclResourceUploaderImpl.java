@@ -8,6 +8,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+import com.cerner.ccl.j4ccl.impl.jaas.JaasUtils;
 import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
 import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
 import com.cerner.ccl.j4ccl.util.CclResourceUploader;
@@ -15,6 +17,7 @@ import com.cerner.ftp.Uploader;
 import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.data.factory.FileRequestFactory;
 import com.cerner.ftp.sftp.SftpUploader;
+import com.cerner.ftp.util.UploadManifest;
 import com.google.code.jetm.reporting.ext.PointFactory;
 
 import etm.core.monitor.EtmPoint;
@@ -56,6 +59,19 @@ public class CclResourceUploaderImpl extends CclResourceUploader {
 
             final Uploader uploader = SftpUploader.createUploader(AuthHelper.fromCurrentSubject());
             uploader.ignoreChmodErrors(true);
+            if (getChannelCount() > 1) {
+                uploader.setChannelCount(getChannelCount());
+            }
+            if (getBulkUploadMinimumFiles() > 0) {
+                uploader.setBulkThreshold(getBulkUploadMinimumFiles(), getBulkUploadMaximumBytes());
+                uploader.compressBulkUploads(isCompressBulkUploads());
+            }
+            if (getManifestFile() != null) {
+                final BackendNodePrincipal principal = JaasUtils.getPrincipal(BackendNodePrincipal.class);
+                uploader.setManifest(new UploadManifest(getManifestFile(), principal.getUsername() + "@"
+                        + principal.getHostname() + ":" + principal.getEnvironmentName()));
+                uploader.verifyRemote(isVerifyRemote());
+            }
             uploader.upload(uploadRequests);
 
             return uploads;
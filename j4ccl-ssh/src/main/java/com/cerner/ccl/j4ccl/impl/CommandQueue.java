@@ -1,12 +1,30 @@
 package com.cerner.ccl.j4ccl.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.impl.commands.AbstractCclCommand;
+import com.cerner.ccl.j4ccl.impl.commands.DynamicIncludeBatchCommand;
+import com.cerner.ccl.j4ccl.impl.commands.ObjectTimestampCommand;
+import com.cerner.ccl.j4ccl.impl.commands.ScriptCompilerCommand;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshCommandSetException;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.google.code.jetm.reporting.ext.PointFactory;
+
+import etm.core.monitor.EtmPoint;
 
 /**
  * An object that can be used to store contributions of commands to be executed during and outside of a CCL session.
@@ -19,6 +37,8 @@ public class CommandQueue {
     private final List<AbstractCclCommand> inSessionCommands = new ArrayList<AbstractCclCommand>();
     private final List<AbstractCclCommand> onCclCloseCommands = new ArrayList<AbstractCclCommand>();
     private final List<AbstractCclCommand> onCclStartCommands = new ArrayList<AbstractCclCommand>();
+    private final Map<Boolean, DynamicIncludeBatchCommand> dynamicIncludeBatches = new HashMap<Boolean, DynamicIncludeBatchCommand>();
+    private final Logger logger = LoggerFactory.getLogger(CommandQueue.class);
 
     /**
      * Add a command to be run during an open CCL session.
@@ -56,6 +76,26 @@ public class CommandQueue {
         return this;
     }
 
+    /**
+     * Get the batch into which the wrapper scripts of dynamic includes compiled in the given mode are gathered, adding
+     * it to this queue - along with the command that drops its wrapper scripts when the CCL session closes - the first
+     * time it is requested.
+     *
+     * @param doDebugCompile
+     *            {@code true} for the batch of wrapper scripts compiled in debug mode; {@code false} otherwise.
+     * @return A {@link DynamicIncludeBatchCommand}.
+     */
+    public DynamicIncludeBatchCommand getDynamicIncludeBatch(final boolean doDebugCompile) {
+        DynamicIncludeBatchCommand batch = dynamicIncludeBatches.get(Boolean.valueOf(doDebugCompile));
+        if (batch == null) {
+            batch = new DynamicIncludeBatchCommand(doDebugCompile);
+            dynamicIncludeBatches.put(Boolean.valueOf(doDebugCompile), batch);
+            addInCclSessionCommand(batch);
+            addOnCclCloseCommand(batch.getDropCommand());
+        }
+        return batch;
+    }
+
     /**
      * Execute a set of commands.
      *
@@ -68,20 +108,184 @@ public class CommandQueue {
             return;
 
         try {
-            for (final AbstractCclCommand command : getOnCclStartCommands())
-                command.run(cclTerminal);
+            markCurrentCompilations(cclTerminal);
+
+            final TerminalProperties terminalProperties = cclTerminal.getTerminalProperties();
+            if (terminalProperties != null && terminalProperties.getBatchSessions() && isBatchable()) {
+                executeInSingleSession(cclTerminal);
+                return;
+            }
+
+            try {
+                for (final AbstractCclCommand command : getOnCclStartCommands())
+                    command.run(cclTerminal);
+
+                for (final AbstractCclCommand command : getInCclSessionCommands())
+                    command.run(cclTerminal);
+            } finally {
+                /*
+                 * Run end-of-session commands, such as cleanup commands, even if the other commands fail
+                 */
+                for (final AbstractCclCommand command : getOnCclCloseCommands())
+                    command.run(cclTerminal);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Remove every queued command, so that commands that have been executed - or that failed - are not executed again
+     * the next time this queue is executed.
+     */
+    private void clear() {
+        onCclStartCommands.clear();
+        inSessionCommands.clear();
+        onCclCloseCommands.clear();
+        dynamicIncludeBatches.clear();
+    }
+
+    /**
+     * Execute all of the queued commands within a single CCL session. The preparation of every command is performed
+     * before the session is opened and the follow-up work of every command after it is closed. If the session fails,
+     * the failure is reported as coming from the command whose session commands were being executed and any
+     * end-of-session commands that the session did not reach are run on their own; none is run twice.
+     *
+     * @param cclTerminal
+     *            A {@link CclCommandTerminal} object representing the terminal in which the commands are to be
+     *            executed.
+     */
+    private void executeInSingleSession(final CclCommandTerminal cclTerminal) {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "executeInSingleSession");
+        final List<AbstractCclCommand> commands = new ArrayList<AbstractCclCommand>(
+                onCclStartCommands.size() + inSessionCommands.size() + onCclCloseCommands.size());
+        commands.addAll(onCclStartCommands);
+        commands.addAll(inSessionCommands);
+        commands.addAll(onCclCloseCommands);
+
+        final int firstCloseCommandIndex = commands.size() - onCclCloseCommands.size();
+        int unreachedCommandIndex = 0;
+        try {
+            final List<List<String>> commandSets = new ArrayList<List<String>>(commands.size());
+            final List<Integer> commandSetOwners = new ArrayList<Integer>(commands.size());
+            boolean authenticate = false;
+            boolean interactive = false;
+            for (int commandIndex = 0; commandIndex < commands.size(); commandIndex++) {
+                final AbstractCclCommand command = commands.get(commandIndex);
+                command.beforeSession();
+                final List<String> sessionCommands = command.getSessionCommands();
+                if (!sessionCommands.isEmpty()) {
+                    commandSets.add(sessionCommands);
+                    commandSetOwners.add(Integer.valueOf(commandIndex));
+                    authenticate |= command.requiresAuthentication();
+                    interactive |= command.requiresInteraction();
+                }
+            }
+
+            try {
+                if (!commandSets.isEmpty())
+                    cclTerminal.executeCommandSets(new JSchSshTerminal(), commandSets, authenticate, interactive);
+                unreachedCommandIndex = commands.size();
+            } catch (final SshCommandSetException e) {
+                if (e.getCommandSetIndex() >= commandSetOwners.size()) {
+                    unreachedCommandIndex = commands.size();
+                    throw new CclCommandException("Failed to end the batched CCL session.", e.getSshCause());
+                }
+                final int commandIndex = commandSetOwners.get(e.getCommandSetIndex()).intValue();
+                unreachedCommandIndex = commandIndex + 1;
+                throw commands.get(commandIndex).createSessionException(e.getSshCause());
+            } catch (final SshException e) {
+                throw new CclCommandException("Execution of the batched CCL session failed.", e);
+            }
+
+            for (final AbstractCclCommand command : commands)
+                command.afterSession();
+        } finally {
+            try {
+                /*
+                 * Run end-of-session commands, such as cleanup commands, even if the other commands fail; those that
+                 * the session reached are not run again
+                 */
+                final int firstUnrunIndex = Math.max(unreachedCommandIndex, firstCloseCommandIndex);
+                for (final AbstractCclCommand command : commands.subList(firstUnrunIndex, commands.size()))
+                    command.run(cclTerminal);
+            } finally {
+                point.collect();
+            }
+        }
+    }
+
+    /**
+     * Mark as current every queued compilation that is recorded in the compile cache and whose object, if it must
+     * remain on the back end, still has the timestamp recorded for it. The timestamps of all such objects are retrieved
+     * with a single query; if they cannot be retrieved, everything is compiled.
+     *
+     * @param cclTerminal
+     *            A {@link CclCommandTerminal} object representing the terminal in which the query is to be executed.
+     */
+    private void markCurrentCompilations(final CclCommandTerminal cclTerminal) {
+        final List<ScriptCompilerCommand> unverified = new ArrayList<ScriptCompilerCommand>();
+        final List<String> objectNames = new ArrayList<String>();
+        for (final ScriptCompilerCommand compilation : getCompilations()) {
+            if (!compilation.isRecorded())
+                continue;
+
+            if (compilation.verifiesObject()) {
+                unverified.add(compilation);
+                objectNames.add(compilation.getObjectName());
+            } else {
+                compilation.setCurrent(true);
+            }
+        }
 
-            for (final AbstractCclCommand command : getInCclSessionCommands())
-                command.run(cclTerminal);
+        if (unverified.isEmpty())
+            return;
+
+        final EtmPoint point = PointFactory.getPoint(getClass(), "markCurrentCompilations");
+        try {
+            final ObjectTimestampCommand timestampCommand = new ObjectTimestampCommand(objectNames);
+            timestampCommand.run(cclTerminal);
+            final Map<String, String> timestamps = timestampCommand.getTimestamps();
+            for (final ScriptCompilerCommand compilation : unverified) {
+                final String timestamp = timestamps.get(compilation.getObjectName().toUpperCase(Locale.getDefault()));
+                compilation.setCurrent(timestamp != null && timestamp.equals(compilation.getRecordedTimestamp()));
+            }
+        } catch (final RuntimeException e) {
+            logger.warn("Failed to confirm that previously compiled programs are unchanged; compiling them again.", e);
         } finally {
-            /*
-             * Run end-of-session commands, such as cleanup commands, even if the other commands fail
-             */
-            for (final AbstractCclCommand command : getOnCclCloseCommands())
-                command.run(cclTerminal);
+            point.collect();
         }
     }
 
+    /**
+     * Get every queued compilation, including those gathered into a {@link DynamicIncludeBatchCommand}.
+     *
+     * @return A {@link List} of {@link ScriptCompilerCommand} objects.
+     */
+    private List<ScriptCompilerCommand> getCompilations() {
+        final List<ScriptCompilerCommand> compilations = new ArrayList<ScriptCompilerCommand>();
+        for (final AbstractCclCommand command : inSessionCommands)
+            if (command instanceof ScriptCompilerCommand)
+                compilations.add((ScriptCompilerCommand) command);
+            else if (command instanceof DynamicIncludeBatchCommand)
+                compilations.addAll(((DynamicIncludeBatchCommand) command).getCompilations());
+        return compilations;
+    }
+
+    /**
+     * Determine whether every queued command can be executed within a shared CCL session.
+     *
+     * @return {@code true} if all queued commands are batchable; {@code false} otherwise.
+     */
+    private boolean isBatchable() {
+        for (final List<AbstractCclCommand> commands : Arrays.asList(onCclStartCommands, inSessionCommands,
+                onCclCloseCommands))
+            for (final AbstractCclCommand command : commands)
+                if (!command.isBatchable())
+                    return false;
+        return true;
+    }
+
     /**
      * Get all commands that are to be executed within an open CCL session.
      *
@@ -10,6 +10,7 @@ import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 
+import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.adders.DynamicCompilerAdder;
 import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.impl.CommandQueue;
@@ -123,9 +124,25 @@ public class DynamicCompilerAdderImpl extends AbstractCompilerAdder
 
         ScriptRegistrar.registerDynamicScript(temporaryFile.getName());
 
-        queue.addInCclSessionCommand(new ScriptCompilerCommand(temporaryFile, getCompositeDependencies(),
-                getListingLocation(), doDebugCompile()));
-        queue.addOnCclCloseCommand(new DropScriptCommand(tempScriptName));
+        /*
+         * A randomly-named wrapper only validates the include, so it is cached by the include alone; a named wrapper is
+         * run by the caller after the compilation, so - like any other script - its object must still exist
+         */
+        final ScriptCompilerCommand compilation = new ScriptCompilerCommand(temporaryFile, getCompositeDependencies(),
+                getListingLocation(), doDebugCompile(), scriptName == null ? sourceCodeLocation : null);
+
+        /*
+         * Wrappers whose listing output is not kept can be compiled and dropped together with the others
+         */
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        if (terminalProperties != null && terminalProperties.getBatchDynamicIncludes()
+                && getListingLocation() == null) {
+            queue.getDynamicIncludeBatch(doDebugCompile()).add(tempScriptName, compilation);
+            return;
+        }
+
+        queue.addInCclSessionCommand(compilation);
+        queue.addOnCclCloseCommand(new DropScriptCommand(tempScriptName, compilation));
     }
 
     /**
@@ -135,7 +152,7 @@ public class DynamicCompilerAdderImpl extends AbstractCompilerAdder
      *
      * @return A random script name.
      */
-    private synchronized String createRandomObjectName() {
+    private static synchronized String createRandomObjectName() {
         final String name = String.format("j4ccl_%s_%d%d",
                 System.getProperty("user.name").toLowerCase(Locale.getDefault()).replace("$", ""), ++objectCount,
                 System.currentTimeMillis() % 10000000);
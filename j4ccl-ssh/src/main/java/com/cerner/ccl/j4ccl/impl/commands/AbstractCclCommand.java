@@ -1,12 +1,20 @@
 package com.cerner.ccl.j4ccl.impl.commands;
 
+import java.util.Collections;
+import java.util.List;
+
 import com.cerner.ccl.j4ccl.exception.CclCommandException;
+import com.cerner.ccl.j4ccl.exception.CclException;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
 
 /**
  * Definition of a command to be run in a CCL session. <br>
  * Every implementation of this class should be wholly atomic - i.e., there should be <b>no</b> functional dependencies
- * on other commands. Each command is run within its own CCL session to help enforce this principle of atomicity.
+ * on other commands. Each command is run within its own CCL session to help enforce this principle of atomicity unless
+ * session batching is requested, in which case commands that are {@link #isBatchable() batchable} have their work split
+ * into the phases {@link #beforeSession()}, {@link #getSessionCommands()} and {@link #afterSession()} so that the
+ * session commands of several commands can be issued within a single CCL session.
  *
  * @author Joshua Hyde
  *
@@ -29,4 +37,75 @@ public abstract class AbstractCclCommand {
      *             If executing commands through the given terminal fails.
      */
     public abstract void run(CclCommandTerminal terminal);
+
+    /**
+     * Determine whether this command can share a CCL session with other commands. Commands that return {@code true}
+     * should override {@link #getSessionCommands()}.
+     *
+     * @return {@code true} if the command can be executed in a shared CCL session; {@code false} otherwise.
+     */
+    public boolean isBatchable() {
+        return false;
+    }
+
+    /**
+     * Perform any work, such as uploading files, that must be completed before the session commands are issued.
+     *
+     * @throws CclCommandException
+     *             If the preparation fails.
+     */
+    public void beforeSession() {
+    }
+
+    /**
+     * Get the CCL commands to be issued within the CCL session. This is only called after {@link #beforeSession()}.
+     *
+     * @return A {@link List} of {@code String} objects representing the CCL commands to be issued; by default, an empty
+     *         list.
+     */
+    public List<String> getSessionCommands() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Determine whether the CCL session in which the session commands are issued must be authenticated.
+     *
+     * @return {@code true} if the session must be authenticated; {@code false} otherwise.
+     */
+    public boolean requiresAuthentication() {
+        return false;
+    }
+
+    /**
+     * Determine whether the session commands must be issued at the prompts of an interactive CCL session. Commands that
+     * need no interaction may be piped to a non-interactive CCL process when
+     * {@link com.cerner.ccl.j4ccl.TerminalProperties#getBatchExecution() batch execution} is requested. Logging into
+     * CCL answers its prompts, so by default a session is interactive if it must be authenticated.
+     *
+     * @return {@code true} if the session must be interactive; {@code false} otherwise.
+     */
+    public boolean requiresInteraction() {
+        return requiresAuthentication();
+    }
+
+    /**
+     * Perform any work, such as downloading and validating output, that must be completed after the session commands
+     * have been successfully issued.
+     *
+     * @throws CclCommandException
+     *             If the follow-up work fails.
+     */
+    public void afterSession() {
+    }
+
+    /**
+     * Translate a failure to execute the session commands into the exception that this command reports.
+     *
+     * @param e
+     *            The {@link SshException} raised while executing the session commands of this command.
+     * @return A {@link CclException} describing the failure of this command.
+     */
+    public CclException createSessionException(final SshException e) {
+        return new CclCommandException("Execution of " + getClass().getSimpleName() + " failed.", e);
+    }
 }
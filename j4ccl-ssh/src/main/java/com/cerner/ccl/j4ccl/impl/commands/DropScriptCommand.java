@@ -1,10 +1,12 @@
 package com.cerner.ccl.j4ccl.impl.commands;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 
 import com.cerner.ccl.j4ccl.exception.CclCommandException;
+import com.cerner.ccl.j4ccl.exception.CclException;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
 import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
 import com.cerner.ccl.j4ccl.ssh.exception.SshException;
@@ -13,14 +15,24 @@ import com.google.code.jetm.reporting.ext.PointFactory;
 import etm.core.monitor.EtmPoint;
 
 /**
- * An {@link AbstractCclCommand} object that drops a specified script.
+ * An {@link AbstractCclCommand} object that drops a specified script. Further scripts may be
+ * {@link #add(String, ScriptCompilerCommand) added} to the command, so that they are all dropped within the same
+ * session.
  *
  * @author Joshua Hyde
  *
  */
 
 public class DropScriptCommand extends AbstractCclCommand {
-    private final String scriptName;
+    private final List<String> scriptNames = new ArrayList<String>();
+    private final List<ScriptCompilerCommand> compilations = new ArrayList<ScriptCompilerCommand>();
+
+    /**
+     * Create a command that drops nothing until scripts are {@link #add(String, ScriptCompilerCommand) added} to it.
+     */
+    public DropScriptCommand() {
+        super();
+    }
 
     /**
      * Create a command to drop a script.
@@ -29,28 +41,83 @@ public class DropScriptCommand extends AbstractCclCommand {
      *            The name of the script to be dropped.
      */
     public DropScriptCommand(final String scriptName) {
+        this(scriptName, null);
+    }
+
+    /**
+     * Create a command to drop a script created by a compilation. Nothing is dropped if the compilation was skipped
+     * because it was {@link ScriptCompilerCommand#isCurrent() current}, since the script was then never created.
+     *
+     * @param scriptName
+     *            The name of the script to be dropped.
+     * @param compilation
+     *            The {@link ScriptCompilerCommand} that creates the script; if {@code null}, the script is always
+     *            dropped.
+     */
+    public DropScriptCommand(final String scriptName, final ScriptCompilerCommand compilation) {
         super();
 
+        add(scriptName, compilation);
+    }
+
+    /**
+     * Add a script created by a compilation to the scripts to be dropped.
+     *
+     * @param scriptName
+     *            The name of the script to be dropped.
+     * @param compilation
+     *            The {@link ScriptCompilerCommand} that creates the script; if {@code null}, the script is always
+     *            dropped.
+     * @return This object.
+     * @see #DropScriptCommand(String, ScriptCompilerCommand)
+     */
+    public DropScriptCommand add(final String scriptName, final ScriptCompilerCommand compilation) {
         if (StringUtils.isBlank(scriptName))
             throw new IllegalArgumentException("Invalid script name; given script name was ["
                     + (scriptName == null ? "<null>" : scriptName) + "]");
 
-        this.scriptName = scriptName;
+        scriptNames.add(scriptName);
+        compilations.add(compilation);
+        return this;
     }
 
     @Override
     public void run(final CclCommandTerminal terminal) {
         final EtmPoint point = PointFactory.getPoint(getClass(), "run");
         try {
+            final List<String> sessionCommands = getSessionCommands();
+            if (sessionCommands.isEmpty())
+                return;
+
             try {
-                terminal.executeCommands(new JSchSshTerminal(),
-                        Collections.singletonList("drop program " + scriptName + " go"), false);
+                terminal.executeCommands(new JSchSshTerminal(), sessionCommands, requiresAuthentication(),
+                        requiresInteraction());
             } catch (final SshException e) {
-                throw new CclCommandException("Dropping script " + scriptName + " failed.", e);
+                throw createSessionException(e);
             }
         } finally {
             point.collect();
         }
     }
 
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    @Override
+    public List<String> getSessionCommands() {
+        final List<String> commands = new ArrayList<String>(scriptNames.size());
+        for (int i = 0; i < scriptNames.size(); i++) {
+            final ScriptCompilerCommand compilation = compilations.get(i);
+            if (compilation == null || !compilation.isCurrent())
+                commands.add("drop program " + scriptNames.get(i) + " go");
+        }
+        return commands;
+    }
+
+    @Override
+    public CclException createSessionException(final SshException e) {
+        return new CclCommandException("Dropping script " + StringUtils.join(scriptNames, ", ") + " failed.", e);
+    }
 }
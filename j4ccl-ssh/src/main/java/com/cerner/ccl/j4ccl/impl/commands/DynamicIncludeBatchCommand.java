@@ -0,0 +1,261 @@
+package com.cerner.ccl.j4ccl.impl.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
+import com.cerner.ccl.j4ccl.exception.CclCompilationTimeoutException;
+import com.cerner.ccl.j4ccl.exception.CclException;
+import com.cerner.ccl.j4ccl.impl.commands.util.CompileErrorValidator;
+import com.cerner.ccl.j4ccl.impl.data.Environment;
+import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
+import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
+import com.cerner.ccl.j4ccl.impl.util.ScriptRegistrar;
+import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.ssh.exception.SshTimeoutException;
+import com.cerner.ccl.j4ccl.util.CclResourceUploader;
+import com.cerner.ftp.Downloader;
+import com.cerner.ftp.data.factory.FileRequestFactory;
+import com.cerner.ftp.sftp.SftpDownloader;
+import com.google.code.jetm.reporting.ext.PointFactory;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * A CCL command that compiles the wrapper scripts of several dynamic includes together. <br>
+ * The wrapper scripts are concatenated into a single source, which is uploaded along with every include and dependency
+ * in one transfer, compiled by one call to {@code compile} and validated from the one listing that call produces. The
+ * wrapper scripts are all dropped by the single {@link #getDropCommand() drop command} of the batch. <br>
+ * Each wrapper is still described by its own {@link ScriptCompilerCommand}, which is never run itself but identifies
+ * the wrapper in the {@link com.cerner.ccl.j4ccl.impl.util.CompileCache CompileCache}; wrappers found to be
+ * {@link ScriptCompilerCommand#isCurrent() current} are left out of the combined source and are not dropped.
+ */
+
+public class DynamicIncludeBatchCommand extends AbstractCclCommand {
+    private static int batchCount = 0;
+    private final boolean doDebugCompile;
+    private final String objectName;
+    private final List<ScriptCompilerCommand> compilations = new ArrayList<ScriptCompilerCommand>();
+    private final DropScriptCommand dropCommand = new DropScriptCommand();
+    private final Logger logger = LoggerFactory.getLogger(DynamicIncludeBatchCommand.class);
+    private List<ScriptCompilerCommand> pending = Collections.emptyList();
+    private File combinedSource;
+    private URI combinedSourceTargetLocation;
+    private File listingDestination;
+    private URI listingTargetLocation;
+
+    /**
+     * Create a batch.
+     *
+     * @param doDebugCompile
+     *            {@code true} if the wrapper scripts are to be compiled in debug mode; {@code false} otherwise.
+     */
+    public DynamicIncludeBatchCommand(final boolean doDebugCompile) {
+        this.doDebugCompile = doDebugCompile;
+        this.objectName = createObjectName();
+    }
+
+    /**
+     * Add the wrapper script of a dynamic include to this batch.
+     *
+     * @param scriptName
+     *            The name of the wrapper script.
+     * @param compilation
+     *            The {@link ScriptCompilerCommand} that describes the compilation of the wrapper script. Its source
+     *            must create only the wrapper script, and it must not keep its listing output.
+     * @throws IllegalArgumentException
+     *             If the compilation keeps its listing output or its debug mode differs from that of this batch.
+     */
+    public void add(final String scriptName, final ScriptCompilerCommand compilation) {
+        if (compilation.hasListingDestination())
+            throw new IllegalArgumentException("Compilations that keep their listing output cannot be batched.");
+
+        if (compilation.isDebugCompile() != doDebugCompile)
+            throw new IllegalArgumentException("Compilation debug mode does not match that of the batch.");
+
+        dropCommand.add(scriptName, compilation);
+        compilations.add(compilation);
+    }
+
+    /**
+     * Get the compilations of the wrapper scripts in this batch.
+     *
+     * @return An immutable {@link List} of {@link ScriptCompilerCommand} objects.
+     */
+    public List<ScriptCompilerCommand> getCompilations() {
+        return Collections.unmodifiableList(compilations);
+    }
+
+    /**
+     * Get the command that drops every wrapper script compiled by this batch. It is to be run when the CCL session
+     * closes.
+     *
+     * @return A {@link DropScriptCommand}.
+     */
+    public DropScriptCommand getDropCommand() {
+        return dropCommand;
+    }
+
+    @Override
+    public void run(final CclCommandTerminal terminal) {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "run");
+        try {
+            beforeSession();
+            final List<String> sessionCommands = getSessionCommands();
+            if (!sessionCommands.isEmpty()) {
+                try {
+                    terminal.executeCommands(new JSchSshTerminal(), sessionCommands, requiresAuthentication(),
+                            requiresInteraction());
+                } catch (final SshException e) {
+                    throw createSessionException(e);
+                }
+            }
+            afterSession();
+        } finally {
+            point.collect();
+        }
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    @Override
+    public void beforeSession() {
+        pending = new ArrayList<ScriptCompilerCommand>(compilations.size());
+        for (final ScriptCompilerCommand compilation : compilations)
+            if (!compilation.isCurrent())
+                pending.add(compilation);
+
+        final CclResourceUploader uploader = CclResourceUploader.getUploader();
+        for (final ScriptCompilerCommand compilation : compilations)
+            for (final File dependency : compilation.getDependencies())
+                uploader.queueUpload(dependency);
+
+        if (pending.isEmpty()) {
+            logger.info("All {} dynamic includes are unchanged since they were last compiled; skipping their "
+                    + "compilation", Integer.toString(compilations.size()));
+            uploader.upload();
+            return;
+        }
+
+        combinedSource = writeCombinedSource(pending);
+        uploader.queueUpload(combinedSource);
+        combinedSourceTargetLocation = uploader.upload().get(combinedSource);
+
+        final String listingOutputFilename = String.format("%s_%d.out", objectName, System.currentTimeMillis());
+        listingTargetLocation = URI.create(Environment.getEnvironment().getCerTemp() + "/" + listingOutputFilename);
+        try {
+            listingDestination = File.createTempFile(listingOutputFilename, null);
+        } catch (final IOException e) {
+            throw new CclCommandException("Failed to create temporary listing file.", e);
+        }
+    }
+
+    @Override
+    public List<String> getSessionCommands() {
+        if (pending.isEmpty())
+            return Collections.emptyList();
+
+        /*
+         * CCL can't handle too long of lines, so put each parameter on its own line
+         */
+        final List<String> commands = new ArrayList<String>(6);
+        if (doDebugCompile)
+            commands.add("SET COMPILE = DEBUG go");
+        commands.add("call compile(");
+        commands.add("'" + combinedSourceTargetLocation.getPath() + "',");
+        commands.add("'" + listingTargetLocation.getPath() + "'");
+        commands.add(") go");
+        if (doDebugCompile)
+            commands.add("SET COMPILE = NODEBUG go");
+        return commands;
+    }
+
+    @Override
+    public void afterSession() {
+        if (pending.isEmpty())
+            return;
+
+        try {
+            final Downloader downloader = SftpDownloader.createDownloader(AuthHelper.fromCurrentSubject());
+            downloader.setCompressionThreshold(FileAssistant.getDownloadCompressionThreshold());
+            downloader.download(Collections
+                    .singleton(FileRequestFactory.create(listingTargetLocation, listingDestination.toURI())));
+            logger.info("validating compile of {} dynamic includes", Integer.toString(pending.size()));
+            try {
+                CompileErrorValidator.getInstance().validate(listingDestination);
+            } catch (final RuntimeException e) {
+                for (final ScriptCompilerCommand compilation : pending)
+                    compilation.forgetCompilation();
+                throw e;
+            }
+
+            for (final ScriptCompilerCommand compilation : pending)
+                compilation.recordCompilation();
+        } finally {
+            FileUtils.deleteQuietly(combinedSource);
+        }
+    }
+
+    @Override
+    public CclException createSessionException(final SshException e) {
+        final List<String> objectNames = new ArrayList<String>(pending.size());
+        for (final ScriptCompilerCommand compilation : pending)
+            objectNames.add(compilation.getObjectName());
+
+        final String message = "Compilation of dynamic include wrappers " + StringUtils.join(objectNames, ", ");
+        if (e instanceof SshTimeoutException)
+            return new CclCompilationTimeoutException(message + " timed out.", e);
+        return new CclCommandException(message + " failed.", e);
+    }
+
+    /**
+     * Write the sources of the given wrapper scripts, one after another, into a single source file. The file is
+     * registered as a dynamic script so that it is uploaded to cer_temp rather than cclsource.
+     *
+     * @param compilations
+     *            The {@link ScriptCompilerCommand} objects whose sources are to be combined.
+     * @return A {@link File} representing the combined source.
+     */
+    private File writeCombinedSource(final List<ScriptCompilerCommand> compilations) {
+        final File file = new File(System.getProperty("java.io.tmpdir"), objectName + ".prg");
+        try {
+            final StringBuilder source = new StringBuilder();
+            for (final ScriptCompilerCommand compilation : compilations)
+                source.append(FileUtils.readFileToString(compilation.getSourceCodeLocation(), StandardCharsets.UTF_8))
+                        .append('\n');
+            FileUtils.writeStringToFile(file, source.toString(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new CclCommandException("Failed to create combined source for dynamic include wrappers.", e);
+        }
+
+        ScriptRegistrar.registerDynamicScript(file.getName());
+        return file;
+    }
+
+    /**
+     * Create a unique name for the combined source of a batch.
+     *
+     * @return The name.
+     */
+    private static synchronized String createObjectName() {
+        return String.format("j4ccl_incbatch_%s_%d%d",
+                System.getProperty("user.name").toLowerCase(Locale.getDefault()).replace("$", ""), ++batchCount,
+                System.currentTimeMillis() % 10000000);
+    }
+}
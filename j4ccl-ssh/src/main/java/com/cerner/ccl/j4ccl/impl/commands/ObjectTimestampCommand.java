@@ -0,0 +1,206 @@
+package com.cerner.ccl.j4ccl.impl.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
+import com.cerner.ccl.j4ccl.exception.CclException;
+import com.cerner.ccl.j4ccl.impl.data.Environment;
+import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
+import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
+import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ftp.Downloader;
+import com.cerner.ftp.sftp.SftpDownloader;
+import com.google.code.jetm.reporting.ext.PointFactory;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * A CCL command that retrieves, with a single query of the object dictionary, the compile date and time of each of a
+ * set of programs, in the way that {@code checkprg} reports them. Programs that do not exist are absent from the
+ * results. The file in cer_temp to which the timestamps are written is removed once it has been read.
+ */
+
+public class ObjectTimestampCommand extends AbstractCclCommand {
+    private static final String SEPARATOR = "|";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectTimestampCommand.class);
+    private static int fileCount = 0;
+    private final Collection<String> objectNames;
+    private final Map<String, String> timestamps = new HashMap<String, String>();
+    private URI remoteOutputLocation;
+
+    /**
+     * Create a command that retrieves program timestamps.
+     *
+     * @param objectNames
+     *            A {@link Collection} of the names of the programs whose timestamps are to be retrieved.
+     * @throws IllegalArgumentException
+     *             If the given collection is {@code null} or empty.
+     */
+    public ObjectTimestampCommand(final Collection<String> objectNames) {
+        if (objectNames == null || objectNames.isEmpty())
+            throw new IllegalArgumentException("At least one object name must be given.");
+
+        this.objectNames = Collections.unmodifiableCollection(new ArrayList<String>(objectNames));
+    }
+
+    @Override
+    public void run(final CclCommandTerminal terminal) {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "run");
+        try {
+            beforeSession();
+            try {
+                terminal.executeCommands(new JSchSshTerminal(), getSessionCommands(), requiresAuthentication(),
+                        requiresInteraction());
+            } catch (final SshException e) {
+                throw createSessionException(e);
+            }
+            afterSession();
+        } finally {
+            point.collect();
+        }
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    @Override
+    public void beforeSession() {
+        remoteOutputLocation = createRemoteOutputLocation(Environment.getEnvironment());
+    }
+
+    @Override
+    public List<String> getSessionCommands() {
+        return createQueryCommands(objectNames, remoteOutputLocation);
+    }
+
+    @Override
+    public void afterSession() {
+        timestamps.clear();
+        timestamps.putAll(readTimestamps(remoteOutputLocation));
+    }
+
+    @Override
+    public CclException createSessionException(final SshException e) {
+        return new CclCommandException("Retrieval of program timestamps failed.", e);
+    }
+
+    /**
+     * Get the timestamps retrieved by this command.
+     *
+     * @return An immutable {@link Map} of the timestamp of each program that exists, keyed by its name in upper case.
+     */
+    public Map<String, String> getTimestamps() {
+        return Collections.unmodifiableMap(timestamps);
+    }
+
+    /**
+     * Create a location in cer_temp to which the timestamps are to be written.
+     *
+     * @param environment
+     *            The {@link Environment} in which the query is to be run.
+     * @return A {@link URI} representing the remote file.
+     */
+    static synchronized URI createRemoteOutputLocation(final Environment environment) {
+        return URI.create(String.format("%s/j4ccl_objstamp_%s_%d%d.dat", environment.getCerTemp(),
+                System.getProperty("user.name").toLowerCase(Locale.getDefault()).replace("$", ""), ++fileCount,
+                System.currentTimeMillis()));
+    }
+
+    /**
+     * Create the CCL commands that write the name and timestamp of each of the given programs to a file, one program
+     * per line. Each program name is put on its own line, since CCL cannot handle overly long lines.
+     *
+     * @param objectNames
+     *            A {@link Collection} of the names of the programs.
+     * @param remoteOutputLocation
+     *            A {@link URI} representing the file to be written.
+     * @return A {@link List} of CCL commands.
+     */
+    static List<String> createQueryCommands(final Collection<String> objectNames, final URI remoteOutputLocation) {
+        final List<String> commands = new ArrayList<String>(objectNames.size() + 12);
+        commands.add("select into '" + remoteOutputLocation.getPath() + "'");
+        commands.add("from dprotect p");
+        commands.add("where p.object = 'P'");
+        commands.add("and p.object_name in (");
+        final Iterator<String> names = objectNames.iterator();
+        while (names.hasNext())
+            commands.add("'" + names.next().toUpperCase(Locale.getDefault()) + "'" + (names.hasNext() ? "," : ""));
+        commands.add(")");
+        commands.add("detail");
+        commands.add("stamp = build(p.object_name, '" + SEPARATOR + "',");
+        commands.add("format(p.datestamp, 'yyyymmdd;;d'), '" + SEPARATOR + "', p.timestamp)");
+        commands.add("col 0 stamp");
+        commands.add("row + 1");
+        commands.add("with nocounter, format = variable, maxcol = 200 go");
+        return commands;
+    }
+
+    /**
+     * Read the timestamps written by the commands of {@link #createQueryCommands(Collection, URI)} and remove the file
+     * to which they were written.
+     *
+     * @param remoteOutputLocation
+     *            A {@link URI} representing the file to which the timestamps were written.
+     * @return A {@link Map} of the timestamp of each program, keyed by its name in upper case.
+     * @throws CclCommandException
+     *             If the file cannot be read.
+     */
+    static Map<String, String> readTimestamps(final URI remoteOutputLocation) {
+        final Downloader downloader = SftpDownloader.createDownloader(AuthHelper.fromCurrentSubject());
+        downloader.setCompressionThreshold(FileAssistant.getDownloadCompressionThreshold());
+        try (InputStream stream = downloader.openStream(remoteOutputLocation)) {
+            return parseTimestamps(stream);
+        } catch (final IOException e) {
+            throw new CclCommandException("Failed to read program timestamps from " + remoteOutputLocation, e);
+        } finally {
+            try {
+                downloader.remove(remoteOutputLocation);
+            } catch (final RuntimeException e) {
+                LOGGER.debug("Failed to remove " + remoteOutputLocation + "; it is left in cer_temp.", e);
+            }
+        }
+    }
+
+    /**
+     * Parse the timestamps of programs.
+     *
+     * @param stream
+     *            An {@link InputStream} of lines each giving a program name, followed by its timestamp, separated by
+     *            {@value #SEPARATOR}.
+     * @return A {@link Map} of the timestamp of each program, keyed by its name in upper case.
+     * @throws IOException
+     *             If the stream cannot be read.
+     */
+    static Map<String, String> parseTimestamps(final InputStream stream) throws IOException {
+        final Map<String, String> parsed = new HashMap<String, String>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.forName("utf-8")));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final int separator = line.indexOf(SEPARATOR);
+            if (separator > 0)
+                parsed.put(line.substring(0, separator).trim().toUpperCase(Locale.getDefault()),
+                        line.substring(separator + 1).trim());
+        }
+        return parsed;
+    }
+}
@@ -15,9 +15,12 @@ import org.slf4j.LoggerFactory;
 
 import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.exception.CclCompilationTimeoutException;
+import com.cerner.ccl.j4ccl.exception.CclException;
 import com.cerner.ccl.j4ccl.impl.commands.util.CompileErrorValidator;
 import com.cerner.ccl.j4ccl.impl.data.Environment;
 import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
+import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
 import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
 import com.cerner.ccl.j4ccl.ssh.exception.SshException;
@@ -31,7 +34,11 @@ import com.google.code.jetm.reporting.ext.PointFactory;
 import etm.core.monitor.EtmPoint;
 
 /**
- * A CCL command that compiles a specified script.
+ * A CCL command that compiles a specified script. <br>
+ * If a {@link CompileCache} is {@link CompileCache#getCache() configured}, each successful compilation is recorded in
+ * it. A compilation whose fingerprint matches the recorded one may then be marked {@link #setCurrent(boolean) current}
+ * - for a script, once its object has been confirmed to be unchanged on the back end - in which case its source and
+ * dependencies are still uploaded but the script is not compiled again.
  *
  * @author Joshua Hyde
  *
@@ -42,6 +49,17 @@ public class ScriptCompilerCommand extends AbstractCclCommand {
     private final Collection<File> dependencies;
     private final File localListingDestination;
     private final boolean doDebugCompile;
+    private final File cachedSource;
+    private final CompileCache compileCache;
+    private boolean current;
+    private String cacheKey;
+    private String fingerprint;
+    private URI timestampTargetLocation;
+    private String objectName;
+    private URI sourceCodeTargetLocation;
+    private String listingOutputFilename;
+    private File finalListingDestination;
+    private URI listingTargetLocation;
 
     private final Logger logger = LoggerFactory.getLogger(ScriptCompilerCommand.class);
 
@@ -64,6 +82,33 @@ public class ScriptCompilerCommand extends AbstractCclCommand {
      */
     public ScriptCompilerCommand(final File sourceCodeLocation, final Collection<File> dependencies,
             final File localListingDestination, final boolean doDebugCompile) {
+        this(sourceCodeLocation, dependencies, localListingDestination, doDebugCompile, null);
+    }
+
+    /**
+     * Create a script compiler command for a generated script, such as a wrapper around an include file that is only
+     * compiled to validate the include, that does not outlive the current build.
+     *
+     * @param sourceCodeLocation
+     *            A {@link File} object representing the location of the source PRG file to be compiled.
+     * @param dependencies
+     *            A {@link Collection} of {@link File} objects that must be uploaded to their respective locations prior
+     *            to the successful compilation of the given source code.
+     * @param localListingDestination
+     *            A {@link File} representing the location on the local disk to where the listing output should be
+     *            downloaded; if {@code null}, then a temporary location will be used.
+     * @param doDebugCompile
+     *            {@code true} if the script should be compiled in debug mode; {@code false} if the script should not be
+     *            compiled in debug mode.
+     * @param cachedSource
+     *            A {@link File} representing the source that identifies the compilation in the {@link CompileCache} in
+     *            place of the generated script, whose object is not expected to remain on the back end; if
+     *            {@code null}, the script is identified by its own source and its object must remain on the back end.
+     * @throws IllegalArgumentException
+     *             If the given source code location or dependencies are {@code null}.
+     */
+    public ScriptCompilerCommand(final File sourceCodeLocation, final Collection<File> dependencies,
+            final File localListingDestination, final boolean doDebugCompile, final File cachedSource) {
 
         if (sourceCodeLocation == null)
             throw new IllegalArgumentException("Source code location cannot be null.");
@@ -75,57 +120,274 @@ public class ScriptCompilerCommand extends AbstractCclCommand {
         this.dependencies = Collections.unmodifiableCollection(dependencies);
         this.localListingDestination = localListingDestination;
         this.doDebugCompile = doDebugCompile;
+        this.cachedSource = cachedSource;
+        this.compileCache = CompileCache.getCache();
     }
 
     @Override
     public void run(final CclCommandTerminal terminal) {
         final EtmPoint point = PointFactory.getPoint(getClass(), "run");
         try {
-            final String objectName = parseObjectName(sourceCodeLocation);
-
-            final CclResourceUploader uploader = CclResourceUploader.getUploader();
-            uploader.queueUpload(sourceCodeLocation);
-            for (final File dependency : dependencies)
-                uploader.queueUpload(dependency);
-            final URI sourceCodeTargetLocation = uploader.upload().get(sourceCodeLocation);
-
-            final String listingOutputFilename = createListingOutputFilename(objectName);
-            final File finalListingDestination = localListingDestination == null
-                    ? createTemporaryFile(listingOutputFilename)
-                    : localListingDestination;
-
-            final Environment environment = Environment.getEnvironment();
-            final URI listingTargetLocation = URI.create(environment.getCerTemp() + "/" + listingOutputFilename);
-
-            /*
-             * CCL can't handle too long of lines, so put each parameter on its own line
-             */
-            try {
-                final List<String> commands = new ArrayList<String>();
-                if (doDebugCompile)
-                    commands.add("SET COMPILE = DEBUG go");
-                commands.addAll(Arrays.asList("call compile(", "'" + sourceCodeTargetLocation.getPath() + "',",
-                        "'" + listingTargetLocation.getPath() + "'", ") go"));
-                if (doDebugCompile)
-                    commands.add("SET COMPILE = NODEBUG go");
-                terminal.executeCommands(new JSchSshTerminal(), commands, false);
-            } catch (final SshTimeoutException e) {
-                throw new CclCompilationTimeoutException("Compilation of " + objectName + " timed out.", e);
-            } catch (final SshException e) {
-                throw new CclCommandException("Compilation of " + objectName + " failed.", e);
+            beforeSession();
+            final List<String> sessionCommands = getSessionCommands();
+            if (!sessionCommands.isEmpty()) {
+                try {
+                    terminal.executeCommands(new JSchSshTerminal(), sessionCommands, requiresAuthentication(),
+                            requiresInteraction());
+                } catch (final SshException e) {
+                    throw createSessionException(e);
+                }
             }
-
-            // Download and verify the listing output
-            final Downloader downloader = SftpDownloader.createDownloader(AuthHelper.fromCurrentSubject());
-            downloader.download(Collections
-                    .singleton(FileRequestFactory.create(listingTargetLocation, finalListingDestination.toURI())));
-            logger.info("validating compile {}", listingOutputFilename);
-            CompileErrorValidator.getInstance().validate(finalListingDestination);
+            afterSession();
         } finally {
             point.collect();
         }
     }
 
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    @Override
+    public void beforeSession() {
+        objectName = parseObjectName(sourceCodeLocation);
+
+        final CclResourceUploader uploader = CclResourceUploader.getUploader();
+        uploader.queueUpload(sourceCodeLocation);
+        for (final File dependency : dependencies)
+            uploader.queueUpload(dependency);
+        sourceCodeTargetLocation = uploader.upload().get(sourceCodeLocation);
+        if (current) {
+            logger.info("{} is unchanged since it was last compiled; skipping its compilation", objectName);
+            return;
+        }
+
+        listingOutputFilename = createListingOutputFilename(objectName);
+        finalListingDestination = localListingDestination == null ? createTemporaryFile(listingOutputFilename)
+                : localListingDestination;
+
+        final Environment environment = Environment.getEnvironment();
+        listingTargetLocation = URI.create(environment.getCerTemp() + "/" + listingOutputFilename);
+        timestampTargetLocation = getFingerprint() != null && verifiesObject()
+                ? ObjectTimestampCommand.createRemoteOutputLocation(environment)
+                : null;
+    }
+
+    @Override
+    public List<String> getSessionCommands() {
+        if (current)
+            return Collections.emptyList();
+
+        /*
+         * CCL can't handle too long of lines, so put each parameter on its own line
+         */
+        final List<String> commands = new ArrayList<String>();
+        if (doDebugCompile)
+            commands.add("SET COMPILE = DEBUG go");
+        commands.addAll(Arrays.asList("call compile(", "'" + sourceCodeTargetLocation.getPath() + "',",
+                "'" + listingTargetLocation.getPath() + "'", ") go"));
+        if (doDebugCompile)
+            commands.add("SET COMPILE = NODEBUG go");
+        if (timestampTargetLocation != null)
+            commands.addAll(ObjectTimestampCommand.createQueryCommands(Collections.singleton(objectName),
+                    timestampTargetLocation));
+        return commands;
+    }
+
+    @Override
+    public void afterSession() {
+        if (current)
+            return;
+
+        // Download and verify the listing output
+        final Downloader downloader = SftpDownloader.createDownloader(AuthHelper.fromCurrentSubject());
+        downloader.setCompressionThreshold(FileAssistant.getDownloadCompressionThreshold());
+        downloader.download(Collections
+                .singleton(FileRequestFactory.create(listingTargetLocation, finalListingDestination.toURI())));
+        logger.info("validating compile {}", listingOutputFilename);
+        try {
+            CompileErrorValidator.getInstance().validate(finalListingDestination);
+        } catch (final RuntimeException e) {
+            forgetCompilation();
+            throw e;
+        }
+        recordCompilation();
+    }
+
+    /**
+     * Get the location of the source to be compiled.
+     *
+     * @return A {@link File} representing the source.
+     */
+    public File getSourceCodeLocation() {
+        return sourceCodeLocation;
+    }
+
+    /**
+     * Get the files that must be uploaded before the source is compiled.
+     *
+     * @return An immutable {@link Collection} of {@link File} objects.
+     */
+    public Collection<File> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Determine whether the listing output of this compilation is to be kept at a location of the caller's choosing.
+     *
+     * @return {@code true} if a local listing destination was given; {@code false} otherwise.
+     */
+    public boolean hasListingDestination() {
+        return localListingDestination != null;
+    }
+
+    /**
+     * Determine whether the script is compiled in debug mode.
+     *
+     * @return {@code true} if the script is compiled in debug mode; {@code false} otherwise.
+     */
+    public boolean isDebugCompile() {
+        return doDebugCompile;
+    }
+
+    /**
+     * Determine whether this compilation has been recorded in the {@link CompileCache} with the current fingerprint of
+     * its source. A compilation whose listing output is to be kept is only considered recorded if that output still
+     * exists, since it would not be downloaded again.
+     *
+     * @return {@code true} if the compilation is recorded; {@code false} otherwise.
+     */
+    public boolean isRecorded() {
+        if (localListingDestination != null && !localListingDestination.isFile())
+            return false;
+
+        final String currentFingerprint = getFingerprint();
+        return currentFingerprint != null && compileCache.isRecorded(getCacheKey(), currentFingerprint);
+    }
+
+    /**
+     * Determine whether the object produced by this compilation must remain on the back end for the compilation to be
+     * considered current.
+     *
+     * @return {@code true} if the object's timestamp must be confirmed to be unchanged; {@code false} if the
+     *         compilation is current whenever it is {@link #isRecorded() recorded}.
+     */
+    public boolean verifiesObject() {
+        return cachedSource == null;
+    }
+
+    /**
+     * Get the name of the object produced by this compilation.
+     *
+     * @return The name of the object.
+     */
+    public String getObjectName() {
+        return parseObjectName(sourceCodeLocation);
+    }
+
+    /**
+     * Get the timestamp recorded for the object produced by this compilation when it was last compiled.
+     *
+     * @return The recorded timestamp; {@code null} if there is none.
+     */
+    public String getRecordedTimestamp() {
+        return compileCache == null ? null : compileCache.getTimestamp(getCacheKey());
+    }
+
+    /**
+     * Determine whether this compilation has been found to be current and will therefore be skipped.
+     *
+     * @return {@code true} if the compilation will be skipped; {@code false} otherwise.
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * Set whether this compilation is current, in which case its source and dependencies are uploaded but it is not
+     * compiled.
+     *
+     * @param current
+     *            {@code true} if the compilation is to be skipped; {@code false} otherwise.
+     */
+    public void setCurrent(final boolean current) {
+        this.current = current;
+    }
+
+    @Override
+    public CclException createSessionException(final SshException e) {
+        if (e instanceof SshTimeoutException)
+            return new CclCompilationTimeoutException("Compilation of " + objectName + " timed out.", e);
+        return new CclCommandException("Compilation of " + objectName + " failed.", e);
+    }
+
+    /**
+     * Record this compilation, along with the timestamp of the object it produced if that must be verified, in the
+     * {@link CompileCache}; a compilation whose object must be verified is not recorded if that timestamp was not
+     * retrieved, as is the case when the script is compiled by other means. This is done by the command itself once its
+     * listing has been validated; it is only to be called otherwise when the script has been compiled by other means,
+     * such as part of a {@link DynamicIncludeBatchCommand}.
+     */
+    public void recordCompilation() {
+        if (getFingerprint() == null)
+            return;
+
+        if (!verifiesObject()) {
+            compileCache.record(getCacheKey(), getFingerprint(), null);
+            return;
+        }
+
+        if (timestampTargetLocation == null)
+            return;
+
+        try {
+            final String timestamp = ObjectTimestampCommand.readTimestamps(timestampTargetLocation)
+                    .get(objectName.toUpperCase(Locale.getDefault()));
+            if (timestamp != null)
+                compileCache.record(getCacheKey(), getFingerprint(), timestamp);
+        } catch (final RuntimeException e) {
+            logger.debug("Failed to read the timestamp of " + objectName + "; its compilation will not be cached.", e);
+        }
+    }
+
+    /**
+     * Remove this compilation from the {@link CompileCache}, so that it is compiled again by the next build.
+     */
+    public void forgetCompilation() {
+        if (getFingerprint() != null)
+            compileCache.remove(getCacheKey());
+    }
+
+    /**
+     * Get the key of this compilation in the {@link CompileCache}.
+     *
+     * @return The cache key.
+     */
+    private String getCacheKey() {
+        if (cacheKey == null)
+            cacheKey = cachedSource == null ? CompileCache.getKey(getObjectName())
+                    : compileCache.getIncludeKey(cachedSource);
+        return cacheKey;
+    }
+
+    /**
+     * Get the fingerprint of this compilation, computing it on first use.
+     *
+     * @return The fingerprint; {@code null} if there is no {@link CompileCache} or the compilation cannot be
+     *         fingerprinted.
+     */
+    private String getFingerprint() {
+        if (compileCache == null)
+            return null;
+
+        if (fingerprint == null) {
+            final File identifyingSource = cachedSource == null ? sourceCodeLocation : cachedSource;
+            fingerprint = compileCache.fingerprint(identifyingSource, dependencies, doDebugCompile);
+        }
+        return fingerprint;
+    }
+
     /**
      * Create the name of the listing output file as it will exist on the remote system.
      *
@@ -1,6 +1,8 @@
 package com.cerner.ccl.j4ccl.impl.commands;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -11,15 +13,19 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.apache.commons.lang.StringUtils;
+
 import com.cerner.ccl.j4ccl.adders.arguments.Argument;
 import com.cerner.ccl.j4ccl.exception.CclCommandException;
+import com.cerner.ccl.j4ccl.exception.CclException;
 import com.cerner.ccl.j4ccl.impl.commands.util.RecordDataExtractor;
+import com.cerner.ccl.j4ccl.impl.commands.util.RecordPopulator;
 import com.cerner.ccl.j4ccl.impl.commands.util.ScriptExecutionBuilder;
-import com.cerner.ccl.j4ccl.impl.util.RecordSetter;
 import com.cerner.ccl.j4ccl.record.Record;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
 import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
 import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.util.CclResourceUploader;
 import com.google.code.jetm.reporting.ext.PointFactory;
 
 import etm.core.monitor.EtmPoint;
@@ -35,6 +41,8 @@ public class ScriptExecutionCommand extends AbstractCclCommand {
     private final Map<String, Record> records = new HashMap<String, Record>();
     private final ScriptExecutionBuilder builder;
     private final boolean authenticate;
+    private Collection<RecordDataExtractor> extractors = Collections.emptyList();
+    private List<RecordPopulator> populators = Collections.emptyList();
 
     /**
      * Create a script execution command.
@@ -102,52 +110,116 @@ public class ScriptExecutionCommand extends AbstractCclCommand {
     public void run(final CclCommandTerminal terminal) {
         final EtmPoint point = PointFactory.getPoint(getClass(), "run");
         try {
-            final Collection<String> declarations = getRecordStructureDeclarations();
-            final Collection<String> setters = getRecordStructureSetterCommands();
-            final Collection<String> executionCommands = builder.build();
-            final Collection<RecordDataExtractor> extractors = getDataExtractors();
-
-            /*
-             * Create a command queue that is the sum of all objects to be executed
-             */
-            final List<String> commandQueue = new ArrayList<String>(executionCommands.size() + 3 * extractors.size());
-            commandQueue.addAll(declarations);
-            commandQueue.addAll(setters);
-            commandQueue.addAll(executionCommands);
-            for (final RecordDataExtractor extractor : extractors)
-                commandQueue.addAll(extractor.getExtractionCommands());
-
+            beforeSession();
             try {
-                terminal.executeCommands(new JSchSshTerminal(), commandQueue, authenticate);
+                terminal.executeCommands(new JSchSshTerminal(), getSessionCommands(), requiresAuthentication(),
+                        requiresInteraction());
             } catch (final SshException e) {
-                throw new CclCommandException("Execution of script " + builder.getScriptName() + " failed.", e);
+                throw createSessionException(e);
             }
-
-            for (final RecordDataExtractor extractor : extractors)
-                try {
-                    extractor.extractRecordData();
-                } catch (final IOException e) {
-                    throw new CclCommandException(String.format("Failed to extract record data for record %s.",
-                            extractor.getRecord().getName()), e);
-                }
+            afterSession();
         } finally {
             point.collect();
         }
     }
 
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    @Override
+    public void beforeSession() {
+        populators = new ArrayList<RecordPopulator>(records.size());
+        final Map<File, RecordPopulator> uploads = new HashMap<File, RecordPopulator>();
+        for (final Record record : getRecordStructures().values()) {
+            final RecordPopulator populator;
+            try {
+                populator = new RecordPopulator(record);
+            } catch (final IOException e) {
+                throw new CclCommandException("Failed to write record data for record " + record.getName() + ".", e);
+            }
+            populators.add(populator);
+            if (populator.getJsonFile() != null)
+                uploads.put(populator.getJsonFile(), populator);
+        }
+
+        if (uploads.isEmpty())
+            return;
+
+        /*
+         * Upload the JSON of every record too large to be set field by field in a single transfer
+         */
+        try {
+            final CclResourceUploader uploader = CclResourceUploader.getUploader();
+            for (final File jsonFile : uploads.keySet())
+                uploader.queueUpload(jsonFile);
+            for (final Entry<File, URI> upload : uploader.upload().entrySet())
+                uploads.get(upload.getKey()).setRemoteJsonLocation(upload.getValue());
+        } finally {
+            for (final RecordPopulator populator : uploads.values())
+                populator.deleteJsonFile();
+        }
+    }
+
+    @Override
+    public List<String> getSessionCommands() {
+        final Collection<String> declarations = getRecordStructureDeclarations();
+        final Collection<String> setters = getRecordStructureSetterCommands();
+        final Collection<String> executionCommands = builder.build();
+        extractors = getDataExtractors();
+
+        /*
+         * Create a command queue that is the sum of all objects to be executed
+         */
+        final List<String> commandQueue = new ArrayList<String>(executionCommands.size() + 4 * records.size());
+        commandQueue.addAll(declarations);
+        commandQueue.addAll(setters);
+        commandQueue.addAll(executionCommands);
+        for (final RecordDataExtractor extractor : extractors)
+            commandQueue.addAll(extractor.getExtractionCommands());
+        return commandQueue;
+    }
+
+    @Override
+    public boolean requiresAuthentication() {
+        return authenticate;
+    }
+
+    @Override
+    public void afterSession() {
+        for (final RecordDataExtractor extractor : extractors)
+            try {
+                extractor.extractRecordData();
+            } catch (final IOException e) {
+                final List<String> recordNames = new ArrayList<String>(extractor.getRecords().size());
+                for (final Record record : extractor.getRecords())
+                    recordNames.add(record.getName());
+                throw new CclCommandException(String.format("Failed to extract record data for record %s.",
+                        StringUtils.join(recordNames, ", ")), e);
+            }
+    }
+
+    @Override
+    public CclException createSessionException(final SshException e) {
+        return new CclCommandException("Execution of script " + builder.getScriptName() + " failed.", e);
+    }
+
     /**
-     * Create a set of objects to extract record structure information into record structure data objects.
+     * Create a set of objects to extract record structure information into record structure data objects. A single
+     * extractor is used for all of the record structures, so that they are retrieved in one transfer.
      *
      * @return A {@link Collection} of {@link RecordDataExtractor} objects.
      */
     private Collection<RecordDataExtractor> getDataExtractors() {
         final Collection<Record> records = getRecordStructures().values();
-        final List<RecordDataExtractor> extractors = new ArrayList<RecordDataExtractor>(records.size());
+        if (records.isEmpty())
+            return Collections.emptyList();
 
-        for (final Record record : records)
-            extractors.add(new RecordDataExtractor(record));
+        if (records.size() == 1)
+            return Collections.singletonList(new RecordDataExtractor(records.iterator().next()));
 
-        return extractors;
+        return Collections.singletonList(new RecordDataExtractor(new ArrayList<Record>(records)));
     }
 
     /**
@@ -175,15 +247,16 @@ public class ScriptExecutionCommand extends AbstractCclCommand {
 
     /**
      * Create a set of CCL commands that are assignment statements for the record structures associated with this
-     * execution command.
+     * execution command. Large record structures are populated from the JSON files uploaded by {@link #beforeSession()}
+     * rather than by individual assignments.
      *
      * @return A {@link Collection} of {@code String} objects representing CCL commands to assign values to a record
      *         structure.
      */
     private Collection<String> getRecordStructureSetterCommands() {
         final List<String> setters = new ArrayList<String>();
-        for (final Record record : getRecordStructures().values())
-            setters.addAll(RecordSetter.getSetterCommands(record));
+        for (final RecordPopulator populator : populators)
+            setters.addAll(populator.getPopulationCommands());
         return setters;
     }
 
@@ -1,30 +1,34 @@
 package com.cerner.ccl.j4ccl.impl.commands.util;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
-import org.apache.commons.io.FileUtils;
-
 import com.cerner.ccl.j4ccl.impl.data.Environment;
 import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
-import com.cerner.ccl.j4ccl.impl.util.RecordWriter;
+import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
+import com.cerner.ccl.j4ccl.impl.util.RecordBinder;
 import com.cerner.ccl.j4ccl.record.Record;
 import com.cerner.ftp.Downloader;
-import com.cerner.ftp.data.FileRequest;
-import com.cerner.ftp.data.factory.FileRequestFactory;
 import com.cerner.ftp.sftp.SftpDownloader;
 import com.google.code.jetm.reporting.ext.PointFactory;
+import com.google.gson.stream.JsonReader;
 
 import etm.core.monitor.EtmPoint;
 
 /**
- * An extractor to convert JSON representations of record structures from CCL into {@link Record} objects.
+ * An extractor to convert JSON representations of record structures from CCL into {@link Record} objects. <br>
+ * All of the records given to an extractor are written by a single CCL statement to one remote file, which is then read
+ * in one transfer and split into the JSON document of each record.
  *
  * @author Joshua Hyde
  *
@@ -33,9 +37,8 @@ import etm.core.monitor.EtmPoint;
 public class RecordDataExtractor {
     private static int objectCount = 0;
 
-    private final Record record;
+    private final List<Record> records;
     private final URI remoteDataLocation;
-    private final File localDataLocation;
 
     /**
      * Create an extractor.
@@ -56,33 +59,61 @@ public class RecordDataExtractor {
      *            An {@link Environment} bean describing the environment with which this extractor is to interact.
      */
     public RecordDataExtractor(final Record record, final Environment environment) {
+        this(Collections.singletonList(record), environment);
+    }
+
+    /**
+     * Create an extractor for several records.
+     *
+     * @param records
+     *            A {@link Collection} of the {@link Record} objects into which the data values will be stored.
+     * @throws IllegalArgumentException
+     *             If the given collection is empty.
+     */
+    public RecordDataExtractor(final Collection<Record> records) {
+        this(records, Environment.getEnvironment());
+    }
+
+    /**
+     * Create an extractor for several records.
+     *
+     * @param records
+     *            A {@link Collection} of the {@link Record} objects into which the data values will be stored.
+     * @param environment
+     *            An {@link Environment} bean describing the environment with which this extractor is to interact.
+     * @throws IllegalArgumentException
+     *             If the given collection is empty.
+     */
+    public RecordDataExtractor(final Collection<Record> records, final Environment environment) {
+        if (records.isEmpty())
+            throw new IllegalArgumentException("At least one record must be given.");
+
         final String fileName = createRandomFileName();
-        this.record = record;
+        this.records = Collections.unmodifiableList(new ArrayList<Record>(records));
 
         remoteDataLocation = URI.create(environment.getCerTemp() + "/" + fileName);
-        try {
-            localDataLocation = File.createTempFile(fileName, null);
-        } catch (final IOException e) {
-            throw new RuntimeException("Failed to create temporary file for local storage of JSON data.", e);
-        }
-        localDataLocation.deleteOnExit();
     }
 
     /**
-     * Extract the record data from a CCL-generated JSON file on the remote server's hard disk.
+     * Extract the record data from a CCL-generated JSON file on the remote server's hard disk. The file is read
+     * directly from the server and bound into the records as it is read; no local copy of it is made.
      *
      * @throws IOException
-     *             If any errors occur during the fetching and reading of the XML file.
+     *             If any errors occur during the fetching and reading of the JSON file.
      */
     public void extractRecordData() throws IOException {
         final EtmPoint point = PointFactory.getPoint(getClass(), "extractRecordData");
         try {
             final Downloader downloader = SftpDownloader.createDownloader(AuthHelper.fromCurrentSubject());
-            final Collection<FileRequest> requests = Collections
-                    .singleton(FileRequestFactory.create(getRemoteDataLocation(), getLocalDataLocation().toURI()));
-            downloader.download(requests);
-
-            RecordWriter.putFromJson(retrieveJsonData(), getRecord());
+            downloader.setCompressionThreshold(FileAssistant.getDownloadCompressionThreshold());
+            final InputStream stream = downloader.openStream(getRemoteDataLocation());
+            try {
+                final JsonReader reader = RecordBinder.createReader(new JoinedLineReader(stream));
+                for (final Record record : records)
+                    RecordBinder.bindNext(reader, record);
+            } finally {
+                stream.close();
+            }
         } finally {
             point.collect();
         }
@@ -90,36 +121,43 @@ public class RecordDataExtractor {
 
     /**
      * Create a set of commands used to execute the parser adapter script needed to retrieve the record structure data
-     * from the CCL session.
+     * from the CCL session. Every record is written to the same file, each after the one before it, within a single
+     * statement.
      *
      * @return A {@link Collection} of {@code String} objects representing the CCL commands.
      */
     public Collection<String> getExtractionCommands() {
-        final List<String> lines = new ArrayList<String>(4);
-        lines.add("call echojson(");
-        lines.add(getRecord().getName());
-        lines.add(", '" + remoteDataLocation.getPath() + "'");
-        lines.add(") go");
+        final List<String> lines = new ArrayList<String>(4 * records.size());
+        for (int i = 0; i < records.size(); i++) {
+            lines.add("call echojson(");
+            lines.add(records.get(i).getName());
+            lines.add(", '" + remoteDataLocation.getPath() + "'");
+            /*
+             * The third argument causes echojson to append to the file rather than replace it
+             */
+            final String close = i == 0 ? ")" : ", 1)";
+            lines.add(i == records.size() - 1 ? close + " go" : close);
+        }
         return lines;
     }
 
     /**
-     * Get the record into which the data is to be written.
+     * Get the record into which the data is to be written. If this extractor has several records, the first is
+     * returned.
      *
      * @return A {@link Record} object.
      */
     public Record getRecord() {
-        return record;
+        return records.get(0);
     }
 
     /**
-     * Get the location on the local disk to which the JSON output should be written.
+     * Get the records into which the data is to be written.
      *
-     * @return A {@link File} object representing the location on the local hard disk to which the XML output should be
-     *         downloaded.
+     * @return An immutable {@link List} of {@link Record} objects, in the order in which they are written.
      */
-    File getLocalDataLocation() {
-        return localDataLocation;
+    public List<Record> getRecords() {
+        return records;
     }
 
     /**
@@ -136,56 +174,78 @@ public class RecordDataExtractor {
      *
      * @return A random name.
      */
-    private synchronized String createRandomFileName() {
+    private static synchronized String createRandomFileName() {
         return String.format("j4ccl_dataout_%s_%d%d.json",
                 System.getProperty("user.name").toLowerCase(Locale.getDefault()).replace("$", ""), ++objectCount,
                 System.currentTimeMillis());
     }
 
     /**
-     * Read the JSON data file and build its contents into a single string for parsing.
-     *
-     * @return A single line of text representing the entirety of the JSON document's contents.
-     * @throws IOException
-     *             If any errors occur during the read-in.
+     * A {@link Reader} of the JSON data that joins its lines into a single line of text as it is read. Each line is
+     * trimmed and, if it ends in an unescaped backslash - CCL's mark of a line that has been wrapped - that backslash
+     * is removed.
      */
-    private String retrieveJsonData() throws IOException {
-        final StringBuilder builder = new StringBuilder();
-
-        for (String line : readFile(getLocalDataLocation())) {
-            line = line.trim();
-            if (line.endsWith("\\")) {
-                /*
-                 * Count the number of slashes at the end - if odd, then it's a trailing slash and should be removed
-                 */
-                int slashParity = 1;
-                final char[] characters = line.toCharArray();
-                int characterIndex = characters.length - 2;
-                while (characterIndex >= 0 && characters[characterIndex] == '\\') {
-                    characterIndex--;
-                    slashParity = 1 - slashParity;
-                }
-
-                if (slashParity == 1)
-                    line = line.substring(0, line.length() - 1);
+    private static final class JoinedLineReader extends Reader {
+        private final BufferedReader reader;
+        private String line = "";
+        private int position;
+
+        /**
+         * Create a reader.
+         *
+         * @param stream
+         *            The {@link InputStream} of the JSON data file's contents.
+         */
+        JoinedLineReader(final InputStream stream) {
+            this.reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0)
+                return 0;
+
+            while (position == line.length()) {
+                final String next = reader.readLine();
+                if (next == null)
+                    return -1;
+                line = unwrap(next.trim());
+                position = 0;
             }
-            builder.append(line);
+
+            final int count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
         }
 
-        return builder.toString();
-    }
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
 
-    /**
-     * Read the text from a file. <br>
-     * This method primarily serves to reduce the scope of the {@link SuppressWarnings} annotation.
-     *
-     * @param file
-     *            A {@link File} object representing the file to be read.
-     * @return A {@link List} of {@code String} objects representing the lines within the given file.
-     * @throws IOException
-     *             If any errors occur during the file read.
-     */
-    private List<String> readFile(final File file) throws IOException {
-        return FileUtils.readLines(file, "utf-8");
+        /**
+         * Remove the trailing backslash of a wrapped line.
+         *
+         * @param line
+         *            The trimmed line.
+         * @return The line without its trailing backslash, if it had one that is not itself escaped.
+         */
+        private static String unwrap(final String line) {
+            if (!line.endsWith("\\"))
+                return line;
+
+            /*
+             * Count the number of slashes at the end - if odd, then it's a trailing slash and should be removed
+             */
+            int slashParity = 1;
+            int characterIndex = line.length() - 2;
+            while (characterIndex >= 0 && line.charAt(characterIndex) == '\\') {
+                characterIndex--;
+                slashParity = 1 - slashParity;
+            }
+
+            return slashParity == 1 ? line.substring(0, line.length() - 1) : line;
+        }
     }
 }
@@ -0,0 +1,190 @@
+package com.cerner.ccl.j4ccl.impl.commands.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.io.FileUtils;
+
+import com.cerner.ccl.j4ccl.impl.util.RecordJsonWriter;
+import com.cerner.ccl.j4ccl.impl.util.RecordSetter;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+
+/**
+ * An object that builds the CCL commands that populate a record structure with the values of a {@link Record} object.
+ * <br>
+ * A record that would take only a few {@code set} commands to populate is populated by those commands. Any other record
+ * is written to a JSON file, which is to be uploaded to the server before the commands are run; the commands then read
+ * that file, hydrate the record structure with a single call to {@code cnvtjsontorec} and then remove the file. If the
+ * record structure cannot be hydrated, the commands echo a {@link CclCommandTerminal#CCL_COMMAND_FAILURE_PATTERN
+ * failure}, which fails the execution rather than letting the script run with an empty record. The number of
+ * {@code set} commands at which a record is populated from JSON is given by the {@value #THRESHOLD_PROPERTY} system
+ * property; it defaults to {@value #DEFAULT_THRESHOLD}, and a value of zero or less disables population from JSON.
+ */
+
+public class RecordPopulator {
+    /**
+     * The name of the system property giving the number of {@code set} commands at which a record is populated from an
+     * uploaded JSON file instead.
+     */
+    public static final String THRESHOLD_PROPERTY = "j4ccl.recordUpload.threshold";
+    /**
+     * The number of {@code set} commands at which a record is populated from JSON if the {@value #THRESHOLD_PROPERTY}
+     * property is not set.
+     */
+    public static final int DEFAULT_THRESHOLD = 200;
+    /**
+     * The length at which the lines read from the JSON file are appended to the document. Lines are first gathered into
+     * a chunk of this length, so that the growing document is copied once per chunk rather than once per line.
+     */
+    static final int CHUNK_LENGTH = 64000;
+    private static final String JSON_VARIABLE = "j4ccl_record_json";
+    private static final String CHUNK_VARIABLE = "j4ccl_record_chunk";
+    private static final String STATUS_VARIABLE = "j4ccl_record_stat";
+    private static final String REMOVE_STATUS_VARIABLE = "j4ccl_record_remove_stat";
+
+    private final Record record;
+    private final List<String> setterCommands;
+    private final File jsonFile;
+    private URI remoteJsonLocation;
+
+    /**
+     * Create a populator.
+     *
+     * @param record
+     *            The {@link Record} whose values are to be set into its record structure.
+     * @throws IOException
+     *             If the record requires a JSON file and it cannot be written.
+     */
+    public RecordPopulator(final Record record) throws IOException {
+        this(record, Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD).intValue());
+    }
+
+    /**
+     * Create a populator.
+     *
+     * @param record
+     *            The {@link Record} whose values are to be set into its record structure.
+     * @param threshold
+     *            The number of {@code set} commands at which the record is to be populated from JSON; zero or less to
+     *            always use {@code set} commands.
+     * @throws IOException
+     *             If the record requires a JSON file and it cannot be written.
+     */
+    RecordPopulator(final Record record, final int threshold) throws IOException {
+        this.record = record;
+
+        final List<String> setters = RecordSetter.getSetterCommands(record);
+        if (threshold <= 0 || setters.size() < threshold) {
+            this.setterCommands = setters;
+            this.jsonFile = null;
+            return;
+        }
+
+        this.setterCommands = Collections.emptyList();
+        this.jsonFile = writeJsonFile(record);
+    }
+
+    /**
+     * Get the JSON file from which the record is to be populated.
+     *
+     * @return A {@link File} that must be uploaded before the commands of this populator are run; {@code null} if the
+     *         record is populated by {@code set} commands.
+     */
+    public File getJsonFile() {
+        return jsonFile;
+    }
+
+    /**
+     * Set the location to which the JSON file of this populator was uploaded.
+     *
+     * @param remoteJsonLocation
+     *            A {@link URI} representing the uploaded file.
+     */
+    public void setRemoteJsonLocation(final URI remoteJsonLocation) {
+        this.remoteJsonLocation = remoteJsonLocation;
+    }
+
+    /**
+     * Get the CCL commands that populate the record structure.
+     *
+     * @return A {@link List} of CCL commands.
+     * @throws IllegalStateException
+     *             If the record is populated from JSON and the location of the uploaded file has not been set.
+     */
+    public List<String> getPopulationCommands() {
+        if (jsonFile == null)
+            return setterCommands;
+
+        if (remoteJsonLocation == null)
+            throw new IllegalStateException("JSON for record " + record.getName() + " has not been uploaded.");
+
+        final String remotePath = remoteJsonLocation.getPath();
+        final List<String> commands = new ArrayList<String>(25);
+        commands.add("free set " + JSON_VARIABLE + " go");
+        commands.add("declare " + JSON_VARIABLE + " = vc with noconstant('') go");
+        commands.add("free set " + CHUNK_VARIABLE + " go");
+        commands.add("declare " + CHUNK_VARIABLE + " = vc with noconstant('') go");
+        commands.add("free set " + STATUS_VARIABLE + " go");
+        commands.add("declare " + STATUS_VARIABLE + " = i4 with noconstant(0) go");
+        commands.add("free set " + REMOVE_STATUS_VARIABLE + " go");
+        commands.add("declare " + REMOVE_STATUS_VARIABLE + " = i4 with noconstant(0) go");
+        commands.add("free define rtl3 go");
+        commands.add("define rtl3 is '" + remotePath + "' go");
+        commands.add("select into 'nl:'");
+        commands.add("from rtl3t r");
+        commands.add("detail " + CHUNK_VARIABLE + " = notrim(concat(" + CHUNK_VARIABLE + ", r.line))");
+        commands.add("if (textlen(" + CHUNK_VARIABLE + ") >= " + CHUNK_LENGTH + ")");
+        commands.add(JSON_VARIABLE + " = notrim(concat(" + JSON_VARIABLE + ", " + CHUNK_VARIABLE + "))");
+        commands.add(CHUNK_VARIABLE + " = ''");
+        commands.add("endif");
+        commands.add(
+                "foot report " + JSON_VARIABLE + " = notrim(concat(" + JSON_VARIABLE + ", " + CHUNK_VARIABLE + "))");
+        commands.add("with nocounter go");
+        commands.add("set " + STATUS_VARIABLE + " = cnvtjsontorec(" + JSON_VARIABLE + ") go");
+        commands.add("free define rtl3 go");
+        commands.add("set " + REMOVE_STATUS_VARIABLE + " = remove('" + remotePath + "') go");
+        commands.add(CclCommandTerminal.getFailureCommand(STATUS_VARIABLE + " != 1",
+                "cnvtjsontorec failed to populate record " + record.getName()));
+        return commands;
+    }
+
+    /**
+     * Delete the local JSON file of this populator, if it has one.
+     */
+    public void deleteJsonFile() {
+        if (jsonFile != null)
+            FileUtils.deleteQuietly(jsonFile);
+    }
+
+    /**
+     * Write a record to a temporary JSON file.
+     *
+     * @param record
+     *            The {@link Record} to be written.
+     * @return A {@link File} holding the record's JSON.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    private static File writeJsonFile(final Record record) throws IOException {
+        final File file = File.createTempFile("j4ccl_recin_" + record.getName().toLowerCase(Locale.getDefault()) + "_",
+                ".json");
+        file.deleteOnExit();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            RecordJsonWriter.write(record, writer);
+        } catch (final IOException e) {
+            FileUtils.deleteQuietly(file);
+            throw e;
+        }
+        return file;
+    }
+}
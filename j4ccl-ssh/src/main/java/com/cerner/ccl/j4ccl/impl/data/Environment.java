@@ -1,14 +1,16 @@
 package com.cerner.ccl.j4ccl.impl.data;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.PropertyResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,11 +37,25 @@ import etm.core.monitor.EtmPoint;
  */
 
 public class Environment {
-    private static final Map<String, Environment> CACHE = new HashMap<String, Environment>();
+    /**
+     * The name of the system property giving the location of the file in which the data of environments is kept across
+     * builds.
+     */
+    public static final String CACHE_FILE_PROPERTY = "j4ccl.environmentCache.file";
+    private static final ConcurrentMap<String, CachedEnvironment> CACHE = new ConcurrentHashMap<String, CachedEnvironment>();
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<String, Object>();
+    private static final Pattern LOGICAL_PATTERN = Pattern
+            .compile("(\\|\\|(?>cer_proc|cer_temp|cer_install|CCLSOURCE|CCLUSERDIR)=[^'|$]*\\|\\|)", Pattern.MULTILINE);
+    private static final int LOGICAL_COUNT = 5;
+    private static volatile EnvironmentCache persistentCache;
+    private static volatile FileEnvironmentCache defaultPersistentCache;
     private final Logger logger = LoggerFactory.getLogger(Environment.class);
 
     /**
-     * Get a data object representing an environment.
+     * Get a data object representing an environment. <br>
+     * The object is kept in memory for reuse by later calls. If the {@link TerminalProperties} of the current thread
+     * give a positive {@link TerminalProperties#getEnvironmentCacheTtl() time to live}, the object is replaced once it
+     * has been kept for that long; otherwise, it is kept for the life of the JVM.
      *
      * @return A {@link Environment} data object representing the desired environment.
      * @throws IllegalArgumentException
@@ -61,14 +77,125 @@ public class Environment {
             throw new IllegalArgumentException("Environment name cannot be blank.");
         }
 
-        final String normalizedName = environmentName.toLowerCase(Locale.getDefault());
-        if (CACHE.containsKey(normalizedName)) {
-            return CACHE.get(normalizedName);
+        final String cacheKey = getCacheKey(principal, environmentName);
+        final long timeToLive = getCacheTimeToLive();
+        final CachedEnvironment cachedEnv = CACHE.get(cacheKey);
+        if (cachedEnv != null && cachedEnv.isLive(timeToLive)) {
+            return cachedEnv.environment;
         }
 
-        final Environment env = new Environment(environmentName);
-        CACHE.put(normalizedName, env);
-        return env;
+        // only one thread retrieves the logicals of an environment; the others wait for its result
+        final Object newLock = new Object();
+        final Object existingLock = LOCKS.putIfAbsent(cacheKey, newLock);
+        final Object lock = existingLock == null ? newLock : existingLock;
+        try {
+            synchronized (lock) {
+                CachedEnvironment env = CACHE.get(cacheKey);
+                if (env == null || !env.isLive(timeToLive)) {
+                    env = new CachedEnvironment(new Environment(environmentName, cacheKey, getPersistentCache()));
+                    CACHE.put(cacheKey, env);
+                }
+                return env.environment;
+            }
+        } finally {
+            // threads arriving later find the environment in the cache, so the lock is only needed during retrieval
+            LOCKS.remove(cacheKey, lock);
+        }
+    }
+
+    /**
+     * Set the cache in which environment data is kept across JVMs. <br>
+     * If no cache is set, a {@link FileEnvironmentCache} is used if the {@link TerminalProperties} of the current
+     * thread give a positive {@link TerminalProperties#getEnvironmentCacheTtl() time to live}. It is kept in the file
+     * given by the {@value #CACHE_FILE_PROPERTY} system property or, by default, in
+     * {@code .j4ccl/environment-cache.properties} beneath the user's home directory.
+     *
+     * @param cache
+     *            The {@link EnvironmentCache} to be used; {@code null} to revert to the default.
+     */
+    public static void setPersistentCache(final EnvironmentCache cache) {
+        persistentCache = cache;
+    }
+
+    /**
+     * Get the cache in which environment data is kept across JVMs.
+     *
+     * @return The {@link EnvironmentCache} to be used; {@code null} if environment data is not to be kept.
+     */
+    static EnvironmentCache getPersistentCache() {
+        final EnvironmentCache cache = persistentCache;
+        if (cache != null) {
+            return cache;
+        }
+
+        final long timeToLive = getCacheTimeToLive();
+        if (timeToLive <= 0) {
+            return null;
+        }
+
+        final String fileProperty = System.getProperty(CACHE_FILE_PROPERTY);
+        final File file = StringUtils.isBlank(fileProperty)
+                ? new File(new File(System.getProperty("user.home"), ".j4ccl"), "environment-cache.properties")
+                : new File(fileProperty);
+
+        // reuse the cache while its settings are unchanged so that it need not reread its file
+        FileEnvironmentCache defaultCache = defaultPersistentCache;
+        if (defaultCache == null || !defaultCache.getFile().equals(file)
+                || defaultCache.getTimeToLive() != timeToLive) {
+            defaultCache = new FileEnvironmentCache(file, timeToLive);
+            defaultPersistentCache = defaultCache;
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Get the time for which environment data is to be cached, as given by the {@link TerminalProperties} of the
+     * current thread.
+     *
+     * @return The number of milliseconds for which environment data remains valid; 0 if it is not to expire in memory
+     *         and not to be kept across JVMs.
+     */
+    private static long getCacheTimeToLive() {
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        final long ttlSeconds = terminalProperties == null ? 0 : terminalProperties.getEnvironmentCacheTtl();
+        return ttlSeconds <= 0 ? 0 : TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    /**
+     * Get the configured location of cclsource, which is either a logical (beginning with {@code $}) that identifies
+     * the location or the location itself. The value is taken from the {@link TerminalProperties} of the current thread
+     * and, if they do not provide one, from the {@code ccl-cclsource} system property.
+     *
+     * @return The configured location of cclsource; {@code null} if none is configured.
+     */
+    public static String getCclSourceSetting() {
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        if (terminalProperties != null && terminalProperties.getCclSource() != null
+                && !terminalProperties.getCclSource().isEmpty()) {
+            return terminalProperties.getCclSource();
+        }
+        return System.getProperty("ccl-cclsource");
+    }
+
+    /**
+     * Build the key under which an environment's data is cached. The key identifies the host, the user and the
+     * environment, as well as any logical that overrides the location of cclsource, since that changes the data.
+     *
+     * @param principal
+     *            The {@link BackendNodePrincipal} describing the host and user.
+     * @param environmentName
+     *            The name of the environment.
+     * @return The cache key.
+     */
+    static String getCacheKey(final BackendNodePrincipal principal, final String environmentName) {
+        final StringBuilder key = new StringBuilder().append(principal.getUsername()).append('@')
+                .append(StringUtils.lowerCase(principal.getHostname())).append('/')
+                .append(environmentName.toLowerCase(Locale.getDefault()));
+        final String sourceLogical = getCclSourceSetting();
+        if (sourceLogical != null && sourceLogical.matches("\\$.*")) {
+            key.append('/').append(sourceLogical);
+        }
+        return key.toString();
     }
 
     private final String environmentName;
@@ -87,23 +214,41 @@ public class Environment {
      *            The name of the environment.
      */
     Environment(final String environmentName) {
+        this(environmentName, null, null);
+    }
+
+    /**
+     * Create a data object, reading its data from the given cache if possible and caching the data otherwise.
+     *
+     * @param environmentName
+     *            The name of the environment.
+     * @param cacheKey
+     *            The key under which the environment's data is cached.
+     * @param cache
+     *            The {@link EnvironmentCache} in which the environment's data is kept; {@code null} if it is not to be
+     *            kept.
+     */
+    Environment(final String environmentName, final String cacheKey, final EnvironmentCache cache) {
         final EtmPoint point = PointFactory.getPoint(getClass(), "<init>");
         try {
             this.environmentName = environmentName;
 
-            String envData = getEnvData();
+            final String cachedEnvData = cache == null ? null : cache.get(cacheKey);
+            String envData = cachedEnvData != null ? cachedEnvData : getEnvData();
             try (StringReader reader = new StringReader(envData)) {
                 PropertyResourceBundle bundle = new PropertyResourceBundle(reader);
                 cclUserDir = bundle.getString("CCLUSERDIR");
-                String cclSourceProperty = System.getProperty("ccl-cclsource");
-                cclSource = cclSourceProperty != null && !cclSourceProperty.matches("\\$.*")
-                        ? System.getProperty("ccl-cclsource")
+                final String cclSourceSetting = getCclSourceSetting();
+                cclSource = cclSourceSetting != null && !cclSourceSetting.matches("\\$.*") ? cclSourceSetting
                         : bundle.getString("CCLSOURCE");
                 cerTemp = bundle.getString("cer_temp");
                 cerProc = bundle.getString("cer_proc");
                 cerInstall = bundle.getString("cer_install");
                 logger.debug(String.format("cclUserDir: %s; cclSource: %s; cerTemp: %s; cerProc: %s; cerInstall: %s%n",
                         cclUserDir, cclSource, cerTemp, cerProc, cerInstall));
+                if (cache != null && cachedEnvData == null) {
+                    cache.put(cacheKey, envData);
+                }
             } catch (final IOException e) {
                 logger.error(new StringBuilder().append("\n\r").append("---------envData start---------").append("\n\r")
                         .append(envData).append("\n\r").append("---------envData end---------").toString());
@@ -179,26 +324,32 @@ public class Environment {
     private String getEnvData() {
         final EtmPoint point = PointFactory.getPoint(getClass(), "getEnvData");
         try {
-            final TerminalProperties tpDefault = TerminalProperties.getGlobalTerminalProperties();
+            final TerminalProperties tpDefault = TerminalProperties.getThreadTerminalProperties();
             String osPromptPattern = tpDefault.getOsPromptPattern();
             final JSchSshTerminal terminal = new JSchSshTerminal();
             terminal.setExpectationTimeout(tpDefault.getExpectationTimeout());
             TerminalResponse terminalRepsonse = null;
 
+            String sourceLogical = getCclSourceSetting();
+            if (sourceLogical == null || !sourceLogical.matches("\\$.*")) {
+                sourceLogical = "$CCLSOURCE";
+            }
+
+            final String execEnvData = getEnvDataByExec(terminal, sourceLogical, tpDefault.getSkipEnvset());
+            if (execEnvData != null) {
+                return execEnvData;
+            }
+
             List<CommandExpectationGroup> commandExpectationGroups = new ArrayList<CommandExpectationGroup>();
             CommandExpectationGroup commandExpectationGroup = null;
 
-            if (!TerminalProperties.getGlobalTerminalProperties().getSkipEnvset()) {
+            if (!TerminalProperties.getThreadTerminalProperties().getSkipEnvset()) {
                 commandExpectationGroup = new CommandExpectationGroup();
                 commandExpectationGroup.addCommand("envset " + environmentName);
                 commandExpectationGroup.addExpectation("Environment '" + environmentName + "' set.");
                 commandExpectationGroups.add(commandExpectationGroup);
             }
 
-            String sourceLogical = System.getProperty("ccl-cclsource");
-            if (sourceLogical == null || !sourceLogical.matches("\\$.*")) {
-                sourceLogical = "$CCLSOURCE";
-            }
             commandExpectationGroup = new CommandExpectationGroup();
             commandExpectationGroup.addCommand("echo 'ENV CAPTURE START'");
             commandExpectationGroup.addExpectation("[^']ENV CAPTURE START[^']");
@@ -248,16 +399,8 @@ public class Environment {
             rawOutput = rawOutput.replaceAll(osPromptPattern, "");
 
             StringBuilder finalOutput = new StringBuilder();
-            Matcher matcherEnv = Pattern
-                    .compile("(\\|\\|(?>cer_proc|cer_temp|cer_install|CCLSOURCE|CCLUSERDIR)=[^'|$]*\\|\\|)",
-                            Pattern.MULTILINE)
-                    .matcher(rawOutput);
-            int logicalCount = 0;
-            while (matcherEnv.find()) {
-                logicalCount++;
-                finalOutput.append("\n").append(matcherEnv.group(0));
-            }
-            if (logicalCount < 5) {
+            final int logicalCount = extractLogicals(rawOutput, finalOutput);
+            if (logicalCount < LOGICAL_COUNT) {
                 logger.error("Some environment logical retrieval commamds failed.");
                 logger.error(new StringBuilder().append("\n\r").append("---------raw output start---------")
                         .append("\n\r").append(terminalRepsonse.getOutput()).append("\n\r")
@@ -271,4 +414,98 @@ public class Environment {
             point.collect();
         }
     }
+
+    /**
+     * Retrieve the environment logicals with a single command run on an exec channel, which avoids logging into an
+     * interactive shell and matching its prompts. Since the command is not run in a login shell, it sources the user's
+     * profile itself.
+     *
+     * @param terminal
+     *            The {@link JSchSshTerminal} on which the command is to be run.
+     * @param sourceLogical
+     *            The logical giving the location of cclsource.
+     * @param skipEnvset
+     *            A boolean flag indicating whether the environment is already set by the user's profile.
+     * @return The environment data; {@code null} if not all of the logicals could be retrieved this way, in which case
+     *         they are to be retrieved through an interactive shell.
+     */
+    private String getEnvDataByExec(final JSchSshTerminal terminal, final String sourceLogical,
+            final boolean skipEnvset) {
+        final StringBuilder command = new StringBuilder(
+                "[ -f \"$HOME/.profile\" ] && . \"$HOME/.profile\" > /dev/null 2>&1; ");
+        if (!skipEnvset) {
+            command.append("envset ").append(environmentName).append(" > /dev/null 2>&1 && ");
+        }
+        command.append("echo '||cer_proc='$cer_proc'||' '||cer_temp='$cer_temp'||' '||cer_install='$cer_install'||'")
+                .append(" '||CCLSOURCE='").append(sourceLogical).append("'||' '||CCLUSERDIR='$CCLUSERDIR'||'");
+
+        try {
+            final TerminalResponse response = terminal.executeCommand(command.toString());
+            final StringBuilder finalOutput = new StringBuilder();
+            if (response == null || response.getExitStatus() != 0 || response.getOutput() == null
+                    || extractLogicals(response.getOutput(), finalOutput) < LOGICAL_COUNT) {
+                logger.debug(
+                        "Not all environment logicals were retrieved on an exec channel; using a shell. Output: {}",
+                        response == null ? null : response.getOutput());
+                return null;
+            }
+            return finalOutput.substring(1).replaceAll("\\|\\|", "");
+        } catch (final SshException e) {
+            logger.debug("Failed to retrieve environment logicals on an exec channel; using a shell.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Find the logicals echoed in the given output.
+     *
+     * @param rawOutput
+     *            The output in which the logicals were echoed, each as {@code ||name=value||}.
+     * @param finalOutput
+     *            A {@link StringBuilder} to which each logical found is appended, preceded by a line break.
+     * @return The number of logicals found.
+     */
+    private static int extractLogicals(final String rawOutput, final StringBuilder finalOutput) {
+        Matcher matcherEnv = LOGICAL_PATTERN.matcher(rawOutput);
+        int logicalCount = 0;
+        while (matcherEnv.find()) {
+            logicalCount++;
+            finalOutput.append("\n").append(matcherEnv.group(0));
+        }
+        return logicalCount;
+    }
+
+    /**
+     * An environment held in memory, along with the time at which it was cached.
+     */
+    private static class CachedEnvironment {
+        private final Environment environment;
+        private final long cachedAt = System.currentTimeMillis();
+
+        /**
+         * Create a cache entry.
+         *
+         * @param environment
+         *            The {@link Environment} to be cached.
+         */
+        CachedEnvironment(final Environment environment) {
+            this.environment = environment;
+        }
+
+        /**
+         * Determine whether the entry has not expired.
+         *
+         * @param timeToLive
+         *            The number of milliseconds for which the entry remains valid; 0 if it does not expire.
+         * @return {@code true} if the entry is live; {@code false} if otherwise.
+         */
+        boolean isLive(final long timeToLive) {
+            if (timeToLive <= 0) {
+                return true;
+            }
+
+            final long age = System.currentTimeMillis() - cachedAt;
+            return age >= 0 && age < timeToLive;
+        }
+    }
 }
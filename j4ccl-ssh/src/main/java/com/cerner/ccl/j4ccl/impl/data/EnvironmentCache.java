@@ -0,0 +1,27 @@
+package com.cerner.ccl.j4ccl.impl.data;
+
+/**
+ * A cache of the server-side logicals of environments, held as the data from which an {@link Environment} is built so
+ * that a cache can outlive the JVM that populated it. Implementations must be safe for use by multiple threads.
+ */
+
+public interface EnvironmentCache {
+    /**
+     * Get the cached data of an environment.
+     *
+     * @param key
+     *            The key identifying the host, environment and user whose data is to be retrieved.
+     * @return The cached data; {@code null} if there is none or it has expired.
+     */
+    String get(String key);
+
+    /**
+     * Cache the data of an environment.
+     *
+     * @param key
+     *            The key identifying the host, environment and user whose data is to be cached.
+     * @param envData
+     *            The data to be cached.
+     */
+    void put(String key, String envData);
+}
@@ -0,0 +1,171 @@
+package com.cerner.ccl.j4ccl.impl.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ftp.util.PropertiesUtils;
+
+/**
+ * An {@link EnvironmentCache} that persists the data of each environment in a properties file, so that the data can be
+ * reused by later builds until it expires. <br>
+ * The file is rewritten in full, through a temporary file that replaces it, each time data is cached. Its entries are
+ * kept in memory once read and are read again only if the file has since been changed by another process. A cache that
+ * cannot be read or written is treated as empty; it never causes the retrieval of an environment to fail.
+ */
+
+public class FileEnvironmentCache implements EnvironmentCache {
+    private static final String DATA_SUFFIX = ".data";
+    private static final String CACHED_AT_SUFFIX = ".cachedAt";
+    private static final Object LOCK = new Object();
+
+    private final Logger logger = LoggerFactory.getLogger(FileEnvironmentCache.class);
+    private final File file;
+    private final long timeToLive;
+    private Properties entries;
+    private long entriesModified;
+    private long entriesLength;
+
+    /**
+     * Create a cache.
+     *
+     * @param file
+     *            A {@link File} object representing the location of the cache.
+     * @param timeToLive
+     *            The number of milliseconds for which cached data remains valid.
+     * @throws IllegalArgumentException
+     *             If the given time to live is not positive.
+     * @throws NullPointerException
+     *             If the given file is {@code null}.
+     */
+    public FileEnvironmentCache(final File file, final long timeToLive) {
+        if (file == null)
+            throw new NullPointerException("Cache file cannot be null.");
+
+        if (timeToLive <= 0)
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+
+        this.file = file;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public String get(final String key) {
+        synchronized (LOCK) {
+            final Properties current = getEntries();
+            return isLive(current, key, System.currentTimeMillis()) ? current.getProperty(key + DATA_SUFFIX) : null;
+        }
+    }
+
+    @Override
+    public void put(final String key, final String envData) {
+        synchronized (LOCK) {
+            final long now = System.currentTimeMillis();
+            final Properties current = getEntries();
+            for (final String name : current.stringPropertyNames()) {
+                if (name.endsWith(DATA_SUFFIX)) {
+                    final String entryKey = name.substring(0, name.length() - DATA_SUFFIX.length());
+                    if (!isLive(current, entryKey, now)) {
+                        current.remove(name);
+                        current.remove(entryKey + CACHED_AT_SUFFIX);
+                    }
+                }
+            }
+            current.setProperty(key + DATA_SUFFIX, envData);
+            current.setProperty(key + CACHED_AT_SUFFIX, Long.toString(now));
+            store(current);
+        }
+    }
+
+    /**
+     * Get the file in which the cache is kept.
+     *
+     * @return A {@link File} object representing the location of the cache.
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the time for which cached data remains valid.
+     *
+     * @return The number of milliseconds for which cached data remains valid.
+     */
+    long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Determine whether an entry exists and has not expired.
+     *
+     * @param entries
+     *            The {@link Properties} holding the entries.
+     * @param key
+     *            The key of the entry.
+     * @param now
+     *            The current time, in milliseconds since the epoch.
+     * @return {@code true} if the entry is live; {@code false} if otherwise.
+     */
+    private boolean isLive(final Properties entries, final String key, final long now) {
+        final String cachedAt = entries.getProperty(key + CACHED_AT_SUFFIX);
+        if (cachedAt == null || entries.getProperty(key + DATA_SUFFIX) == null)
+            return false;
+
+        try {
+            final long age = now - Long.parseLong(cachedAt);
+            return age >= 0 && age < timeToLive;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the entries of the cache, reading the cache file only if it has changed since it was last read or written.
+     * The caller must hold the lock of the cache.
+     *
+     * @return The {@link Properties} holding the entries.
+     */
+    private Properties getEntries() {
+        final long modified = file.lastModified();
+        final long length = file.length();
+        if (entries == null || modified != entriesModified || length != entriesLength) {
+            entries = load();
+            entriesModified = modified;
+            entriesLength = length;
+        }
+        return entries;
+    }
+
+    /**
+     * Read the cache file.
+     *
+     * @return The {@link Properties} read from the file; empty if the file does not exist or cannot be read.
+     */
+    private Properties load() {
+        try {
+            return PropertiesUtils.load(file);
+        } catch (final IOException e) {
+            logger.warn("Failed to read environment cache " + file + "; ignoring it.", e);
+            return new Properties();
+        }
+    }
+
+    /**
+     * Replace the cache file.
+     *
+     * @param current
+     *            The {@link Properties} to be written.
+     */
+    private void store(final Properties current) {
+        try {
+            PropertiesUtils.store(file, current, "j4ccl environment cache");
+            entriesModified = file.lastModified();
+            entriesLength = file.length();
+        } catch (final IOException e) {
+            logger.warn("Failed to write environment cache " + file + ".", e);
+        }
+    }
+}
@@ -1,19 +1,34 @@
 package com.cerner.ccl.j4ccl.impl.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 
 /**
- * An {@link OutputStream} object that forwards data within a specific set of keywords to a given output stream.
+ * An {@link OutputStream} object that forwards data within a specific set of keywords to a given output stream or
+ * {@link LineConsumer}. <br>
+ * The data is scanned a byte at a time for the keywords with a {@link TokenScanner}, and only the lines that are to be
+ * forwarded are buffered.
  *
  * @author Joshua Hyde
  *
  */
 
 public class CclOutputStreamProxy extends OutputStreamProxy {
-    private final StringBuilder builder = new StringBuilder();
-    private final String outputBegin;
-    private final String outputEnd;
+    private static final int BEGIN = 1;
+    private static final int END = 1 << 1;
+
+    private final TokenScanner scanner;
+    private final LineConsumer consumer;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final byte[] single = new byte[1];
+    private int state;
+    private int lineTokens;
     private boolean doForward;
 
     /**
@@ -30,28 +45,87 @@ public class CclOutputStreamProxy extends OutputStreamProxy {
      */
     public CclOutputStreamProxy(final OutputStream out, final String outputBegin, final String outputEnd) {
         super(out);
-        this.outputBegin = outputBegin;
-        this.outputEnd = outputEnd;
+        this.consumer = null;
+        this.scanner = new TokenScanner(outputBegin, outputEnd);
+        this.state = scanner.getInitialState();
+    }
+
+    /**
+     * Create an output stream proxy that hands each forwarded line to a {@link LineConsumer}, decoded as UTF-8 and
+     * without its line terminator.
+     *
+     * @param consumer
+     *            The {@link LineConsumer} to which the forwarded lines are to be handed.
+     * @param outputBegin
+     *            The keyword whose containing line will mark the beginning of output forwarding.
+     * @param outputEnd
+     *            The keyword whose containing line will mark the end of the output forwarding.
+     * @throws NullPointerException
+     *             If the given consumer is {@code null}.
+     * @see #CclOutputStreamProxy(OutputStream, String, String)
+     */
+    public CclOutputStreamProxy(final LineConsumer consumer, final String outputBegin, final String outputEnd) {
+        super(NullOutputStream.NULL_OUTPUT_STREAM);
+        if (consumer == null)
+            throw new NullPointerException("Line consumer cannot be null.");
+
+        this.consumer = consumer;
+        this.scanner = new TokenScanner(outputBegin, outputEnd);
+        this.state = scanner.getInitialState();
     }
 
     @Override
     public void write(final int b) throws IOException {
-        final char bChar = (char) b;
-        builder.append(bChar);
-
-        if (bChar == '\n') {
-            final String string = builder.toString();
-            if (string.contains(outputEnd))
-                doForward = false;
-            else if (string.contains(outputBegin))
-                doForward = true;
-            else if (doForward) {
-                final OutputStream proxied = getProxied();
-                for (final char currentChar : string.toCharArray())
-                    proxied.write(currentChar);
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int lineStart = off;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            state = scanner.next(state, b[i]);
+            lineTokens |= scanner.getMatches(state);
+
+            if (b[i] == '\n') {
+                if ((lineTokens & END) != 0)
+                    doForward = false;
+                else if ((lineTokens & BEGIN) != 0)
+                    doForward = true;
+                else if (doForward) {
+                    line.write(b, lineStart, i + 1 - lineStart);
+                    forwardLine();
+                }
+
+                line.reset();
+                lineStart = i + 1;
+                lineTokens = 0;
+                state = scanner.getInitialState();
             }
+        }
 
-            builder.delete(0, builder.length());
+        // The rest of the line can only be forwarded if a keyword doesn't turn up before its end
+        if (doForward && lineStart < end)
+            line.write(b, lineStart, end - lineStart);
+    }
+
+    /**
+     * Forward the buffered line, including its terminating {@code \n}.
+     *
+     * @throws IOException
+     *             If the line cannot be forwarded.
+     */
+    private void forwardLine() throws IOException {
+        if (consumer == null) {
+            line.writeTo(getProxied());
+            return;
         }
+
+        final byte[] bytes = line.toByteArray();
+        int length = bytes.length - 1;
+        if (length > 0 && bytes[length - 1] == '\r')
+            length--;
+        consumer.consume(new String(bytes, 0, length, StandardCharsets.UTF_8));
     }
 }
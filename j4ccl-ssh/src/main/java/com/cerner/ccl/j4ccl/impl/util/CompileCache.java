@@ -0,0 +1,344 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.impl.data.Environment;
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+import com.cerner.ccl.j4ccl.impl.jaas.JaasUtils;
+import com.cerner.ftp.util.DigestUtils;
+import com.cerner.ftp.util.PropertiesUtils;
+
+/**
+ * A local record of the compilations that have succeeded, used to skip the compilation of sources that have not changed
+ * since they were last compiled. <br>
+ * Each compilation is identified by a fingerprint: the SHA-256 digest of the source, of its dependencies and of every
+ * file it pulls in through a {@code %i cclsource:} directive, together with the debug compile flag and the location of
+ * cclsource. Entries are kept per user, host and environment. For compilations that leave an object on the back end,
+ * the entry also records the object's timestamp so that the object can be confirmed to be unchanged before its
+ * compilation is skipped. <br>
+ * A source whose {@code %i} directives cannot all be resolved to local files is never considered unchanged. <br>
+ * Nothing is retained between uses of the cache: each {@link #getCache()} loads the entries then in the file, and each
+ * change is merged into the file as it is made, so that commands and builds sharing the file do not lose each other's
+ * entries.
+ */
+
+public class CompileCache {
+    /**
+     * The name of the system property giving the location of the file in which the compile cache is kept. No cache is
+     * used if the property is not set.
+     */
+    public static final String FILE_PROPERTY = "j4ccl.compileCache.file";
+    private static final char SEPARATOR = '\t';
+    private static final ThreadLocal<String> THREAD_FILE_PROPERTY = new InheritableThreadLocal<String>();
+    private static final ThreadLocal<File> THREAD_SOURCE_ROOT = new InheritableThreadLocal<File>();
+    private static final Object STORE_LOCK = new Object();
+
+    private final Logger logger = LoggerFactory.getLogger(CompileCache.class);
+    private final File file;
+    private final File sourceRoot;
+    private final Properties entries = new Properties();
+
+    /**
+     * Set, for the current thread and the threads it goes on to create, the value that takes the place of the
+     * {@value #FILE_PROPERTY} system property. This allows builds running in parallel in one JVM to each keep their own
+     * cache.
+     *
+     * @param fileProperty
+     *            The location of the file in which the compile cache is kept; a blank value for no cache, or
+     *            {@code null} to use the system property.
+     */
+    public static void setThreadFileProperty(final String fileProperty) {
+        if (fileProperty == null) {
+            THREAD_FILE_PROPERTY.remove();
+        } else {
+            THREAD_FILE_PROPERTY.set(fileProperty);
+        }
+    }
+
+    /**
+     * Get the location of the file in which the compile cache of the current thread is kept.
+     *
+     * @return The value set for the current thread by {@link #setThreadFileProperty(String)} or, if none was set, the
+     *         value of the {@value #FILE_PROPERTY} system property; may be {@code null} or blank.
+     */
+    public static String getFileProperty() {
+        final String threadFileProperty = THREAD_FILE_PROPERTY.get();
+        return threadFileProperty == null ? System.getProperty(FILE_PROPERTY) : threadFileProperty;
+    }
+
+    /**
+     * Set, for the current thread and the threads it goes on to create, the directory against which the locations of
+     * include files are resolved to identify their compilations.
+     *
+     * @param sourceRoot
+     *            A {@link File} representing the source root; {@code null} to use the working directory.
+     */
+    public static void setThreadSourceRoot(final File sourceRoot) {
+        if (sourceRoot == null) {
+            THREAD_SOURCE_ROOT.remove();
+        } else {
+            THREAD_SOURCE_ROOT.set(sourceRoot);
+        }
+    }
+
+    /**
+     * Get the directory against which the locations of include files are resolved for the current thread.
+     *
+     * @return The value set for the current thread by {@link #setThreadSourceRoot(File)} or, if none was set, the
+     *         working directory.
+     */
+    public static File getSourceRoot() {
+        final File threadSourceRoot = THREAD_SOURCE_ROOT.get();
+        return threadSourceRoot == null ? new File(System.getProperty("user.dir")) : threadSourceRoot;
+    }
+
+    /**
+     * Get the compile cache kept in the file given by {@link #getFileProperty()}.
+     *
+     * @return A {@link CompileCache} holding the entries currently in the file; {@code null} if no file is given.
+     */
+    public static CompileCache getCache() {
+        final String fileProperty = getFileProperty();
+        if (StringUtils.isBlank(fileProperty))
+            return null;
+
+        return new CompileCache(new File(fileProperty), getSourceRoot());
+    }
+
+    /**
+     * Create a cache, loading any entries previously saved to the given file, whose include files are identified
+     * relative to the working directory. <br>
+     * This constructor is package-private for testing; {@link #getCache()} should otherwise be used.
+     *
+     * @param file
+     *            A {@link File} representing the location of the cache.
+     * @throws NullPointerException
+     *             If the given file is {@code null}.
+     */
+    CompileCache(final File file) {
+        this(file, new File(System.getProperty("user.dir")));
+    }
+
+    /**
+     * Create a cache, loading any entries previously saved to the given file. A file that cannot be read is ignored,
+     * which causes everything to be compiled. <br>
+     * This constructor is package-private for testing; {@link #getCache()} should otherwise be used.
+     *
+     * @param file
+     *            A {@link File} representing the location of the cache.
+     * @param sourceRoot
+     *            A {@link File} representing the directory against which the locations of include files are resolved.
+     * @throws NullPointerException
+     *             If the given file or source root is {@code null}.
+     */
+    CompileCache(final File file, final File sourceRoot) {
+        if (file == null)
+            throw new NullPointerException("Cache file cannot be null.");
+
+        if (sourceRoot == null)
+            throw new NullPointerException("Source root cannot be null.");
+
+        this.file = file.getAbsoluteFile();
+        this.sourceRoot = sourceRoot.getAbsoluteFile();
+        entries.putAll(load());
+    }
+
+    /**
+     * Build the key under which the compilation of an object is cached, which identifies the current user, host and
+     * environment as well as the object.
+     *
+     * @param objectName
+     *            The name of the compiled object or, for a compilation that leaves no object behind, of its source.
+     * @return The cache key.
+     */
+    public static String getKey(final String objectName) {
+        final BackendNodePrincipal principal = JaasUtils.getPrincipal(BackendNodePrincipal.class);
+        return new StringBuilder().append(principal.getUsername()).append('@')
+                .append(StringUtils.lowerCase(principal.getHostname())).append('/')
+                .append(StringUtils.lowerCase(principal.getEnvironmentName())).append('/')
+                .append(objectName.toLowerCase(Locale.getDefault())).toString();
+    }
+
+    /**
+     * Build the key under which the compilation of the wrapper of an include file is cached. The include file is
+     * identified by its location relative to the source root, so that includes of the same name in different
+     * directories are kept apart while the cache remains valid if the source tree is moved.
+     *
+     * @param include
+     *            A {@link File} representing the include file.
+     * @return The cache key.
+     */
+    public String getIncludeKey(final File include) {
+        final Path location = include.getAbsoluteFile().toPath().normalize();
+        final Path root = sourceRoot.toPath().normalize();
+        final String path = location.startsWith(root) ? root.relativize(location).toString() : location.toString();
+        return getKey("include:" + path.replace(File.separatorChar, '/'));
+    }
+
+    /**
+     * Compute the fingerprint of a compilation.
+     *
+     * @param source
+     *            A {@link File} representing the source being compiled.
+     * @param dependencies
+     *            A {@link Collection} of {@link File} objects representing the declared dependencies of the source.
+     * @param debugCompile
+     *            Whether the source is compiled in debug mode.
+     * @return The hex-encoded fingerprint; {@code null} if the compilation cannot be fingerprinted because the source
+     *         includes a file that cannot be found locally.
+     */
+    public String fingerprint(final File source, final Collection<File> dependencies, final boolean debugCompile) {
+        final Set<File> searchDirectories = new LinkedHashSet<File>();
+        searchDirectories.add(source.getAbsoluteFile().getParentFile());
+        for (final File dependency : dependencies)
+            searchDirectories.add(dependency.getAbsoluteFile().getParentFile());
+
+        final List<File> sources = new ArrayList<File>();
+        sources.add(source);
+        sources.addAll(dependencies);
+
+        final MessageDigest digest = DigestUtils.createSha256();
+        digest.update(("debug=" + debugCompile + SEPARATOR + "cclsource="
+                + StringUtils.defaultString(Environment.getCclSourceSetting())).getBytes(StandardCharsets.UTF_8));
+        try {
+            final Set<File> files = new IncludeResolver(searchDirectories).resolve(sources);
+            if (files == null) {
+                logger.debug("The includes of {} cannot all be resolved; it will be compiled.", source.getName());
+                return null;
+            }
+
+            for (final File file : files) {
+                digest.update((SEPARATOR + file.getName() + SEPARATOR).getBytes(StandardCharsets.UTF_8));
+                DigestUtils.update(digest, file);
+            }
+        } catch (final IOException e) {
+            logger.debug("Failed to read " + source + " or a file it uses; it will be compiled.", e);
+            return null;
+        }
+        return DigestUtils.toHex(digest);
+    }
+
+    /**
+     * Determine whether a compilation with the given fingerprint has been recorded.
+     *
+     * @param key
+     *            The key of the compilation, as built by {@link #getKey(String)}.
+     * @param fingerprint
+     *            The fingerprint of the compilation.
+     * @return {@code true} if the compilation was recorded with the same fingerprint; {@code false} otherwise.
+     */
+    public synchronized boolean isRecorded(final String key, final String fingerprint) {
+        final String[] entry = getEntry(key);
+        return entry != null && fingerprint != null && entry[0].equals(fingerprint);
+    }
+
+    /**
+     * Get the timestamp recorded for the object produced by a compilation.
+     *
+     * @param key
+     *            The key of the compilation, as built by {@link #getKey(String)}.
+     * @return The recorded timestamp; {@code null} if none was recorded.
+     */
+    public synchronized String getTimestamp(final String key) {
+        final String[] entry = getEntry(key);
+        return entry == null || entry[1].isEmpty() ? null : entry[1];
+    }
+
+    /**
+     * Record a successful compilation and write the cache to its file.
+     *
+     * @param key
+     *            The key of the compilation, as built by {@link #getKey(String)}.
+     * @param fingerprint
+     *            The fingerprint of the compilation.
+     * @param timestamp
+     *            The timestamp of the object produced by the compilation; {@code null} if it leaves no object behind.
+     */
+    public synchronized void record(final String key, final String fingerprint, final String timestamp) {
+        final String value = fingerprint + SEPARATOR + (timestamp == null ? "" : timestamp);
+        entries.setProperty(key, value);
+        store(key, value);
+    }
+
+    /**
+     * Forget a compilation and write the cache to its file.
+     *
+     * @param key
+     *            The key of the compilation, as built by {@link #getKey(String)}.
+     */
+    public synchronized void remove(final String key) {
+        entries.remove(key);
+        store(key, null);
+    }
+
+    /**
+     * Get the parsed entry for a compilation.
+     *
+     * @param key
+     *            The key of the compilation.
+     * @return A two-element array of the fingerprint and timestamp; {@code null} if there is no well-formed entry.
+     */
+    private String[] getEntry(final String key) {
+        final String value = entries.getProperty(key);
+        if (value == null)
+            return null;
+
+        final String[] fields = value.split(String.valueOf(SEPARATOR), -1);
+        return fields.length == 2 ? fields : null;
+    }
+
+    /**
+     * Read the cache file, if it exists.
+     *
+     * @return The {@link Properties} read from the file; empty if the file does not exist or cannot be read.
+     */
+    private Properties load() {
+        try {
+            return PropertiesUtils.load(file);
+        } catch (final IOException e) {
+            logger.warn("Failed to read compile cache " + file + "; ignoring it.", e);
+            return new Properties();
+        }
+    }
+
+    /**
+     * Merge a change to an entry into the cache file, leaving the other entries in the file as they are.
+     *
+     * @param key
+     *            The key of the entry.
+     * @param value
+     *            The new value of the entry; {@code null} if it is to be removed.
+     */
+    private void store(final String key, final String value) {
+        synchronized (STORE_LOCK) {
+            final Properties stored = load();
+            if (value == null) {
+                if (stored.remove(key) == null)
+                    return;
+            } else {
+                stored.setProperty(key, value);
+            }
+
+            try {
+                PropertiesUtils.store(file, stored, "j4ccl compile cache");
+            } catch (final IOException e) {
+                logger.warn("Failed to write compile cache " + file + ".", e);
+            }
+        }
+    }
+}
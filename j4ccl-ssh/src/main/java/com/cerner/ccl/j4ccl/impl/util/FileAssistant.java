@@ -4,7 +4,9 @@ import java.io.File;
 import java.net.URI;
 import java.util.Locale;
 
+import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.impl.data.Environment;
+import com.cerner.ftp.Downloader;
 
 /**
  * A utility class to assist in using of files.
@@ -73,6 +75,18 @@ public final class FileAssistant {
         return URI.create(path + "/" + fileName);
     }
 
+    /**
+     * Get the size at which files downloaded from the remote server are to be compressed before being transferred, as
+     * given by the {@link TerminalProperties} of the current thread.
+     *
+     * @return The threshold to be given to {@link Downloader#setCompressionThreshold(long)}; negative if no files are
+     *         to be compressed.
+     */
+    public static long getDownloadCompressionThreshold() {
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        return terminalProperties == null ? -1 : terminalProperties.getDownloadCompressionThreshold();
+    }
+
     /**
      * Determine the remote directory into which the file should be uploaded.
      *
@@ -0,0 +1,115 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the files pulled into CCL sources through {@code %i cclsource:} directives to local files, so that the
+ * sources can be fingerprinted together with everything they include. <br>
+ * An include is sought by its name, in lower case, in each of the search directories in turn. An include that is not in
+ * cclsource or that cannot be found locally cannot be resolved.
+ */
+
+public class IncludeResolver {
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("^\\s*%i(?:nclude)?\\s+(\\S+)",
+            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+    private static final String CCLSOURCE_PREFIX = "cclsource:";
+
+    private final Logger logger = LoggerFactory.getLogger(IncludeResolver.class);
+    private final Collection<File> searchDirectories;
+
+    /**
+     * Create a resolver.
+     *
+     * @param searchDirectories
+     *            A {@link Collection} of the directories in which included files are sought, in order.
+     * @throws NullPointerException
+     *             If the given collection is {@code null}.
+     */
+    public IncludeResolver(final Collection<File> searchDirectories) {
+        if (searchDirectories == null)
+            throw new NullPointerException("Search directories cannot be null.");
+
+        this.searchDirectories = new ArrayList<File>(searchDirectories);
+    }
+
+    /**
+     * Find the given sources and every file they include, directly or through other includes.
+     *
+     * @param sources
+     *            A {@link Collection} of the source {@link File} objects to be scanned.
+     * @return A {@link SortedSet} of the absolute locations of the sources and their includes; {@code null} if any
+     *         include cannot be resolved.
+     * @throws IOException
+     *             If a source or include cannot be read.
+     */
+    public SortedSet<File> resolve(final Collection<File> sources) throws IOException {
+        final SortedSet<File> files = new TreeSet<File>();
+        for (final File source : sources)
+            files.add(source.getAbsoluteFile());
+
+        final List<File> pending = new ArrayList<File>(files);
+        while (!pending.isEmpty()) {
+            final List<File> includes = findIncludes(pending.remove(pending.size() - 1));
+            if (includes == null)
+                return null;
+            for (final File include : includes)
+                if (files.add(include))
+                    pending.add(include);
+        }
+        return files;
+    }
+
+    /**
+     * Find the files pulled directly into a source through {@code %i cclsource:} directives.
+     *
+     * @param source
+     *            The source {@link File} to be scanned.
+     * @return A {@link List} of the absolute locations of the included files; {@code null} if any of them cannot be
+     *         resolved.
+     * @throws IOException
+     *             If the source cannot be read.
+     */
+    public List<File> findIncludes(final File source) throws IOException {
+        final String sourceCode = FileUtils.readFileToString(source, StandardCharsets.UTF_8);
+        final List<File> includes = new ArrayList<File>();
+        final Matcher matcher = INCLUDE_PATTERN.matcher(sourceCode);
+        while (matcher.find()) {
+            final String target = matcher.group(1);
+            if (!target.toLowerCase(Locale.getDefault()).startsWith(CCLSOURCE_PREFIX)) {
+                logger.debug("{} includes {}, which is not in cclsource.", source.getName(), target);
+                return null;
+            }
+
+            final String name = target.substring(CCLSOURCE_PREFIX.length()).toLowerCase(Locale.getDefault());
+            File found = null;
+            for (final File directory : searchDirectories) {
+                final File candidate = new File(directory, name);
+                if (candidate.isFile()) {
+                    found = candidate.getAbsoluteFile();
+                    break;
+                }
+            }
+
+            if (found == null) {
+                logger.debug("{} includes {}, which cannot be found locally.", source.getName(), name);
+                return null;
+            }
+            includes.add(found);
+        }
+        return includes;
+    }
+}
@@ -4,6 +4,7 @@ import java.io.OutputStream;
 
 import com.cerner.ccl.j4ccl.CclExecutor;
 import com.cerner.ccl.j4ccl.enums.OutputType;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 
 /**
  * A bean to hold the user-set {@link CclExecutor#setOutputStream(OutputStream, OutputType) output stream
@@ -15,6 +16,7 @@ import com.cerner.ccl.j4ccl.enums.OutputType;
 
 public class OutputStreamConfiguration {
     private final OutputStream outputStream;
+    private final LineConsumer lineConsumer;
     private final OutputType outputType;
 
     /**
@@ -33,18 +35,48 @@ public class OutputStreamConfiguration {
             throw new NullPointerException("Output type cannot be null.");
 
         this.outputStream = outputStream;
+        this.lineConsumer = null;
+        this.outputType = outputType;
+    }
+
+    /**
+     * Create a configuration that gives the output to a consumer a line at a time.
+     *
+     * @param lineConsumer
+     *            The user-set {@link LineConsumer}.
+     * @param outputType
+     *            The {@link OutputType} enum representing the user-specified output type to be consumed.
+     */
+    public OutputStreamConfiguration(final LineConsumer lineConsumer, final OutputType outputType) {
+        if (lineConsumer == null)
+            throw new NullPointerException("Line consumer cannot be null.");
+
+        if (outputType == null)
+            throw new NullPointerException("Output type cannot be null.");
+
+        this.outputStream = null;
+        this.lineConsumer = lineConsumer;
         this.outputType = outputType;
     }
 
     /**
      * Get the output stream.
      *
-     * @return The output stream.
+     * @return The output stream; {@code null} if this configuration was created with only a line consumer.
      */
     public OutputStream getOutputStream() {
         return outputStream;
     }
 
+    /**
+     * Get the line consumer.
+     *
+     * @return The line consumer; {@code null} if the output is only to be written to the output stream.
+     */
+    public LineConsumer getLineConsumer() {
+        return lineConsumer;
+    }
+
     /**
      * Get the output type.
      *
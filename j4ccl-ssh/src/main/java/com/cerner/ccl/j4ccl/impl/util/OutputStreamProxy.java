@@ -33,6 +33,11 @@ public class OutputStreamProxy extends OutputStream {
         getProxied().write(b);
     }
 
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        getProxied().write(b, off, len);
+    }
+
     /**
      * Get the proxied output stream.
      *
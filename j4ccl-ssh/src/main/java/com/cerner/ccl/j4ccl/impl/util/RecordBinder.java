@@ -0,0 +1,325 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.cerner.ccl.j4ccl.record.DataType;
+import com.cerner.ccl.j4ccl.record.DynamicRecordList;
+import com.cerner.ccl.j4ccl.record.Field;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.record.RecordList;
+import com.cerner.ccl.j4ccl.record.Structure;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * A utility that binds the JSON written by CCL's {@code echojson} directly into {@link Record} objects as it is read,
+ * without first building a tree of the whole document. <br>
+ * The fields of each {@link Structure} are resolved once into a binding plan - the position, name and {@link DataType}
+ * of each field, along with the plan of any nested structure - which is then reused for every record and list item of
+ * that structure. Members of the JSON that are not fields of the structure are skipped.
+ */
+
+public final class RecordBinder {
+    private static final Map<Structure, StructurePlan> PLANS = Collections
+            .synchronizedMap(new WeakHashMap<Structure, StructurePlan>());
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RecordBinder() {
+    }
+
+    /**
+     * Bind a JSON document holding a record structure into a {@link Record} object.
+     *
+     * @param reader
+     *            A {@link Reader} of the JSON document.
+     * @param record
+     *            A {@link Record} object into which the values are to be stored.
+     * @throws IOException
+     *             If the document cannot be read or is not well-formed.
+     * @throws IllegalArgumentException
+     *             If the given record structure is not in the document.
+     */
+    public static void bind(final Reader reader, final Record record) throws IOException {
+        final JsonReader jsonReader = createReader(reader);
+        bindNext(jsonReader, record);
+    }
+
+    /**
+     * Create a {@link JsonReader} that accepts several JSON documents one after another, as written by consecutive
+     * calls to {@code echojson} that append to the same file.
+     *
+     * @param reader
+     *            A {@link Reader} of the JSON documents.
+     * @return A {@link JsonReader}.
+     */
+    public static JsonReader createReader(final Reader reader) {
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        return jsonReader;
+    }
+
+    /**
+     * Bind the next JSON document read from the given reader into a {@link Record} object.
+     *
+     * @param reader
+     *            A {@link JsonReader} positioned before the document.
+     * @param record
+     *            A {@link Record} object into which the values are to be stored.
+     * @throws IOException
+     *             If the document cannot be read or is not well-formed.
+     * @throws IllegalArgumentException
+     *             If the given record structure is not in the document.
+     */
+    public static void bindNext(final JsonReader reader, final Record record) throws IOException {
+        // JSON data from CCL is presumed to be all upper-case
+        final String recordNameUpper = record.getName().toUpperCase(Locale.getDefault());
+        boolean found = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (!found && recordNameUpper.equals(name)) {
+                bindObject(reader, getPlan(record.getStructure()), record);
+                found = true;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!found)
+            throw new IllegalArgumentException("JSON does not contain record " + recordNameUpper);
+    }
+
+    /**
+     * Get the binding plan of a structure, computing it on first use.
+     *
+     * @param structure
+     *            The {@link Structure} whose plan is to be retrieved.
+     * @return A {@link StructurePlan}.
+     */
+    static StructurePlan getPlan(final Structure structure) {
+        StructurePlan plan = PLANS.get(structure);
+        if (plan == null) {
+            plan = new StructurePlan(structure);
+            PLANS.put(structure, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Bind a JSON object into a record.
+     *
+     * @param reader
+     *            A {@link JsonReader} positioned before the object.
+     * @param plan
+     *            The {@link StructurePlan} of the record's structure.
+     * @param record
+     *            The {@link Record} into which the values are to be stored.
+     * @throws IOException
+     *             If the object cannot be read.
+     * @throws NoSuchFieldError
+     *             If a field of the record is not in the object.
+     */
+    private static void bindObject(final JsonReader reader, final StructurePlan plan, final Record record)
+            throws IOException {
+        final boolean[] bound = new boolean[plan.fields.length];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final FieldPlan field = plan.fieldsByName.get(reader.nextName());
+            if (field == null) {
+                reader.skipValue();
+                continue;
+            }
+
+            bindField(reader, field, record);
+            bound[field.index] = true;
+        }
+        reader.endObject();
+
+        for (final FieldPlan field : plan.fields)
+            if (!bound[field.index])
+                throw new NoSuchFieldError("Expected field " + field.name + ", but did not exist in JSON object.");
+    }
+
+    /**
+     * Bind a JSON value into a field of a record.
+     *
+     * @param reader
+     *            A {@link JsonReader} positioned before the value.
+     * @param field
+     *            The {@link FieldPlan} of the field.
+     * @param record
+     *            The {@link Record} into which the value is to be stored.
+     * @throws IOException
+     *             If the value cannot be read.
+     */
+    private static void bindField(final JsonReader reader, final FieldPlan field, final Record record)
+            throws IOException {
+        switch (field.type) {
+        case VC:
+            record.setVC(field.name, reader.nextString());
+            break;
+        case CHARACTER:
+            record.setChar(field.name, reader.nextString());
+            break;
+        case F8:
+            record.setF8(field.name, reader.nextDouble());
+            break;
+        case I4:
+            record.setI4(field.name, reader.nextInt());
+            break;
+        case I2:
+            record.setI2(field.name, (short) reader.nextInt());
+            break;
+        case DQ8:
+            record.setDQ8(field.name, RecordWriter.parseJsonDate(reader.nextString()));
+            break;
+        case RECORD:
+            bindObject(reader, field.nested, record.getRecord(field.name));
+            break;
+        case LIST:
+            bindFixedList(reader, field, record.getList(field.name));
+            break;
+        case DYNAMIC_LIST:
+            bindDynamicList(reader, field, record.getDynamicList(field.name));
+            break;
+        default:
+            throw new IllegalArgumentException("Unrecognized data type: " + field.type);
+        }
+    }
+
+    /**
+     * Bind a JSON array - or, for a list of one element, a JSON object - into a fixed-length list.
+     *
+     * @param reader
+     *            A {@link JsonReader} positioned before the array or object.
+     * @param field
+     *            The {@link FieldPlan} of the list.
+     * @param recordList
+     *            The {@link RecordList} into which the values are to be stored.
+     * @throws IOException
+     *             If the array or object cannot be read.
+     * @throws ArrayIndexOutOfBoundsException
+     *             If the number of elements in the JSON does not match the size of the list.
+     */
+    private static void bindFixedList(final JsonReader reader, final FieldPlan field, final RecordList recordList)
+            throws IOException {
+        final int listSize = recordList.getSize();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            if (listSize != 1)
+                throw new ArrayIndexOutOfBoundsException(
+                        "Expected one element in shallow list " + field.name + "; found " + Integer.toString(listSize));
+
+            bindObject(reader, field.nested, recordList.get(0));
+            return;
+        }
+
+        int elementCount = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (elementCount >= listSize)
+                throw new ArrayIndexOutOfBoundsException(String
+                        .format("Fixed-length list %s has %d elements, but JSON has more.", field.name, listSize));
+            bindObject(reader, field.nested, recordList.get(elementCount++));
+        }
+        reader.endArray();
+
+        if (elementCount != listSize)
+            throw new ArrayIndexOutOfBoundsException(String.format(
+                    "Fixed-length list %s has %d elements, but JSON has %d.", field.name, listSize, elementCount));
+    }
+
+    /**
+     * Bind a JSON array into a variable-length list, adding items to the list as needed.
+     *
+     * @param reader
+     *            A {@link JsonReader} positioned before the array.
+     * @param field
+     *            The {@link FieldPlan} of the list.
+     * @param recordList
+     *            The {@link DynamicRecordList} into which the values are to be stored.
+     * @throws IOException
+     *             If the array cannot be read.
+     */
+    private static void bindDynamicList(final JsonReader reader, final FieldPlan field,
+            final DynamicRecordList recordList) throws IOException {
+        final int existingSize = recordList.getSize();
+        int listIndex = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            /*
+             * Add a record if the size of the array exceeds the size of the list; otherwise, use an existing record
+             */
+            bindObject(reader, field.nested,
+                    listIndex < existingSize ? recordList.get(listIndex) : recordList.addItem());
+            listIndex++;
+        }
+        reader.endArray();
+    }
+
+    /**
+     * The binding plan of a {@link Structure}.
+     */
+    static final class StructurePlan {
+        private final FieldPlan[] fields;
+        private final Map<String, FieldPlan> fieldsByName;
+
+        /**
+         * Create the plan of a structure, along with the plans of its nested structures.
+         *
+         * @param structure
+         *            The {@link Structure} to be planned.
+         */
+        StructurePlan(final Structure structure) {
+            final List<Field> structureFields = structure.getFields();
+            fields = new FieldPlan[structureFields.size()];
+            fieldsByName = new HashMap<String, FieldPlan>(structureFields.size() * 2);
+            for (int i = 0; i < fields.length; i++) {
+                final Field field = structureFields.get(i);
+                final DataType type = field.getType();
+                fields[i] = new FieldPlan(i, field.getName().toUpperCase(Locale.getDefault()), type,
+                        type.isComplexType() ? getPlan(field.getStructure()) : null);
+                fieldsByName.put(fields[i].name, fields[i]);
+            }
+        }
+    }
+
+    /**
+     * The binding plan of a single {@link Field}.
+     */
+    private static final class FieldPlan {
+        private final int index;
+        private final String name;
+        private final DataType type;
+        private final StructurePlan nested;
+
+        /**
+         * Create a field plan.
+         *
+         * @param index
+         *            The position of the field within its structure.
+         * @param name
+         *            The upper-case name of the field.
+         * @param type
+         *            The {@link DataType} of the field.
+         * @param nested
+         *            The {@link StructurePlan} of the field's structure, if the field is a record or list; otherwise,
+         *            {@code null}.
+         */
+        FieldPlan(final int index, final String name, final DataType type, final StructurePlan nested) {
+            this.index = index;
+            this.name = name;
+            this.type = type;
+            this.nested = nested;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.DateTimeFormatterBuilder;
+
+import com.cerner.ccl.j4ccl.record.Field;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.record.RecordList;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A utility to write the values of a {@link Record} object as JSON in the form produced by CCL's {@code echojson}, so
+ * that CCL can populate a record structure from it with {@code cnvtjsontorec}. <br>
+ * Every field is written, including those holding their default values, and every list is written as an array. The JSON
+ * is broken across lines so that no line is longer than CCL can read; lines are only broken between two characters that
+ * are not whitespace, so that the document is restored by joining its lines without separators.
+ */
+
+public final class RecordJsonWriter {
+    /**
+     * The length after which a line of JSON is broken.
+     */
+    static final int LINE_LENGTH = 1000;
+    private static final String ZERO_DATE = "0000-00-00T00:00:00.000+00:00";
+    private static final DateTimeFormatter formatter;
+
+    static {
+        final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        builder.appendYear(4, 4).appendLiteral('-').appendMonthOfYear(2).appendLiteral('-').appendDayOfMonth(2)
+                .appendLiteral('T').appendHourOfDay(2).appendLiteral(':').appendMinuteOfHour(2).appendLiteral(':')
+                .appendSecondOfMinute(2).appendLiteral('.').appendMillisOfSecond(3)
+                .appendTimeZoneOffset(null, true, 2, 2);
+        formatter = builder.toFormatter().withZone(DateTimeZone.UTC);
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RecordJsonWriter() {
+    }
+
+    /**
+     * Write a record as JSON.
+     *
+     * @param record
+     *            The {@link Record} to be written.
+     * @param writer
+     *            The {@link Writer} to which the JSON is to be written. It is flushed, but not closed.
+     * @throws IOException
+     *             If the JSON cannot be written.
+     */
+    public static void write(final Record record, final Writer writer) throws IOException {
+        final JsonWriter jsonWriter = new JsonWriter(new LineBreakingWriter(writer, LINE_LENGTH));
+        jsonWriter.setHtmlSafe(false);
+        jsonWriter.beginObject();
+        jsonWriter.name(record.getName().toUpperCase(Locale.getDefault()));
+        writeRecord(jsonWriter, record);
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    /**
+     * Write the fields of a record as a JSON object.
+     *
+     * @param writer
+     *            The {@link JsonWriter} to which the object is to be written.
+     * @param record
+     *            The {@link Record} to be written.
+     * @throws IOException
+     *             If the object cannot be written.
+     */
+    private static void writeRecord(final JsonWriter writer, final Record record) throws IOException {
+        writer.beginObject();
+        for (final Field field : record.getStructure().getFields()) {
+            final String fieldName = field.getName();
+            writer.name(fieldName.toUpperCase(Locale.getDefault()));
+            switch (field.getType()) {
+            case VC:
+                writer.value(StringUtils.defaultString(record.getVC(fieldName)));
+                break;
+            case CHARACTER:
+                writer.value(StringUtils.defaultString(record.getChar(fieldName)));
+                break;
+            case F8:
+                writer.value(record.getF8(fieldName));
+                break;
+            case I4:
+                writer.value(record.getI4(fieldName));
+                break;
+            case I2:
+                writer.value(record.getI2(fieldName));
+                break;
+            case DQ8:
+                writer.value(formatDate(record.getDQ8(fieldName)));
+                break;
+            case RECORD:
+                writeRecord(writer, record.getRecord(fieldName));
+                break;
+            case LIST:
+                writeList(writer, record.getList(fieldName));
+                break;
+            case DYNAMIC_LIST:
+                writeList(writer, record.getDynamicList(fieldName));
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized data type: " + field.getType());
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Write the items of a list as a JSON array.
+     *
+     * @param writer
+     *            The {@link JsonWriter} to which the array is to be written.
+     * @param list
+     *            The {@link RecordList} to be written.
+     * @throws IOException
+     *             If the array cannot be written.
+     */
+    private static void writeList(final JsonWriter writer, final RecordList list) throws IOException {
+        writer.beginArray();
+        for (final Record item : list)
+            writeRecord(writer, item);
+        writer.endArray();
+    }
+
+    /**
+     * Format a date the way that CCL writes it into JSON.
+     *
+     * @param date
+     *            The {@link Date} to be formatted; may be {@code null}.
+     * @return The date, such as {@code /Date(2010-01-01T00:00:00.000+00:00)/}.
+     */
+    static String formatDate(final Date date) {
+        return "/Date(" + (date == null ? ZERO_DATE : formatter.print(date.getTime())) + ")/";
+    }
+
+    /**
+     * A {@link Writer} that breaks its output into lines no longer than a given length where it can do so between two
+     * characters that are not whitespace.
+     */
+    private static final class LineBreakingWriter extends Writer {
+        private final Writer writer;
+        private final int lineLength;
+        private int column;
+        private char previous = ' ';
+
+        /**
+         * Create a writer.
+         *
+         * @param writer
+         *            The {@link Writer} to which the output is to be written.
+         * @param lineLength
+         *            The length after which lines are to be broken.
+         */
+        LineBreakingWriter(final Writer writer, final int lineLength) {
+            this.writer = writer;
+            this.lineLength = lineLength;
+        }
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                final char c = buffer[i];
+                if (column >= lineLength && !Character.isWhitespace(c) && !Character.isWhitespace(previous)) {
+                    writer.write('\n');
+                    column = 0;
+                }
+                writer.write(c);
+                previous = c;
+                column++;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
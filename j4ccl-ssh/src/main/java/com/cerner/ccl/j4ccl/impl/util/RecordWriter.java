@@ -1,5 +1,6 @@
 package com.cerner.ccl.j4ccl.impl.util;
 
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.regex.Pattern;
@@ -15,7 +16,9 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
- * A utility to put values from an external source into a {@link Record} object.
+ * A utility to put values from an external source into a {@link Record} object. <br>
+ * {@link RecordBinder} binds JSON into a record as it is read, without building a tree of the whole document, and
+ * should be preferred for large documents.
  *
  * @author Joshua Hyde
  *
@@ -185,16 +188,7 @@ public class RecordWriter {
             record.setI2(fieldName, jsonElement.getAsShort());
             break;
         case DQ8:
-            String dateStringValue = jsonElement.getAsString();
-            if (!jsonDatePattern.matcher(dateStringValue).matches())
-                throw new RuntimeException(
-                        "Date value " + dateStringValue + " does not match pattern " + jsonDatePattern.toString());
-
-            dateStringValue = dateStringValue.substring(6, dateStringValue.length() - 2);
-            if (dateStringValue.equals("0000-00-00T00:00:00.000+00:00"))
-                record.setDQ8(fieldName, null);
-            else
-                record.setDQ8(fieldName, CclUtils.convertTimestamp(dateStringValue));
+            record.setDQ8(fieldName, parseJsonDate(jsonElement.getAsString()));
             return;
         case CHARACTER:
             record.setChar(fieldName, jsonElement.getAsString());
@@ -204,6 +198,27 @@ public class RecordWriter {
         }
     }
 
+    /**
+     * Convert a date written by CCL into JSON, such as {@code /Date(2010-01-01T00:00:00.000+00:00)/}, into a
+     * {@link Date}.
+     *
+     * @param dateStringValue
+     *            The date as it appears in the JSON.
+     * @return A {@link Date}; {@code null} if the JSON holds the zero date.
+     * @throws RuntimeException
+     *             If the value does not match the expected pattern.
+     */
+    static Date parseJsonDate(final String dateStringValue) {
+        if (!jsonDatePattern.matcher(dateStringValue).matches())
+            throw new RuntimeException(
+                    "Date value " + dateStringValue + " does not match pattern " + jsonDatePattern.toString());
+
+        final String timestamp = dateStringValue.substring(6, dateStringValue.length() - 2);
+        if (timestamp.equals("0000-00-00T00:00:00.000+00:00"))
+            return null;
+        return CclUtils.convertTimestamp(timestamp);
+    }
+
     /**
      * Populate a variable-length list with data from a list of JSON data objects.
      *
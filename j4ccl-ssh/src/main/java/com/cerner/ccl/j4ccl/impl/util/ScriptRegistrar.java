@@ -1,5 +1,6 @@
 package com.cerner.ccl.j4ccl.impl.util;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
@@ -15,8 +16,8 @@ import com.cerner.ccl.j4ccl.adders.DynamicCompilerAdder;
  */
 
 public class ScriptRegistrar {
-    private static final Set<String> dynamicScripts = new HashSet<String>();
-    private static final Set<String> compiledScripts = new HashSet<String>();
+    private static final Set<String> dynamicScripts = Collections.synchronizedSet(new HashSet<String>());
+    private static final Set<String> compiledScripts = Collections.synchronizedSet(new HashSet<String>());
 
     /**
      * Mark a script as either compiled or set to be compiled.
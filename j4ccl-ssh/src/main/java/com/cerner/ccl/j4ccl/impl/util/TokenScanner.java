@@ -0,0 +1,126 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * An Aho-Corasick automaton that finds any of a small set of tokens in a stream of bytes, one byte at a time and
+ * without backtracking. The automaton is fully expanded so that each byte costs a single table lookup.
+ */
+
+public class TokenScanner {
+    private static final int ALPHABET_SIZE = 256;
+
+    private final int[][] transitions;
+    private final int[] matches;
+
+    /**
+     * Create a scanner.
+     *
+     * @param tokens
+     *            The tokens to be found. Each is encoded as UTF-8. The token at index {@code i} is reported by bit
+     *            {@code 1 << i} of {@link #getMatches(int)}.
+     * @throws IllegalArgumentException
+     *             If no tokens, more than 32 tokens or an empty token are given.
+     * @throws NullPointerException
+     *             If any of the given tokens is {@code null}.
+     */
+    public TokenScanner(final String... tokens) {
+        if (tokens.length == 0 || tokens.length > Integer.SIZE)
+            throw new IllegalArgumentException("Between 1 and " + Integer.SIZE + " tokens must be given.");
+
+        final List<int[]> trie = new ArrayList<int[]>();
+        final List<Integer> outputs = new ArrayList<Integer>();
+        trie.add(newState());
+        outputs.add(0);
+        for (int index = 0; index < tokens.length; index++) {
+            if (tokens[index] == null)
+                throw new NullPointerException("Token cannot be null.");
+            if (tokens[index].isEmpty())
+                throw new IllegalArgumentException("Token cannot be empty.");
+
+            int state = 0;
+            for (final byte b : tokens[index].getBytes(StandardCharsets.UTF_8)) {
+                if (trie.get(state)[b & 0xFF] < 0) {
+                    trie.get(state)[b & 0xFF] = trie.size();
+                    trie.add(newState());
+                    outputs.add(0);
+                }
+                state = trie.get(state)[b & 0xFF];
+            }
+            outputs.set(state, outputs.get(state) | 1 << index);
+        }
+
+        transitions = trie.toArray(new int[trie.size()][]);
+        matches = new int[transitions.length];
+        for (int state = 0; state < matches.length; state++)
+            matches[state] = outputs.get(state);
+
+        // Breadth-first, replace each missing transition with the transition of the longest proper suffix.
+        final int[] failures = new int[transitions.length];
+        final Queue<Integer> queue = new LinkedList<Integer>();
+        for (int b = 0; b < ALPHABET_SIZE; b++) {
+            if (transitions[0][b] < 0) {
+                transitions[0][b] = 0;
+            } else {
+                queue.add(transitions[0][b]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            matches[state] |= matches[failures[state]];
+            for (int b = 0; b < ALPHABET_SIZE; b++) {
+                final int next = transitions[state][b];
+                if (next < 0) {
+                    transitions[state][b] = transitions[failures[state]][b];
+                } else {
+                    failures[next] = transitions[failures[state]][b];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the state of the scanner before any bytes have been scanned.
+     *
+     * @return The initial state.
+     */
+    public int getInitialState() {
+        return 0;
+    }
+
+    /**
+     * Advance the scanner by one byte.
+     *
+     * @param state
+     *            The current state.
+     * @param b
+     *            The byte to be scanned.
+     * @return The state after the byte has been scanned.
+     */
+    public int next(final int state, final byte b) {
+        return transitions[state][b & 0xFF];
+    }
+
+    /**
+     * Get the tokens that end at the byte most recently scanned.
+     *
+     * @param state
+     *            The current state.
+     * @return A bit mask of the tokens that end in the given state; 0 if none do.
+     */
+    public int getMatches(final int state) {
+        return matches[state];
+    }
+
+    private static int[] newState() {
+        final int[] state = new int[ALPHABET_SIZE];
+        for (int b = 0; b < ALPHABET_SIZE; b++)
+            state[b] = -1;
+        return state;
+    }
+}
@@ -0,0 +1,138 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An {@link OutputStream} that scans the output of command sets piped to CCL by {@link CclCommandTerminal} line by line
+ * as it arrives. Lines bearing the marker echoed before each command set are consumed to track the command set being
+ * executed; the first abort of CCL, display of the results viewer or failure echoed by a command is recorded against
+ * that command set; all other lines are forwarded. Only the line being scanned is held in memory.
+ */
+
+class BatchOutputScanner extends OutputStream {
+    private static final Pattern CCL_VIEWER_REGEX = Pattern.compile(CclCommandTerminal.CCL_VIEWER_PATTERN);
+    private static final Pattern CCL_ABORT_REGEX = Pattern.compile(CclCommandTerminal.CCL_ABORT_PATTERN);
+    private static final Pattern CCL_COMMAND_FAILURE_REGEX = Pattern
+            .compile(CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN);
+    private static final String END = "END";
+
+    private final Pattern markerPattern;
+    private final OutputStream forwardingStream;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private int commandSetIndex = -1;
+    private boolean completed;
+    private String failure;
+
+    /**
+     * Create a scanner.
+     *
+     * @param marker
+     *            The prefix of the markers; the marker of a command set is the prefix followed by the index of the set,
+     *            and the marker that follows the last command set is the prefix followed by {@code END}.
+     * @param forwardingStream
+     *            The {@link OutputStream} to which lines other than markers are to be forwarded; may be {@code null}.
+     */
+    BatchOutputScanner(final String marker, final OutputStream forwardingStream) {
+        this.markerPattern = Pattern.compile(Pattern.quote(marker) + "(\\d+|" + END + ")");
+        this.forwardingStream = forwardingStream;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        line.write(b);
+        if (b == '\n')
+            scanLine();
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int lineStart = off;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                line.write(b, lineStart, i + 1 - lineStart);
+                scanLine();
+                lineStart = i + 1;
+            }
+        }
+        line.write(b, lineStart, end - lineStart);
+    }
+
+    /**
+     * Scan any unterminated output. This leaves the forwarding stream open.
+     */
+    @Override
+    public void close() throws IOException {
+        if (line.size() > 0)
+            scanLine();
+    }
+
+    /**
+     * Get the failure detected in the output.
+     *
+     * @return A description of the first failure detected; {@code null} if none was detected.
+     */
+    String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Determine whether the marker that follows the last command set was echoed before any failure was detected.
+     *
+     * @return {@code true} if all of the command sets were completed; {@code false} otherwise.
+     */
+    boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Get the command set being executed when the failure was detected or, if none was, the last command set whose
+     * marker was echoed.
+     *
+     * @return The index of the command set; -1 if no marker was echoed first.
+     */
+    int getCommandSetIndex() {
+        return commandSetIndex;
+    }
+
+    /**
+     * Scan the buffered line and, unless it bears a marker, forward it.
+     *
+     * @throws IOException
+     *             If the line cannot be forwarded.
+     */
+    private void scanLine() throws IOException {
+        final byte[] bytes = line.toByteArray();
+        line.reset();
+        final String text = new String(bytes, "UTF-8");
+
+        final Matcher markerMatcher = markerPattern.matcher(text);
+        if (markerMatcher.find()) {
+            if (failure == null) {
+                if (END.equals(markerMatcher.group(1)))
+                    completed = true;
+                else
+                    commandSetIndex = Integer.parseInt(markerMatcher.group(1));
+            }
+            return;
+        }
+
+        if (failure == null) {
+            if (CCL_ABORT_REGEX.matcher(text).find())
+                failure = "CCL session abort detected";
+            else if (CCL_VIEWER_REGEX.matcher(text).find())
+                failure = "select without 'nl:' detected";
+            else {
+                final Matcher failureMatcher = CCL_COMMAND_FAILURE_REGEX.matcher(text);
+                if (failureMatcher.find())
+                    failure = "CCL command failure detected: " + failureMatcher.group().trim();
+            }
+        }
+        if (forwardingStream != null)
+            forwardingStream.write(bytes);
+    }
+}
@@ -1,8 +1,12 @@
 package com.cerner.ccl.j4ccl.ssh;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.enums.OutputType;
@@ -13,7 +17,10 @@ import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
 import com.cerner.ccl.j4ccl.impl.util.CclOutputStreamProxy;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamConfiguration;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamProxy;
+import com.cerner.ccl.j4ccl.ssh.exception.SshCommandSetException;
 import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+import com.cerner.ccl.j4ccl.util.LineConsumerOutputStream;
 import com.google.code.jetm.reporting.ext.PointFactory;
 
 import etm.core.monitor.EtmPoint;
@@ -46,6 +53,7 @@ public class CclCommandTerminal {
     static final String CCL_OUTPUT_END_COMMAND = "reset ;" + OUTPUT_END;
 
     private static final String CCL_WIDTH_COMMAND = "set width 132 go";
+    private static final String BATCH_MARKER_PREFIX = "J4CCL_BATCH_";
 
     /**
      * A regex for the header row in CCL's results viewer.
@@ -55,9 +63,15 @@ public class CclCommandTerminal {
      * A regex for the string that is output when CCL aborts.
      */
     public static final String CCL_ABORT_PATTERN = "(?:Segmentation fault|Aborted) \\(core dumped\\)";
+    /**
+     * A regex for the line echoed by a command that has detected its own failure, such as a record structure that could
+     * not be populated. The echoing command is built by {@link #getFailureCommand(String, String)}.
+     */
+    public static final String CCL_COMMAND_FAILURE_PATTERN = "J4CCL_COMMAND_FAILED: [^\\r\\n]*[\\r\\n]";
     private final OutputStreamConfiguration streamConfiguration;
     private final TerminalProperties terminalProperties;
     private final String environmentName;
+    private final CclSession session;
 
     /**
      * Create a CCL command proxy out of the given configuration.
@@ -69,6 +83,24 @@ public class CclCommandTerminal {
      */
     public CclCommandTerminal(final TerminalProperties terminalProperties,
             final OutputStreamConfiguration streamConfiguration) {
+        this(terminalProperties, streamConfiguration, null);
+    }
+
+    /**
+     * Create a CCL command proxy that issues its commands within an already open CCL session. The
+     * {@link JSchSshTerminal} given to the execution methods is ignored in favor of the terminal of the session, and
+     * neither the login nor the exit from CCL is performed.
+     *
+     * @param terminalProperties
+     *            The TerminalProperties to apply to this terminal.
+     * @param streamConfiguration
+     *            The configured location to which output should be written.
+     * @param session
+     *            The open {@link CclSession} in which commands are to be executed; if {@code null}, each execution
+     *            launches its own CCL session.
+     */
+    public CclCommandTerminal(final TerminalProperties terminalProperties,
+            final OutputStreamConfiguration streamConfiguration, final CclSession session) {
         if (terminalProperties == null) {
             throw new IllegalArgumentException("terminalProperties cannot be null");
         }
@@ -76,6 +108,7 @@ public class CclCommandTerminal {
         this.environmentName = principal.getEnvironmentName();
         this.streamConfiguration = streamConfiguration;
         this.terminalProperties = terminalProperties;
+        this.session = session;
     }
 
     /**
@@ -89,47 +122,401 @@ public class CclCommandTerminal {
      * @param authenticate
      *            A boolean flag indicating whether or not to authenticate the CCL session
      * @throws SshException
-     *             If any errors occur during sessionCommandsthe execution of the commands.
+     *             If any errors occur during the execution of the commands.
      */
     public void executeCommands(final JSchSshTerminal terminal, final List<String> commands, final boolean authenticate)
             throws SshException {
+        executeCommands(terminal, commands, authenticate, true);
+    }
+
+    /**
+     * Launches a CCL session, authenticated if authentication is specified, executes a provided list of CCL commands
+     * and exits the CCL session. If the commands need neither authentication nor interaction with CCL and the terminal
+     * properties ask for {@link TerminalProperties#getBatchExecution() batch execution}, the commands are piped to a
+     * non-interactive CCL process instead.
+     *
+     * @param terminal
+     *            A {@link JSchSshTerminal} to be used to interact with the remote server.
+     * @param commands
+     *            A {@link Collection} of {@code String} objects representing the commands to be run.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session
+     * @param interactive
+     *            A boolean flag indicating whether or not the commands must be issued at the prompts of an interactive
+     *            CCL session
+     * @throws SshException
+     *             If any errors occur during the execution of the commands.
+     */
+    public void executeCommands(final JSchSshTerminal terminal, final List<String> commands, final boolean authenticate,
+            final boolean interactive) throws SshException {
         final EtmPoint point = PointFactory.getPoint(getClass(), "executeCommands");
         try {
-            final boolean hasStreamConfiguration = streamConfiguration != null;
-            final boolean hasCclOutputStream = hasStreamConfiguration
-                    && OutputType.CCL_SESSION.equals(streamConfiguration.getOutputType());
-            if (hasStreamConfiguration) {
-                terminal.setOutputStream(hasCclOutputStream
-                        ? new CclOutputStreamProxy(streamConfiguration.getOutputStream(), OUTPUT_START, OUTPUT_END)
-                        : new OutputStreamProxy(streamConfiguration.getOutputStream()));
+            executeSessionGroups(terminal, Collections.singletonList(commands), authenticate, interactive);
+        } catch (final SshCommandSetException e) {
+            throw e.getSshCause();
+        } finally {
+            point.collect();
+        }
+    }
+
+    /**
+     * Launches a single CCL session, authenticated if authentication is specified, executes each of the given sets of
+     * CCL commands in order within that session and exits the CCL session.
+     *
+     * @param terminal
+     *            A {@link JSchSshTerminal} to be used to interact with the remote server.
+     * @param commandSets
+     *            A {@link List} of command lists; each list is executed as its own set of commands so that a failure
+     *            can be attributed to the set that caused it.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session
+     * @throws SshCommandSetException
+     *             If the execution of one of the command sets fails or, with an index equal to the number of command
+     *             sets, if CCL cannot be exited after all of them have been executed.
+     * @throws SshException
+     *             If any other errors occur during the execution of the commands.
+     */
+    public void executeCommandSets(final JSchSshTerminal terminal, final List<List<String>> commandSets,
+            final boolean authenticate) throws SshException {
+        executeCommandSets(terminal, commandSets, authenticate, true);
+    }
+
+    /**
+     * Launches a single CCL session, authenticated if authentication is specified, executes each of the given sets of
+     * CCL commands in order within that session and exits the CCL session. If the session need not be authenticated,
+     * none of the command sets needs interaction with CCL and the terminal properties ask for
+     * {@link TerminalProperties#getBatchExecution() batch execution}, the command sets are piped to a non-interactive
+     * CCL process instead.
+     *
+     * @param terminal
+     *            A {@link JSchSshTerminal} to be used to interact with the remote server.
+     * @param commandSets
+     *            A {@link List} of command lists; each list is executed as its own set of commands so that a failure
+     *            can be attributed to the set that caused it.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session
+     * @param interactive
+     *            A boolean flag indicating whether or not any of the command sets must be issued at the prompts of an
+     *            interactive CCL session
+     * @throws SshCommandSetException
+     *             If the execution of one of the command sets fails or, with an index equal to the number of command
+     *             sets, if CCL cannot be exited after all of them have been executed.
+     * @throws SshException
+     *             If any other errors occur during the execution of the commands.
+     */
+    public void executeCommandSets(final JSchSshTerminal terminal, final List<List<String>> commandSets,
+            final boolean authenticate, final boolean interactive) throws SshException {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "executeCommandSets");
+        try {
+            executeSessionGroups(terminal, commandSets, authenticate, interactive);
+        } finally {
+            point.collect();
+        }
+    }
+
+    private void executeSessionGroups(final JSchSshTerminal requestedTerminal, final List<List<String>> commandSets,
+            final boolean authenticate, final boolean interactive) throws SshException {
+        if (!interactive && !authenticate && session == null && terminalProperties.getBatchExecution()) {
+            executeBatch(requestedTerminal, commandSets);
+            return;
+        }
+
+        final JSchSshTerminal terminal = session == null ? requestedTerminal : session.getTerminal();
+        final boolean hasStreamConfiguration = streamConfiguration != null;
+        final boolean hasCclOutputStream = hasStreamConfiguration
+                && OutputType.CCL_SESSION.equals(streamConfiguration.getOutputType());
+        final OutputStream forwardingStream = hasStreamConfiguration ? createForwardingStream(hasCclOutputStream)
+                : null;
+        if (hasStreamConfiguration) {
+            terminal.setOutputStream(forwardingStream);
+        } else if (session != null) {
+            session.resetOutputStream();
+        }
+        terminal.setExpectationTimeout(terminalProperties.getExpectationTimeout());
+        terminal.setCaptureOutput(false);
+
+        final List<CommandExpectationGroup> commandExpectationGroups = session == null ? getLoginGroups(authenticate)
+                : new ArrayList<CommandExpectationGroup>();
+        final int firstSetGroupIndex = commandExpectationGroups.size();
+        for (int setIndex = 0; setIndex < commandSets.size(); setIndex++) {
+            commandExpectationGroups.add(getCclSessionGroup(splitCommands(commandSets.get(setIndex)),
+                    hasCclOutputStream, setIndex == 0, setIndex == commandSets.size() - 1));
+        }
+        if (session == null) {
+            commandExpectationGroups.add(getCclExitGroup());
+        }
+
+        try {
+            terminal.executeCommandGroups(commandExpectationGroups);
+        } catch (final SshException e) {
+            if (session != null) {
+                session.invalidate();
             }
-            terminal.setExpectationTimeout(terminalProperties.getExpectationTimeout());
+            final int setIndex = terminal.getCommandGroupIndex() - firstSetGroupIndex;
+            if (setIndex >= 0) {
+                throw new SshCommandSetException(Math.min(setIndex, commandSets.size()), e);
+            }
+            throw e;
+        } finally {
+            if (forwardingStream != null) {
+                closeForwardingStream(forwardingStream);
+            }
+        }
+    }
 
-            final List<String> nonMergedCommands = new ArrayList<String>();
-            for (String command : commands) {
-                final String splitCommands[] = command.split("\\n");
-                for (int index = 0; index < splitCommands.length; index++) {
-                    nonMergedCommands.add(splitCommands[index]);
-                }
+    /**
+     * Pipe the given command sets, along with the login and exit of CCL, to a CCL process launched on an exec channel.
+     * No prompts are matched; instead, an echoed marker precedes each command set and follows the last one, and the
+     * output is scanned for the markers as it is streamed to the configured output. A failure is attributed to the
+     * command set whose marker was the last to be echoed before CCL aborted, or before CCL exited if the final marker
+     * was never echoed. The session cannot be authenticated, since the credentials are entered at the login prompts of
+     * CCL and a rejected login is only detected by matching the prompt that follows; authenticated sessions are always
+     * interactive. As in an interactive session, where the prompt that follows a statement is awaited without a limit,
+     * CCL is given as long as it needs to run the statements, however long they produce no output.
+     *
+     * @param terminal
+     *            A {@link JSchSshTerminal} to be used to interact with the remote server.
+     * @param commandSets
+     *            A {@link List} of command lists to be executed.
+     * @throws SshCommandSetException
+     *             If the execution of one of the command sets fails.
+     * @throws SshException
+     *             If any other errors occur during the execution of the commands.
+     */
+    private void executeBatch(final JSchSshTerminal terminal, final List<List<String>> commandSets)
+            throws SshException {
+        final boolean hasStreamConfiguration = streamConfiguration != null;
+        final boolean hasCclOutputStream = hasStreamConfiguration
+                && OutputType.CCL_SESSION.equals(streamConfiguration.getOutputType());
+        final String marker = BATCH_MARKER_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 12)
+                + "_";
+
+        final StringBuilder input = new StringBuilder();
+        appendLines(input, getFinalizeLoginGroup().getCommands());
+        appendLines(input, getWaitForCcclReadyGroup().getCommands());
+        appendLine(input, CCL_WIDTH_COMMAND);
+        if (hasCclOutputStream) {
+            appendLine(input, getEchoCommand(OUTPUT_START));
+        }
+        for (int setIndex = 0; setIndex < commandSets.size(); setIndex++) {
+            appendLine(input, getEchoCommand(marker + setIndex));
+            appendLines(input, splitCommands(commandSets.get(setIndex)));
+        }
+        appendLine(input, getEchoCommand(marker + "END"));
+        if (hasCclOutputStream) {
+            appendLine(input, getEchoCommand(OUTPUT_END));
+        }
+        appendLines(input, getCclExitGroup().getCommands());
+
+        terminal.setExpectationTimeout(terminalProperties.getExpectationTimeout());
+        final OutputStream forwardingStream = hasStreamConfiguration ? createForwardingStream(hasCclOutputStream)
+                : null;
+        final BatchOutputScanner scanner = new BatchOutputScanner(marker, forwardingStream);
+        final TerminalResponse response;
+        try {
+            response = terminal.executeCommand(getBatchLaunchCommand(), input.toString(), scanner,
+                    PromptMatcher.TIMEOUT_INFINITE);
+            scanner.close();
+        } catch (final IOException e) {
+            throw new SshException("Failed to write to the output stream.", e);
+        } finally {
+            if (forwardingStream != null) {
+                closeForwardingStream(forwardingStream);
             }
+        }
 
-            final List<CommandExpectationGroup> commandExpectationGroups = new ArrayList<CommandExpectationGroup>();
-            commandExpectationGroups.add(getSessionStartupGroup());
-            commandExpectationGroups.add(getCclLaunchGroup());
-            if (authenticate) {
-                commandExpectationGroups.addAll(getAuthenticationGroups());
+        String failure = scanner.getFailure();
+        if (failure == null) {
+            if (scanner.isCompleted()) {
+                return;
             }
-            commandExpectationGroups.add(getFinalizeLoginGroup());
-            commandExpectationGroups.add(getWaitForCcclReadyGroup());
-            commandExpectationGroups.add(getCclSessionGroup(nonMergedCommands, hasCclOutputStream));
-            commandExpectationGroups.add(getCclExitGroup());
+            failure = "CCL exited with status " + response.getExitStatus() + " before completing the commands";
+        }
 
-            terminal.executeCommandGroups(commandExpectationGroups);
+        final SshException cause = new SshException(failure);
+        final int setIndex = scanner.getCommandSetIndex();
+        if (setIndex >= 0 && setIndex < commandSets.size()) {
+            throw new SshCommandSetException(setIndex, cause);
+        }
+        throw cause;
+    }
+
+    /**
+     * Build the command that launches CCL on an exec channel. Since the command is not run in a login shell, it sources
+     * the user's profile itself.
+     *
+     * @return The command.
+     */
+    private String getBatchLaunchCommand() {
+        final StringBuilder command = new StringBuilder(
+                "[ -f \"$HOME/.profile\" ] && . \"$HOME/.profile\" > /dev/null 2>&1; ");
+        if (!terminalProperties.getSkipEnvset()) {
+            command.append("envset ").append(environmentName).append(" > /dev/null 2>&1 && ");
+        }
+        command.append(terminalProperties.getSpecifyDebugCcl() ? "$cer_exe/cclora_dbg" : "ccl");
+        return command.toString();
+    }
+
+    /**
+     * Build a CCL command that writes the given text on a line of its own.
+     *
+     * @param text
+     *            The text to be written.
+     * @return The command.
+     */
+    private static String getEchoCommand(final String text) {
+        return "call echo(\"" + text + "\") go";
+    }
+
+    /**
+     * Build a CCL command that, if the given condition holds, echoes a line matching
+     * {@link #CCL_COMMAND_FAILURE_PATTERN}, which fails the command set being executed. The echoed text is assembled by
+     * CCL, so that the terminal's echo of the command itself does not match.
+     *
+     * @param condition
+     *            The CCL expression under which the command set is to fail.
+     * @param message
+     *            The description of the failure; it cannot contain a double quote.
+     * @return The command.
+     * @throws IllegalArgumentException
+     *             If the message contains a double quote.
+     */
+    public static String getFailureCommand(final String condition, final String message) {
+        if (message.indexOf('"') >= 0) {
+            throw new IllegalArgumentException("Failure message cannot contain a double quote: " + message);
+        }
+
+        return "select into 'nl:' from dummyt d where " + condition
+                + " detail call echo(concat(\"J4CCL_COMMAND\", \"_FAILED: " + message + "\")) with nocounter go";
+    }
+
+    private static void appendLines(final StringBuilder input, final List<String> lines) {
+        for (final String line : lines) {
+            appendLine(input, line);
+        }
+    }
+
+    private static void appendLine(final StringBuilder input, final String line) {
+        input.append(line).append('\n');
+    }
+
+    /**
+     * Create the stream through which the console output is forwarded to the configured output stream or line consumer.
+     *
+     * @param hasCclOutputStream
+     *            A boolean flag indicating whether only the output of the CCL commands is to be forwarded.
+     * @return The forwarding {@link OutputStream}.
+     */
+    private OutputStream createForwardingStream(final boolean hasCclOutputStream) {
+        final LineConsumer lineConsumer = streamConfiguration.getLineConsumer();
+        if (lineConsumer != null) {
+            return hasCclOutputStream ? new CclOutputStreamProxy(lineConsumer, OUTPUT_START, OUTPUT_END)
+                    : new LineConsumerOutputStream(lineConsumer);
+        }
+        return hasCclOutputStream
+                ? new CclOutputStreamProxy(streamConfiguration.getOutputStream(), OUTPUT_START, OUTPUT_END)
+                : new OutputStreamProxy(streamConfiguration.getOutputStream());
+    }
+
+    /**
+     * Close a forwarding stream so that any unterminated output is handed over. Closing a forwarding stream leaves the
+     * configured output stream open.
+     *
+     * @param forwardingStream
+     *            The {@link OutputStream} to be closed.
+     * @throws SshException
+     *             If the stream cannot be closed.
+     */
+    private void closeForwardingStream(final OutputStream forwardingStream) throws SshException {
+        try {
+            forwardingStream.close();
+        } catch (final IOException e) {
+            throw new SshException("Failed to close the output stream.", e);
+        }
+    }
+
+    /**
+     * Open the given terminal and log it into CCL, leaving the CCL session open for subsequent commands.
+     *
+     * @param terminal
+     *            The {@link JSchSshTerminal} to be opened.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session
+     * @throws SshException
+     *             If the terminal cannot be opened or logged into CCL.
+     */
+    void openSession(final JSchSshTerminal terminal, final boolean authenticate) throws SshException {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "openSession");
+        try {
+            terminal.setExpectationTimeout(terminalProperties.getExpectationTimeout());
+            terminal.setCaptureOutput(false);
+            terminal.open();
+            try {
+                terminal.executeCommandGroups(getLoginGroups(authenticate));
+            } catch (final SshException e) {
+                terminal.close();
+                throw e;
+            }
         } finally {
             point.collect();
         }
     }
 
+    /**
+     * Verify that the CCL session open in the given terminal is still responsive by making a round-trip to the CCL
+     * prompt.
+     *
+     * @param terminal
+     *            The open {@link JSchSshTerminal} to be validated.
+     * @throws SshException
+     *             If the CCL prompt is not returned.
+     */
+    void validateSession(final JSchSshTerminal terminal) throws SshException {
+        final CommandExpectationGroup commandExpectationGroup = new CommandExpectationGroup();
+        commandExpectationGroup.addCommand("reset");
+        commandExpectationGroup.addExpectation(terminalProperties.getCclPromptPattern());
+        terminal.executeCommandGroups(Collections.singletonList(commandExpectationGroup));
+    }
+
+    /**
+     * Exit the CCL session open in the given terminal and close the terminal.
+     *
+     * @param terminal
+     *            The open {@link JSchSshTerminal} to be closed.
+     */
+    void closeSession(final JSchSshTerminal terminal) {
+        try {
+            terminal.executeCommandGroups(Collections.singletonList(getCclExitGroup()));
+        } catch (final SshException e) {
+            // The shell is being discarded regardless.
+        } finally {
+            terminal.close();
+        }
+    }
+
+    private List<CommandExpectationGroup> getLoginGroups(final boolean authenticate) {
+        final List<CommandExpectationGroup> commandExpectationGroups = new ArrayList<CommandExpectationGroup>();
+        commandExpectationGroups.add(getSessionStartupGroup());
+        commandExpectationGroups.add(getCclLaunchGroup());
+        if (authenticate) {
+            commandExpectationGroups.addAll(getAuthenticationGroups());
+        }
+        commandExpectationGroups.add(getFinalizeLoginGroup());
+        commandExpectationGroups.add(getWaitForCcclReadyGroup());
+        return commandExpectationGroups;
+    }
+
+    private List<String> splitCommands(final List<String> commands) {
+        final List<String> nonMergedCommands = new ArrayList<String>();
+        for (String command : commands) {
+            final String splitCommands[] = command.split("\\n");
+            for (int index = 0; index < splitCommands.length; index++) {
+                nonMergedCommands.add(splitCommands[index]);
+            }
+        }
+        return nonMergedCommands;
+    }
+
     private CommandExpectationGroup getSessionStartupGroup() {
         final CommandExpectationGroup commandExpectationGroup = new CommandExpectationGroup();
         if (!terminalProperties.getSkipEnvset()) {
@@ -200,19 +587,24 @@ public class CclCommandTerminal {
         return commandExpectationGroup;
     }
 
-    private CommandExpectationGroup getCclSessionGroup(final List<String> commands, final boolean hasCclOutputStream) {
+    private CommandExpectationGroup getCclSessionGroup(final List<String> commands, final boolean hasCclOutputStream,
+            final boolean isFirst, final boolean isLast) {
         final CommandExpectationGroup commandExpectationGroup = new CommandExpectationGroup();
-        commandExpectationGroup.addCommand(CCL_WIDTH_COMMAND);
-        if (hasCclOutputStream) {
-            commandExpectationGroup.addCommand(CCL_OUTPUT_START_COMMAND);
+        if (isFirst) {
+            commandExpectationGroup.addCommand(CCL_WIDTH_COMMAND);
+            if (hasCclOutputStream) {
+                commandExpectationGroup.addCommand(CCL_OUTPUT_START_COMMAND);
+            }
         }
         commandExpectationGroup.addCommands(commands);
-        if (hasCclOutputStream) {
+        if (isLast && hasCclOutputStream) {
             commandExpectationGroup.addCommand(CCL_OUTPUT_END_COMMAND);
         }
         commandExpectationGroup.addExpectation(terminalProperties.getCclPromptPattern());
         commandExpectationGroup.addExpectation(CCL_VIEWER_PATTERN);
         commandExpectationGroup.addExpectation(CCL_ABORT_PATTERN);
+        commandExpectationGroup.addExpectation(CCL_COMMAND_FAILURE_PATTERN);
+        commandExpectationGroup.setPipelined(terminalProperties.getPipelineCommands());
         return commandExpectationGroup;
     }
 
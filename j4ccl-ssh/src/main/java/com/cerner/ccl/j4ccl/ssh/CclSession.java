@@ -0,0 +1,153 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+
+/**
+ * A CCL session that is launched and logged into once and then kept open so that any number of command executions can
+ * be issued within it. Sessions are obtained from and returned to a {@link CclSessionPool}. <br>
+ * Because the session is shared by successive executions, anything those executions leave behind in CCL (such as
+ * declared records or variables) remains visible to later executions.
+ */
+
+public class CclSession {
+    private final CclSessionPool.Key key;
+    private final TerminalProperties terminalProperties;
+    private final JSchSshTerminal terminal;
+    private final CclCommandTerminal lifecycleTerminal;
+    private final boolean authenticate;
+    private OutputStream defaultOutputStream;
+    private volatile boolean valid = true;
+
+    /**
+     * Create a session.
+     *
+     * @param key
+     *            The pool key identifying the credentials with which the session is opened.
+     * @param terminalProperties
+     *            The {@link TerminalProperties} used to launch and log into CCL.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session.
+     */
+    CclSession(final CclSessionPool.Key key, final TerminalProperties terminalProperties, final boolean authenticate) {
+        this(key, terminalProperties, new JSchSshTerminal(), new CclCommandTerminal(terminalProperties, null),
+                authenticate);
+    }
+
+    /**
+     * Create a session around the given terminals. This constructor is package-private for testing.
+     *
+     * @param key
+     *            The pool key identifying the credentials with which the session is opened.
+     * @param terminalProperties
+     *            The {@link TerminalProperties} used to launch and log into CCL.
+     * @param terminal
+     *            The {@link JSchSshTerminal} that holds the open shell.
+     * @param lifecycleTerminal
+     *            The {@link CclCommandTerminal} used to log into, validate and exit CCL.
+     * @param authenticate
+     *            A boolean flag indicating whether or not to authenticate the CCL session.
+     */
+    CclSession(final CclSessionPool.Key key, final TerminalProperties terminalProperties,
+            final JSchSshTerminal terminal, final CclCommandTerminal lifecycleTerminal, final boolean authenticate) {
+        this.key = key;
+        this.terminalProperties = terminalProperties;
+        this.terminal = terminal;
+        this.lifecycleTerminal = lifecycleTerminal;
+        this.authenticate = authenticate;
+    }
+
+    /**
+     * Launch and log into CCL.
+     *
+     * @throws SshException
+     *             If the session cannot be opened.
+     */
+    void open() throws SshException {
+        if (terminalProperties.getLogfileLocation().isEmpty()) {
+            terminal.setOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        lifecycleTerminal.openSession(terminal, authenticate);
+        defaultOutputStream = terminal.getOutputStream();
+    }
+
+    /**
+     * Verify that the session is still usable.
+     *
+     * @return {@code true} if the session responded to a round-trip to the CCL prompt; {@code false} if it did not, in
+     *         which case the session is also marked as invalid.
+     */
+    boolean validate() {
+        if (!valid || !terminal.isOpen()) {
+            valid = false;
+            return false;
+        }
+
+        resetOutputStream();
+        try {
+            lifecycleTerminal.validateSession(terminal);
+            return true;
+        } catch (final SshException e) {
+            valid = false;
+            return false;
+        }
+    }
+
+    /**
+     * Exit CCL and disconnect the session.
+     */
+    void close() {
+        valid = false;
+        resetOutputStream();
+        lifecycleTerminal.closeSession(terminal);
+    }
+
+    /**
+     * Mark this session as no longer usable, such as after a command issued within it has failed and left CCL in an
+     * unknown state. An invalid session is closed rather than reused when it is returned to its pool.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Determine whether this session can still be used.
+     *
+     * @return {@code true} if the session can be used; {@code false} otherwise.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Get the pool key of this session.
+     *
+     * @return The key identifying the credentials with which this session was opened.
+     */
+    public CclSessionPool.Key getKey() {
+        return key;
+    }
+
+    /**
+     * Get the terminal that holds the open shell of this session.
+     *
+     * @return A {@link JSchSshTerminal}.
+     */
+    JSchSshTerminal getTerminal() {
+        return terminal;
+    }
+
+    /**
+     * Restore the output stream the session was opened with so that output is not piped to a stream supplied for an
+     * earlier execution.
+     */
+    void resetOutputStream() {
+        if (defaultOutputStream != null) {
+            terminal.setOutputStream(defaultOutputStream);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+import com.cerner.ccl.j4ccl.impl.jaas.JaasUtils;
+import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ftp.jsch.impl.DefaultConnectionPool;
+import com.google.code.jetm.reporting.ext.PointFactory;
+
+import etm.core.monitor.EtmPoint;
+
+/**
+ * A pool of open, logged-in {@link CclSession} objects. Sessions are keyed by the back-end host, user and environment
+ * and the Millennium domain user of the current subject, and by the {@link TerminalProperties} they were opened with.
+ * Up to a fixed number of idle sessions are retained per key; each idle session is validated with a round-trip to the
+ * CCL prompt before it is handed out again. An idle session keeps its connection checked out of the
+ * {@link DefaultConnectionPool}, so idle sessions are closed once they have sat idle for longer than the idle timeout
+ * of that pool ({@value DefaultConnectionPool#IDLE_TIMEOUT_PROPERTY}). <br>
+ * Sessions are authenticated whenever the current subject carries Millennium domain credentials.
+ */
+
+public class CclSessionPool {
+    /**
+     * The default maximum number of idle sessions retained per key.
+     */
+    public static final int DEFAULT_MAX_IDLE_PER_KEY = 4;
+
+    private static final CclSessionPool INSTANCE = new CclSessionPool(DEFAULT_MAX_IDLE_PER_KEY,
+            Long.getLong(DefaultConnectionPool.IDLE_TIMEOUT_PROPERTY, TimeUnit.MINUTES.toMillis(10)));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("ccl-session-pool-shutdown") {
+            @Override
+            public void run() {
+                INSTANCE.closeAll();
+            }
+        });
+    }
+
+    private final Map<Key, Deque<IdleSession>> idleSessions = new HashMap<Key, Deque<IdleSession>>();
+    private final int maxIdlePerKey;
+    private final long idleTimeoutMillis;
+    private final Logger logger = LoggerFactory.getLogger(CclSessionPool.class);
+
+    /**
+     * Get the shared pool.
+     *
+     * @return The {@link CclSessionPool} shared by all executors in this VM.
+     */
+    public static CclSessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Create a pool whose idle sessions are never evicted.
+     *
+     * @param maxIdlePerKey
+     *            The maximum number of idle sessions to retain per key.
+     * @throws IllegalArgumentException
+     *             If the given maximum is less than zero.
+     */
+    public CclSessionPool(final int maxIdlePerKey) {
+        this(maxIdlePerKey, 0);
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param maxIdlePerKey
+     *            The maximum number of idle sessions to retain per key.
+     * @param idleTimeoutMillis
+     *            The number of milliseconds a session may sit idle before it is closed; if not positive, idle sessions
+     *            are never evicted.
+     * @throws IllegalArgumentException
+     *             If the given maximum is less than zero.
+     */
+    public CclSessionPool(final int maxIdlePerKey, final long idleTimeoutMillis) {
+        if (maxIdlePerKey < 0) {
+            throw new IllegalArgumentException("Maximum idle sessions per key cannot be negative: " + maxIdlePerKey);
+        }
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        if (idleTimeoutMillis > 0) {
+            final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "ccl-session-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            evictor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdleSessions();
+                }
+            }, idleTimeoutMillis, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Obtain an open session for the current subject. An idle session is reused if one responds to validation;
+     * otherwise a new session is opened.
+     *
+     * @param terminalProperties
+     *            The {@link TerminalProperties} used to launch and log into CCL if a new session must be opened.
+     * @return An open {@link CclSession}.
+     * @throws SshException
+     *             If a new session cannot be opened.
+     */
+    public CclSession borrowSession(final TerminalProperties terminalProperties) throws SshException {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "borrowSession");
+        try {
+            final Key key = createKey(terminalProperties);
+            CclSession session;
+            while ((session = pollIdle(key)) != null) {
+                if (session.validate()) {
+                    return session;
+                }
+                logger.debug("Discarding CCL session that failed validation: {}", key);
+                session.close();
+            }
+
+            session = createSession(key, terminalProperties);
+            session.open();
+            return session;
+        } finally {
+            point.collect();
+        }
+    }
+
+    /**
+     * Return a session to the pool. Invalid sessions, and sessions in excess of the maximum number of idle sessions for
+     * their key, are closed.
+     *
+     * @param session
+     *            The {@link CclSession} to be returned.
+     * @throws NullPointerException
+     *             If the given session is {@code null}.
+     */
+    public void returnSession(final CclSession session) {
+        if (session == null) {
+            throw new NullPointerException("Session cannot be null.");
+        }
+
+        if (session.isValid() && offerIdle(session)) {
+            return;
+        }
+        session.close();
+    }
+
+    /**
+     * Close every idle session that has been idle for longer than the idle timeout, releasing its connection.
+     */
+    public void evictIdleSessions() {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+
+        final long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        final List<CclSession> sessions = new ArrayList<CclSession>();
+        synchronized (idleSessions) {
+            for (final Deque<IdleSession> deque : idleSessions.values()) {
+                final Iterator<IdleSession> iterator = deque.iterator();
+                while (iterator.hasNext()) {
+                    final IdleSession idle = iterator.next();
+                    if (idle.returnedAt < cutoff) {
+                        iterator.remove();
+                        sessions.add(idle.session);
+                    }
+                }
+            }
+        }
+        for (final CclSession session : sessions) {
+            logger.debug("Evicting idle CCL session: {}", session.getKey());
+            session.close();
+        }
+    }
+
+    /**
+     * Close all idle sessions.
+     */
+    public void closeAll() {
+        final List<CclSession> sessions = new ArrayList<CclSession>();
+        synchronized (idleSessions) {
+            for (final Deque<IdleSession> deque : idleSessions.values()) {
+                for (final IdleSession idle : deque) {
+                    sessions.add(idle.session);
+                }
+            }
+            idleSessions.clear();
+        }
+        for (final CclSession session : sessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * Get the number of idle sessions retained for a key.
+     *
+     * @param key
+     *            The key.
+     * @return The number of idle sessions for the key.
+     */
+    int getIdleCount(final Key key) {
+        synchronized (idleSessions) {
+            final Deque<IdleSession> deque = idleSessions.get(key);
+            return deque == null ? 0 : deque.size();
+        }
+    }
+
+    /**
+     * Create a session, authenticated if the current subject carries Millennium domain credentials. This method is
+     * package-private for testing.
+     *
+     * @param key
+     *            The pool key of the session.
+     * @param terminalProperties
+     *            The {@link TerminalProperties} used to launch and log into CCL.
+     * @return A new, unopened {@link CclSession}.
+     */
+    CclSession createSession(final Key key, final TerminalProperties terminalProperties) {
+        return new CclSession(key, terminalProperties, JaasUtils.hasPrincipal(MillenniumDomainPrincipal.class));
+    }
+
+    /**
+     * Create the pool key for the current subject. This method is package-private for testing.
+     *
+     * @param terminalProperties
+     *            The {@link TerminalProperties} with which a session would be opened.
+     * @return A {@link Key} identifying the back-end and Millennium credentials of the current subject and the terminal
+     *         properties.
+     */
+    Key createKey(final TerminalProperties terminalProperties) {
+        final BackendNodePrincipal principal = JaasUtils.getPrincipal(BackendNodePrincipal.class);
+        if (JaasUtils.hasPrincipal(MillenniumDomainPrincipal.class)) {
+            final MillenniumDomainPrincipal domainPrincipal = JaasUtils.getPrincipal(MillenniumDomainPrincipal.class);
+            return new Key(principal.getUsername(), principal.getHostname(), principal.getEnvironmentName(),
+                    domainPrincipal.getUsername(), domainPrincipal.getDomainName(), terminalProperties);
+        }
+        return new Key(principal.getUsername(), principal.getHostname(), principal.getEnvironmentName(), null, null,
+                terminalProperties);
+    }
+
+    private CclSession pollIdle(final Key key) {
+        synchronized (idleSessions) {
+            final Deque<IdleSession> deque = idleSessions.get(key);
+            final IdleSession idle = deque == null ? null : deque.pollFirst();
+            return idle == null ? null : idle.session;
+        }
+    }
+
+    private boolean offerIdle(final CclSession session) {
+        synchronized (idleSessions) {
+            Deque<IdleSession> deque = idleSessions.get(session.getKey());
+            if (deque == null) {
+                deque = new ArrayDeque<IdleSession>();
+                idleSessions.put(session.getKey(), deque);
+            }
+            if (deque.size() >= maxIdlePerKey) {
+                return false;
+            }
+            deque.offerFirst(new IdleSession(session, System.currentTimeMillis()));
+            return true;
+        }
+    }
+
+    /**
+     * The key under which sessions are pooled. Two keys are equal only if they name the same back-end user, host and
+     * environment, the same Millennium domain user, if any, and equal {@link TerminalProperties}, so that a session is
+     * never handed to a caller whose prompts or environment differ from those it was opened with.
+     */
+    public static final class Key {
+        private final String username;
+        private final String hostname;
+        private final String environmentName;
+        private final String domainUsername;
+        private final String domainName;
+        private final TerminalProperties terminalProperties;
+
+        /**
+         * Create a key.
+         *
+         * @param username
+         *            The back-end user.
+         * @param hostname
+         *            The back-end host.
+         * @param environmentName
+         *            The back-end environment.
+         * @param domainUsername
+         *            The Millennium domain user; {@code null} if the session is not authenticated.
+         * @param domainName
+         *            The Millennium domain; {@code null} if the session is not authenticated.
+         * @param terminalProperties
+         *            The {@link TerminalProperties} with which the session is opened.
+         */
+        Key(final String username, final String hostname, final String environmentName, final String domainUsername,
+                final String domainName, final TerminalProperties terminalProperties) {
+            this.username = username;
+            this.hostname = hostname;
+            this.environmentName = environmentName;
+            this.domainUsername = domainUsername;
+            this.domainName = domainName;
+            this.terminalProperties = terminalProperties;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return Objects.equals(username, other.username) && Objects.equals(hostname, other.hostname)
+                    && Objects.equals(environmentName, other.environmentName)
+                    && Objects.equals(domainUsername, other.domainUsername)
+                    && Objects.equals(domainName, other.domainName)
+                    && Objects.equals(terminalProperties, other.terminalProperties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, hostname, environmentName, domainUsername, domainName, terminalProperties);
+        }
+
+        /**
+         * {@inheritDoc} The terminal properties are left out, so that the key can be logged.
+         */
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append(username).append('@').append(hostname).append(':').append(environmentName);
+            if (domainUsername != null) {
+                builder.append('/').append(domainUsername).append('@').append(domainName);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * A session that is waiting in the pool, along with the time at which it was returned.
+     */
+    private static class IdleSession {
+        private final CclSession session;
+        private final long returnedAt;
+
+        /**
+         * Create an idle session.
+         *
+         * @param session
+         *            The idle {@link CclSession}.
+         * @param returnedAt
+         *            The time, in milliseconds since the epoch, at which the session was returned.
+         */
+        public IdleSession(final CclSession session, final long returnedAt) {
+            this.session = session;
+            this.returnedAt = returnedAt;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class CommandExpectationGroup {
 
     private final boolean maskCommands;
     private List<String> maskedCommands;
+    private boolean pipelined;
 
     /**
      * Constructs a CommandExpectationGroup without masked commands.
@@ -58,6 +59,29 @@ public class CommandExpectationGroup {
         this.commands.addAll(commands);
     }
 
+    /**
+     * Sets whether the commands of this group may be pipelined. A pipelined group sends its complete CCL statements in
+     * batches, each followed by an echoed sentinel, and waits for the sentinels rather than for the group's
+     * expectations after every command. Any trailing commands that do not complete a statement are sent one at a time
+     * as usual.
+     *
+     * @param pipelined
+     *            {@code true} if the commands of this group may be pipelined.
+     */
+    public void setPipelined(final boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * Determines whether the commands of this group may be pipelined.
+     *
+     * @return {@code true} if the commands of this group may be pipelined; {@code false} otherwise.
+     * @see #setPipelined(boolean)
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
     /**
      * Adds a single expectation to the end of the current list of expectations.
      *
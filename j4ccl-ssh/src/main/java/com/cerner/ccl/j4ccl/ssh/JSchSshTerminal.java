@@ -12,28 +12,30 @@ import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.jsch.ConnectionPool;
 import com.cerner.ftp.jsch.ConnectionPoolFactory;
 import com.google.code.jetm.reporting.ext.PointFactory;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import etm.core.monitor.EtmPoint;
-import expect4j.Closure;
-import expect4j.Expect4j;
-import expect4j.ExpectState;
-import expect4j.matches.Match;
-import expect4j.matches.RegExpMatch;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.apache.commons.io.FileUtils;
-import org.apache.oro.text.regex.MalformedPatternException;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,13 +54,33 @@ public class JSchSshTerminal {
     private static final Pattern CCL_EXECUTE_COMMAND_PATTERN = Pattern
             .compile("(?:^go$|.*\\sgo$|^go\\s*;.*$|.*\\sgo\\s*;.*$)", Pattern.MULTILINE);
     private static final Pattern CCL_EXIT_COMMAND_PATTERN = Pattern.compile("(?:^exit$)", Pattern.MULTILINE);
-    private static final long EXPECT4J_TIMEOUT_INFINITE = -1;
     private static final long EXPECTATION_TIMEOUT_DEFAULT = 20000;
+    private static final long EXEC_POLL_INTERVAL = 10;
+    private static final String SENTINEL_PREFIX = "J4CCL_SENTINEL_";
+    private static final Pattern SENTINEL_LINE_PATTERN = Pattern.compile("[^\\n]*" + SENTINEL_PREFIX + "[^\\n]*\\n?");
+    /**
+     * The maximum number of statements written ahead of CCL in a pipelined batch. This bounds the amount of input left
+     * unread should a statement fail.
+     */
+    private static final int PIPELINE_BATCH_SIZE = 50;
+    private static final List<Pattern> CCL_EXECUTE_EXPECTATIONS = Collections
+            .unmodifiableList(Arrays.asList(PromptMatcher.compile(CCL_EXECUTE_PROMPT_PATTERN_STRING),
+                    PromptMatcher.compile(CclCommandTerminal.CCL_VIEWER_PATTERN),
+                    PromptMatcher.compile(CclCommandTerminal.CCL_ABORT_PATTERN),
+                    PromptMatcher.compile(CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN)));
 
     private final ConnectionPool pool;
 
     private long expectationTimeout = EXPECTATION_TIMEOUT_DEFAULT;
     private OutputStream stream;
+    private boolean captureOutput = true;
+    private StringBuilder output;
+    private int commandGroupIndex = -1;
+    private Connection openConnection;
+    private ChannelShell openShell;
+    private PromptMatcher openMatcher;
+    private final String sentinelNonce = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    private int sentinelCount;
 
     private final Logger logger = LoggerFactory.getLogger(JSchSshTerminal.class);
 
@@ -98,132 +120,40 @@ public class JSchSshTerminal {
             logger.debug("commandExpectationGroup: {};", expectationCommandGroup);
         }
         final EtmPoint point = PointFactory.getPoint(getClass(), "executeCommandGroups");
+        commandGroupIndex = -1;
         try {
             if (commandExpectationGroups.isEmpty()) {
                 return new TerminalResponse(0, "");
             }
+
+            output = captureOutput ? new StringBuilder() : null;
+            if (isOpen()) {
+                final SessionCancellation cancellation = registerChannel(openShell);
+                try {
+                    return sendCommandGroups(openMatcher, openShell, commandExpectationGroups);
+                } catch (final SshException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new SshException("Failed to execute commands in the open shell.", e);
+                } finally {
+                    unregisterChannel(cancellation, openShell);
+                }
+            }
+
             Connection connection = null;
             ChannelShell shell = null;
+            SessionCancellation cancellation = null;
 
             try {
                 connection = getConnection();
                 shell = connection.getShell();
-
-                if (stream == null) {
-                    String logfileLocation = TerminalProperties.getGlobalTerminalProperties().getLogfileLocation();
-                    if (!logfileLocation.isEmpty()) {
-                        try {
-                            FileUtils.forceMkdirParent(new File(logfileLocation));
-                        } catch (IOException e) {
-                            stream = new ByteArrayOutputStream();
-                            e.printStackTrace();
-                        }
-                        stream = new FileOutputStream(logfileLocation);
-                    } else {
-                        stream = new ByteArrayOutputStream();
-                    }
-                }
-                shell.setOutputStream(stream);
-
+                final PromptMatcher matcher = connectShell(shell);
                 try {
-                    shell.connect();
-                } catch (final JSchException e) {
-                    throw new SshException("Failed to connect SSH shell.", e);
+                    cancellation = registerChannel(shell);
+                    return sendCommandGroups(matcher, shell, commandExpectationGroups);
+                } finally {
+                    matcher.close();
                 }
-
-                final Expect4j expect = new Expect4j(shell.getInputStream(), shell.getOutputStream());
-
-                final Map<String, Boolean> closureComm = new HashMap<String, Boolean>();
-                final StringBuilder buffer = new StringBuilder();
-                final Closure closure = new Closure() {
-                    @Override
-                    @SuppressWarnings("synthetic-access")
-                    public void run(final ExpectState expectState) throws Exception {
-                        final String expectStateBuffer = expectState.getBuffer().replace("\\r", "");
-                        buffer.append(expectStateBuffer);
-                        stream.write(expectStateBuffer.getBytes("UTF-8"));
-
-                        // ********* helpful for debugging issues with expect **********
-                        // System.out.println("-------------------------------buffer
-                        // start------------------------------");
-                        // System.out.println(expectStateBuffer);
-                        // System.out.println("-------------------------------buffer
-                        // end------------------------------");
-
-                        String match = expectState.getMatch().replaceAll("(?:\r|\n)", "");
-                        // cclPromptIsSet && pairIndex==0 --> ccl prompt or ccl execute prompt pattern was
-                        // matched.
-                        if (closureComm.containsKey("cclPromptIsSet") && closureComm.get("cclPromptIsSet")
-                                && expectState.getPairIndex() == 0
-                                && !REFINED_CCL_PROMPT_PATTERN.matcher(match).matches()) {
-                            logger.debug("Premature cclPromptPattern match detected. Waiting for additional output.");
-                            expectState.exp_continue();
-                        }
-                    }
-                };
-
-                // don't start sending commands until the terminal is ready for service.
-                logger.debug("osPromptPattern = {}",
-                        TerminalProperties.getGlobalTerminalProperties().getOsPromptPattern());
-                expect.setDefaultTimeout(expectationTimeout);
-                expect.expect(new Match[] { new RegExpMatch(
-                        TerminalProperties.getGlobalTerminalProperties().getOsPromptPattern(), closure) });
-
-                List<Match> cclExecuteExpectationPatterns = new ArrayList<Match>();
-                cclExecuteExpectationPatterns.add(new RegExpMatch(CCL_EXECUTE_PROMPT_PATTERN_STRING, closure));
-                cclExecuteExpectationPatterns.add(new RegExpMatch(CclCommandTerminal.CCL_VIEWER_PATTERN, closure));
-                cclExecuteExpectationPatterns.add(new RegExpMatch(CclCommandTerminal.CCL_ABORT_PATTERN, closure));
-
-                for (final CommandExpectationGroup commandExpectationGroup : commandExpectationGroups) {
-                    closureComm.put("cclPromptIsSet", false);
-                    final List<Match> lstPattern = new ArrayList<Match>();
-                    for (final String regexElement : commandExpectationGroup.getExpectations()) {
-                        try {
-                            final Match match = new RegExpMatch(regexElement, closure);
-                            lstPattern.add(match);
-                            if (regexElement
-                                    .equals(TerminalProperties.getGlobalTerminalProperties().getCclPromptPattern())) {
-                                closureComm.put("cclPromptIsSet", true);
-                            }
-
-                        } catch (final MalformedPatternException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    for (final String command : commandExpectationGroup.getCommands()) {
-                        String commandDisplay = commandExpectationGroup.maskCommands() ? "*******" : command;
-                        expect.setDefaultTimeout(getCommandSpecificTimeout(command));
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("sending command (" + commandDisplay + ")");
-                        }
-                        expect.send(command);
-                        expect.send("\r");
-                        final int expectVal = command.isEmpty() ? 0
-                                : isCclExecuteCommand(command) ? expect.expect(cclExecuteExpectationPatterns)
-                                        : expect.expect(lstPattern);
-                        if (expectVal < 0) {
-                            logger.debug("The expectation result was {} for command {} with patterns {}",
-                                    translateExpectVal(expectVal), commandDisplay,
-                                    commandExpectationGroup.getExpectations());
-                            if (expectVal != Expect4j.RET_EOF) {
-                                throw new SshExpectationException("expectj4 send status "
-                                        + translateExpectVal(expectVal) + " : command (" + commandDisplay + ")");
-                            }
-                        } else {
-                            final String matchString = expect.getLastState().getMatch(0);
-                            if (matchString != null) {
-                                if (Pattern.matches(CclCommandTerminal.CCL_VIEWER_PATTERN, matchString)) {
-                                    logger.error("select without 'nl:' detected");
-                                    throw new SshException("select without 'nl:' detected");
-                                } else if (Pattern.matches(CclCommandTerminal.CCL_ABORT_PATTERN, matchString)) {
-                                    logger.error("CCL session abort detected");
-                                    throw new SshException("CCL session abort detected");
-                                }
-                            }
-                        }
-                    }
-                }
-                return new TerminalResponse(shell.getExitStatus(), buffer.toString());
             } catch (final SshTimeoutException e) {
                 throw e;
             } catch (final SshException e) {
@@ -232,6 +162,7 @@ public class JSchSshTerminal {
                 e.printStackTrace();
                 return new TerminalResponse(0, "Error");
             } finally {
+                unregisterChannel(cancellation, shell);
                 if (shell != null && shell.isConnected()) {
                     shell.disconnect();
                 }
@@ -239,11 +170,590 @@ public class JSchSshTerminal {
                     connection.close();
                 }
             }
+        } finally {
+            output = null;
+            point.collect();
+        }
+    }
+
+    /**
+     * Run a single command on an exec channel rather than in an interactive shell. No login prompts or expectations are
+     * involved: the command is run by the user's shell on the server and its standard output is read until the command
+     * exits. The command is not given a terminal, so any login profile must be sourced by the command itself.
+     *
+     * @param command
+     *            The command to be run.
+     * @return A {@link TerminalResponse} holding the exit status of the command and its standard output.
+     * @throws SshException
+     *             If the command cannot be run.
+     * @throws SshTimeoutException
+     *             If the command produces no output for longer than the expectation timeout.
+     */
+    public TerminalResponse executeCommand(final String command) throws SshException {
+        final ByteArrayOutputStream commandOutput = new ByteArrayOutputStream();
+        final int exitStatus = executeExec(command, null, commandOutput, expectationTimeout);
+        return new TerminalResponse(exitStatus, new String(commandOutput.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Run a single command on an exec channel, writing the given input to its standard input. As with
+     * {@link #executeCommand(String)}, no prompts are matched: the input is written in full, the end of the input is
+     * signalled to the command, and its output is read until it exits.
+     *
+     * @param command
+     *            The command to be run.
+     * @param input
+     *            The text to be written to the standard input of the command.
+     * @return A {@link TerminalResponse} holding the exit status of the command and its standard output followed by its
+     *         standard error.
+     * @throws SshException
+     *             If the command cannot be run.
+     * @throws SshTimeoutException
+     *             If the command produces no output for longer than the expectation timeout.
+     */
+    public TerminalResponse executeCommand(final String command, final String input) throws SshException {
+        final ByteArrayOutputStream commandOutput = new ByteArrayOutputStream();
+        final int exitStatus = executeCommand(command, input, commandOutput).getExitStatus();
+        return new TerminalResponse(exitStatus, new String(commandOutput.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Run a single command on an exec channel, writing the given input to its standard input and streaming its output
+     * to the given stream as it arrives rather than holding it in memory. The standard output of the command is
+     * followed by its standard error.
+     *
+     * @param command
+     *            The command to be run.
+     * @param input
+     *            The text to be written to the standard input of the command.
+     * @param commandOutput
+     *            The {@link OutputStream} to which the output of the command is to be written; it is left open.
+     * @return A {@link TerminalResponse} holding the exit status of the command and no output.
+     * @throws SshException
+     *             If the command cannot be run.
+     * @throws SshTimeoutException
+     *             If the command produces no output for longer than the expectation timeout.
+     */
+    public TerminalResponse executeCommand(final String command, final String input, final OutputStream commandOutput)
+            throws SshException {
+        return executeCommand(command, input, commandOutput, expectationTimeout);
+    }
+
+    /**
+     * Run a single command on an exec channel as {@link #executeCommand(String, String, OutputStream)} does, but
+     * abandoning the command only if it produces no output for longer than the given timeout rather than the
+     * expectation timeout. This suits commands, such as CCL statements, whose run time cannot be known in advance; the
+     * expectation timeout still limits how long the channel may take to connect.
+     *
+     * @param command
+     *            The command to be run.
+     * @param input
+     *            The text to be written to the standard input of the command.
+     * @param commandOutput
+     *            The {@link OutputStream} to which the output of the command is to be written; it is left open.
+     * @param outputTimeout
+     *            The number of milliseconds for which the command may produce no output, or
+     *            {@link PromptMatcher#TIMEOUT_INFINITE} to wait for as long as the command runs.
+     * @return A {@link TerminalResponse} holding the exit status of the command and no output.
+     * @throws SshException
+     *             If the command cannot be run.
+     * @throws SshTimeoutException
+     *             If the command produces no output for longer than the given timeout.
+     */
+    public TerminalResponse executeCommand(final String command, final String input, final OutputStream commandOutput,
+            final long outputTimeout) throws SshException {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null.");
+        }
+        if (commandOutput == null) {
+            throw new IllegalArgumentException("Output stream cannot be null.");
+        }
+        return new TerminalResponse(executeExec(command, input, commandOutput, outputTimeout), "");
+    }
+
+    /**
+     * Run a single command on an exec channel. The output is read as it arrives; if none arrives for longer than the
+     * given timeout while the command is running, the command is abandoned.
+     *
+     * @param command
+     *            The command to be run.
+     * @param input
+     *            The text to be written to the standard input of the command; if {@code null}, the command is given no
+     *            input and its standard error is discarded.
+     * @param commandOutput
+     *            The {@link OutputStream} to which the output of the command is to be written.
+     * @param outputTimeout
+     *            The number of milliseconds for which the command may produce no output, or
+     *            {@link PromptMatcher#TIMEOUT_INFINITE} to wait for as long as the command runs.
+     * @return The exit status of the command.
+     * @throws SshException
+     *             If the command cannot be run.
+     */
+    private int executeExec(final String command, final String input, final OutputStream commandOutput,
+            final long outputTimeout) throws SshException {
+        final EtmPoint point = PointFactory.getPoint(getClass(), "executeCommand");
+        Connection connection = null;
+        ChannelExec exec = null;
+        SessionCancellation cancellation = null;
+        try {
+            connection = getConnection();
+            exec = connection.getExec();
+            exec.setCommand(command);
+            final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+            exec.setErrStream(errorOutput);
+            if (input != null) {
+                exec.setInputStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+            }
+            final InputStream remoteOutput = exec.getInputStream();
+            if (expectationTimeout > 0) {
+                exec.connect((int) Math.min(Integer.MAX_VALUE, expectationTimeout));
+            } else {
+                exec.connect();
+            }
+            cancellation = registerChannel(exec);
+
+            final byte[] buffer = new byte[8192];
+            long lastOutput = System.currentTimeMillis();
+            while (true) {
+                if (remoteOutput.available() > 0) {
+                    final int read = remoteOutput.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    commandOutput.write(buffer, 0, read);
+                    lastOutput = System.currentTimeMillis();
+                } else if (exec.isClosed()) {
+                    if (remoteOutput.available() <= 0) {
+                        break;
+                    }
+                } else if (outputTimeout > 0 && System.currentTimeMillis() - lastOutput > outputTimeout) {
+                    throw new SshTimeoutException(
+                            "No output received for " + outputTimeout + " ms from command: " + command);
+                } else {
+                    Thread.sleep(EXEC_POLL_INTERVAL);
+                }
+            }
+            if (input != null) {
+                errorOutput.writeTo(commandOutput);
+            }
+            return exec.getExitStatus();
+        } catch (final JSchException e) {
+            throw new SshException("Failed to run command: " + command, e);
+        } catch (final IOException e) {
+            throw new SshException("Failed to read the output of command: " + command, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SshException("Interrupted while waiting for command: " + command, e);
+        } finally {
+            unregisterChannel(cancellation, exec);
+            if (exec != null && exec.isConnected()) {
+                exec.disconnect();
+            }
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+            }
+            point.collect();
+        }
+    }
+
+    /**
+     * Open a shell that is kept connected across calls to {@link #executeCommandGroups(List)} until {@link #close()} is
+     * invoked. While the shell is open, each call to {@link #executeCommandGroups(List)} continues from wherever the
+     * previous call left the shell rather than starting from a new shell.
+     *
+     * @throws IllegalStateException
+     *             If this terminal is already open.
+     * @throws SshException
+     *             If the shell cannot be opened.
+     */
+    public void open() throws SshException {
+        if (isOpen()) {
+            throw new IllegalStateException("Terminal is already open.");
+        }
+
+        final EtmPoint point = PointFactory.getPoint(getClass(), "open");
+        Connection connection = null;
+        ChannelShell shell = null;
+        try {
+            connection = getConnection();
+            if (connection == null) {
+                throw new SshException("No connection could be obtained.");
+            }
+            shell = connection.getShell();
+            if (shell == null) {
+                throw new SshException("No shell could be obtained.");
+            }
+            openMatcher = connectShell(shell);
+            openShell = shell;
+            openConnection = connection;
+        } catch (final SshException e) {
+            disconnect(shell, connection);
+            throw e;
+        } catch (final Exception e) {
+            disconnect(shell, connection);
+            throw new SshException("Failed to open SSH shell.", e);
         } finally {
             point.collect();
         }
     }
 
+    /**
+     * Determine whether this terminal has a shell that was opened by {@link #open()}.
+     *
+     * @return {@code true} if this terminal is open; {@code false} otherwise.
+     */
+    public boolean isOpen() {
+        return openMatcher != null;
+    }
+
+    /**
+     * Disconnect the shell opened by {@link #open()}. This has no effect if the terminal is not open.
+     */
+    public void close() {
+        if (!isOpen()) {
+            return;
+        }
+
+        try {
+            openMatcher.close();
+        } finally {
+            disconnect(openShell, openConnection);
+            openMatcher = null;
+            openShell = null;
+            openConnection = null;
+        }
+    }
+
+    /**
+     * Connect the given shell and wait for the operating system prompt.
+     *
+     * @param shell
+     *            The {@link ChannelShell} to be connected.
+     * @return A {@link PromptMatcher} through which the shell can be driven.
+     * @throws Exception
+     *             If the shell cannot be connected or the operating system prompt is not received.
+     */
+    private PromptMatcher connectShell(final ChannelShell shell) throws Exception {
+        if (stream == null) {
+            String logfileLocation = TerminalProperties.getThreadTerminalProperties().getLogfileLocation();
+            if (!logfileLocation.isEmpty()) {
+                try {
+                    FileUtils.forceMkdirParent(new File(logfileLocation));
+                } catch (IOException e) {
+                    stream = new ByteArrayOutputStream();
+                    e.printStackTrace();
+                }
+                stream = new FileOutputStream(logfileLocation);
+            } else {
+                stream = new ByteArrayOutputStream();
+            }
+        }
+        shell.setOutputStream(stream);
+
+        try {
+            shell.connect();
+        } catch (final JSchException e) {
+            throw new SshException("Failed to connect SSH shell.", e);
+        }
+
+        final PromptMatcher matcher = new PromptMatcher(shell.getInputStream(), shell.getOutputStream(),
+                createTranscriptSink());
+
+        // don't start sending commands until the terminal is ready for service.
+        logger.debug("osPromptPattern = {}", TerminalProperties.getThreadTerminalProperties().getOsPromptPattern());
+        matcher.setDefaultTimeout(expectationTimeout);
+        matcher.expect(PromptMatcher.compile(TerminalProperties.getThreadTerminalProperties().getOsPromptPattern()));
+        return matcher;
+    }
+
+    /**
+     * Create the sink that records the console output consumed by the matcher. The output is written to the output
+     * stream of this terminal and, while a call to {@link #executeCommandGroups(List)} is capturing output, appended to
+     * the output of its response.
+     *
+     * @return A {@link TranscriptSink}.
+     */
+    private TranscriptSink createTranscriptSink() {
+        return new TranscriptSink() {
+            @Override
+            @SuppressWarnings("synthetic-access")
+            public void write(final String text) throws IOException {
+                String transcript = text.replace("\\r", "");
+                if (transcript.contains(SENTINEL_PREFIX)) {
+                    transcript = SENTINEL_LINE_PATTERN.matcher(transcript).replaceAll("");
+                }
+                if (output != null) {
+                    output.append(transcript);
+                }
+                stream.write(transcript.getBytes("UTF-8"));
+            }
+        };
+    }
+
+    /**
+     * Send the commands of each of the given groups, waiting on the expectations of each group.
+     *
+     * @param matcher
+     *            The {@link PromptMatcher} driving the shell.
+     * @param shell
+     *            The {@link ChannelShell} to which the commands are sent.
+     * @param commandExpectationGroups
+     *            The command expectation groups to execute.
+     * @return The TerminalResponse for executing the commands.
+     * @throws Exception
+     *             If sending any of the commands fails.
+     */
+    private TerminalResponse sendCommandGroups(final PromptMatcher matcher, final ChannelShell shell,
+            final List<CommandExpectationGroup> commandExpectationGroups) throws Exception {
+        for (final CommandExpectationGroup commandExpectationGroup : commandExpectationGroups) {
+            commandGroupIndex++;
+            boolean cclPromptIsSet = false;
+            final List<Pattern> lstPattern = new ArrayList<Pattern>();
+            for (final String regexElement : commandExpectationGroup.getExpectations()) {
+                try {
+                    lstPattern.add(PromptMatcher.compile(regexElement));
+                    if (regexElement.equals(TerminalProperties.getThreadTerminalProperties().getCclPromptPattern())) {
+                        cclPromptIsSet = true;
+                    }
+
+                } catch (final PatternSyntaxException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (commandExpectationGroup.isPipelined()) {
+                sendPipelined(matcher, commandExpectationGroup, cclPromptIsSet, lstPattern);
+            } else {
+                for (final String command : commandExpectationGroup.getCommands()) {
+                    sendCommand(matcher, commandExpectationGroup, command, cclPromptIsSet, lstPattern);
+                }
+            }
+        }
+        return new TerminalResponse(shell.getExitStatus(), output == null ? "" : output.toString());
+    }
+
+    /**
+     * Send a single command and wait for one of its expectations.
+     *
+     * @param matcher
+     *            The {@link PromptMatcher} driving the shell.
+     * @param commandExpectationGroup
+     *            The {@link CommandExpectationGroup} to which the command belongs.
+     * @param command
+     *            The command to be sent.
+     * @param cclPromptIsSet
+     *            Whether the CCL prompt is among the expectations of the group, in which case a match of the first
+     *            expectation that is not a complete CCL prompt is skipped.
+     * @param lstPattern
+     *            The expectations of the group.
+     * @throws Exception
+     *             If sending the command fails or an expectation is not met.
+     */
+    private void sendCommand(final PromptMatcher matcher, final CommandExpectationGroup commandExpectationGroup,
+            final String command, final boolean cclPromptIsSet, final List<Pattern> lstPattern) throws Exception {
+        String commandDisplay = commandExpectationGroup.maskCommands() ? "*******" : command;
+        matcher.setDefaultTimeout(getCommandSpecificTimeout(command));
+        if (logger.isDebugEnabled()) {
+            logger.debug("sending command (" + commandDisplay + ")");
+        }
+        matcher.send(command);
+        matcher.send("\r");
+        int expectVal = 0;
+        if (!command.isEmpty()) {
+            final List<Pattern> patterns = isCclExecuteCommand(command) ? CCL_EXECUTE_EXPECTATIONS : lstPattern;
+            expectVal = matcher.expect(patterns);
+            while (cclPromptIsSet && expectVal == 0 && !REFINED_CCL_PROMPT_PATTERN
+                    .matcher(matcher.getLastMatch().replaceAll("(?:\r|\n)", "")).matches()) {
+                logger.debug("Premature cclPromptPattern match detected. Waiting for additional output.");
+                expectVal = matcher.expect(patterns);
+            }
+        }
+        if (expectVal < 0) {
+            logger.debug("The expectation result was {} for command {} with patterns {}", translateExpectVal(expectVal),
+                    commandDisplay, commandExpectationGroup.getExpectations());
+            if (expectVal != PromptMatcher.RET_EOF) {
+                throw new SshExpectationException("expectj4 send status " + translateExpectVal(expectVal)
+                        + " : command (" + commandDisplay + ")");
+            }
+        } else {
+            final String matchString = matcher.getLastMatch();
+            if (matchString != null) {
+                if (Pattern.matches(CclCommandTerminal.CCL_VIEWER_PATTERN, matchString)) {
+                    logger.error("select without 'nl:' detected");
+                    throw new SshException("select without 'nl:' detected");
+                } else if (Pattern.matches(CclCommandTerminal.CCL_ABORT_PATTERN, matchString)) {
+                    logger.error("CCL session abort detected");
+                    throw new SshException("CCL session abort detected");
+                } else if (Pattern.matches(CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN, matchString)) {
+                    logger.error("CCL command failure detected: {}", matchString.trim());
+                    throw new SshException("CCL command failure detected: " + matchString.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Send the commands of a pipelined group. The commands are gathered into statements, each ending with a command
+     * that executes CCL, and the statements are written in batches without waiting for the CCL prompt in between. Each
+     * statement is followed by a command that echoes a unique sentinel; the output is then consumed sentinel by
+     * sentinel, so the viewer or an abort is attributed to the statement whose sentinel had not yet been seen. Any
+     * trailing commands that do not complete a statement are sent one at a time.
+     *
+     * @param matcher
+     *            The {@link PromptMatcher} driving the shell.
+     * @param commandExpectationGroup
+     *            The pipelined {@link CommandExpectationGroup}.
+     * @param cclPromptIsSet
+     *            Whether the CCL prompt is among the expectations of the group.
+     * @param lstPattern
+     *            The expectations of the group.
+     * @throws Exception
+     *             If sending the commands fails or a statement fails.
+     */
+    private void sendPipelined(final PromptMatcher matcher, final CommandExpectationGroup commandExpectationGroup,
+            final boolean cclPromptIsSet, final List<Pattern> lstPattern) throws Exception {
+        final List<List<String>> statements = new ArrayList<List<String>>();
+        List<String> statement = new ArrayList<String>();
+        for (final String command : commandExpectationGroup.getCommands()) {
+            statement.add(command);
+            if (isCclExecuteCommand(command)) {
+                statements.add(statement);
+                statement = new ArrayList<String>();
+            }
+        }
+
+        for (int start = 0; start < statements.size(); start += PIPELINE_BATCH_SIZE) {
+            sendPipelinedBatch(matcher, commandExpectationGroup,
+                    statements.subList(start, Math.min(start + PIPELINE_BATCH_SIZE, statements.size())));
+        }
+
+        for (final String command : statement) {
+            sendCommand(matcher, commandExpectationGroup, command, cclPromptIsSet, lstPattern);
+        }
+    }
+
+    /**
+     * Write a batch of statements, each followed by a sentinel, wait for each sentinel in turn and then wait for the
+     * CCL prompt that follows the last sentinel.
+     *
+     * @param matcher
+     *            The {@link PromptMatcher} driving the shell.
+     * @param commandExpectationGroup
+     *            The pipelined {@link CommandExpectationGroup} to which the statements belong.
+     * @param statements
+     *            The statements to be sent; each is a list of the commands that make it up.
+     * @throws Exception
+     *             If sending the statements fails or a statement fails.
+     */
+    private void sendPipelinedBatch(final PromptMatcher matcher, final CommandExpectationGroup commandExpectationGroup,
+            final List<List<String>> statements) throws Exception {
+        final StringBuilder input = new StringBuilder();
+        final List<String> sentinels = new ArrayList<String>(statements.size());
+        for (final List<String> statement : statements) {
+            for (final String command : statement) {
+                input.append(command).append('\r');
+            }
+            final String sentinel = SENTINEL_PREFIX + sentinelNonce + "_" + ++sentinelCount;
+            sentinels.add(sentinel);
+            input.append("call echo(\"").append(sentinel).append("\") go\r");
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("sending {} pipelined statements", statements.size());
+        }
+        matcher.send(input.toString());
+
+        for (int index = 0; index < statements.size(); index++) {
+            final List<String> statement = statements.get(index);
+            final String commandDisplay = commandExpectationGroup.maskCommands() ? "*******"
+                    : StringUtils.join(statement, " ");
+            final List<Pattern> patterns = new ArrayList<Pattern>(4);
+            patterns.add(Pattern.compile("\\n[ \\t]*" + sentinels.get(index) + "\\b"));
+            patterns.add(CCL_EXECUTE_EXPECTATIONS.get(1));
+            patterns.add(CCL_EXECUTE_EXPECTATIONS.get(2));
+            patterns.add(CCL_EXECUTE_EXPECTATIONS.get(3));
+
+            matcher.setDefaultTimeout(getCommandSpecificTimeout(statement.get(statement.size() - 1)));
+            final int expectVal = matcher.expect(patterns);
+            if (expectVal < 0) {
+                logger.debug("The expectation result was {} for pipelined command {}", translateExpectVal(expectVal),
+                        commandDisplay);
+                if (expectVal != PromptMatcher.RET_EOF) {
+                    throw new SshExpectationException("expectj4 send status " + translateExpectVal(expectVal)
+                            + " : command (" + commandDisplay + ")");
+                }
+                return;
+            } else if (expectVal == 1) {
+                logger.error("select without 'nl:' detected in command ({})", commandDisplay);
+                throw new SshException("select without 'nl:' detected : command (" + commandDisplay + ")");
+            } else if (expectVal == 2) {
+                logger.error("CCL session abort detected in command ({})", commandDisplay);
+                throw new SshException("CCL session abort detected : command (" + commandDisplay + ")");
+            } else if (expectVal == 3) {
+                final String failure = matcher.getLastMatch().trim();
+                logger.error("CCL command failure detected in command ({}): {}", commandDisplay, failure);
+                throw new SshException(
+                        "CCL command failure detected: " + failure + " : command (" + commandDisplay + ")");
+            }
+        }
+
+        /*
+         * Consume the CCL prompt that follows the last sentinel, so that it cannot satisfy the first expectation of
+         * whatever is sent next in this shell.
+         */
+        matcher.setDefaultTimeout(expectationTimeout);
+        final int expectVal = matcher.expect(CCL_EXECUTE_EXPECTATIONS);
+        if (expectVal < 0) {
+            logger.debug("The expectation result was {} for the CCL prompt after pipelined statements",
+                    translateExpectVal(expectVal));
+            if (expectVal != PromptMatcher.RET_EOF) {
+                throw new SshExpectationException("expectj4 send status " + translateExpectVal(expectVal)
+                        + " : CCL prompt after pipelined statements");
+            }
+        } else if (expectVal != 0) {
+            throw new SshException("Unexpected output after pipelined statements: " + matcher.getLastMatch().trim());
+        }
+    }
+
+    private void disconnect(final ChannelShell shell, final Connection connection) {
+        if (shell != null && shell.isConnected()) {
+            shell.disconnect();
+        }
+        if (connection != null && !connection.isClosed()) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Register a connected channel with the {@link SessionCancellation} bound to the current thread, if any, so that
+     * cancelling it aborts the channel.
+     *
+     * @param channel
+     *            The {@link Channel} to be registered.
+     * @return The {@link SessionCancellation} with which the channel was registered; {@code null} if there is none.
+     * @throws SshException
+     *             If the cancellation has already been requested.
+     */
+    private SessionCancellation registerChannel(final Channel channel) throws SshException {
+        final SessionCancellation cancellation = SessionCancellation.getCurrent();
+        if (cancellation != null) {
+            cancellation.register(channel);
+        }
+        return cancellation;
+    }
+
+    /**
+     * Unregister a channel that is no longer in use from the cancellation with which it was registered.
+     *
+     * @param cancellation
+     *            The {@link SessionCancellation} returned by {@link #registerChannel(Channel)}; may be {@code null}.
+     * @param channel
+     *            The {@link Channel} to be unregistered.
+     */
+    private void unregisterChannel(final SessionCancellation cancellation, final Channel channel) {
+        if (cancellation != null) {
+            cancellation.unregister(channel);
+        }
+    }
+
     /**
      * Determines the amount of time to wait on the expectations for different commands. <br>
      * This is a hack. setDefaultTimeout limits how long we wait for the terminal to respond with something that matches
@@ -259,8 +769,8 @@ public class JSchSshTerminal {
      */
     private long getCommandSpecificTimeout(final String command) {
         // TODO: allow different wait times for the "ccl" command and the "exit" command. ???
-        return expectationTimeout == EXPECT4J_TIMEOUT_INFINITE ? EXPECT4J_TIMEOUT_INFINITE
-                : isCclExecuteCommand(command) ? EXPECT4J_TIMEOUT_INFINITE
+        return expectationTimeout == PromptMatcher.TIMEOUT_INFINITE ? PromptMatcher.TIMEOUT_INFINITE
+                : isCclExecuteCommand(command) ? PromptMatcher.TIMEOUT_INFINITE
                         : isCclExitCommand(command) ? 2 * expectationTimeout : expectationTimeout;
     }
 
@@ -285,6 +795,26 @@ public class JSchSshTerminal {
         }
     }
 
+    /**
+     * Get the index of the command expectation group most recently processed by {@link #executeCommandGroups(List)}.
+     * When that method fails, this identifies the group in which the failure occurred.
+     *
+     * @return The zero-based index of the most recently processed group; -1 if no group has been processed.
+     */
+    public int getCommandGroupIndex() {
+        return commandGroupIndex;
+    }
+
+    /**
+     * Get the output stream to which console output is piped.
+     *
+     * @return The {@link OutputStream} to which SSH console data is piped; {@code null} if none has been set or chosen
+     *         yet.
+     */
+    public OutputStream getOutputStream() {
+        return stream;
+    }
+
     /**
      * Set an output stream to which console output should be piped.
      *
@@ -295,6 +825,19 @@ public class JSchSshTerminal {
         this.stream = stream;
     }
 
+    /**
+     * Set whether the console output of the commands is to be held in memory and returned as the output of the
+     * {@link TerminalResponse}. Console output is always written to the output stream of this terminal; callers that
+     * only read it from there can turn capturing off so that long-running commands do not accumulate their output.
+     *
+     * @param captureOutput
+     *            {@code true} (the default) if the output is to be returned by {@link #executeCommandGroups(List)};
+     *            {@code false} if the response is to have empty output.
+     */
+    public void setCaptureOutput(final boolean captureOutput) {
+        this.captureOutput = captureOutput;
+    }
+
     /**
      * Sets the expectation timeout for this terminal.
      *
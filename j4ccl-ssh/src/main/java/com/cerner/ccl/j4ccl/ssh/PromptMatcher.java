@@ -0,0 +1,354 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a shell by sending it input and waiting for its output to match one of a list of patterns. Output is read by a
+ * background thread and scanned incrementally: each pattern is only tried against the output that arrived since the
+ * previous attempt, plus an overlap as long as the longest pattern and {@value #MATCH_SLACK} more characters, and only
+ * a bounded window of unmatched output is kept. Output that is consumed by a match, or that falls out of the window, is
+ * handed to a {@link TranscriptSink}.
+ * <p>
+ * A match is not expected to span more characters than that overlap.
+ */
+public class PromptMatcher {
+    /**
+     * The value returned by {@link #expect(List)} when no pattern is matched before the timeout elapses.
+     */
+    public static final int RET_TIMEOUT = -2;
+    /**
+     * The value returned by {@link #expect(List)} when the shell's output ends before any pattern is matched.
+     */
+    public static final int RET_EOF = -3;
+    /**
+     * The timeout that waits indefinitely for a match.
+     */
+    public static final long TIMEOUT_INFINITE = -1;
+    /**
+     * The number of characters, beyond the length of the longest pattern, at the end of the unmatched output against
+     * which the patterns are tried again when more output arrives.
+     */
+    static final int MATCH_SLACK = 256;
+    /**
+     * The number of characters of unmatched output beyond which the oldest output is handed to the sink.
+     */
+    static final int WINDOW_SIZE = 64 * 1024;
+
+    private static final int READ_SIZE = 8192;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int MAX_CACHED_PATTERNS = 256;
+    private static final String END_OF_STREAM = new String();
+    /*
+     * The flags with which expectations have always been compiled: '.' matches line terminators as well.
+     */
+    private static final int PATTERN_FLAGS = Pattern.DOTALL;
+    private static final ConcurrentMap<String, Pattern> PATTERNS = new ConcurrentHashMap<String, Pattern>();
+
+    private final InputStream inputStream;
+    private final OutputStream output;
+    private final TranscriptSink sink;
+    private final BlockingQueue<String> chunks = new ArrayBlockingQueue<String>(QUEUE_CAPACITY);
+    private final StringBuilder window = new StringBuilder();
+    private final Thread reader;
+    private long defaultTimeout = TIMEOUT_INFINITE;
+    private boolean endOfStream;
+    private String lastMatch;
+
+    /**
+     * Create a matcher. A thread is started that reads the given input until it ends or the matcher is closed.
+     *
+     * @param input
+     *            The {@link InputStream} from which the shell's output is read.
+     * @param output
+     *            The {@link OutputStream} to which input is sent to the shell.
+     * @param sink
+     *            The {@link TranscriptSink} to which the shell's output is handed.
+     * @throws NullPointerException
+     *             If any of the given objects are {@code null}.
+     */
+    public PromptMatcher(final InputStream input, final OutputStream output, final TranscriptSink sink) {
+        if (input == null) {
+            throw new NullPointerException("Input stream cannot be null.");
+        }
+        if (output == null) {
+            throw new NullPointerException("Output stream cannot be null.");
+        }
+        if (sink == null) {
+            throw new NullPointerException("Transcript sink cannot be null.");
+        }
+
+        this.inputStream = input;
+        this.output = output;
+        this.sink = sink;
+        reader = new Thread(new Reader(input), "j4ccl-prompt-matcher");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Compile an expectation. Up to {@value #MAX_CACHED_PATTERNS} compiled expectations are cached, so the prompts used
+     * by every command are only compiled once.
+     *
+     * @param regex
+     *            The regular expression to be compiled.
+     * @return The compiled {@link Pattern}.
+     * @throws java.util.regex.PatternSyntaxException
+     *             If the given expression is not valid.
+     */
+    public static Pattern compile(final String regex) {
+        Pattern pattern = PATTERNS.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, PATTERN_FLAGS);
+            if (PATTERNS.size() < MAX_CACHED_PATTERNS) {
+                PATTERNS.putIfAbsent(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Set the time to wait for a match.
+     *
+     * @param defaultTimeout
+     *            The number of milliseconds to wait for a match; {@link #TIMEOUT_INFINITE} to wait indefinitely.
+     */
+    public void setDefaultTimeout(final long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * Send input to the shell.
+     *
+     * @param input
+     *            The input to be sent.
+     * @throws IOException
+     *             If the input cannot be sent.
+     */
+    public void send(final String input) throws IOException {
+        output.write(input.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    /**
+     * Wait for the shell's output to match a single pattern.
+     *
+     * @param pattern
+     *            The {@link Pattern} to be matched.
+     * @return 0 if the pattern is matched; otherwise, {@link #RET_TIMEOUT} or {@link #RET_EOF}.
+     * @throws IOException
+     *             If the output cannot be handed to the sink or the wait is interrupted.
+     * @see #expect(List)
+     */
+    public int expect(final Pattern pattern) throws IOException {
+        return expect(Collections.singletonList(pattern));
+    }
+
+    /**
+     * Wait for the shell's output to match one of the given patterns. If more than one pattern matches, the match that
+     * begins earliest is chosen and, of those, the pattern that appears first in the list. The output up to the end of
+     * the match is handed to the sink.
+     *
+     * @param patterns
+     *            The {@link Pattern} objects to be matched.
+     * @return The index of the matched pattern; otherwise, {@link #RET_TIMEOUT} or {@link #RET_EOF}.
+     * @throws IOException
+     *             If the output cannot be handed to the sink or the wait is interrupted.
+     */
+    public int expect(final List<Pattern> patterns) throws IOException {
+        final long deadline = defaultTimeout < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + defaultTimeout;
+        final int overlap = getOverlap(patterns);
+        int searchFrom = 0;
+        while (true) {
+            int matchIndex = -1;
+            int matchStart = Integer.MAX_VALUE;
+            int matchEnd = 0;
+            for (int index = 0; index < patterns.size(); index++) {
+                final Matcher matcher = patterns.get(index).matcher(window);
+                matcher.useTransparentBounds(true).useAnchoringBounds(false).region(searchFrom, window.length());
+                if (matcher.find() && matcher.start() < matchStart) {
+                    matchIndex = index;
+                    matchStart = matcher.start();
+                    matchEnd = matcher.end();
+                }
+            }
+
+            if (matchIndex >= 0) {
+                lastMatch = window.substring(matchStart, matchEnd);
+                flush(matchEnd);
+                return matchIndex;
+            }
+
+            if (endOfStream) {
+                flush(window.length());
+                return RET_EOF;
+            }
+
+            searchFrom = Math.max(0, window.length() - overlap);
+            if (window.length() > WINDOW_SIZE) {
+                final int cut = getTrimIndex(overlap);
+                flush(cut);
+                searchFrom -= cut;
+            }
+
+            final String chunk = nextChunk(deadline);
+            if (chunk == null) {
+                return RET_TIMEOUT;
+            }
+            if (chunk == END_OF_STREAM) {
+                endOfStream = true;
+            } else {
+                window.append(chunk);
+            }
+        }
+    }
+
+    /**
+     * Get the output matched by the most recent successful call to {@link #expect(List)}.
+     *
+     * @return The matched output; {@code null} if nothing has been matched.
+     */
+    public String getLastMatch() {
+        return lastMatch;
+    }
+
+    /**
+     * Stop reading the shell's output and close the stream from which it is read, so that a read blocked on it ends.
+     */
+    public void close() {
+        reader.interrupt();
+        try {
+            inputStream.close();
+        } catch (final IOException e) {
+            // the shell's output is no longer read either way
+        }
+    }
+
+    /**
+     * Determine how much of the unmatched output the patterns are tried against again when more output arrives.
+     *
+     * @param patterns
+     *            The {@link Pattern} objects to be matched.
+     * @return The length of the longest pattern plus {@link #MATCH_SLACK}, but no more than {@link #WINDOW_SIZE}.
+     */
+    private static int getOverlap(final List<Pattern> patterns) {
+        int longest = 0;
+        for (final Pattern pattern : patterns) {
+            longest = Math.max(longest, pattern.pattern().length());
+        }
+        return Math.min(WINDOW_SIZE, longest + MATCH_SLACK);
+    }
+
+    /**
+     * Determine where to trim the window, preferring to hand whole lines to the sink.
+     *
+     * @param overlap
+     *            The number of characters at the end of the window that must be kept.
+     * @return The number of characters to be removed from the start of the window.
+     */
+    private int getTrimIndex(final int overlap) {
+        final int cut = window.length() - overlap;
+        final int lineEnd = window.lastIndexOf("\n", cut - 1);
+        return lineEnd < 0 ? cut : lineEnd + 1;
+    }
+
+    /**
+     * Hand the start of the window to the sink and remove it from the window.
+     *
+     * @param end
+     *            The number of characters to be handed to the sink.
+     * @throws IOException
+     *             If the sink fails.
+     */
+    private void flush(final int end) throws IOException {
+        if (end > 0) {
+            sink.write(window.substring(0, end));
+            window.delete(0, end);
+        }
+    }
+
+    /**
+     * Wait for the next chunk of output.
+     *
+     * @param deadline
+     *            The time, in milliseconds since the epoch, after which to give up.
+     * @return The next chunk of output; {@code null} if none arrived in time.
+     * @throws InterruptedIOException
+     *             If interrupted while waiting.
+     */
+    private String nextChunk(final long deadline) throws InterruptedIOException {
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                return chunks.take();
+            }
+            return chunks.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for shell output.");
+        }
+    }
+
+    /**
+     * Reads and decodes the shell's output into chunks, ending with {@link PromptMatcher#END_OF_STREAM}.
+     */
+    private class Reader implements Runnable {
+        private final InputStream input;
+
+        /**
+         * Create a reader.
+         *
+         * @param input
+         *            The {@link InputStream} to be read.
+         */
+        public Reader(final InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        @SuppressWarnings("synthetic-access")
+        public void run() {
+            final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            final ByteBuffer bytes = ByteBuffer.allocate(READ_SIZE);
+            final CharBuffer chars = CharBuffer.allocate(READ_SIZE);
+            try {
+                try {
+                    int read;
+                    // a stream that reads nothing is treated as ended rather than polled
+                    while ((read = input.read(bytes.array(), bytes.position(), bytes.remaining())) > 0) {
+                        bytes.position(bytes.position() + read);
+                        bytes.flip();
+                        decoder.decode(bytes, chars, false);
+                        bytes.compact();
+                        chars.flip();
+                        if (chars.hasRemaining()) {
+                            chunks.put(chars.toString());
+                        }
+                        chars.clear();
+                    }
+                } catch (final IOException e) {
+                    // the shell has been disconnected; its output has ended
+                }
+                chunks.put(END_OF_STREAM);
+            } catch (final InterruptedException e) {
+                // the matcher has been closed
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelShell;
+
+/**
+ * A handle through which the remote work done on behalf of a thread can be cancelled from another thread. <br>
+ * While a cancellation is {@link #bind() bound} to a thread, every channel that a {@link JSchSshTerminal} opens on that
+ * thread is registered with it. {@link #cancel() Cancelling} sends the CCL abort - an interrupt character to a shell,
+ * an interrupt signal to an exec channel - to each registered channel and then disconnects it, so that the thread
+ * waiting on the channel fails rather than waiting for CCL to finish. Once cancelled, no further channels can be
+ * registered.
+ */
+
+public class SessionCancellation {
+    private static final ThreadLocal<SessionCancellation> CURRENT = new ThreadLocal<SessionCancellation>();
+    /**
+     * The character that interrupts CCL at an interactive terminal (Ctrl-C).
+     */
+    private static final int ABORT_CHARACTER = 3;
+
+    private final Set<Channel> channels = new LinkedHashSet<Channel>();
+    private final Logger logger = LoggerFactory.getLogger(SessionCancellation.class);
+    private boolean cancelled;
+
+    /**
+     * Get the cancellation bound to the current thread.
+     *
+     * @return The {@link SessionCancellation} bound to the current thread; {@code null} if there is none.
+     */
+    public static SessionCancellation getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind this cancellation to the current thread, replacing any other.
+     */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Remove the cancellation, if any, bound to the current thread.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Determine whether this cancellation has been requested.
+     *
+     * @return {@code true} if {@link #cancel()} has been called; {@code false} otherwise.
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Abort and disconnect every registered channel. Channels registered afterward are refused.
+     */
+    public void cancel() {
+        final List<Channel> toAbort;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toAbort = new ArrayList<Channel>(channels);
+            channels.clear();
+        }
+
+        for (final Channel channel : toAbort) {
+            abort(channel);
+        }
+    }
+
+    /**
+     * Register a channel so that it is aborted if this cancellation is requested.
+     *
+     * @param channel
+     *            The connected {@link Channel} to be registered.
+     * @throws SshException
+     *             If this cancellation has already been requested, in which case the channel is aborted.
+     */
+    void register(final Channel channel) throws SshException {
+        synchronized (this) {
+            if (!cancelled) {
+                channels.add(channel);
+                return;
+            }
+        }
+
+        abort(channel);
+        throw new SshException("Execution was cancelled.");
+    }
+
+    /**
+     * Stop tracking a channel that is no longer in use.
+     *
+     * @param channel
+     *            The {@link Channel} to be unregistered.
+     */
+    synchronized void unregister(final Channel channel) {
+        channels.remove(channel);
+    }
+
+    /**
+     * Send the CCL abort to a channel and disconnect it.
+     *
+     * @param channel
+     *            The {@link Channel} to be aborted.
+     */
+    private void abort(final Channel channel) {
+        try {
+            if (channel instanceof ChannelShell) {
+                final OutputStream remoteInput = channel.getOutputStream();
+                remoteInput.write(ABORT_CHARACTER);
+                remoteInput.flush();
+            } else if (channel instanceof ChannelExec) {
+                ((ChannelExec) channel).sendSignal("INT");
+            }
+        } catch (final IOException e) {
+            logger.debug("Failed to send the abort to a cancelled channel", e);
+        } catch (final Exception e) {
+            logger.debug("Failed to signal a cancelled channel", e);
+        } finally {
+            channel.disconnect();
+        }
+    }
+}
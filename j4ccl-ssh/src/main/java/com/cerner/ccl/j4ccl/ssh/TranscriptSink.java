@@ -0,0 +1,19 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import java.io.IOException;
+
+/**
+ * A destination for the console output read by a {@link PromptMatcher}. Output is handed to the sink, in order and
+ * exactly once, as it is consumed by a match or falls out of the matcher's window.
+ */
+public interface TranscriptSink {
+    /**
+     * Write console output to this sink.
+     *
+     * @param text
+     *            The output to be written.
+     * @throws IOException
+     *             If the output cannot be written.
+     */
+    void write(String text) throws IOException;
+}
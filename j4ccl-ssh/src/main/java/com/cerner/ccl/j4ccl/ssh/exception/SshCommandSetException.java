@@ -0,0 +1,44 @@
+package com.cerner.ccl.j4ccl.ssh.exception;
+
+/**
+ * An exception to indicate that one of several sets of commands issued within a single CCL session failed. The index of
+ * the failing set allows the failure to be attributed to the command that contributed it; an index equal to the number
+ * of sets indicates that every set was executed but the session could not be ended.
+ */
+
+@SuppressWarnings("serial")
+public class SshCommandSetException extends SshException {
+    private final int commandSetIndex;
+
+    /**
+     * Create an exception for a failed command set.
+     *
+     * @param commandSetIndex
+     *            The zero-based index of the command set that was being executed when the failure occurred.
+     * @param cause
+     *            The {@link SshException} describing the failure.
+     */
+    public SshCommandSetException(final int commandSetIndex, final SshException cause) {
+        super("Command set " + commandSetIndex + " failed: " + cause.getMessage(), cause);
+        this.commandSetIndex = commandSetIndex;
+    }
+
+    /**
+     * Get the index of the command set that failed.
+     *
+     * @return The zero-based index of the failed command set; the number of command sets if the failure occurred after
+     *         all of them were executed.
+     */
+    public int getCommandSetIndex() {
+        return commandSetIndex;
+    }
+
+    /**
+     * Get the failure raised by the terminal while executing the command set.
+     *
+     * @return The {@link SshException} describing the failure.
+     */
+    public SshException getSshCause() {
+        return (SshException) getCause();
+    }
+}
@@ -0,0 +1,182 @@
+package com.cerner.ccl.j4ccl.impl;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.security.AccessController;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.security.auth.Subject;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
+import com.cerner.ccl.j4ccl.ssh.SessionCancellation;
+
+/**
+ * Unit tests for {@link AsyncCclExecution}.
+ */
+
+public class AsyncCclExecutionTest {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Shut down the executor used by each test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Verify that an execution is run as the subject in context when it was submitted, with a cancellation bound to its
+     * thread, and that the future completes when it does.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSubmit() throws Exception {
+        final Subject subject = new Subject();
+        final AtomicReference<Subject> runAs = new AtomicReference<Subject>();
+        final AtomicReference<SessionCancellation> cancellation = new AtomicReference<SessionCancellation>();
+        final AsyncCclExecution future = Subject.doAs(subject, new PrivilegedExceptionAction<AsyncCclExecution>() {
+            @Override
+            public AsyncCclExecution run() {
+                return AsyncCclExecution.submit(executor, new Runnable() {
+                    @Override
+                    public void run() {
+                        runAs.set(Subject.getSubject(AccessController.getContext()));
+                        cancellation.set(SessionCancellation.getCurrent());
+                    }
+                });
+            }
+        });
+
+        future.get(10, TimeUnit.SECONDS);
+        assertThat(runAs.get()).isSameAs(subject);
+        assertThat(cancellation.get()).isNotNull();
+        assertThat(cancellation.get().isCancelled()).isFalse();
+    }
+
+    /**
+     * Verify that an execution is run with the terminal properties and compile cache of the thread that submitted it,
+     * rather than those inherited by the thread on which it runs.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSubmitThreadSettings() throws Exception {
+        final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").build();
+        final AtomicReference<TerminalProperties> runWithProperties = new AtomicReference<TerminalProperties>();
+        final AtomicReference<String> runWithCacheFile = new AtomicReference<String>();
+        final Runnable execution = new Runnable() {
+            @Override
+            public void run() {
+                runWithProperties.set(TerminalProperties.getThreadTerminalProperties());
+                runWithCacheFile.set(CompileCache.getFileProperty());
+            }
+        };
+
+        TerminalProperties.setThreadTerminalProperties(terminalProperties);
+        CompileCache.setThreadFileProperty("cache.properties");
+        try {
+            AsyncCclExecution.submit(executor, execution).get(10, TimeUnit.SECONDS);
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+            CompileCache.setThreadFileProperty(null);
+        }
+        assertThat(runWithProperties.get()).isSameAs(terminalProperties);
+        assertThat(runWithCacheFile.get()).isEqualTo("cache.properties");
+
+        AsyncCclExecution.submit(executor, execution).get(10, TimeUnit.SECONDS);
+        assertThat(runWithProperties.get()).isSameAs(TerminalProperties.getThreadTerminalProperties());
+        assertThat(runWithCacheFile.get()).isEmpty();
+    }
+
+    /**
+     * Verify that a failed execution completes the future exceptionally with its failure.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSubmitFailure() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("failed");
+        final AsyncCclExecution future = AsyncCclExecution.submit(executor, new Runnable() {
+            @Override
+            public void run() {
+                throw failure;
+            }
+        });
+
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertThat(e.getCause()).isSameAs(failure);
+    }
+
+    /**
+     * Verify that cancelling a running execution cancels the session cancellation bound to its thread.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicReference<SessionCancellation> cancellation = new AtomicReference<SessionCancellation>();
+        final AsyncCclExecution future = AsyncCclExecution.submit(executor, new Runnable() {
+            @Override
+            public void run() {
+                cancellation.set(SessionCancellation.getCurrent());
+                started.countDown();
+                try {
+                    finished.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(future.cancel(true)).isTrue();
+        finished.countDown();
+
+        assertThat(cancellation.get().isCancelled()).isTrue();
+        assertThat(future.isCancelled()).isTrue();
+        assertThrows(CancellationException.class, () -> future.get());
+    }
+
+    /**
+     * Verify that the number of threads of an executor can be raised but is never lowered.
+     */
+    @Test
+    public void testEnsureThreads() {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            AsyncCclExecution.ensureThreads(pool, 5);
+            assertThat(pool.getCorePoolSize()).isEqualTo(5);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(5);
+
+            AsyncCclExecution.ensureThreads(pool, 3);
+            assertThat(pool.getCorePoolSize()).isEqualTo(5);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(5);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -3,14 +3,19 @@ package com.cerner.ccl.j4ccl.impl;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -25,6 +30,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.adders.ScriptDropAdder;
 import com.cerner.ccl.j4ccl.enums.OutputType;
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.impl.adders.DynamicCompilerAdderImpl;
 import com.cerner.ccl.j4ccl.impl.adders.ScriptCompilerAdderImpl;
 import com.cerner.ccl.j4ccl.impl.adders.ScriptDropAdderImpl;
@@ -32,6 +38,10 @@ import com.cerner.ccl.j4ccl.impl.adders.ScriptExecutionAdderImpl;
 import com.cerner.ccl.j4ccl.impl.commands.ScriptExecutionCommand;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamConfiguration;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.CclSession;
+import com.cerner.ccl.j4ccl.ssh.CclSessionPool;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 
 /**
  * Unit tests for {@link BaseCclExecutor}.
@@ -335,6 +345,173 @@ public class BaseCclExecutorTest {
         assertThat(oscCaptor.getAllValues().get(0)).isEqualTo(null);
     }
 
+    /**
+     * Verify that, between {@link BaseCclExecutor#open()} and {@link BaseCclExecutor#close()}, executions run in the
+     * session borrowed from the pool and that the session is returned on close.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenExecuteClose() throws Exception {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        whenNew(CclCommandTerminal.class).withAnyArguments().thenReturn(terminal);
+        final CclSession session = mock(CclSession.class);
+        final CclSessionPool sessionPool = mock(CclSessionPool.class);
+        when(sessionPool.borrowSession(basicTerminalProperties)).thenReturn(session);
+
+        final BaseCclExecutor openExecutor = new BaseCclExecutor(basicTerminalProperties, queue, sessionPool);
+        openExecutor.open();
+        openExecutor.execute();
+        openExecutor.execute();
+        openExecutor.close();
+
+        verify(sessionPool).borrowSession(basicTerminalProperties);
+        PowerMockito.verifyNew(CclCommandTerminal.class, times(2)).withArguments(basicTerminalProperties, null,
+                session);
+        verify(queue, times(2)).execute(terminal);
+        verify(sessionPool).returnSession(session);
+    }
+
+    /**
+     * Verify that commands queued for one execution of an open executor are not executed again by the next one.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenExecuteTwice() throws Exception {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        whenNew(CclCommandTerminal.class).withAnyArguments().thenReturn(terminal);
+        final CclSessionPool sessionPool = mock(CclSessionPool.class);
+        when(sessionPool.borrowSession(basicTerminalProperties)).thenReturn(mock(CclSession.class));
+
+        final CommandQueue commandQueue = new CommandQueue();
+        final BaseCclExecutor openExecutor = new BaseCclExecutor(basicTerminalProperties, commandQueue, sessionPool);
+        openExecutor.open();
+
+        final ScriptExecutionCommand startCommand = mock(ScriptExecutionCommand.class);
+        final ScriptExecutionCommand firstCommand = mock(ScriptExecutionCommand.class);
+        final ScriptExecutionCommand closeCommand = mock(ScriptExecutionCommand.class);
+        commandQueue.addOnCclStartCommand(startCommand).addInCclSessionCommand(firstCommand)
+                .addOnCclCloseCommand(closeCommand);
+        openExecutor.execute();
+
+        assertThat(commandQueue.isEmpty()).isTrue();
+
+        final ScriptExecutionCommand secondCommand = mock(ScriptExecutionCommand.class);
+        commandQueue.addInCclSessionCommand(secondCommand);
+        openExecutor.execute();
+        openExecutor.close();
+
+        verify(startCommand).run(terminal);
+        verify(firstCommand).run(terminal);
+        verify(closeCommand).run(terminal);
+        verify(secondCommand).run(terminal);
+    }
+
+    /**
+     * Verify that a failed execution leaves nothing in the queue to be executed by the next one.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteFailureClearsQueue() throws Exception {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        whenNew(CclCommandTerminal.class).withAnyArguments().thenReturn(terminal);
+
+        final CommandQueue commandQueue = new CommandQueue();
+        final ScriptExecutionCommand failingCommand = mock(ScriptExecutionCommand.class);
+        final CclCommandException failure = new CclCommandException("failed");
+        doThrow(failure).when(failingCommand).run(terminal);
+        commandQueue.addInCclSessionCommand(failingCommand);
+
+        final BaseCclExecutor executor = new BaseCclExecutor(basicTerminalProperties, commandQueue);
+        assertThat(assertThrows(CclCommandException.class, () -> executor.execute())).isSameAs(failure);
+        assertThat(commandQueue.isEmpty()).isTrue();
+
+        executor.execute();
+        verify(failingCommand).run(terminal);
+    }
+
+    /**
+     * Verify that opening an executor that is already open fails.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testOpenAlreadyOpen() throws Exception {
+        final CclSessionPool sessionPool = mock(CclSessionPool.class);
+        when(sessionPool.borrowSession(basicTerminalProperties)).thenReturn(mock(CclSession.class));
+
+        final BaseCclExecutor openExecutor = new BaseCclExecutor(basicTerminalProperties, queue, sessionPool);
+        openExecutor.open();
+        openExecutor.open();
+    }
+
+    /**
+     * Verify that a failure to open a session is reported as a {@link CclCommandException}.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenFailure() throws Exception {
+        final SshException cause = new SshException("no session");
+        final CclSessionPool sessionPool = mock(CclSessionPool.class);
+        when(sessionPool.borrowSession(basicTerminalProperties)).thenThrow(cause);
+
+        final BaseCclExecutor openExecutor = new BaseCclExecutor(basicTerminalProperties, queue, sessionPool);
+        final CclCommandException e = assertThrows(CclCommandException.class, () -> openExecutor.open());
+        assertThat(e.getCause()).isSameAs(cause);
+    }
+
+    /**
+     * Verify that closing an executor that was never opened does nothing.
+     */
+    @Test
+    public void testCloseNotOpen() {
+        final CclSessionPool sessionPool = mock(CclSessionPool.class);
+        new BaseCclExecutor(basicTerminalProperties, queue, sessionPool).close();
+        verify(sessionPool, never()).returnSession(any(CclSession.class));
+    }
+
+    /**
+     * Verify that an asynchronous execution executes the queue and completes the returned future.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteAsync() throws Exception {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        whenNew(CclCommandTerminal.class).withAnyArguments().thenReturn(terminal);
+
+        final CompletableFuture<Void> future = executor.executeAsync();
+        future.get(10, TimeUnit.SECONDS);
+        verify(queue).execute(terminal);
+    }
+
+    /**
+     * Verify that a failure of an asynchronous execution completes the returned future exceptionally with the failure.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteAsyncFailure() throws Exception {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        whenNew(CclCommandTerminal.class).withAnyArguments().thenReturn(terminal);
+        final CclCommandException failure = new CclCommandException("failed");
+        doThrow(failure).when(queue).execute(terminal);
+
+        final ExecutionException e = assertThrows(ExecutionException.class,
+                () -> executor.executeAsync().get(10, TimeUnit.SECONDS));
+        assertThat(e.getCause()).isSameAs(failure);
+    }
+
     /**
      * If the queue is empty, then the executor shouldn't attempt to execute anything.
      */
@@ -401,6 +578,24 @@ public class BaseCclExecutorTest {
         assertThat(executor.getOutputStreamConfiguration()).isEqualTo(config);
     }
 
+    /**
+     * Test the setting of the output consumer.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSetOutputConsumer() throws Exception {
+        final LineConsumer consumer = mock(LineConsumer.class);
+        final OutputType type = OutputType.FULL_DEBUG;
+
+        final OutputStreamConfiguration config = mock(OutputStreamConfiguration.class);
+        whenNew(OutputStreamConfiguration.class).withArguments(consumer, type).thenReturn(config);
+
+        executor.setOutputConsumer(consumer, type);
+        assertThat(executor.getOutputStreamConfiguration()).isEqualTo(config);
+    }
+
     /**
      * Test the setting of the terminal properties.
      *
@@ -2,6 +2,8 @@ package com.cerner.ccl.j4ccl.impl;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.fest.assertions.MapAssert.entry;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -17,9 +19,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+import com.cerner.ccl.j4ccl.impl.jaas.JaasUtils;
 import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
 import com.cerner.ccl.j4ccl.impl.util.FileAssistant;
 import com.cerner.ftp.Uploader;
@@ -27,6 +32,7 @@ import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.data.FtpProduct;
 import com.cerner.ftp.data.factory.FileRequestFactory;
 import com.cerner.ftp.sftp.SftpUploader;
+import com.cerner.ftp.util.UploadManifest;
 import com.google.code.jetm.reporting.ext.PointFactory;
 
 import etm.core.monitor.EtmPoint;
@@ -39,8 +45,10 @@ import etm.core.monitor.EtmPoint;
  */
 
 @RunWith(PowerMockRunner.class)
+@PowerMockIgnore("javax.security.*")
 @PrepareForTest(value = { AuthHelper.class, CclResourceUploaderImpl.class, FileAssistant.class,
-        FileRequestFactory.class, SftpUploader.class, com.google.code.jetm.reporting.ext.PointFactory.class })
+        FileRequestFactory.class, JaasUtils.class, SftpUploader.class,
+        com.google.code.jetm.reporting.ext.PointFactory.class })
 public class CclResourceUploaderImplTest {
     @Mock
     private FtpProduct product;
@@ -93,6 +101,92 @@ public class CclResourceUploaderImplTest {
         verify(jetmMock).collect();
     }
 
+    /**
+     * Verify that a manifest scoped to the current back-end node is used when a manifest file is set.
+     */
+    @Test
+    public void testUploadIncremental() {
+        final File file = mock(File.class);
+        when(file.toURI()).thenReturn(URI.create("some.uri"));
+        mockStatic(FileAssistant.class);
+        when(FileAssistant.createRemotePath(file)).thenReturn(URI.create("remoteUri"));
+
+        final BackendNodePrincipal principal = mock(BackendNodePrincipal.class);
+        when(principal.getUsername()).thenReturn("user");
+        when(principal.getHostname()).thenReturn("host");
+        when(principal.getEnvironmentName()).thenReturn("env");
+        mockStatic(JaasUtils.class);
+        when(JaasUtils.getPrincipal(BackendNodePrincipal.class)).thenReturn(principal);
+
+        cclUploader.setManifestFile(new File("target/unit/ccl-upload-manifest.properties"));
+        cclUploader.setVerifyRemote(true);
+        cclUploader.queueUpload(file);
+        cclUploader.upload();
+
+        verify(uploader).setManifest(any(UploadManifest.class));
+        verify(uploader).verifyRemote(true);
+        verify(jetmMock).collect();
+    }
+
+    /**
+     * Verify that the files are uploaded over the configured number of channels.
+     */
+    @Test
+    public void testUploadChannels() {
+        final File file = mock(File.class);
+        when(file.toURI()).thenReturn(URI.create("some.uri"));
+        mockStatic(FileAssistant.class);
+        when(FileAssistant.createRemotePath(file)).thenReturn(URI.create("remoteUri"));
+
+        cclUploader.setChannelCount(4);
+        cclUploader.queueUpload(file);
+        cclUploader.upload();
+
+        verify(uploader).setChannelCount(4);
+        verify(jetmMock).collect();
+    }
+
+    /**
+     * Verify that the configured bulk upload limit and compression are passed to the uploader.
+     */
+    @Test
+    public void testUploadBulk() {
+        final File file = mock(File.class);
+        when(file.toURI()).thenReturn(URI.create("some.uri"));
+        mockStatic(FileAssistant.class);
+        when(FileAssistant.createRemotePath(file)).thenReturn(URI.create("remoteUri"));
+
+        cclUploader.setBulkUploadMinimumFiles(10);
+        cclUploader.setBulkUploadMaximumBytes(1024);
+        cclUploader.setCompressBulkUploads(false);
+        cclUploader.queueUpload(file);
+        cclUploader.upload();
+
+        verify(uploader).setBulkThreshold(10, 1024);
+        verify(uploader).compressBulkUploads(false);
+        verify(jetmMock).collect();
+    }
+
+    /**
+     * A bulk upload maximum of less than one byte should be rejected.
+     */
+    @Test
+    public void testSetBulkUploadMaximumBytesInvalid() {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> cclUploader.setBulkUploadMaximumBytes(0));
+        assertThat(e.getMessage()).isEqualTo("Bulk upload maximum must be at least 1 byte: 0");
+    }
+
+    /**
+     * A channel count of less than one should be rejected.
+     */
+    @Test
+    public void testSetChannelCountInvalid() {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> cclUploader.setChannelCount(0));
+        assertThat(e.getMessage()).isEqualTo("Channel count must be at least 1: 0");
+    }
+
     /**
      * If nothing is queued up for upload, then nothing should be uploaded.
      */
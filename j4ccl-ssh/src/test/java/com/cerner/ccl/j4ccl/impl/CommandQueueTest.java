@@ -2,16 +2,32 @@ package com.cerner.ccl.j4ccl.impl;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.exception.CclCommandException;
 import com.cerner.ccl.j4ccl.impl.commands.AbstractCclCommand;
+import com.cerner.ccl.j4ccl.impl.commands.DynamicIncludeBatchCommand;
+import com.cerner.ccl.j4ccl.impl.commands.ScriptCompilerCommand;
 import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+import com.cerner.ccl.j4ccl.ssh.JSchSshTerminal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshCommandSetException;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
 
 /**
  * Unit test of {@link CommandQueue}.
@@ -126,6 +142,180 @@ public class CommandQueueTest {
         verify(onCloseCommand).run(terminal);
     }
 
+    /**
+     * Verify that, when session batching is requested, the commands of all queues are issued within a single session
+     * and their preparation and follow-up work are performed around it.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteBatched() throws Exception {
+        final CclCommandTerminal terminal = createBatchingTerminal();
+        final AbstractCclCommand onStartCommand = createBatchableCommand("start go", false);
+        final AbstractCclCommand inSessionCommand = createBatchableCommand("execute go", true);
+        final AbstractCclCommand onCloseCommand = createBatchableCommand("close go", false);
+
+        queue.addInCclSessionCommand(inSessionCommand).addOnCclCloseCommand(onCloseCommand)
+                .addOnCclStartCommand(onStartCommand).execute(terminal);
+
+        final List<List<String>> expectedSets = Arrays.asList(Collections.singletonList("start go"),
+                Collections.singletonList("execute go"), Collections.singletonList("close go"));
+        verify(terminal).executeCommandSets(any(JSchSshTerminal.class), eq(expectedSets), eq(true), eq(true));
+        for (final AbstractCclCommand command : Arrays.asList(onStartCommand, inSessionCommand, onCloseCommand)) {
+            verify(command).beforeSession();
+            verify(command).afterSession();
+            verify(command, never()).run(terminal);
+        }
+    }
+
+    /**
+     * Verify that, when a command set fails in a batched session, the failure is reported by the command that
+     * contributed the set and the on-close commands are still executed.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteBatchedCommandSetError() throws Exception {
+        final CclCommandTerminal terminal = createBatchingTerminal();
+        final AbstractCclCommand inSessionCommand = createBatchableCommand("execute go", false);
+        final AbstractCclCommand onCloseCommand = createBatchableCommand("close go", false);
+
+        final SshException cause = new SshException("failed");
+        final CclCommandException reported = new CclCommandException("execute failed");
+        when(inSessionCommand.createSessionException(cause)).thenReturn(reported);
+        doThrow(new SshCommandSetException(0, cause)).when(terminal).executeCommandSets(any(JSchSshTerminal.class),
+                anyList(), eq(false), eq(false));
+
+        queue.addInCclSessionCommand(inSessionCommand).addOnCclCloseCommand(onCloseCommand);
+        try {
+            queue.execute(terminal);
+            fail("No exception thrown.");
+        } catch (final CclCommandException e) {
+            assertThat(e).isSameAs(reported);
+        }
+
+        verify(inSessionCommand, never()).afterSession();
+        verify(onCloseCommand).run(terminal);
+    }
+
+    /**
+     * Verify that, when an on-close command set fails in a batched session, only the on-close commands that the session
+     * did not reach are executed on their own.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteBatchedCloseCommandSetError() throws Exception {
+        final CclCommandTerminal terminal = createBatchingTerminal();
+        final AbstractCclCommand inSessionCommand = createBatchableCommand("execute go", false);
+        final AbstractCclCommand failedCloseCommand = createBatchableCommand("close go", false);
+        final AbstractCclCommand unreachedCloseCommand = createBatchableCommand("close again go", false);
+
+        final SshException cause = new SshException("failed");
+        final CclCommandException reported = new CclCommandException("close failed");
+        when(failedCloseCommand.createSessionException(cause)).thenReturn(reported);
+        doThrow(new SshCommandSetException(1, cause)).when(terminal).executeCommandSets(any(JSchSshTerminal.class),
+                anyList(), eq(false), eq(false));
+
+        queue.addInCclSessionCommand(inSessionCommand).addOnCclCloseCommand(failedCloseCommand)
+                .addOnCclCloseCommand(unreachedCloseCommand);
+        try {
+            queue.execute(terminal);
+            fail("No exception thrown.");
+        } catch (final CclCommandException e) {
+            assertThat(e).isSameAs(reported);
+        }
+
+        verify(failedCloseCommand, never()).run(terminal);
+        verify(unreachedCloseCommand).run(terminal);
+    }
+
+    /**
+     * Verify that, when CCL cannot be exited after every command set of a batched session was executed, the failure is
+     * reported and the on-close commands are not executed again.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteBatchedExitError() throws Exception {
+        final CclCommandTerminal terminal = createBatchingTerminal();
+        final AbstractCclCommand inSessionCommand = createBatchableCommand("execute go", false);
+        final AbstractCclCommand onCloseCommand = createBatchableCommand("close go", false);
+
+        final SshException cause = new SshException("failed");
+        doThrow(new SshCommandSetException(2, cause)).when(terminal).executeCommandSets(any(JSchSshTerminal.class),
+                anyList(), eq(false), eq(false));
+
+        queue.addInCclSessionCommand(inSessionCommand).addOnCclCloseCommand(onCloseCommand);
+        try {
+            queue.execute(terminal);
+            fail("No exception thrown.");
+        } catch (final CclCommandException e) {
+            assertThat(e.getCause()).isSameAs(cause);
+        }
+
+        verify(inSessionCommand, never()).afterSession();
+        verify(onCloseCommand, never()).run(terminal);
+    }
+
+    /**
+     * Verify that a recorded compilation whose object need not remain on the back end is marked current without
+     * querying the back end, while one that is not recorded is left to be compiled.
+     */
+    @Test
+    public void testExecuteMarksRecordedCompilationsCurrent() {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        final ScriptCompilerCommand recorded = mock(ScriptCompilerCommand.class);
+        when(recorded.isRecorded()).thenReturn(true);
+        when(recorded.verifiesObject()).thenReturn(false);
+        final ScriptCompilerCommand unrecorded = mock(ScriptCompilerCommand.class);
+
+        queue.addInCclSessionCommand(recorded).addInCclSessionCommand(unrecorded).execute(terminal);
+
+        verify(recorded).setCurrent(true);
+        verify(unrecorded, never()).setCurrent(true);
+        verify(recorded).run(terminal);
+        verify(unrecorded).run(terminal);
+    }
+
+    /**
+     * Verify that one batch of dynamic includes is queued per compile mode, along with the command that drops its
+     * wrapper scripts.
+     */
+    @Test
+    public void testGetDynamicIncludeBatch() {
+        final DynamicIncludeBatchCommand batch = queue.getDynamicIncludeBatch(false);
+        assertThat(queue.getDynamicIncludeBatch(false)).isSameAs(batch);
+
+        final DynamicIncludeBatchCommand debugBatch = queue.getDynamicIncludeBatch(true);
+        assertThat(debugBatch).isNotSameAs(batch);
+        assertThat(queue.getInCclSessionCommands()).containsOnly(batch, debugBatch);
+        assertThat(queue.getOnCclCloseCommands()).containsOnly(batch.getDropCommand(), debugBatch.getDropCommand());
+    }
+
+    /**
+     * Verify that, if any queued command cannot be batched, every command is run in its own session.
+     */
+    @Test
+    public void testExecuteBatchedNotBatchable() {
+        final CclCommandTerminal terminal = createBatchingTerminal();
+        final AbstractCclCommand batchableCommand = createBatchableCommand("execute go", false);
+        final AbstractCclCommand onCloseCommand = mock(AbstractCclCommand.class);
+
+        queue.addInCclSessionCommand(batchableCommand).addOnCclCloseCommand(onCloseCommand).execute(terminal);
+
+        verify(batchableCommand).run(terminal);
+        verify(onCloseCommand).run(terminal);
+    }
+
     /**
      * Test that the queue accurately reflects empty status when
      * {@link CommandQueue#addInCclSessionCommand(AbstractCclCommand)} is invoked.
@@ -158,4 +348,34 @@ public class CommandQueueTest {
         queue.addOnCclStartCommand(command);
         assertThat(queue.isEmpty()).isFalse();
     }
-}
\ No newline at end of file
+
+    /**
+     * Create a mock terminal whose properties request session batching.
+     *
+     * @return A mocked {@link CclCommandTerminal}.
+     */
+    private CclCommandTerminal createBatchingTerminal() {
+        final CclCommandTerminal terminal = mock(CclCommandTerminal.class);
+        when(terminal.getTerminalProperties()).thenReturn(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setBatchSessions(true).build());
+        return terminal;
+    }
+
+    /**
+     * Create a mock command that can be batched.
+     *
+     * @param sessionCommand
+     *            The single session command to be contributed by the command.
+     * @param authenticate
+     *            Whether the command requires an authenticated session.
+     * @return A mocked {@link AbstractCclCommand}.
+     */
+    private AbstractCclCommand createBatchableCommand(final String sessionCommand, final boolean authenticate) {
+        final AbstractCclCommand batchableCommand = mock(AbstractCclCommand.class);
+        when(batchableCommand.isBatchable()).thenReturn(true);
+        when(batchableCommand.getSessionCommands()).thenReturn(Collections.singletonList(sessionCommand));
+        when(batchableCommand.requiresAuthentication()).thenReturn(authenticate);
+        when(batchableCommand.requiresInteraction()).thenReturn(authenticate);
+        return batchableCommand;
+    }
+}
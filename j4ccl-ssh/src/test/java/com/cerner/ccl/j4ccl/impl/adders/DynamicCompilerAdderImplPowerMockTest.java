@@ -16,6 +16,7 @@ import java.io.File;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -76,12 +77,13 @@ public class DynamicCompilerAdderImplPowerMockTest {
         final ScriptCompilerCommand compileCommand = mock(ScriptCompilerCommand.class);
 
         whenNew(ScriptCompilerCommand.class).withArguments(scriptFileCaptor.capture(),
-                argumentCaptorFileCollection.capture(), eq(listingOutputFile), eq(Boolean.FALSE))
+                argumentCaptorFileCollection.capture(), eq(listingOutputFile), eq(Boolean.FALSE), eq(sourceCodeFile))
                 .thenReturn(compileCommand);
 
         final DropScriptCommand dropCommand = mock(DropScriptCommand.class);
         final ArgumentCaptor<String> dropScriptNameCaptor = ArgumentCaptor.forClass(String.class);
-        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture()).thenReturn(dropCommand);
+        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture(), eq(compileCommand))
+                .thenReturn(dropCommand);
 
         adder.withDependency(dependencyFile).withListingOutput(listingOutputFile).commit();
 
@@ -107,7 +109,8 @@ public class DynamicCompilerAdderImplPowerMockTest {
     }
 
     /**
-     * If the script name is set, then that should be the name of the script used.
+     * If the script name is set, then that should be the name of the script used, and the wrapper should be cached as
+     * that script rather than by its include, since the caller will run it.
      *
      * @throws Exception
      *             If any errors occur during the test run.
@@ -118,13 +121,15 @@ public class DynamicCompilerAdderImplPowerMockTest {
 
         final ArgumentCaptor<File> scriptFileCaptor = ArgumentCaptor.forClass(File.class);
         final ScriptCompilerCommand compileCommand = mock(ScriptCompilerCommand.class);
-        whenNew(ScriptCompilerCommand.class).withArguments(scriptFileCaptor.capture(),
-                ArgumentMatchers.<Collection<File>> any(), ArgumentMatchers.<File> any(), eq(Boolean.FALSE))
+        whenNew(ScriptCompilerCommand.class)
+                .withArguments(scriptFileCaptor.capture(), ArgumentMatchers.<Collection<File>> any(),
+                        ArgumentMatchers.<File> any(), eq(Boolean.FALSE), ArgumentMatchers.<File> isNull())
                 .thenReturn(compileCommand);
 
         final DropScriptCommand dropCommand = mock(DropScriptCommand.class);
         final ArgumentCaptor<String> dropScriptNameCaptor = ArgumentCaptor.forClass(String.class);
-        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture()).thenReturn(dropCommand);
+        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture(), eq(compileCommand))
+                .thenReturn(dropCommand);
 
         mockStatic(FileUtils.class);
 
@@ -150,13 +155,15 @@ public class DynamicCompilerAdderImplPowerMockTest {
 
         final ArgumentCaptor<File> scriptFileCaptor = ArgumentCaptor.forClass(File.class);
         final ScriptCompilerCommand compileCommand = mock(ScriptCompilerCommand.class);
-        whenNew(ScriptCompilerCommand.class).withArguments(scriptFileCaptor.capture(),
-                ArgumentMatchers.<Collection<File>> any(), ArgumentMatchers.<File> any(), eq(Boolean.TRUE))
+        whenNew(ScriptCompilerCommand.class)
+                .withArguments(scriptFileCaptor.capture(), ArgumentMatchers.<Collection<File>> any(),
+                        ArgumentMatchers.<File> any(), eq(Boolean.TRUE), ArgumentMatchers.<File> isNull())
                 .thenReturn(compileCommand);
 
         final DropScriptCommand dropCommand = mock(DropScriptCommand.class);
         final ArgumentCaptor<String> dropScriptNameCaptor = ArgumentCaptor.forClass(String.class);
-        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture()).thenReturn(dropCommand);
+        whenNew(DropScriptCommand.class).withArguments(dropScriptNameCaptor.capture(), eq(compileCommand))
+                .thenReturn(dropCommand);
 
         mockStatic(FileUtils.class);
 
@@ -208,8 +215,8 @@ public class DynamicCompilerAdderImplPowerMockTest {
         Field sourceCodeLocationField = ScriptCompilerCommand.class.getDeclaredField("sourceCodeLocation");
         sourceCodeLocationField.setAccessible(true);
 
-        Field scriptNameField = DropScriptCommand.class.getDeclaredField("scriptName");
-        scriptNameField.setAccessible(true);
+        Field scriptNamesField = DropScriptCommand.class.getDeclaredField("scriptNames");
+        scriptNamesField.setAccessible(true);
 
         Collection<ScriptCompilerCommand> sessionCommands = (Collection<ScriptCompilerCommand>) sessionCommandsField
                 .get(implQueue);
@@ -222,7 +229,7 @@ public class DynamicCompilerAdderImplPowerMockTest {
         }
         String scriptName = "";
         for (DropScriptCommand closeCommand : closeCommands) {
-            scriptName = (String) scriptNameField.get(closeCommand);
+            scriptName = ((List<String>) scriptNamesField.get(closeCommand)).get(0);
         }
 
         String regexScriptName = "j4ccl_xyzxyzxy0050000_\\d+5135007";
@@ -282,8 +289,8 @@ public class DynamicCompilerAdderImplPowerMockTest {
         Field sourceCodeLocationField = ScriptCompilerCommand.class.getDeclaredField("sourceCodeLocation");
         sourceCodeLocationField.setAccessible(true);
 
-        Field scriptNameField = DropScriptCommand.class.getDeclaredField("scriptName");
-        scriptNameField.setAccessible(true);
+        Field scriptNamesField = DropScriptCommand.class.getDeclaredField("scriptNames");
+        scriptNamesField.setAccessible(true);
 
         Collection<ScriptCompilerCommand> sessionCommands = (Collection<ScriptCompilerCommand>) sessionCommandsField
                 .get(implQueue);
@@ -296,7 +303,7 @@ public class DynamicCompilerAdderImplPowerMockTest {
         }
         String scriptName = "";
         for (DropScriptCommand closeCommand : closeCommands) {
-            scriptName = (String) scriptNameField.get(closeCommand);
+            scriptName = ((List<String>) scriptNamesField.get(closeCommand)).get(0);
         }
 
         String regexScriptName = "j4ccl_xyzxyzxyz0050000_\\d+515432";
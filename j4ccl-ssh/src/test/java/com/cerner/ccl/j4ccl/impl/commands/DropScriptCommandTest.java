@@ -5,11 +5,13 @@ import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -36,8 +38,8 @@ import etm.core.monitor.EtmPoint;
  */
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest(value = { CclCommandException.class, DropScriptCommand.class, JSchSshTerminal.class,
-        PointFactory.class })
+@PrepareForTest(value = { CclCommandException.class, DropScriptCommand.class, JSchSshTerminal.class, PointFactory.class,
+        ScriptCompilerCommand.class })
 public class DropScriptCommandTest {
     private final String scriptName = "script.name";
     private DropScriptCommand command;
@@ -94,10 +96,45 @@ public class DropScriptCommandTest {
         command.run(cclTerminal);
 
         verify(cclTerminal).executeCommands(sshTerminal,
-                Collections.singletonList("drop program " + scriptName + " go"), false);
+                Collections.singletonList("drop program " + scriptName + " go"), false, false);
         verify(point).collect();
     }
 
+    /**
+     * Nothing should be dropped if the compilation that would have created the script was skipped.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRunCompilationCurrent() throws Exception {
+        final ScriptCompilerCommand compilation = mock(ScriptCompilerCommand.class);
+        when(compilation.isCurrent()).thenReturn(Boolean.TRUE);
+
+        final CclCommandTerminal cclTerminal = mock(CclCommandTerminal.class);
+
+        final DropScriptCommand dropCommand = new DropScriptCommand(scriptName, compilation);
+        assertThat(dropCommand.getSessionCommands()).isEmpty();
+        dropCommand.run(cclTerminal);
+
+        verify(cclTerminal, never()).executeCommands(ArgumentMatchers.<JSchSshTerminal> any(),
+                ArgumentMatchers.<List<String>> any(), anyBoolean(), anyBoolean());
+    }
+
+    /**
+     * Scripts added to the command should all be dropped within the same session, except those whose compilation was
+     * skipped.
+     */
+    @Test
+    public void testAdd() {
+        final ScriptCompilerCommand compilation = mock(ScriptCompilerCommand.class);
+        when(compilation.isCurrent()).thenReturn(Boolean.TRUE);
+
+        assertThat(command.add("current.script", compilation).add("other.script", null)).isSameAs(command);
+        assertThat(command.getSessionCommands())
+                .isEqualTo(Arrays.asList("drop program " + scriptName + " go", "drop program other.script go"));
+    }
+
     /**
      * If the SSH terminal throws an {@link SshException}, then it should be rethrown as an {@link CclCommandException}.
      *
@@ -111,7 +148,7 @@ public class DropScriptCommandTest {
         whenNew(JSchSshTerminal.class).withAnyArguments().thenReturn(sshTerminal);
 
         doThrow(new SshException("uh-oh!")).when(cclTerminal).executeCommands(ArgumentMatchers.<JSchSshTerminal> any(),
-                ArgumentMatchers.<List<String>> any(), anyBoolean());
+                ArgumentMatchers.<List<String>> any(), anyBoolean(), anyBoolean());
 
         CclCommandException e = assertThrows(CclCommandException.class, () -> {
             command.run(cclTerminal);
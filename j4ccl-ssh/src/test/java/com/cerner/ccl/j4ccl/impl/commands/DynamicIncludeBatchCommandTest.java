@@ -0,0 +1,60 @@
+package com.cerner.ccl.j4ccl.impl.commands;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DynamicIncludeBatchCommand}.
+ */
+
+public class DynamicIncludeBatchCommandTest {
+    /**
+     * Every wrapper added to a batch should be dropped by the batch's drop command.
+     */
+    @Test
+    public void testAdd() {
+        final ScriptCompilerCommand first = mock(ScriptCompilerCommand.class);
+        final ScriptCompilerCommand second = mock(ScriptCompilerCommand.class);
+
+        final DynamicIncludeBatchCommand batch = new DynamicIncludeBatchCommand(false);
+        batch.add("wrapper_one", first);
+        batch.add("wrapper_two", second);
+
+        assertThat(batch.getCompilations()).isEqualTo(Arrays.asList(first, second));
+        assertThat(batch.getDropCommand().getSessionCommands())
+                .isEqualTo(Arrays.asList("drop program wrapper_one go", "drop program wrapper_two go"));
+    }
+
+    /**
+     * A batch compiled without debugging should not accept a wrapper compiled in debug mode.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddDebugMismatch() {
+        final ScriptCompilerCommand compilation = mock(ScriptCompilerCommand.class);
+        when(compilation.isDebugCompile()).thenReturn(Boolean.TRUE);
+        new DynamicIncludeBatchCommand(false).add("wrapper", compilation);
+    }
+
+    /**
+     * A wrapper whose listing output is kept cannot share the listing of a batch.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddListingDestination() {
+        final ScriptCompilerCommand compilation = mock(ScriptCompilerCommand.class);
+        when(compilation.hasListingDestination()).thenReturn(Boolean.TRUE);
+        new DynamicIncludeBatchCommand(false).add("wrapper", compilation);
+    }
+
+    /**
+     * A batch whose wrappers have not been prepared, or are all current, should issue no commands.
+     */
+    @Test
+    public void testGetSessionCommandsNothingPending() {
+        assertThat(new DynamicIncludeBatchCommand(true).getSessionCommands()).isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+package com.cerner.ccl.j4ccl.impl.commands;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.cerner.ccl.j4ccl.impl.util.AuthHelper;
+import com.cerner.ftp.Downloader;
+import com.cerner.ftp.data.FtpProduct;
+import com.cerner.ftp.exception.TransferException;
+import com.cerner.ftp.sftp.SftpDownloader;
+
+/**
+ * Unit tests for {@link ObjectTimestampCommand}.
+ */
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(value = { AuthHelper.class, SftpDownloader.class })
+public class ObjectTimestampCommandTest {
+    private final URI remoteOutputLocation = URI.create("/cer_temp/j4ccl_objstamp_user_11.dat");
+    @Mock
+    private Downloader downloader;
+    @Mock
+    private FtpProduct ftpProduct;
+
+    /**
+     * Set up the downloader through which the timestamps are read.
+     */
+    @Before
+    public void setUp() {
+        mockStatic(AuthHelper.class);
+        when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
+
+        mockStatic(SftpDownloader.class);
+        when(SftpDownloader.createDownloader(ftpProduct)).thenReturn(downloader);
+    }
+
+    /**
+     * Verify that the timestamps are read and that the file to which they were written is then removed.
+     */
+    @Test
+    public void testReadTimestamps() {
+        when(downloader.openStream(remoteOutputLocation))
+                .thenReturn(new ByteArrayInputStream("a_script|20260101|12345\n".getBytes(StandardCharsets.UTF_8)));
+
+        final Map<String, String> timestamps = ObjectTimestampCommand.readTimestamps(remoteOutputLocation);
+        assertThat(timestamps).hasSize(1);
+        assertThat(timestamps.get("A_SCRIPT")).isEqualTo("20260101|12345");
+        verify(downloader).setCompressionThreshold(-1);
+        verify(downloader).remove(remoteOutputLocation);
+    }
+
+    /**
+     * Verify that a failure to remove the file does not fail the reading of the timestamps.
+     */
+    @Test
+    public void testReadTimestampsRemoveFailure() {
+        when(downloader.openStream(remoteOutputLocation))
+                .thenReturn(new ByteArrayInputStream("a_script|20260101|12345\n".getBytes(StandardCharsets.UTF_8)));
+        doThrow(new TransferException("failed", null)).when(downloader).remove(remoteOutputLocation);
+
+        assertThat(ObjectTimestampCommand.readTimestamps(remoteOutputLocation)).hasSize(1);
+    }
+}
@@ -148,7 +148,7 @@ public class ScriptCompilerCommandTest {
          * Verify the commands issued
          */
         final ArgumentCaptor<List> commandsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false));
+        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false), eq(false));
         final Iterator<String> commandsIterator = commandsCaptor.getValue().iterator();
         assertThat(commandsIterator.next()).isEqualTo("call compile(");
         assertThat(commandsIterator.next()).startsWith("'" + sourceCodeTargetLocation.getPath() + "',");
@@ -199,7 +199,7 @@ public class ScriptCompilerCommandTest {
          * Verify that debug mode was set
          */
         final ArgumentCaptor<List> commandsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false));
+        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false), eq(false));
         final LinkedList<String> capturedCommands = new LinkedList<String>(commandsCaptor.getValue());
         assertThat(capturedCommands.getFirst()).isEqualTo("SET COMPILE = DEBUG go");
         assertThat(capturedCommands.getLast()).isEqualTo("SET COMPILE = NODEBUG go");
@@ -246,7 +246,7 @@ public class ScriptCompilerCommandTest {
          * Verify that debug mode was set
          */
         final ArgumentCaptor<List> commandsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false));
+        verify(cclTerminal).executeCommands(eq(sshTerminal), commandsCaptor.capture(), eq(false), eq(false));
         final LinkedList<String> capturedCommands = new LinkedList<String>(commandsCaptor.getValue());
         assertThat(capturedCommands.getFirst()).isEqualTo("SET COMPILE = DEBUG go");
         assertThat(capturedCommands.getLast()).isEqualTo("SET COMPILE = NODEBUG go");
@@ -138,7 +138,7 @@ public class ScriptExecutionCommandTest {
         command.run(cclTerminal);
 
         final ArgumentCaptor<List> commandCaptor = ArgumentCaptor.forClass(List.class);
-        verify(cclTerminal).executeCommands(eq(sshTerminal), commandCaptor.capture(), eq(false));
+        verify(cclTerminal).executeCommands(eq(sshTerminal), commandCaptor.capture(), eq(false), eq(false));
         assertThat(commandCaptor.getValue()).containsOnly(buildCommand);
     }
 
@@ -200,7 +200,7 @@ public class ScriptExecutionCommandTest {
         expected.add(extractCommand);
 
         final ArgumentCaptor<List> commandCaptor = ArgumentCaptor.forClass(List.class);
-        verify(cclTerminal).executeCommands(eq(sshTerminal), commandCaptor.capture(), eq(false));
+        verify(cclTerminal).executeCommands(eq(sshTerminal), commandCaptor.capture(), eq(false), eq(false));
         assertThat(commandCaptor.getValue()).isEqualTo(expected);
         // Verify that the record structure data was "extracted"
         verify(mockExtractor).extractRecordData();
@@ -1,30 +1,27 @@
 package com.cerner.ccl.j4ccl.impl.commands.util;
 
 import static org.fest.assertions.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.matches;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
-import java.util.Locale;
 
-import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
@@ -37,7 +34,6 @@ import com.cerner.ccl.j4ccl.record.Structure;
 import com.cerner.ccl.j4ccl.record.StructureBuilder;
 import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
 import com.cerner.ftp.Downloader;
-import com.cerner.ftp.data.FileRequest;
 import com.cerner.ftp.data.FtpProduct;
 import com.cerner.ftp.sftp.SftpDownloader;
 import com.google.code.jetm.reporting.ext.PointFactory;
@@ -52,8 +48,7 @@ import etm.core.monitor.EtmPoint;
  */
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest(value = { RecordDataExtractor.class, SftpDownloader.class, AuthHelper.class, File.class,
-        PointFactory.class })
+@PrepareForTest(value = { RecordDataExtractor.class, SftpDownloader.class, AuthHelper.class, PointFactory.class })
 public class RecordDataExtractorTest {
     @Mock
     private Record record;
@@ -104,12 +99,13 @@ public class RecordDataExtractorTest {
         when(record.getStructure()).thenReturn(structure);
 
         final RecordDataExtractor extractor = new RecordDataExtractor(record, environment);
-
-        // Create a mock output file
-        FileUtils.writeLines(extractor.getLocalDataLocation(), Arrays.asList("{\"REPLY\":{\"I2_FIELD\":123}}"));
+        final InputStream stream = spy(
+                new ByteArrayInputStream("{\"REPLY\":{\"I2_FIELD\":123}}\n".getBytes(StandardCharsets.UTF_8)));
+        when(downloader.openStream(extractor.getRemoteDataLocation())).thenReturn(stream);
 
         extractor.extractRecordData();
         verify(record, times(1)).setI2("I2_FIELD", (short) 123);
+        verify(stream).close();
         verify(point).collect();
     }
 
@@ -129,6 +125,47 @@ public class RecordDataExtractorTest {
         assertThat(extractor.getExtractionCommands()).isEqualTo(expected);
     }
 
+    /**
+     * Verify that the extraction commands of several records write them all to the same file in a single statement.
+     */
+    @Test
+    public void testGetExtractionCommandsMultipleRecords() {
+        final Record reply = mock(Record.class);
+        when(reply.getName()).thenReturn("reply");
+        final RecordDataExtractor extractor = new RecordDataExtractor(Arrays.asList(record, reply), environment);
+        final String location = ", '" + extractor.getRemoteDataLocation().getPath() + "'";
+
+        assertThat(extractor.getExtractionCommands()).isEqualTo(Arrays.asList("call echojson(", "request", location,
+                ")", "call echojson(", "reply", location, ", 1) go"));
+        assertThat(extractor.getRecords()).containsExactly(record, reply);
+    }
+
+    /**
+     * Verify that the data of several records is read from one file and split among the records.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExtractRecordDataMultipleRecords() throws Exception {
+        mockStatic(AuthHelper.class);
+        when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
+
+        mockStatic(SftpDownloader.class);
+        when(SftpDownloader.createDownloader(ftpProduct)).thenReturn(downloader);
+
+        final Record request = RecordFactory.create("REQUEST", StructureBuilder.getBuilder().addVC("TEXT").build());
+        final Record reply = RecordFactory.create("REPLY", StructureBuilder.getBuilder().addVC("TEXT").build());
+        final RecordDataExtractor extractor = new RecordDataExtractor(Arrays.asList(request, reply), environment);
+        when(downloader.openStream(extractor.getRemoteDataLocation())).thenReturn(
+                new ByteArrayInputStream("{\"REQUEST\":{\"TEXT\":\"a } \\\" {\"}}\n{\"REPLY\":{\"TEXT\":\"b\"}}\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+
+        extractor.extractRecordData();
+        assertThat(request.getVC("TEXT")).isEqualTo("a } \" {");
+        assertThat(reply.getVC("TEXT")).isEqualTo("b");
+    }
+
     /**
      * Verify that the output is specified as being placed in cer_temp.
      */
@@ -144,23 +181,11 @@ public class RecordDataExtractorTest {
      * @throws Exception
      *             If any errors occur during the test run.
      */
-    @SuppressWarnings("unchecked")
     @Test
     public void testExtractRecordDataTrailingSlash() throws Exception {
         final Downloader downloader = mock(Downloader.class);
-        /*
-         * Copy the JSON file to the location the extractor expects to find the file
-         */
-        doAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(final InvocationOnMock invocation) throws Throwable {
-                final Collection<FileRequest> requests = (Collection<FileRequest>) invocation.getArguments()[0];
-                final FileRequest request = requests.iterator().next();
-                FileUtils.copyFile(new File("src/test/resources/json/trailingSlash.json"),
-                        new File(request.getTargetFile()));
-                return null;
-            }
-        }).when(downloader).download(ArgumentMatchers.<Collection<? extends FileRequest>> any());
+        when(downloader.openStream(ArgumentMatchers.<URI> any()))
+                .thenReturn(new FileInputStream("src/test/resources/json/trailingSlash.json"));
 
         mockStatic(AuthHelper.class);
         when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
@@ -179,23 +204,11 @@ public class RecordDataExtractorTest {
      * @throws Exception
      *             If any errors occur during the test run.
      */
-    @SuppressWarnings("unchecked")
     @Test
     public void testExtractRecordDataEscapedEndingSlash() throws Exception {
         final Downloader downloader = mock(Downloader.class);
-        /*
-         * Copy the JSON file to the location the extractor expects to find the file
-         */
-        doAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(final InvocationOnMock invocation) throws Throwable {
-                final Collection<FileRequest> requests = (Collection<FileRequest>) invocation.getArguments()[0];
-                final FileRequest request = requests.iterator().next();
-                FileUtils.copyFile(new File("src/test/resources/json/escapedEndingSlash.json"),
-                        new File(request.getTargetFile()));
-                return null;
-            }
-        }).when(downloader).download(ArgumentMatchers.<Collection<? extends FileRequest>> any());
+        when(downloader.openStream(ArgumentMatchers.<URI> any()))
+                .thenReturn(new FileInputStream("src/test/resources/json/escapedEndingSlash.json"));
 
         mockStatic(AuthHelper.class);
         when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
@@ -215,23 +228,11 @@ public class RecordDataExtractorTest {
      * @throws Exception
      *             If any errors occur during the test run.
      */
-    @SuppressWarnings("unchecked")
     @Test
     public void testExtractRecordDataOnlySlashesEven() throws Exception {
         final Downloader downloader = mock(Downloader.class);
-        /*
-         * Copy the JSON file to the location the extractor expects to find the file
-         */
-        doAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(final InvocationOnMock invocation) throws Throwable {
-                final Collection<FileRequest> requests = (Collection<FileRequest>) invocation.getArguments()[0];
-                final FileRequest request = requests.iterator().next();
-                FileUtils.copyFile(new File("src/test/resources/json/onlySlashesEven.json"),
-                        new File(request.getTargetFile()));
-                return null;
-            }
-        }).when(downloader).download(ArgumentMatchers.<Collection<? extends FileRequest>> any());
+        when(downloader.openStream(ArgumentMatchers.<URI> any()))
+                .thenReturn(new FileInputStream("src/test/resources/json/onlySlashesEven.json"));
 
         mockStatic(AuthHelper.class);
         when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
@@ -251,23 +252,11 @@ public class RecordDataExtractorTest {
      * @throws Exception
      *             If any errors occur during the test run.
      */
-    @SuppressWarnings("unchecked")
     @Test
     public void testExtractRecordDataEscapedSlashTrailingSlash() throws Exception {
         final Downloader downloader = mock(Downloader.class);
-        /*
-         * Copy the JSON file to the location the extractor expects to find the file
-         */
-        doAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(final InvocationOnMock invocation) throws Throwable {
-                final Collection<FileRequest> requests = (Collection<FileRequest>) invocation.getArguments()[0];
-                final FileRequest request = requests.iterator().next();
-                FileUtils.copyFile(new File("src/test/resources/json/escapedAndTrailingSlash.json"),
-                        new File(request.getTargetFile()));
-                return null;
-            }
-        }).when(downloader).download(ArgumentMatchers.<Collection<? extends FileRequest>> any());
+        when(downloader.openStream(ArgumentMatchers.<URI> any()))
+                .thenReturn(new FileInputStream("src/test/resources/json/escapedAndTrailingSlash.json"));
 
         mockStatic(AuthHelper.class);
         when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
@@ -287,23 +276,11 @@ public class RecordDataExtractorTest {
      * @throws Exception
      *             If any errors occur during the test run.
      */
-    @SuppressWarnings("unchecked")
     @Test
     public void testExtractRecordDataOnlySlashesOdd() throws Exception {
         final Downloader downloader = mock(Downloader.class);
-        /*
-         * Copy the JSON file to the location the extractor expects to find the file
-         */
-        doAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(final InvocationOnMock invocation) throws Throwable {
-                final Collection<FileRequest> requests = (Collection<FileRequest>) invocation.getArguments()[0];
-                final FileRequest request = requests.iterator().next();
-                FileUtils.copyFile(new File("src/test/resources/json/onlySlashesOdd.json"),
-                        new File(request.getTargetFile()));
-                return null;
-            }
-        }).when(downloader).download(ArgumentMatchers.<Collection<? extends FileRequest>> any());
+        when(downloader.openStream(ArgumentMatchers.<URI> any()))
+                .thenReturn(new FileInputStream("src/test/resources/json/onlySlashesOdd.json"));
 
         mockStatic(AuthHelper.class);
         when(AuthHelper.fromCurrentSubject()).thenReturn(ftpProduct);
@@ -315,23 +292,4 @@ public class RecordDataExtractorTest {
         new RecordDataExtractor(record, environment).extractRecordData();
         assertThat(record.getVC("MULTILINE")).isEqualTo("FirstLine\\\\\"=\"S\"");
     }
-
-    /**
-     * Confirm that the temp data location will be cleaned up.
-     *
-     * @throws IOException
-     *             Not expected but sometimes bad things happen.
-     */
-    @SuppressWarnings("unused")
-    @Test
-    public void testDataCleanup() throws IOException {
-        mockStatic(File.class);
-        final File tempDirectory = mock(File.class);
-        final String username = System.getProperty("user.name").toLowerCase(Locale.getDefault()).replace("$", "");
-        when(File.createTempFile(matches("j4ccl_dataout_" + username + "_-?\\d+\\.json"),
-                ArgumentMatchers.<String> isNull())).thenReturn(tempDirectory);
-        final Record record = RecordFactory.create("REPLY", StructureBuilder.getBuilder().addVC("MULTILINE").build());
-        new RecordDataExtractor(record, environment);
-        verify(tempDirectory).deleteOnExit();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.cerner.ccl.j4ccl.impl.commands.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.impl.util.RecordBinder;
+import com.cerner.ccl.j4ccl.impl.util.RecordSetter;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.record.StructureBuilder;
+import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
+import com.cerner.ccl.j4ccl.ssh.CclCommandTerminal;
+
+/**
+ * Unit tests for {@link RecordPopulator}.
+ */
+
+public class RecordPopulatorTest {
+    /**
+     * A record that takes fewer {@code set} commands than the threshold should be populated by those commands.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSmallRecord() throws Exception {
+        final Record record = createRecord(1);
+        final RecordPopulator populator = new RecordPopulator(record, 10);
+        assertThat(populator.getJsonFile()).isNull();
+        assertThat(populator.getPopulationCommands()).isEqualTo(RecordSetter.getSetterCommands(record));
+    }
+
+    /**
+     * A threshold of zero should disable population from JSON.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testZeroThreshold() throws Exception {
+        assertThat(new RecordPopulator(createRecord(50), 0).getJsonFile()).isNull();
+    }
+
+    /**
+     * A record that takes as many {@code set} commands as the threshold should be written to JSON and loaded with a
+     * single {@code cnvtjsontorec} call.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testLargeRecord() throws Exception {
+        final Record record = createRecord(50);
+        final RecordPopulator populator = new RecordPopulator(record, 10);
+        final File jsonFile = populator.getJsonFile();
+        assertThat(jsonFile).isNotNull();
+
+        try {
+            final Record copy = RecordFactory.create("request", record.getStructure());
+            RecordBinder.bind(new StringReader(FileUtils.readFileToString(jsonFile, StandardCharsets.UTF_8)), copy);
+            assertThat(copy.getDynamicList("ITEMS").getSize()).isEqualTo(50);
+            assertThat(copy.getDynamicList("ITEMS").get(49).getI4("ID")).isEqualTo(50);
+
+            populator.setRemoteJsonLocation(URI.create("/cer_install/" + jsonFile.getName()));
+            assertThat(populator.getPopulationCommands()).contains(
+                    "define rtl3 is '/cer_install/" + jsonFile.getName() + "' go",
+                    "declare j4ccl_record_stat = i4 with noconstant(0) go",
+                    "detail j4ccl_record_chunk = notrim(concat(j4ccl_record_chunk, r.line))",
+                    "if (textlen(j4ccl_record_chunk) >= 64000)",
+                    "foot report j4ccl_record_json = notrim(concat(j4ccl_record_json, j4ccl_record_chunk))",
+                    "set j4ccl_record_stat = cnvtjsontorec(j4ccl_record_json) go",
+                    "set j4ccl_record_remove_stat = remove('/cer_install/" + jsonFile.getName() + "') go",
+                    CclCommandTerminal.getFailureCommand("j4ccl_record_stat != 1",
+                            "cnvtjsontorec failed to populate record " + record.getName()));
+        } finally {
+            populator.deleteJsonFile();
+        }
+        assertThat(jsonFile.exists()).isFalse();
+    }
+
+    /**
+     * The commands of a record populated from JSON cannot be built until its file has been uploaded.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testLargeRecordNotUploaded() throws Exception {
+        final RecordPopulator populator = new RecordPopulator(createRecord(50), 10);
+        try {
+            populator.getPopulationCommands();
+        } finally {
+            populator.deleteJsonFile();
+        }
+    }
+
+    /**
+     * Create a record with a list of items.
+     *
+     * @param itemCount
+     *            The number of items in the list.
+     * @return A {@link Record}.
+     */
+    private static Record createRecord(final int itemCount) {
+        final Record record = RecordFactory.create("request", StructureBuilder.getBuilder()
+                .addDynamicList("ITEMS", StructureBuilder.getBuilder().addI4("ID").build()).build());
+        for (int i = 1; i <= itemCount; i++)
+            record.getDynamicList("ITEMS").addItem().setI4("ID", i);
+        return record;
+    }
+}
@@ -3,6 +3,7 @@ package com.cerner.ccl.j4ccl.impl.data;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -153,6 +154,10 @@ public class EnvironmentTest {
             return "test.skip.envset";
         } else if (testName.getMethodName().equals("testNoSkipEnvset")) {
             return "test.noskip.envset";
+        } else if (testName.getMethodName().startsWith("testGetEnvironmentExec")
+                || testName.getMethodName().startsWith("testGetEnvironmentPersistent")
+                || testName.getMethodName().startsWith("testGetEnvironmentExpired")) {
+            return testName.getMethodName();
         }
         return environmentName;
     }
@@ -248,6 +253,31 @@ public class EnvironmentTest {
         assertThat(env.getCclSource()).isEqualTo("/path/to/alternate/source");
     }
 
+    /**
+     * Test of {@link Environment#getCclSource()} when overridden with a path by the {@link TerminalProperties} of the
+     * current thread.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetCclSourceTerminalPropertiesOverride() throws Exception {
+        BackendNodePrincipal backendPrincipalSourcePathOverride = mock(BackendNodePrincipal.class);
+        when(JaasUtils.getPrincipal(BackendNodePrincipal.class)).thenReturn(backendPrincipalSourcePathOverride);
+        when(backendPrincipalSourcePathOverride.getEnvironmentName()).thenReturn("TerminalPropertiesOverride");
+        TerminalProperties.setThreadTerminalProperties(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setCclSource("/path/from/properties").build());
+        System.setProperty("ccl-cclsource", "/path/to/alternate/source");
+        final Environment env;
+        try {
+            env = Environment.getEnvironment();
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+            System.clearProperty("ccl-cclsource");
+        }
+        assertThat(env.getCclSource()).isEqualTo("/path/from/properties");
+    }
+
     /**
      * Test of {@link Environment#getCclUserDir()}.
      *
@@ -411,7 +441,7 @@ public class EnvironmentTest {
         final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder()
                 .setOsPromptPattern("osPromptPattern").setSkipEnvset(true).build();
         mockStatic(TerminalProperties.class);
-        when(TerminalProperties.getGlobalTerminalProperties()).thenReturn(terminalProperties);
+        when(TerminalProperties.getThreadTerminalProperties()).thenReturn(terminalProperties);
 
         final ArgumentCaptor<TerminalProperties> captorTerminalProperties = ArgumentCaptor
                 .forClass(TerminalProperties.class);
@@ -446,4 +476,143 @@ public class EnvironmentTest {
         assertThat(commandExpectationsGroupsList.get(0).get(0).getCommands().size()).isEqualTo(1);
         assertThat(commandExpectationsGroupsList.get(0).get(0).getCommands().get(0)).contains("envset");
     }
-}
\ No newline at end of file
+
+    /**
+     * Verify that the logicals are retrieved with a single command on an exec channel, without logging into a shell,
+     * when that command succeeds.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetEnvironmentExec() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString())).thenReturn(new TerminalResponse(0,
+                String.format("||cer_proc=%s|| ||cer_temp=%s|| ||cer_install=%s|| ||CCLSOURCE=%s|| ||CCLUSERDIR=%s||%n",
+                        CER_PROC, CER_TEMP, CER_INSTALL, CCLSOURCE, CCLUSERDIR)));
+
+        final Environment env = Environment.getEnvironment();
+        assertThat(env.getCerProc()).isEqualTo(CER_PROC);
+        assertThat(env.getCerTemp()).isEqualTo(CER_TEMP);
+        assertThat(env.getCerInstall()).isEqualTo(CER_INSTALL);
+        assertThat(env.getCclSource()).isEqualTo(CCLSOURCE);
+        assertThat(env.getCclUserDir()).isEqualTo(CCLUSERDIR);
+
+        final ArgumentCaptor<String> commandCaptor = ArgumentCaptor.forClass(String.class);
+        verify(sshTerminal).executeCommand(commandCaptor.capture());
+        assertThat(commandCaptor.getValue()).contains("envset testGetEnvironmentExec ");
+        verify(sshTerminal, never()).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+    }
+
+    /**
+     * Verify that an interactive shell is used when the exec channel does not return all of the logicals.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetEnvironmentExecIncomplete() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString()))
+                .thenReturn(new TerminalResponse(0, "||cer_proc=" + CER_PROC + "||"));
+
+        final Environment env = Environment.getEnvironment();
+        assertThat(env.getCclUserDir()).isEqualTo(CCLUSERDIR);
+        verify(sshTerminal).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+    }
+
+    /**
+     * Verify that environment data found in the persistent cache is used without contacting the server.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetEnvironmentPersistentCacheHit() throws Exception {
+        final EnvironmentCache cache = mock(EnvironmentCache.class);
+        when(cache.get(ArgumentMatchers.anyString()))
+                .thenReturn(String.format("cer_proc=%s%ncer_temp=%s%ncer_install=%s%nCCLSOURCE=%s%nCCLUSERDIR=%s",
+                        CER_PROC, CER_TEMP, CER_INSTALL, CCLSOURCE, CCLUSERDIR));
+        Environment.setPersistentCache(cache);
+        try {
+            final Environment env = Environment.getEnvironment();
+            assertThat(env.getCclUserDir()).isEqualTo(CCLUSERDIR);
+            assertThat(env.getCerTemp()).isEqualTo(CER_TEMP);
+        } finally {
+            Environment.setPersistentCache(null);
+        }
+
+        verify(cache).get("null@null/testgetenvironmentpersistentcachehit");
+        verify(cache, never()).put(ArgumentMatchers.anyString(), ArgumentMatchers.anyString());
+        verify(sshTerminal, never()).executeCommand(ArgumentMatchers.anyString());
+        verify(sshTerminal, never()).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+    }
+
+    /**
+     * Verify that environment data retrieved from the server is stored in the persistent cache.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetEnvironmentPersistentCacheMiss() throws Exception {
+        final EnvironmentCache cache = mock(EnvironmentCache.class);
+        Environment.setPersistentCache(cache);
+        try {
+            Environment.getEnvironment();
+        } finally {
+            Environment.setPersistentCache(null);
+        }
+
+        final ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
+        verify(cache).put(ArgumentMatchers.eq("null@null/testgetenvironmentpersistentcachemiss"), dataCaptor.capture());
+        assertThat(dataCaptor.getValue()).contains("CCLUSERDIR=" + CCLUSERDIR);
+    }
+
+    /**
+     * Verify that an environment kept in memory is retrieved again once the time to live given by the terminal
+     * properties has passed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetEnvironmentExpired() throws Exception {
+        final EnvironmentCache cache = mock(EnvironmentCache.class);
+        Environment.setPersistentCache(cache);
+        TerminalProperties.setThreadTerminalProperties(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setEnvironmentCacheTtl(1).build());
+        try {
+            final Environment env = Environment.getEnvironment();
+            assertThat(Environment.getEnvironment()).isSameAs(env);
+            Thread.sleep(1100);
+            assertThat(Environment.getEnvironment()).isNotSameAs(env);
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+            Environment.setPersistentCache(null);
+        }
+
+        verify(cache, times(2)).get("null@null/testgetenvironmentexpired");
+    }
+
+    /**
+     * Verify that the persistent cache is used only if the terminal properties give it a time to live.
+     */
+    @Test
+    public void testGetPersistentCacheTerminalProperties() {
+        assertThat(Environment.getPersistentCache()).isNull();
+
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        try {
+            TerminalProperties.setThreadTerminalProperties(builder.setEnvironmentCacheTtl(0).build());
+            assertThat(Environment.getPersistentCache()).isNull();
+            TerminalProperties.setThreadTerminalProperties(builder.setEnvironmentCacheTtl(3600).build());
+            final EnvironmentCache cache = Environment.getPersistentCache();
+            assertThat(cache).isInstanceOf(FileEnvironmentCache.class);
+            assertThat(Environment.getPersistentCache()).isSameAs(cache);
+            TerminalProperties.setThreadTerminalProperties(builder.setEnvironmentCacheTtl(60).build());
+            assertThat(Environment.getPersistentCache()).isNotSameAs(cache);
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.cerner.ccl.j4ccl.impl.data;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link FileEnvironmentCache}.
+ */
+
+public class FileEnvironmentCacheTest {
+    private File file;
+
+    /**
+     * Choose a cache file that does not yet exist for each test.
+     */
+    @Before
+    public void setUp() {
+        file = new File("target/unit/environment-cache-" + Long.toString(new Date().getTime()) + "/cache.properties");
+    }
+
+    /**
+     * Remove the cache file after each test.
+     */
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(file.getParentFile());
+    }
+
+    /**
+     * Construction with a {@code null} file should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullFile() {
+        new FileEnvironmentCache(null, 1000);
+    }
+
+    /**
+     * Construction with a time to live that is not positive should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructNonPositiveTimeToLive() {
+        new FileEnvironmentCache(file, 0);
+    }
+
+    /**
+     * Verify that cached data is read back by another cache using the same file, as a later build would.
+     */
+    @Test
+    public void testPutGet() {
+        assertThat(new FileEnvironmentCache(file, 60000).get("user@host/env")).isNull();
+
+        new FileEnvironmentCache(file, 60000).put("user@host/env", "cer_temp=/tmp\nCCLUSERDIR=/ccluserdir");
+        new FileEnvironmentCache(file, 60000).put("user@host/other", "cer_temp=/other");
+
+        final FileEnvironmentCache cache = new FileEnvironmentCache(file, 60000);
+        assertThat(cache.get("user@host/env")).isEqualTo("cer_temp=/tmp\nCCLUSERDIR=/ccluserdir");
+        assertThat(cache.get("user@host/other")).isEqualTo("cer_temp=/other");
+        assertThat(cache.get("other@host/env")).isNull();
+    }
+
+    /**
+     * Verify that a cache rereads its file once another cache has written to it.
+     */
+    @Test
+    public void testGetChangedFile() {
+        final FileEnvironmentCache cache = new FileEnvironmentCache(file, 60000);
+        cache.put("user@host/env", "cer_temp=/tmp");
+        assertThat(cache.get("user@host/other")).isNull();
+
+        new FileEnvironmentCache(file, 60000).put("user@host/other", "cer_temp=/other");
+        assertThat(cache.get("user@host/other")).isEqualTo("cer_temp=/other");
+        assertThat(cache.get("user@host/env")).isEqualTo("cer_temp=/tmp");
+    }
+
+    /**
+     * Verify that expired data is not returned.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetExpired() throws Exception {
+        new FileEnvironmentCache(file, 60000).put("user@host/env", "cer_temp=/tmp");
+        Thread.sleep(20);
+        assertThat(new FileEnvironmentCache(file, 10).get("user@host/env")).isNull();
+    }
+
+    /**
+     * Verify that a cache location that is not a readable file is treated as empty.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetUnreadable() throws Exception {
+        FileUtils.forceMkdirParent(file);
+        FileUtils.forceMkdir(file);
+
+        final FileEnvironmentCache cache = new FileEnvironmentCache(file, 60000);
+        assertThat(cache.get("user@host/env")).isNull();
+    }
+}
@@ -2,10 +2,16 @@ package com.cerner.ccl.j4ccl.impl.util;
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+
 /**
  * Unit tests of {@link CclOutputStreamProxy}.
  *
@@ -43,6 +49,74 @@ public class CclOutputStreamProxyTest {
         proxy.close();
     }
 
+    /**
+     * Verify that data written in bulk is forwarded, even when the keywords are split across writes.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteArraySplitKeywords() throws Exception {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final CclOutputStreamProxy proxy = new CclOutputStreamProxy(stream, OUTPUT_BEGIN, OUTPUT_END);
+        final byte[] bytes = ("not output\n" + OUTPUT_BEGIN + "\nfirst line\nsecond line\n" + OUTPUT_END
+                + "\nnot output either\n").getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; offset += 5)
+            proxy.write(bytes, offset, Math.min(5, bytes.length - offset));
+
+        assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("first line\nsecond line\n");
+        proxy.close();
+    }
+
+    /**
+     * Verify that a line containing the end keyword stops forwarding even if it also contains the begin keyword, and
+     * that multi-byte characters are forwarded intact.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteArrayEndTakesPrecedence() throws Exception {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final CclOutputStreamProxy proxy = new CclOutputStreamProxy(stream, OUTPUT_BEGIN, OUTPUT_END);
+        final byte[] bytes = (OUTPUT_BEGIN + "\nna\u00efve\n" + OUTPUT_BEGIN + OUTPUT_END + "\nnot output\n")
+                .getBytes(StandardCharsets.UTF_8);
+        proxy.write(bytes);
+
+        assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("na\u00efve\n");
+        proxy.close();
+    }
+
+    /**
+     * Verify that forwarded lines are handed to a line consumer without their line terminators.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteLineConsumer() throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        final CclOutputStreamProxy proxy = new CclOutputStreamProxy(new LineConsumer() {
+            @Override
+            public void consume(final String line) {
+                lines.add(line);
+            }
+        }, OUTPUT_BEGIN, OUTPUT_END);
+        proxy.write(("not output\r\n" + OUTPUT_BEGIN + "\r\nfirst line\r\n\nlast line\n" + OUTPUT_END + "\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertThat(lines).containsExactly("first line", "", "last line");
+        proxy.close();
+    }
+
+    /**
+     * Construction with a {@code null} line consumer should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullLineConsumer() {
+        new CclOutputStreamProxy((LineConsumer) null, OUTPUT_BEGIN, OUTPUT_END);
+    }
+
     private static class StringBuilderOutputStream extends OutputStream {
         private final StringBuilder builder = new StringBuilder();
 
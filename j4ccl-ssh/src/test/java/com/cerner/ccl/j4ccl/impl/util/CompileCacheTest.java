@@ -0,0 +1,214 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.Date;
+
+import javax.security.auth.Subject;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+
+/**
+ * Unit tests for {@link CompileCache}.
+ */
+
+public class CompileCacheTest {
+    private File directory;
+    private File cacheFile;
+    private File source;
+
+    /**
+     * Create a source file in a directory of its own for each test.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/unit/compile-cache-" + Long.toString(new Date().getTime()));
+        cacheFile = new File(directory, "cache.properties");
+        source = new File(directory, "a_script.prg");
+        write(source, "create program a_script\n%i cclsource:an_include.inc\nend go");
+        write(new File(directory, "an_include.inc"), "declare x = i4");
+    }
+
+    /**
+     * Remove the test directory after each test.
+     */
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * Construction with a {@code null} file should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullFile() {
+        new CompileCache(null);
+    }
+
+    /**
+     * Verify that the fingerprint is stable and changes with the debug flag and with the content of included files.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFingerprint() throws Exception {
+        final CompileCache cache = new CompileCache(cacheFile);
+        final String fingerprint = cache.fingerprint(source, Collections.<File> emptyList(), false);
+        assertThat(fingerprint).isNotNull();
+        assertThat(cache.fingerprint(source, Collections.<File> emptyList(), false)).isEqualTo(fingerprint);
+        assertThat(cache.fingerprint(source, Collections.<File> emptyList(), true)).isNotEqualTo(fingerprint);
+
+        write(new File(directory, "an_include.inc"), "declare x = i8");
+        assertThat(cache.fingerprint(source, Collections.<File> emptyList(), false)).isNotEqualTo(fingerprint);
+    }
+
+    /**
+     * A source that includes a file that cannot be found locally cannot be fingerprinted.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFingerprintUnresolvedInclude() throws Exception {
+        FileUtils.forceDelete(new File(directory, "an_include.inc"));
+        assertThat(new CompileCache(cacheFile).fingerprint(source, Collections.<File> emptyList(), false)).isNull();
+
+        write(source, "create program a_script\n%i ccluserdir:an_include.inc\nend go");
+        assertThat(new CompileCache(cacheFile).fingerprint(source, Collections.<File> emptyList(), false)).isNull();
+    }
+
+    /**
+     * Verify that recorded compilations are read back by another cache using the same file, as a later build would.
+     */
+    @Test
+    public void testRecord() {
+        final CompileCache cache = new CompileCache(cacheFile);
+        assertThat(cache.isRecorded("key", "fingerprint")).isFalse();
+
+        cache.record("key", "fingerprint", "20260101|12345");
+        cache.record("other", "other fingerprint", null);
+
+        final CompileCache reloaded = new CompileCache(cacheFile);
+        assertThat(reloaded.isRecorded("key", "fingerprint")).isTrue();
+        assertThat(reloaded.isRecorded("key", "changed")).isFalse();
+        assertThat(reloaded.getTimestamp("key")).isEqualTo("20260101|12345");
+        assertThat(reloaded.isRecorded("other", "other fingerprint")).isTrue();
+        assertThat(reloaded.getTimestamp("other")).isNull();
+
+        reloaded.remove("key");
+        assertThat(new CompileCache(cacheFile).isRecorded("key", "fingerprint")).isFalse();
+    }
+
+    /**
+     * Verify that caches sharing a file merge their changes into it rather than overwriting each other's entries.
+     */
+    @Test
+    public void testRecordMerges() {
+        final CompileCache first = new CompileCache(cacheFile);
+        final CompileCache second = new CompileCache(cacheFile);
+
+        first.record("first", "first fingerprint", null);
+        second.record("second", "second fingerprint", null);
+        first.remove("absent");
+
+        final CompileCache reloaded = new CompileCache(cacheFile);
+        assertThat(reloaded.isRecorded("first", "first fingerprint")).isTrue();
+        assertThat(reloaded.isRecorded("second", "second fingerprint")).isTrue();
+        assertThat(second.isRecorded("first", "first fingerprint")).isFalse();
+    }
+
+    /**
+     * Verify that include files are identified by their location relative to the source root.
+     */
+    @Test
+    public void testGetIncludeKey() {
+        final CompileCache cache = new CompileCache(cacheFile, directory);
+        final Subject subject = new Subject();
+        subject.getPrincipals().add(new BackendNodePrincipal("user", "HOST", "ENV"));
+        Subject.doAs(subject, new PrivilegedAction<Void>() {
+            @Override
+            public Void run() {
+                assertThat(cache.getIncludeKey(new File(directory, "an_include.inc")))
+                        .isEqualTo("user@host/env/include:an_include.inc");
+                assertThat(cache.getIncludeKey(new File(new File(directory, "sub"), "an_include.inc")))
+                        .isEqualTo("user@host/env/include:sub/an_include.inc");
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Verify that the cache file set for a thread takes the place of the system property on that thread and on the
+     * threads it creates, but not on others.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testThreadFileProperty() throws Exception {
+        final String threadFile = new File(directory, "thread.properties").getAbsolutePath();
+        System.setProperty(CompileCache.FILE_PROPERTY, cacheFile.getAbsolutePath());
+        try {
+            final String[] observed = new String[2];
+            final Thread other = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    observed[0] = CompileCache.getFileProperty();
+                }
+            });
+
+            CompileCache.setThreadFileProperty(threadFile);
+            final Thread child = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    observed[1] = CompileCache.getFileProperty();
+                }
+            });
+            child.start();
+            child.join();
+            CompileCache.setThreadFileProperty(null);
+            other.start();
+            other.join();
+
+            assertThat(observed[1]).isEqualTo(threadFile);
+            assertThat(observed[0]).isEqualTo(cacheFile.getAbsolutePath());
+            assertThat(CompileCache.getFileProperty()).isEqualTo(cacheFile.getAbsolutePath());
+
+            CompileCache.setThreadFileProperty("");
+            assertThat(CompileCache.getCache()).isNull();
+
+            CompileCache.setThreadFileProperty(threadFile);
+            assertThat(CompileCache.getCache()).isNotSameAs(CompileCache.getCache());
+        } finally {
+            CompileCache.setThreadFileProperty(null);
+            System.clearProperty(CompileCache.FILE_PROPERTY);
+        }
+    }
+
+    /**
+     * Write a file.
+     *
+     * @param file
+     *            The {@link File} to be written.
+     * @param content
+     *            The content of the file.
+     * @throws Exception
+     *             If the file cannot be written.
+     */
+    private static void write(final File file, final String content) throws Exception {
+        FileUtils.writeStringToFile(file, content, Charset.forName("utf-8"));
+    }
+}
@@ -16,6 +16,7 @@ import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.impl.data.Environment;
 
 /**
@@ -207,4 +208,21 @@ public class FileAssistantTest {
 
         assertThat(FileAssistant.createRemotePath(localFile).toString()).isEqualTo(cerInstall + "/" + fileName);
     }
-}
\ No newline at end of file
+
+    /**
+     * Verify that the download compression threshold is taken from the terminal properties of the current thread and
+     * that no files are compressed if there are none.
+     */
+    @Test
+    public void testGetDownloadCompressionThreshold() {
+        assertThat(FileAssistant.getDownloadCompressionThreshold()).isEqualTo(-1L);
+
+        TerminalProperties.setThreadTerminalProperties(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setDownloadCompressionThreshold(65536).build());
+        try {
+            assertThat(FileAssistant.getDownloadCompressionThreshold()).isEqualTo(65536L);
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+        }
+    }
+}
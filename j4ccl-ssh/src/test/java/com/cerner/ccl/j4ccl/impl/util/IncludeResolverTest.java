@@ -0,0 +1,92 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link IncludeResolver}.
+ */
+
+public class IncludeResolverTest {
+    private File directory;
+    private File includeDirectory;
+    private File source;
+
+    /**
+     * Create a source that includes a file which includes another, each in its own directory.
+     *
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = new File("target/unit/include-resolver-" + Long.toString(new Date().getTime()));
+        includeDirectory = new File(directory, "include");
+        source = new File(directory, "a_script.prg");
+        write(source, "create program a_script\n  %I CCLSOURCE:First.inc\nend go");
+        write(new File(includeDirectory, "first.inc"), "%include cclsource:second.inc\n");
+        write(new File(directory, "second.inc"), "declare x = i4");
+    }
+
+    /**
+     * Remove the test directory after each test.
+     */
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * Construction with {@code null} search directories should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullSearchDirectories() {
+        new IncludeResolver(null);
+    }
+
+    /**
+     * Verify that includes are found, in lower case, across the search directories and through other includes.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolve() throws Exception {
+        final IncludeResolver resolver = new IncludeResolver(Arrays.asList(directory, includeDirectory));
+        assertThat(resolver.findIncludes(source))
+                .containsExactly(new File(includeDirectory, "first.inc").getAbsoluteFile());
+        assertThat(new ArrayList<File>(resolver.resolve(Collections.singleton(source)))).containsExactly(
+                source.getAbsoluteFile(), new File(includeDirectory, "first.inc").getAbsoluteFile(),
+                new File(directory, "second.inc").getAbsoluteFile());
+    }
+
+    /**
+     * Includes that are not in cclsource or cannot be found locally cannot be resolved.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveUnresolved() throws Exception {
+        assertThat(new IncludeResolver(Collections.singleton(directory)).resolve(Collections.singleton(source)))
+                .isNull();
+
+        write(source, "create program a_script\n%i ccluserdir:second.inc\nend go");
+        assertThat(new IncludeResolver(Collections.singleton(directory)).findIncludes(source)).isNull();
+    }
+
+    private static void write(final File file, final String content) throws Exception {
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,8 @@ package com.cerner.ccl.j4ccl.impl.util;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
 
 import java.io.OutputStream;
 
@@ -12,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.cerner.ccl.j4ccl.enums.OutputType;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
 
 /**
  * Unit tests for {@link OutputStreamConfiguration}.
@@ -42,7 +45,7 @@ public class OutputStreamConfigurationTest {
     @SuppressWarnings("unused")
     public void testConstructNullOutputStream() {
         NullPointerException e = assertThrows(NullPointerException.class, () -> {
-            new OutputStreamConfiguration(null, type);
+            new OutputStreamConfiguration((OutputStream) null, type);
         });
         assertThat(e.getMessage()).isEqualTo("Output stream cannot be null.");
     }
@@ -67,6 +70,45 @@ public class OutputStreamConfigurationTest {
         assertThat(configuration.getOutputStream()).isEqualTo(stream);
     }
 
+    /**
+     * Construction with a {@code null} {@link LineConsumer} should fail.
+     */
+    @Test
+    @SuppressWarnings("unused")
+    public void testConstructNullLineConsumer() {
+        NullPointerException e = assertThrows(NullPointerException.class, () -> {
+            new OutputStreamConfiguration((LineConsumer) null, type);
+        });
+        assertThat(e.getMessage()).isEqualTo("Line consumer cannot be null.");
+    }
+
+    /**
+     * A configuration created from a plain stream should have no line consumer, while one created from a consumer
+     * should have no stream.
+     */
+    @Test
+    public void testGetLineConsumer() {
+        assertThat(configuration.getLineConsumer()).isNull();
+
+        final LineConsumer consumer = mock(LineConsumer.class);
+        final OutputStreamConfiguration consumerConfiguration = new OutputStreamConfiguration(consumer, type);
+        assertThat(consumerConfiguration.getLineConsumer()).isSameAs(consumer);
+        assertThat(consumerConfiguration.getOutputStream()).isNull();
+    }
+
+    /**
+     * A stream that is also a {@link LineConsumer} should only be written to; the output is given a line at a time only
+     * to a consumer that is explicitly configured.
+     */
+    @Test
+    public void testGetLineConsumerStream() {
+        final OutputStream consumerStream = mock(OutputStream.class,
+                withSettings().extraInterfaces(LineConsumer.class));
+        final OutputStreamConfiguration streamConfiguration = new OutputStreamConfiguration(consumerStream, type);
+        assertThat(streamConfiguration.getOutputStream()).isSameAs(consumerStream);
+        assertThat(streamConfiguration.getLineConsumer()).isNull();
+    }
+
     /**
      * Test the retrieval of the output type.
      */
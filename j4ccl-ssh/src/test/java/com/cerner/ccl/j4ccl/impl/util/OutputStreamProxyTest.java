@@ -64,4 +64,17 @@ public class OutputStreamProxyTest {
         proxy.write(2);
         verify(proxied).write(2);
     }
+
+    /**
+     * Test the writing of an array of bytes.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteArray() throws Exception {
+        final byte[] bytes = new byte[] { 1, 2, 3 };
+        proxy.write(bytes, 1, 2);
+        verify(proxied).write(bytes, 1, 2);
+    }
 }
@@ -0,0 +1,125 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.record.DynamicRecordList;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.record.Structure;
+import com.cerner.ccl.j4ccl.record.StructureBuilder;
+import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Unit tests for {@link RecordBinder}.
+ */
+
+public class RecordBinderTest {
+    private final Structure itemStructure = StructureBuilder.getBuilder().addI4("ID").build();
+
+    /**
+     * Verify that primitive fields, nested records and lists are bound, and that members of the JSON that are not
+     * fields of the structure are skipped.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBind() throws Exception {
+        final Structure nested = StructureBuilder.getBuilder().addF8("AMOUNT").build();
+        final Record record = RecordFactory.create("reply",
+                StructureBuilder.getBuilder().addVC("TEXT").addI2("SMALL").addI4("LARGE").addRecord("CHILD", nested)
+                        .addList("FIXED", itemStructure, 2).addDynamicList("GROWING", itemStructure).build());
+
+        RecordBinder.bind(new StringReader("{\"OTHER\":{\"A\":[1,2]},\"REPLY\":{\"TEXT\":\"text\",\"SMALL\":7,"
+                + "\"LARGE\":70000,\"UNKNOWN\":{\"B\":1},\"CHILD\":{\"AMOUNT\":1.5},\"FIXED\":[{\"ID\":1},{\"ID\":2}],"
+                + "\"GROWING\":[{\"ID\":3},{\"ID\":4},{\"ID\":5}]}}"), record);
+
+        assertThat(record.getVC("TEXT")).isEqualTo("text");
+        assertThat(record.getI2("SMALL")).isEqualTo((short) 7);
+        assertThat(record.getI4("LARGE")).isEqualTo(70000);
+        assertThat(record.getRecord("CHILD").getF8("AMOUNT")).isEqualTo(1.5);
+        assertThat(record.getList("FIXED").get(0).getI4("ID")).isEqualTo(1);
+        assertThat(record.getList("FIXED").get(1).getI4("ID")).isEqualTo(2);
+
+        final DynamicRecordList growing = record.getDynamicList("GROWING");
+        assertThat(growing.getSize()).isEqualTo(3);
+        assertThat(growing.get(2).getI4("ID")).isEqualTo(5);
+    }
+
+    /**
+     * A fixed-length list of one element may be written by CCL as an object rather than an array.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBindShallowList() throws Exception {
+        final Record record = RecordFactory.create("reply",
+                StructureBuilder.getBuilder().addList("FIXED", itemStructure, 1).build());
+        RecordBinder.bind(new StringReader("{\"REPLY\":{\"FIXED\":{\"ID\":9}}}"), record);
+        assertThat(record.getList("FIXED").get(0).getI4("ID")).isEqualTo(9);
+    }
+
+    /**
+     * Verify that consecutive documents are bound one record after another from the same reader.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBindNext() throws Exception {
+        final Structure structure = StructureBuilder.getBuilder().addVC("TEXT").build();
+        final Record request = RecordFactory.create("request", structure);
+        final Record reply = RecordFactory.create("reply", structure);
+
+        final JsonReader reader = RecordBinder
+                .createReader(new StringReader("{\"REQUEST\":{\"TEXT\":\"a\"}}{\"REPLY\":{\"TEXT\":\"b\"}}"));
+        RecordBinder.bindNext(reader, request);
+        RecordBinder.bindNext(reader, reply);
+
+        assertThat(request.getVC("TEXT")).isEqualTo("a");
+        assertThat(reply.getVC("TEXT")).isEqualTo("b");
+    }
+
+    /**
+     * Binding should fail if a field of the record is not in the JSON.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = NoSuchFieldError.class)
+    public void testBindMissingField() throws Exception {
+        final Record record = RecordFactory.create("reply",
+                StructureBuilder.getBuilder().addVC("TEXT").addI4("COUNT").build());
+        RecordBinder.bind(new StringReader("{\"REPLY\":{\"TEXT\":\"text\"}}"), record);
+    }
+
+    /**
+     * Binding should fail if the record is not in the JSON.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindMissingRecord() throws Exception {
+        final Record record = RecordFactory.create("reply", StructureBuilder.getBuilder().addVC("TEXT").build());
+        RecordBinder.bind(new StringReader("{\"REQUEST\":{\"TEXT\":\"text\"}}"), record);
+    }
+
+    /**
+     * Binding should fail if a fixed-length list has a different number of elements than the JSON.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testBindFixedListSizeMismatch() throws Exception {
+        final Record record = RecordFactory.create("reply",
+                StructureBuilder.getBuilder().addList("FIXED", itemStructure, 3).build());
+        RecordBinder.bind(new StringReader("{\"REPLY\":{\"FIXED\":[{\"ID\":1},{\"ID\":2}]}}"), record);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Date;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.record.DynamicRecordList;
+import com.cerner.ccl.j4ccl.record.Record;
+import com.cerner.ccl.j4ccl.record.Structure;
+import com.cerner.ccl.j4ccl.record.StructureBuilder;
+import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
+
+/**
+ * Unit tests for {@link RecordJsonWriter}.
+ */
+
+public class RecordJsonWriterTest {
+    private final Structure itemStructure = StructureBuilder.getBuilder().addI4("ID").addVC("NAME").build();
+
+    /**
+     * Verify that a record written as JSON is read back into an identical record.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        final Structure structure = StructureBuilder.getBuilder().addVC("TEXT").addI2("SMALL").addF8("AMOUNT")
+                .addDQ8("WHEN").addList("FIXED", itemStructure, 2).addDynamicList("GROWING", itemStructure).build();
+        final Record record = RecordFactory.create("request", structure);
+        record.setVC("TEXT", "a \"quoted\" <value>");
+        record.setI2("SMALL", (short) 3);
+        record.setF8("AMOUNT", 2.5);
+        record.setDQ8("WHEN", new Date(1262304000000L));
+        record.getList("FIXED").get(1).setI4("ID", 7);
+        final DynamicRecordList growing = record.getDynamicList("GROWING");
+        for (int i = 0; i < 3; i++)
+            growing.addItem().setVC("NAME", "item " + i);
+
+        final StringWriter json = new StringWriter();
+        RecordJsonWriter.write(record, json);
+        assertThat(json.toString()).startsWith("{\"REQUEST\":{");
+        assertThat(json.toString()).contains("\"TEXT\":\"a \\\"quoted\\\" <value>\"");
+        assertThat(json.toString()).contains("\"SMALL\":3");
+        assertThat(json.toString()).contains("\"AMOUNT\":2.5");
+        assertThat(json.toString()).contains("\"WHEN\":\"/Date(2010-01-01T00:00:00.000+00:00)/\"");
+
+        final Record copy = RecordFactory.create("request", structure);
+        RecordBinder.bind(new StringReader(json.toString()), copy);
+        assertThat(copy.getVC("TEXT")).isEqualTo(record.getVC("TEXT"));
+        assertThat(copy.getI2("SMALL")).isEqualTo((short) 3);
+        assertThat(copy.getF8("AMOUNT")).isEqualTo(2.5);
+        assertThat(copy.getDQ8("WHEN")).isEqualTo(record.getDQ8("WHEN"));
+        assertThat(copy.getList("FIXED").get(1).getI4("ID")).isEqualTo(7);
+        assertThat(copy.getDynamicList("GROWING").getSize()).isEqualTo(3);
+        assertThat(copy.getDynamicList("GROWING").get(2).getVC("NAME")).isEqualTo("item 2");
+    }
+
+    /**
+     * A missing date should be written as CCL's zero date.
+     */
+    @Test
+    public void testFormatDateNull() {
+        assertThat(RecordJsonWriter.formatDate(null)).isEqualTo("/Date(0000-00-00T00:00:00.000+00:00)/");
+    }
+
+    /**
+     * Long JSON should be broken into lines that are restored by joining them without separators.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteLongLines() throws Exception {
+        final Record record = RecordFactory.create("request", StructureBuilder.getBuilder().addVC("TEXT").build());
+        final String value = StringUtils.repeat("xy ", RecordJsonWriter.LINE_LENGTH);
+        record.setVC("TEXT", value);
+
+        final StringWriter json = new StringWriter();
+        RecordJsonWriter.write(record, json);
+
+        final String[] lines = json.toString().split("\n");
+        assertThat(lines.length).isGreaterThan(1);
+        for (final String line : lines) {
+            assertThat(line.length()).isLessThanOrEqualTo(RecordJsonWriter.LINE_LENGTH + 2);
+            assertThat(line).isEqualTo(line.trim());
+        }
+
+        final Record copy = RecordFactory.create("request", StructureBuilder.getBuilder().addVC("TEXT").build());
+        RecordBinder.bind(new StringReader(StringUtils.join(lines)), copy);
+        assertThat(copy.getVC("TEXT")).isEqualTo(value);
+    }
+}
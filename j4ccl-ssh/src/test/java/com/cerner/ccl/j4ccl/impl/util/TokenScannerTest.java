@@ -0,0 +1,62 @@
+package com.cerner.ccl.j4ccl.impl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TokenScanner}.
+ */
+
+public class TokenScannerTest {
+    /**
+     * Construction without any tokens should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructNoTokens() {
+        new TokenScanner();
+    }
+
+    /**
+     * Construction with an empty token should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructEmptyToken() {
+        new TokenScanner("token", "");
+    }
+
+    /**
+     * Construction with more tokens than can be reported should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructTooManyTokens() {
+        final String[] tokens = new String[Integer.SIZE + 1];
+        for (int i = 0; i < tokens.length; i++)
+            tokens[i] = "token" + i;
+        new TokenScanner(tokens);
+    }
+
+    /**
+     * Verify that each token is reported at the byte that ends it, including tokens that overlap or are found after a
+     * partial match of another token.
+     */
+    @Test
+    public void testScan() {
+        final TokenScanner scanner = new TokenScanner("abcd", "bc", "aab");
+        assertThat(scan(scanner, "xaabcd")).isEqualTo(new int[] { 0, 0, 0, 4, 2, 1 });
+        assertThat(scan(scanner, "abcabcd")).isEqualTo(new int[] { 0, 0, 2, 0, 0, 2, 1 });
+    }
+
+    private int[] scan(final TokenScanner scanner, final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final int[] matches = new int[bytes.length];
+        int state = scanner.getInitialState();
+        for (int i = 0; i < bytes.length; i++) {
+            state = scanner.next(state, bytes[i]);
+            matches[i] = scanner.getMatches(state);
+        }
+        return matches;
+    }
+}
@@ -1,8 +1,11 @@
 package com.cerner.ccl.j4ccl.ssh;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -17,12 +20,18 @@ import com.cerner.ccl.j4ccl.impl.jaas.MillenniumDomainPrincipal;
 import com.cerner.ccl.j4ccl.impl.util.CclOutputStreamProxy;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamConfiguration;
 import com.cerner.ccl.j4ccl.impl.util.OutputStreamProxy;
+import com.cerner.ccl.j4ccl.ssh.exception.SshCommandSetException;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+import com.cerner.ccl.j4ccl.util.LineConsumerOutputStream;
 import com.google.code.jetm.reporting.ext.PointFactory;
 import etm.core.monitor.EtmPoint;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -32,6 +41,8 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -44,7 +55,8 @@ import org.powermock.modules.junit4.PowerMockRunner;
 @PowerMockIgnore("javax.security.*")
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(value = { CclOutputStreamProxy.class, CclCommandTerminal.class, JaasUtils.class,
-        OutputStreamProxy.class, com.google.code.jetm.reporting.ext.PointFactory.class })
+        LineConsumerOutputStream.class, OutputStreamProxy.class,
+        com.google.code.jetm.reporting.ext.PointFactory.class })
 public class CclCommandTerminalTest {
     private static final String hostName = "TheHostName";
     private static final String environmentName = "environment.name";
@@ -220,8 +232,9 @@ public class CclCommandTerminalTest {
         assertThat(commandExpectationGroups.get(3).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern"));
         assertThat(commandExpectationGroups.get(4).getCommands())
                 .isEqualTo(Arrays.asList("set width 132 go", command1));
-        assertThat(commandExpectationGroups.get(4).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern",
-                CclCommandTerminal.CCL_VIEWER_PATTERN, CclCommandTerminal.CCL_ABORT_PATTERN));
+        assertThat(commandExpectationGroups.get(4).getExpectations())
+                .isEqualTo(Arrays.asList("cclPromptPattern", CclCommandTerminal.CCL_VIEWER_PATTERN,
+                        CclCommandTerminal.CCL_ABORT_PATTERN, CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN));
         assertThat(commandExpectationGroups.get(5).getCommands()).isEqualTo(Arrays.asList("exit"));
         assertThat(commandExpectationGroups.get(5).getExpectations()).isEqualTo(Arrays.asList("osPromptPattern"));
 
@@ -269,8 +282,9 @@ public class CclCommandTerminalTest {
         assertThat(commandExpectationGroups.get(6).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern"));
         assertThat(commandExpectationGroups.get(7).getCommands())
                 .isEqualTo(Arrays.asList("set width 132 go", command1));
-        assertThat(commandExpectationGroups.get(7).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern",
-                CclCommandTerminal.CCL_VIEWER_PATTERN, CclCommandTerminal.CCL_ABORT_PATTERN));
+        assertThat(commandExpectationGroups.get(7).getExpectations())
+                .isEqualTo(Arrays.asList("cclPromptPattern", CclCommandTerminal.CCL_VIEWER_PATTERN,
+                        CclCommandTerminal.CCL_ABORT_PATTERN, CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN));
         assertThat(commandExpectationGroups.get(8).getCommands()).isEqualTo(Arrays.asList("exit"));
         assertThat(commandExpectationGroups.get(8).getExpectations()).isEqualTo(Arrays.asList("osPromptPattern"));
         verify(sshTerminal).setExpectationTimeout(333);
@@ -337,8 +351,9 @@ public class CclCommandTerminalTest {
         assertThat(commandExpectationGroups.get(6).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern"));
         assertThat(commandExpectationGroups.get(7).getCommands())
                 .isEqualTo(Arrays.asList("set width 132 go", command1, command2, command3));
-        assertThat(commandExpectationGroups.get(7).getExpectations()).isEqualTo(Arrays.asList("cclPromptPattern",
-                CclCommandTerminal.CCL_VIEWER_PATTERN, CclCommandTerminal.CCL_ABORT_PATTERN));
+        assertThat(commandExpectationGroups.get(7).getExpectations())
+                .isEqualTo(Arrays.asList("cclPromptPattern", CclCommandTerminal.CCL_VIEWER_PATTERN,
+                        CclCommandTerminal.CCL_ABORT_PATTERN, CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN));
         assertThat(commandExpectationGroups.get(8).getCommands()).isEqualTo(Arrays.asList("exit"));
         assertThat(commandExpectationGroups.get(8).getExpectations()).isEqualTo(Arrays.asList("osPromptPattern"));
 
@@ -421,4 +436,480 @@ public class CclCommandTerminalTest {
                 .isEqualTo(Arrays.asList("set width 132 go", "a command go"));
         assertThat(commandExpectationGroups.get(5).getCommands()).isEqualTo(Arrays.asList("exit"));
     }
+
+    /**
+     * Verify that the CCL session output is handed to the configured line consumer and that the proxy is closed once
+     * the commands have been executed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSetCclLineConsumer() throws Exception {
+        final LineConsumer lineConsumer = mock(LineConsumer.class);
+        final CclOutputStreamProxy proxy = mock(CclOutputStreamProxy.class);
+        whenNew(CclOutputStreamProxy.class)
+                .withArguments(lineConsumer, CclCommandTerminal.OUTPUT_START, CclCommandTerminal.OUTPUT_END)
+                .thenReturn(proxy);
+
+        final OutputStreamConfiguration streamConfiguration = mock(OutputStreamConfiguration.class);
+        when(streamConfiguration.getLineConsumer()).thenReturn(lineConsumer);
+        when(streamConfiguration.getOutputType()).thenReturn(OutputType.CCL_SESSION);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), streamConfiguration);
+        terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), false);
+
+        verify(sshTerminal).setOutputStream(proxy);
+        verify(proxy).close();
+    }
+
+    /**
+     * Verify that all session output is handed to the configured line consumer and that any unterminated output is
+     * handed over once the commands have been executed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSetFullDebugLineConsumer() throws Exception {
+        final LineConsumer lineConsumer = mock(LineConsumer.class);
+        final LineConsumerOutputStream stream = mock(LineConsumerOutputStream.class);
+        whenNew(LineConsumerOutputStream.class).withArguments(lineConsumer).thenReturn(stream);
+
+        final OutputStreamConfiguration streamConfiguration = mock(OutputStreamConfiguration.class);
+        when(streamConfiguration.getLineConsumer()).thenReturn(lineConsumer);
+        when(streamConfiguration.getOutputType()).thenReturn(OutputType.FULL_DEBUG);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), streamConfiguration);
+        terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), false);
+
+        verify(sshTerminal).setOutputStream(stream);
+        verify(stream).close();
+    }
+
+    /**
+     * Verify that several command sets are issued within a single session, with the output markers wrapping all of
+     * them.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandSets() throws Exception {
+        final OutputStream outputStream = mock(OutputStream.class);
+        final CclOutputStreamProxy proxy = mock(CclOutputStreamProxy.class);
+        whenNew(CclOutputStreamProxy.class)
+                .withArguments(outputStream, CclCommandTerminal.OUTPUT_START, CclCommandTerminal.OUTPUT_END)
+                .thenReturn(proxy);
+
+        final OutputStreamConfiguration streamConfiguration = mock(OutputStreamConfiguration.class);
+        when(streamConfiguration.getOutputStream()).thenReturn(outputStream);
+        when(streamConfiguration.getOutputType()).thenReturn(OutputType.CCL_SESSION);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), streamConfiguration);
+        terminal.executeCommandSets(sshTerminal,
+                Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go"), Arrays.asList("third go")), false);
+
+        final ArgumentCaptor<List<CommandExpectationGroup>> commandGroupsCaptor = argumentCaptorListCommandExpectationGroup;
+        verify(sshTerminal).executeCommandGroups(commandGroupsCaptor.capture());
+        final List<CommandExpectationGroup> commandExpectationGroups = commandGroupsCaptor.getValue();
+        assertThat(commandExpectationGroups.size()).isEqualTo(8);
+        assertThat(commandExpectationGroups.get(4).getCommands())
+                .isEqualTo(Arrays.asList("set width 132 go", CclCommandTerminal.CCL_OUTPUT_START_COMMAND, "first go"));
+        assertThat(commandExpectationGroups.get(5).getCommands()).isEqualTo(Arrays.asList("second go"));
+        assertThat(commandExpectationGroups.get(6).getCommands())
+                .isEqualTo(Arrays.asList("third go", CclCommandTerminal.CCL_OUTPUT_END_COMMAND));
+        assertThat(commandExpectationGroups.get(6).getExpectations())
+                .isEqualTo(commandExpectationGroups.get(4).getExpectations());
+        assertThat(commandExpectationGroups.get(7).getCommands()).isEqualTo(Arrays.asList("exit"));
+        verify(jetmMock).collect();
+    }
+
+    /**
+     * Verify that a failure within one of several command sets is reported with the index of the failing set.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandSetsFailure() throws Exception {
+        final SshException cause = new SshException("failed");
+        doThrow(cause).when(sshTerminal).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        when(sshTerminal.getCommandGroupIndex()).thenReturn(5);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        try {
+            terminal.executeCommandSets(sshTerminal,
+                    Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go"), Arrays.asList("third go")),
+                    false);
+            fail("No exception thrown.");
+        } catch (final SshCommandSetException e) {
+            assertThat(e.getCommandSetIndex()).isEqualTo(1);
+            assertThat(e.getSshCause()).isSameAs(cause);
+        }
+    }
+
+    /**
+     * Verify that a failure to exit CCL after every command set was executed is reported with the number of sets as its
+     * index.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandSetsExitFailure() throws Exception {
+        final SshException cause = new SshException("failed");
+        doThrow(cause).when(sshTerminal).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        when(sshTerminal.getCommandGroupIndex()).thenReturn(6);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        try {
+            terminal.executeCommandSets(sshTerminal,
+                    Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go")), false);
+            fail("No exception thrown.");
+        } catch (final SshCommandSetException e) {
+            assertThat(e.getCommandSetIndex()).isEqualTo(2);
+            assertThat(e.getSshCause()).isSameAs(cause);
+        }
+    }
+
+    /**
+     * Verify that a failure outside of the command sets is reported as is by
+     * {@link CclCommandTerminal#executeCommands(JSchSshTerminal, List, boolean)}.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandsFailure() throws Exception {
+        final SshException cause = new SshException("failed");
+        doThrow(cause).when(sshTerminal).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        when(sshTerminal.getCommandGroupIndex()).thenReturn(4);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        try {
+            terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), false);
+            fail("No exception thrown.");
+        } catch (final SshException e) {
+            assertThat(e).isSameAs(cause);
+        }
+    }
+
+    /**
+     * Verify that, when batch execution is requested, commands that need no interaction are piped to CCL over an exec
+     * channel along with the login and exit of CCL rather than being issued at its prompts, and that the output of CCL
+     * is forwarded without the markers that separate the command sets.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandSetsBatch() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(OutputStream.class), ArgumentMatchers.eq(PromptMatcher.TIMEOUT_INFINITE)))
+                        .thenAnswer(new Answer<TerminalResponse>() {
+                            @Override
+                            public TerminalResponse answer(final InvocationOnMock invocation) throws Throwable {
+                                invocation.getArgument(2, OutputStream.class)
+                                        .write(invocation.getArgument(1, String.class).getBytes("UTF-8"));
+                                return new TerminalResponse(0, "");
+                            }
+                        });
+        final List<String> lines = new ArrayList<String>();
+        final LineConsumer lineConsumer = new LineConsumer() {
+            @Override
+            public void consume(final String line) {
+                lines.add(line);
+            }
+        };
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").setSpecifyDebugCcl(false)
+                        .setBatchExecution(true).build(),
+                new OutputStreamConfiguration(lineConsumer, OutputType.FULL_DEBUG));
+        terminal.executeCommandSets(sshTerminal, Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go")),
+                false, false);
+
+        final ArgumentCaptor<String> inputCaptor = ArgumentCaptor.forClass(String.class);
+        verify(sshTerminal).executeCommand(
+                ArgumentMatchers.eq("[ -f \"$HOME/.profile\" ] && . \"$HOME/.profile\" " + "> /dev/null 2>&1; envset "
+                        + environmentName + " > /dev/null 2>&1 && ccl"),
+                inputCaptor.capture(), ArgumentMatchers.any(OutputStream.class),
+                ArgumentMatchers.eq(PromptMatcher.TIMEOUT_INFINITE));
+        verify(sshTerminal, never()).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+
+        final List<String> input = Arrays.asList(inputCaptor.getValue().split("\n"));
+        assertThat(input.size()).isEqualTo(11);
+        assertThat(input.subList(0, 5)).isEqualTo(Arrays.asList("", "", "reset", "%t", "set width 132 go"));
+        assertThat(input.get(5)).matches("call echo\\(\"J4CCL_BATCH_\\w+_0\"\\) go");
+        assertThat(input.get(6)).isEqualTo("first go");
+        assertThat(input.get(7)).matches("call echo\\(\"J4CCL_BATCH_\\w+_1\"\\) go");
+        assertThat(input.get(8)).isEqualTo("second go");
+        assertThat(input.get(9)).matches("call echo\\(\"J4CCL_BATCH_\\w+_END\"\\) go");
+        assertThat(input.get(10)).isEqualTo("exit");
+
+        assertThat(lines)
+                .isEqualTo(Arrays.asList("", "", "reset", "%t", "set width 132 go", "first go", "second go", "exit"));
+    }
+
+    /**
+     * Verify that an abort of CCL during batch execution is attributed to the command set that was executing.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteCommandSetsBatchFailure() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(OutputStream.class), ArgumentMatchers.eq(PromptMatcher.TIMEOUT_INFINITE)))
+                        .thenAnswer(new Answer<TerminalResponse>() {
+                            @Override
+                            public TerminalResponse answer(final InvocationOnMock invocation) throws Throwable {
+                                final String input = invocation.getArgument(1, String.class);
+                                final int abortIndex = input.indexOf("second go\n") + "second go\n".length();
+                                invocation.getArgument(2, OutputStream.class).write(
+                                        (input.substring(0, abortIndex) + "Aborted (core dumped)\n").getBytes("UTF-8"));
+                                return new TerminalResponse(134, "");
+                            }
+                        });
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setBatchExecution(true).build(), null);
+        try {
+            terminal.executeCommandSets(sshTerminal,
+                    Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go"), Arrays.asList("third go")),
+                    false, false);
+            fail("No exception thrown.");
+        } catch (final SshCommandSetException e) {
+            assertThat(e.getCommandSetIndex()).isEqualTo(1);
+            assertThat(e.getSshCause().getMessage()).isEqualTo("CCL session abort detected");
+        }
+    }
+
+    /**
+     * Verify that a failure echoed by a command during batch execution is attributed to the command set that echoed it.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteCommandSetsBatchCommandFailure() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(OutputStream.class), ArgumentMatchers.eq(PromptMatcher.TIMEOUT_INFINITE)))
+                        .thenAnswer(new Answer<TerminalResponse>() {
+                            @Override
+                            public TerminalResponse answer(final InvocationOnMock invocation) throws Throwable {
+                                final String input = invocation.getArgument(1, String.class);
+                                final int failureIndex = input.indexOf("first go\n") + "first go\n".length();
+                                invocation.getArgument(2, OutputStream.class)
+                                        .write((input.substring(0, failureIndex) + "J4CCL_COMMAND_FAILED: no record\n")
+                                                .getBytes("UTF-8"));
+                                return new TerminalResponse(0, "");
+                            }
+                        });
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setBatchExecution(true).build(), null);
+        try {
+            terminal.executeCommandSets(sshTerminal,
+                    Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go")), false, false);
+            fail("No exception thrown.");
+        } catch (final SshCommandSetException e) {
+            assertThat(e.getCommandSetIndex()).isEqualTo(0);
+            assertThat(e.getSshCause().getMessage())
+                    .isEqualTo("CCL command failure detected: J4CCL_COMMAND_FAILED: no record");
+        }
+    }
+
+    /**
+     * Verify that the command that echoes a failure does not itself contain the failure it echoes.
+     */
+    @Test
+    public void testGetFailureCommand() {
+        final String command = CclCommandTerminal.getFailureCommand("stat != 1", "no record");
+        assertThat(command).isEqualTo("select into 'nl:' from dummyt d where stat != 1"
+                + " detail call echo(concat(\"J4CCL_COMMAND\", \"_FAILED: no record\")) with nocounter go");
+        assertThat(Pattern.compile(CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN).matcher(command + "\n").find())
+                .isFalse();
+        assertThat(Pattern.compile(CclCommandTerminal.CCL_COMMAND_FAILURE_PATTERN)
+                .matcher("J4CCL_COMMAND_FAILED: no record\n").matches()).isTrue();
+    }
+
+    /**
+     * Verify that an exit of CCL before the last command set completes during batch execution is attributed to the last
+     * command set to start.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteCommandSetsBatchIncomplete() throws Exception {
+        when(sshTerminal.executeCommand(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(OutputStream.class), ArgumentMatchers.eq(PromptMatcher.TIMEOUT_INFINITE)))
+                        .thenAnswer(new Answer<TerminalResponse>() {
+                            @Override
+                            public TerminalResponse answer(final InvocationOnMock invocation) throws Throwable {
+                                final String input = invocation.getArgument(1, String.class);
+                                invocation.getArgument(2, OutputStream.class)
+                                        .write(input.substring(0, input.indexOf("first go")).getBytes("UTF-8"));
+                                return new TerminalResponse(1, "");
+                            }
+                        });
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setBatchExecution(true).build(), null);
+        try {
+            terminal.executeCommandSets(sshTerminal,
+                    Arrays.asList(Arrays.asList("first go"), Arrays.asList("second go")), false, false);
+            fail("No exception thrown.");
+        } catch (final SshCommandSetException e) {
+            assertThat(e.getCommandSetIndex()).isEqualTo(0);
+            assertThat(e.getSshCause().getMessage())
+                    .isEqualTo("CCL exited with status 1 before completing the commands");
+        }
+    }
+
+    /**
+     * Verify that commands needing interaction, or a session needing authentication, are issued at the prompts of an
+     * interactive session even when batch execution is requested.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecuteCommandsBatchInteractive() throws Exception {
+        final CclCommandTerminal terminal = new CclCommandTerminal(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setBatchExecution(true).build(), null);
+        terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), false, true);
+        terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), true, false);
+
+        verify(sshTerminal, times(2)).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        verify(sshTerminal, never()).executeCommand(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+                ArgumentMatchers.any(OutputStream.class), ArgumentMatchers.anyLong());
+    }
+
+    /**
+     * Verify that, within an open session, only the session commands are issued and they are issued through the
+     * terminal of the session.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteCommandsInSession() throws Exception {
+        final CclSession session = mock(CclSession.class);
+        when(session.getTerminal()).thenReturn(sshTerminal);
+        final JSchSshTerminal unusedTerminal = mock(JSchSshTerminal.class);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null, session);
+        terminal.executeCommands(unusedTerminal, Collections.singletonList("a command go"), true);
+
+        final ArgumentCaptor<List<CommandExpectationGroup>> commandGroupsCaptor = argumentCaptorListCommandExpectationGroup;
+        verify(sshTerminal).executeCommandGroups(commandGroupsCaptor.capture());
+        final List<CommandExpectationGroup> commandExpectationGroups = commandGroupsCaptor.getValue();
+        assertThat(commandExpectationGroups.size()).isEqualTo(1);
+        assertThat(commandExpectationGroups.get(0).getCommands())
+                .isEqualTo(Arrays.asList("set width 132 go", "a command go"));
+        verify(session).resetOutputStream();
+        verify(unusedTerminal, never()).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        verify(session, never()).invalidate();
+    }
+
+    /**
+     * Verify that a failure within an open session invalidates the session.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteCommandsInSessionFailure() throws Exception {
+        final CclSession session = mock(CclSession.class);
+        when(session.getTerminal()).thenReturn(sshTerminal);
+        final SshException cause = new SshException("failed");
+        doThrow(cause).when(sshTerminal).executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        when(sshTerminal.getCommandGroupIndex()).thenReturn(0);
+
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null, session);
+        try {
+            terminal.executeCommands(sshTerminal, Collections.singletonList("a command go"), false);
+            fail("No exception thrown.");
+        } catch (final SshException e) {
+            assertThat(e).isSameAs(cause);
+        }
+        verify(session).invalidate();
+    }
+
+    /**
+     * Verify that opening a session opens the terminal and logs into CCL without exiting it.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenSession() throws Exception {
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        terminal.openSession(sshTerminal, false);
+
+        verify(sshTerminal).open();
+        final ArgumentCaptor<List<CommandExpectationGroup>> commandGroupsCaptor = argumentCaptorListCommandExpectationGroup;
+        verify(sshTerminal).executeCommandGroups(commandGroupsCaptor.capture());
+        final List<CommandExpectationGroup> commandExpectationGroups = commandGroupsCaptor.getValue();
+        assertThat(commandExpectationGroups.size()).isEqualTo(4);
+        assertThat(commandExpectationGroups.get(3).getCommands()).isEqualTo(Arrays.asList("reset", "%t"));
+        verify(sshTerminal, never()).close();
+    }
+
+    /**
+     * Verify that a failed login closes the terminal.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenSessionFailure() throws Exception {
+        doThrow(new SshException("failed")).when(sshTerminal)
+                .executeCommandGroups(ArgumentMatchers.<List<CommandExpectationGroup>> any());
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        try {
+            terminal.openSession(sshTerminal, false);
+            fail("No exception thrown.");
+        } catch (final SshException e) {
+            // This should happen
+        }
+        verify(sshTerminal).close();
+    }
+
+    /**
+     * Verify that closing a session exits CCL and closes the terminal.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCloseSession() throws Exception {
+        final CclCommandTerminal terminal = new CclCommandTerminal(
+                TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build(), null);
+        terminal.closeSession(sshTerminal);
+
+        final ArgumentCaptor<List<CommandExpectationGroup>> commandGroupsCaptor = argumentCaptorListCommandExpectationGroup;
+        verify(sshTerminal).executeCommandGroups(commandGroupsCaptor.capture());
+        assertThat(commandGroupsCaptor.getValue().get(0).getCommands()).isEqualTo(Arrays.asList("exit"));
+        verify(sshTerminal).close();
+    }
 }
@@ -0,0 +1,237 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.Subject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+
+/**
+ * Unit tests for {@link CclSessionPool}.
+ */
+
+public class CclSessionPoolTest {
+    private final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder()
+            .setOsPromptPattern("osPromptPattern").build();
+    private final CclSessionPool.Key key = new CclSessionPool.Key("user", "host", "env", null, null,
+            terminalProperties);
+    private final Deque<CclSession> createdSessions = new ArrayDeque<CclSession>();
+    private CclSessionPool pool;
+
+    /**
+     * Create a pool whose sessions are supplied by the test.
+     */
+    @Before
+    public void setUp() {
+        pool = new CclSessionPool(1) {
+            @Override
+            CclSessionPool.Key createKey(final TerminalProperties properties) {
+                return key;
+            }
+
+            @Override
+            CclSession createSession(final CclSessionPool.Key key, final TerminalProperties properties) {
+                return createdSessions.pop();
+            }
+        };
+    }
+
+    /**
+     * A negative maximum should be rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructNegativeMaximum() {
+        new CclSessionPool(-1);
+    }
+
+    /**
+     * Verify that sessions opened with different terminal properties are pooled under different keys.
+     */
+    @Test
+    public void testCreateKey() {
+        final TerminalProperties other = TerminalProperties.getNewBuilder().setOsPromptPattern("otherPromptPattern")
+                .build();
+        final Subject subject = new Subject();
+        subject.getPrincipals().add(new BackendNodePrincipal("user", "host", "env"));
+        Subject.doAs(subject, new PrivilegedAction<Void>() {
+            @Override
+            public Void run() {
+                final CclSessionPool keyedPool = new CclSessionPool(1);
+                final CclSessionPool.Key created = keyedPool.createKey(terminalProperties);
+                assertThat(created).isEqualTo(key);
+                assertThat(created.toString()).isEqualTo("user@host:env");
+                assertThat(keyedPool
+                        .createKey(TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern").build()))
+                                .isEqualTo(created);
+                assertThat(keyedPool.createKey(other)).isNotEqualTo(created);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Verify that a new session is opened when none is idle.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBorrowOpensNewSession() throws Exception {
+        final CclSession session = createSession();
+
+        assertThat(pool.borrowSession(terminalProperties)).isSameAs(session);
+        verify(session).open();
+        verify(session, never()).validate();
+    }
+
+    /**
+     * Verify that a returned session is validated and reused.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBorrowReusesValidatedSession() throws Exception {
+        final CclSession session = createSession();
+        when(session.validate()).thenReturn(true);
+
+        pool.returnSession(pool.borrowSession(terminalProperties));
+        assertThat(pool.getIdleCount(key)).isEqualTo(1);
+
+        assertThat(pool.borrowSession(terminalProperties)).isSameAs(session);
+        assertThat(pool.getIdleCount(key)).isEqualTo(0);
+        verify(session).open();
+        verify(session).validate();
+    }
+
+    /**
+     * Verify that an idle session that fails validation is closed and replaced.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBorrowDiscardsInvalidSession() throws Exception {
+        final CclSession stale = createSession();
+        final CclSession fresh = createSession();
+        when(stale.validate()).thenReturn(false);
+
+        pool.returnSession(pool.borrowSession(terminalProperties));
+        assertThat(pool.borrowSession(terminalProperties)).isSameAs(fresh);
+        verify(stale).close();
+        verify(fresh).open();
+    }
+
+    /**
+     * Verify that a failure to open a new session is propagated.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = SshException.class)
+    public void testBorrowOpenFailure() throws Exception {
+        final CclSession session = createSession();
+        doThrow(new SshException("failed")).when(session).open();
+        pool.borrowSession(terminalProperties);
+    }
+
+    /**
+     * Verify that invalid sessions and sessions beyond the idle maximum are closed when returned.
+     */
+    @Test
+    public void testReturnSession() {
+        final CclSession kept = createReturnableSession(true);
+        final CclSession excess = createReturnableSession(true);
+        final CclSession invalid = createReturnableSession(false);
+
+        pool.returnSession(kept);
+        pool.returnSession(excess);
+        pool.returnSession(invalid);
+
+        assertThat(pool.getIdleCount(key)).isEqualTo(1);
+        verify(kept, never()).close();
+        verify(excess).close();
+        verify(invalid).close();
+    }
+
+    /**
+     * A {@code null} session cannot be returned.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testReturnNullSession() {
+        pool.returnSession(null);
+    }
+
+    /**
+     * Verify that closing the pool closes its idle sessions.
+     */
+    @Test
+    public void testCloseAll() {
+        final CclSession session = createReturnableSession(true);
+        pool.returnSession(session);
+
+        pool.closeAll();
+        assertThat(pool.getIdleCount(key)).isEqualTo(0);
+        verify(session).close();
+    }
+
+    /**
+     * Verify that sessions idle for longer than the idle timeout are closed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testEvictIdleSessions() throws Exception {
+        final CclSessionPool evictingPool = new CclSessionPool(1, 1);
+        final CclSession session = createReturnableSession(true);
+        evictingPool.returnSession(session);
+        Thread.sleep(10);
+
+        evictingPool.evictIdleSessions();
+        assertThat(evictingPool.getIdleCount(key)).isEqualTo(0);
+        verify(session).close();
+    }
+
+    /**
+     * Verify that sessions are not evicted before the idle timeout elapses.
+     */
+    @Test
+    public void testEvictIdleSessionsNotExpired() {
+        final CclSessionPool evictingPool = new CclSessionPool(1, TimeUnit.MINUTES.toMillis(10));
+        final CclSession session = createReturnableSession(true);
+        evictingPool.returnSession(session);
+
+        evictingPool.evictIdleSessions();
+        assertThat(evictingPool.getIdleCount(key)).isEqualTo(1);
+        verify(session, never()).close();
+    }
+
+    private CclSession createSession() {
+        final CclSession session = createReturnableSession(true);
+        createdSessions.add(session);
+        return session;
+    }
+
+    private CclSession createReturnableSession(final boolean valid) {
+        final CclSession session = mock(CclSession.class);
+        when(session.getKey()).thenReturn(key);
+        when(session.isValid()).thenReturn(valid);
+        return session;
+    }
+}
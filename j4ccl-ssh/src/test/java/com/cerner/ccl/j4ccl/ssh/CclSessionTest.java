@@ -0,0 +1,146 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.TerminalProperties;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+
+/**
+ * Unit tests for {@link CclSession}.
+ */
+
+public class CclSessionTest {
+    private final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder()
+            .setOsPromptPattern("osPromptPattern").build();
+    private final CclSessionPool.Key key = new CclSessionPool.Key("user", "host", "env", null, null,
+            terminalProperties);
+    private JSchSshTerminal terminal;
+    private CclCommandTerminal lifecycleTerminal;
+    private CclSession session;
+
+    /**
+     * One time initialization
+     */
+    @BeforeClass
+    public static void setupOnce() {
+        TerminalProperties.setGlobalTerminalProperties(TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setLogfileLocation("target/global.log").build());
+    }
+
+    /**
+     * Create a session around mock terminals for each test.
+     */
+    @Before
+    public void setUp() {
+        terminal = mock(JSchSshTerminal.class);
+        lifecycleTerminal = mock(CclCommandTerminal.class);
+        session = new CclSession(key, terminalProperties, terminal, lifecycleTerminal, true);
+    }
+
+    /**
+     * Verify that opening a session logs the terminal into CCL and that the stream it was opened with is restored on
+     * reset.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpen() throws Exception {
+        final OutputStream stream = mock(OutputStream.class);
+        when(terminal.getOutputStream()).thenReturn(stream);
+
+        session.open();
+        verify(lifecycleTerminal).openSession(terminal, true);
+
+        session.resetOutputStream();
+        verify(terminal).setOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        verify(terminal).setOutputStream(stream);
+        assertThat(session.getKey()).isSameAs(key);
+        assertThat(session.getTerminal()).isSameAs(terminal);
+    }
+
+    /**
+     * Verify that the log file location of the session's own terminal properties, rather than that of the current
+     * thread, decides whether the console output is logged.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testOpenLogfile() throws Exception {
+        final TerminalProperties logged = TerminalProperties.getNewBuilder().setOsPromptPattern("osPromptPattern")
+                .setLogfileLocation("target/session.log").build();
+        TerminalProperties.setThreadTerminalProperties(terminalProperties);
+        try {
+            new CclSession(key, logged, terminal, lifecycleTerminal, true).open();
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+        }
+        verify(terminal, never()).setOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        verify(lifecycleTerminal).openSession(terminal, true);
+    }
+
+    /**
+     * Verify that a responsive session validates.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidate() throws Exception {
+        when(terminal.isOpen()).thenReturn(true);
+        assertThat(session.validate()).isTrue();
+        assertThat(session.isValid()).isTrue();
+        verify(lifecycleTerminal).validateSession(terminal);
+    }
+
+    /**
+     * Verify that a session that does not respond is marked invalid.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidateFailure() throws Exception {
+        when(terminal.isOpen()).thenReturn(true);
+        doThrow(new SshException("no prompt")).when(lifecycleTerminal).validateSession(terminal);
+        assertThat(session.validate()).isFalse();
+        assertThat(session.isValid()).isFalse();
+    }
+
+    /**
+     * Verify that an invalidated session is not validated again.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidateInvalidated() throws Exception {
+        when(terminal.isOpen()).thenReturn(true);
+        session.invalidate();
+        assertThat(session.validate()).isFalse();
+        verify(lifecycleTerminal, never()).validateSession(terminal);
+    }
+
+    /**
+     * Verify that closing a session exits CCL.
+     */
+    @Test
+    public void testClose() {
+        session.close();
+        verify(lifecycleTerminal).closeSession(terminal);
+        assertThat(session.isValid()).isFalse();
+    }
+}
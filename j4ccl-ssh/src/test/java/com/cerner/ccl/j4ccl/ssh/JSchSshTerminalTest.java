@@ -1,8 +1,10 @@
 package com.cerner.ccl.j4ccl.ssh;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -10,6 +12,8 @@ import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -18,7 +22,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -27,6 +33,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -36,16 +44,14 @@ import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
 import com.cerner.ccl.j4ccl.impl.jaas.JaasUtils;
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.cerner.ccl.j4ccl.ssh.exception.SshTimeoutException;
 import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.jsch.ConnectionPool;
 import com.cerner.ftp.jsch.ConnectionPoolFactory;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelShell;
 
-import expect4j.Expect4j;
-import expect4j.ExpectState;
-import expect4j.matches.Match;
-import expect4j.matches.RegExpMatch;
-
 /**
  * Unit test of {@link JSchSshTerminal}.
  *
@@ -79,7 +85,7 @@ public class JSchSshTerminalTest {
     @Captor
     private ArgumentCaptor<List<String>> argumentCaptorListString;
     @Captor
-    private ArgumentCaptor<List<Match>> argumentCaptorListMatch;
+    private ArgumentCaptor<List<Pattern>> argumentCaptorListMatch;
 
     /**
      * One time initialization
@@ -168,13 +174,11 @@ public class JSchSshTerminalTest {
     public void testExpectationTimeoutForExecuteCommandGroups() throws Exception {
         final JSchSshTerminal timeoutTerminal = new JSchSshTerminal(pool);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
+        final PromptMatcher expect = mock(PromptMatcher.class);
         when(expect.expect(any(List.class))).thenReturn(1);
-        when(expect.getLastState()).thenReturn(expectState);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         final ArgumentCaptor<Long> captor = ArgumentCaptor.forClass(Long.class);
 
@@ -211,9 +215,9 @@ public class JSchSshTerminalTest {
         verify(expect, times(12)).expect(argumentCaptorListMatch.capture());
 
         boolean defaultOsPromptWasExpectedAtLeastOnce = false;
-        for (final List<Match> matches : argumentCaptorListMatch.getAllValues()) {
-            for (final Match match : matches) {
-                final String pattern = ((RegExpMatch) match).getPattern().getPattern();
+        for (final List<Pattern> matches : argumentCaptorListMatch.getAllValues()) {
+            for (final Pattern match : matches) {
+                final String pattern = match.pattern();
                 assertThat(pattern).isNotEmpty();
                 if (pattern.equals(osPromptValue)) {
                     defaultOsPromptWasExpectedAtLeastOnce = true;
@@ -245,6 +249,225 @@ public class JSchSshTerminalTest {
         assertThat(values.get(17)).isEqualTo(-1);
     }
 
+    /**
+     * Verify that a command run on an exec channel returns the command's output and exit status and releases the
+     * channel and connection.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommand() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream("||cer_temp=/tmp||\n".getBytes("UTF-8")));
+        when(exec.isClosed()).thenReturn(false, true);
+        when(exec.isConnected()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(0);
+
+        final TerminalResponse response = terminal.executeCommand("echo '||cer_temp='$cer_temp'||'");
+        assertThat(response.getExitStatus()).isZero();
+        assertThat(response.getOutput()).isEqualTo("||cer_temp=/tmp||\n");
+
+        verify(exec).setCommand("echo '||cer_temp='$cer_temp'||'");
+        verify(exec).connect(20000);
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a command run on an exec channel with input is given that input and returns its standard output
+     * followed by its standard error.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommandWithInput() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream("output\n".getBytes("UTF-8")));
+        when(exec.isClosed()).thenReturn(true);
+        when(exec.isConnected()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(1);
+
+        final TerminalResponse response = terminal.executeCommand("ccl", "reset\nexit\n");
+        assertThat(response.getExitStatus()).isEqualTo(1);
+        assertThat(response.getOutput()).isEqualTo("output\n");
+
+        final ArgumentCaptor<InputStream> inputCaptor = ArgumentCaptor.forClass(InputStream.class);
+        verify(exec).setInputStream(inputCaptor.capture());
+        assertThat(IOUtils.toString(inputCaptor.getValue(), "UTF-8")).isEqualTo("reset\nexit\n");
+        verify(exec).setCommand("ccl");
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a command run on an exec channel with an output stream writes its standard output, followed by its
+     * standard error, to that stream rather than returning it.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommandStreamed() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream("output\n".getBytes("UTF-8")));
+        when(exec.isClosed()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(0);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                invocation.getArgument(0, OutputStream.class).write("error\n".getBytes("UTF-8"));
+                return null;
+            }
+        }).when(exec).setErrStream(any(OutputStream.class));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TerminalResponse response = terminal.executeCommand("ccl", "reset\nexit\n", output);
+        assertThat(response.getExitStatus()).isZero();
+        assertThat(response.getOutput()).isEmpty();
+        assertThat(output.toString("UTF-8")).isEqualTo("output\nerror\n");
+    }
+
+    /**
+     * Verify that a command run on an exec channel is abandoned if it produces no output within the expectation
+     * timeout.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommandTimeout() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(exec.isClosed()).thenReturn(false);
+        when(exec.isConnected()).thenReturn(true);
+
+        terminal.setExpectationTimeout(50);
+        try {
+            terminal.executeCommand("ccl", "reset\n", new ByteArrayOutputStream());
+            fail("No exception thrown.");
+        } catch (final SshTimeoutException e) {
+            assertThat(e.getMessage()).isEqualTo("No output received for 50 ms from command: ccl");
+        }
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a command run on an exec channel without an output timeout is waited on for as long as it runs, even
+     * if it stays silent for longer than the expectation timeout.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommandSilentStatement() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        final long finishTime = System.currentTimeMillis() + 500;
+        when(exec.isClosed()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return Boolean.valueOf(System.currentTimeMillis() >= finishTime);
+            }
+        });
+        when(exec.isConnected()).thenReturn(true);
+        when(exec.getExitStatus()).thenReturn(0);
+
+        terminal.setExpectationTimeout(50);
+        final TerminalResponse response = terminal.executeCommand("ccl", "long_running go\n",
+                new ByteArrayOutputStream(), PromptMatcher.TIMEOUT_INFINITE);
+        assertThat(response.getExitStatus()).isZero();
+        assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(finishTime);
+        verify(exec).connect(50);
+        verify(exec).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that a command run on an exec channel with an output timeout is abandoned if it produces no output within
+     * that timeout rather than the expectation timeout.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExecuteCommandOutputTimeout() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(conn.getExec()).thenReturn(exec);
+        when(exec.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(exec.isClosed()).thenReturn(false);
+        when(exec.isConnected()).thenReturn(true);
+
+        try {
+            terminal.executeCommand("ccl", "reset\n", new ByteArrayOutputStream(), 50);
+            fail("No exception thrown.");
+        } catch (final SshTimeoutException e) {
+            assertThat(e.getMessage()).isEqualTo("No output received for 50 ms from command: ccl");
+        }
+        verify(exec).connect(20000);
+        verify(exec).disconnect();
+    }
+
+    /**
+     * Verify that an opened terminal keeps a single shell connected across executions until it is closed.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testOpenAndClose() throws Exception {
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(any(List.class))).thenReturn(1);
+        when(expect.getLastMatch()).thenReturn("match string");
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
+        when(shell.isConnected()).thenReturn(true);
+
+        assertThat(terminal.isOpen()).isFalse();
+        terminal.open();
+        assertThat(terminal.isOpen()).isTrue();
+
+        for (int i = 0; i < 2; i++) {
+            final CommandExpectationGroup group = new CommandExpectationGroup();
+            group.addCommand("command " + i);
+            group.addExpectation("expectation");
+            terminal.executeCommandGroups(Collections.singletonList(group));
+        }
+
+        verify(conn, times(1)).getShell();
+        verify(shell, times(1)).connect();
+        verify(expect, times(1)).expect(any(Pattern.class));
+        verify(expect).send("command 0");
+        verify(expect).send("command 1");
+        verify(shell, times(0)).disconnect();
+
+        terminal.close();
+        assertThat(terminal.isOpen()).isFalse();
+        verify(expect).close();
+        verify(shell).disconnect();
+        verify(conn).close();
+    }
+
+    /**
+     * Verify that opening a terminal that is already open fails.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testOpenAlreadyOpen() throws Exception {
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(mock(PromptMatcher.class));
+        terminal.open();
+        terminal.open();
+    }
+
     /**
      * Test that the output stream set for the terminal is passed to the underlying {@link ChannelShell} object.
      *
@@ -271,13 +494,11 @@ public class JSchSshTerminalTest {
     @Test
     public void testOSPromptPatternIsHonored() throws Exception {
         final JSchSshTerminal timeoutTerminal = new JSchSshTerminal();
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
+        final PromptMatcher expect = mock(PromptMatcher.class);
         when(expect.expect(any(List.class))).thenReturn(1);
-        when(expect.getLastState()).thenReturn(expectState);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         executeCommandsHelper(timeoutTerminal, Collections.singletonList("blarg!"), "os-prompt-pattern>>");
         final ArgumentCaptor<OutputStream> fileCaptor = ArgumentCaptor.forClass(OutputStream.class);
@@ -285,13 +506,99 @@ public class JSchSshTerminalTest {
         verify(expect).send("\r");
         verify(expect).expect(argumentCaptorListMatch.capture());
         assertThat(argumentCaptorListMatch.getAllValues().size()).isEqualTo(1);
-        assertThat(((RegExpMatch) argumentCaptorListMatch.getAllValues().get(0).get(0)).getPattern().getPattern())
-                .isEqualTo("os-prompt-pattern>>");
+        assertThat(argumentCaptorListMatch.getAllValues().get(0).get(0).pattern()).isEqualTo("os-prompt-pattern>>");
 
         verify(shell).setOutputStream(fileCaptor.capture());
         fileCaptor.getValue().close();
     }
 
+    /**
+     * Verify that a pipelined group writes its complete statements in one batch, each followed by a sentinel, waits on
+     * the sentinels and the CCL prompt after the last of them and then sends any trailing command on its own.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecutePipelined() throws Exception {
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(any(List.class))).thenReturn(0);
+        when(expect.getLastMatch()).thenReturn("match string");
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
+
+        terminal.executeCommandGroups(Collections
+                .singletonList(createPipelinedGroup(Arrays.asList("set a = 1 go", "set b", "= 2 go", "reset"))));
+
+        final ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(expect, times(3)).send(sent.capture());
+        assertThat(sent.getAllValues().get(0)).matches("set a = 1 go\rcall echo\\(\"J4CCL_SENTINEL_\\w+_1\"\\) go\r"
+                + "set b\r= 2 go\rcall echo\\(\"J4CCL_SENTINEL_\\w+_2\"\\) go\r");
+        assertThat(sent.getAllValues().subList(1, 3)).containsExactly("reset", "\r");
+
+        verify(expect, times(4)).expect(argumentCaptorListMatch.capture());
+        final List<List<Pattern>> expectations = argumentCaptorListMatch.getAllValues();
+        assertThat(expectations.get(0).get(0).pattern()).matches("\\\\n\\[ \\\\t\\]\\*J4CCL_SENTINEL_\\w+_1\\\\b");
+        assertThat(expectations.get(1).get(0).pattern()).contains("_2");
+        assertThat(expectations.get(2).get(0).pattern()).isEqualTo("\\n\\s{2}1\\)$");
+        assertThat(expectations.get(3).get(0).pattern()).isEqualTo("prompt");
+    }
+
+    /**
+     * Verify that an abort detected while waiting on a pipelined statement is attributed to that statement.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecutePipelinedAbort() throws Exception {
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(any(List.class))).thenReturn(0, 2);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
+
+        try {
+            terminal.executeCommandGroups(Collections.singletonList(
+                    createPipelinedGroup(Arrays.asList("set a = 1 go", "set b", "= 2 go", "execute c go"))));
+            fail("An abort should have been reported.");
+        } catch (final SshException e) {
+            assertThat(e.getMessage()).isEqualTo("CCL session abort detected : command (set b = 2 go)");
+        }
+        verify(expect, times(2)).expect(any(List.class));
+    }
+
+    /**
+     * Verify that a failure echoed by a pipelined statement is attributed to that statement.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExecutePipelinedCommandFailure() throws Exception {
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(any(List.class))).thenReturn(3);
+        when(expect.getLastMatch()).thenReturn("J4CCL_COMMAND_FAILED: no record\r");
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
+
+        try {
+            terminal.executeCommandGroups(
+                    Collections.singletonList(createPipelinedGroup(Arrays.asList("set a = 1 go", "execute c go"))));
+            fail("A failure should have been reported.");
+        } catch (final SshException e) {
+            assertThat(e.getMessage()).isEqualTo(
+                    "CCL command failure detected: J4CCL_COMMAND_FAILED: no record : command (set a = 1 go)");
+        }
+    }
+
+    private CommandExpectationGroup createPipelinedGroup(final List<String> commands) {
+        final CommandExpectationGroup group = new CommandExpectationGroup();
+        group.addCommands(commands);
+        group.addExpectation("prompt");
+        group.setPipelined(true);
+        return group;
+    }
+
     /**
      * Test executeCommandGroups with an empty list of CommandExpectationGroup.
      *
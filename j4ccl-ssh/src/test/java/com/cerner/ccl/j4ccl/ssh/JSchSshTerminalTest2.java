@@ -20,6 +20,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -52,10 +53,6 @@ import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSchException;
 
 import etm.core.monitor.EtmPoint;
-import expect4j.Expect4j;
-import expect4j.ExpectState;
-import expect4j.matches.Match;
-import expect4j.matches.RegExpMatch;
 
 /**
  * Unit test of {@link JSchSshTerminal}.
@@ -88,7 +85,7 @@ public class JSchSshTerminalTest2 {
     @Captor
     private ArgumentCaptor<List<String>> argumentCaptorListString;
     @Captor
-    private ArgumentCaptor<List<Match>> argumentCaptorListMatch;
+    private ArgumentCaptor<List<Pattern>> argumentCaptorListMatch;
 
     /**
      * One time initialization
@@ -179,29 +176,29 @@ public class JSchSshTerminalTest2 {
                 .addExpectations(Arrays.asList(new String[] { "expectation 4", "expectation 5", "expectation 6" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch()).thenReturn("match string");
-        when(expectState.getBuffer()).thenReturn("-this is the expectState buffer");
-
+        final List<TranscriptSink> sinks = new ArrayList<TranscriptSink>();
         final Answer<Integer> expectAnswer = new Answer<Integer>() {
             int invocationCount = 0;
 
             @Override
             public Integer answer(final InvocationOnMock invocation) throws Throwable {
-                final List<RegExpMatch> matches = invocation.<List<RegExpMatch>> getArgument(0);
-                for (final RegExpMatch match : matches) {
-                    match.getClosure().run(expectState);
-                }
+                sinks.get(0).write("-this is the consumed output");
                 invocationCount++;
                 return invocationCount == 7 ? 1 : invocationCount == 8 ? -3 : 0;
             }
         };
 
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenAnswer(expectAnswer);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenAnswer(expectAnswer);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenAnswer(new Answer<PromptMatcher>() {
+            @Override
+            public PromptMatcher answer(final InvocationOnMock invocation) throws Throwable {
+                sinks.add(invocation.<TranscriptSink> getArgument(2));
+                return expect;
+            }
+        });
 
         final JSchSshTerminal someTerminal = new JSchSshTerminal(pool);
         final OutputStream os = new ByteArrayOutputStream();
@@ -209,14 +206,14 @@ public class JSchSshTerminalTest2 {
         final TerminalResponse terminalResponse = someTerminal.executeCommandGroups(commandExpectationGroups);
         assertThat(terminalResponse.getExitStatus()).isEqualTo(17);
         assertThat(terminalResponse.getOutput()).isEqualTo(
-                "-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer");
+                "-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output");
         os.flush();
         os.close();
         final String osText = os.toString();
         assertThat(osText).contains(
-                "-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer-this is the expectState buffer");
+                "-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output-this is the consumed output");
 
-        verify(expect, times(8)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(8)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(9)).debug(debugXCaptor.capture());
         verify(logger, times(4)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
@@ -289,13 +286,11 @@ public class JSchSshTerminalTest2 {
         commandExpectationGroup.addExpectations(Arrays.asList(new String[] { "expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0).thenReturn(3).thenReturn(-2);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0).thenReturn(3).thenReturn(-2);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         boolean caughtException = false;
         try {
@@ -307,7 +302,7 @@ public class JSchSshTerminalTest2 {
         }
         assertThat(caughtException).isEqualTo(true).as("expected an SshException to be thrown");
 
-        verify(expect, times(3)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(3)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(6)).debug(debugXCaptor.capture());
         verify(logger, times(3)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
@@ -369,13 +364,11 @@ public class JSchSshTerminalTest2 {
         commandExpectationGroup.addExpectations(Arrays.asList(new String[] { "expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0).thenReturn(3).thenReturn(-4);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0).thenReturn(3).thenReturn(-4);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         boolean caughtException = false;
         try {
@@ -387,7 +380,7 @@ public class JSchSshTerminalTest2 {
         }
         assertThat(caughtException).isEqualTo(true).as("expected an SshException to be thrown");
 
-        verify(expect, times(3)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(3)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(6)).debug(debugXCaptor.capture());
         verify(logger, times(3)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
@@ -445,13 +438,11 @@ public class JSchSshTerminalTest2 {
         commandExpectationGroup.addExpectations(Arrays.asList(new String[] { "expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0).thenReturn(3).thenReturn(-1);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0).thenReturn(3).thenReturn(-1);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         boolean caughtException = false;
         try {
@@ -463,7 +454,7 @@ public class JSchSshTerminalTest2 {
         }
         assertThat(caughtException).isEqualTo(true).as("expected an SshException to be thrown");
 
-        verify(expect, times(3)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(3)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(6)).debug(debugXCaptor.capture());
         verify(logger, times(3)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
@@ -521,13 +512,11 @@ public class JSchSshTerminalTest2 {
         commandExpectationGroup.addExpectations(Arrays.asList(new String[] { "expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0).thenReturn(3).thenReturn(-5);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0).thenReturn(3).thenReturn(-5);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         boolean caughtException = false;
         try {
@@ -539,7 +528,7 @@ public class JSchSshTerminalTest2 {
         }
         assertThat(caughtException).isEqualTo(true).as("expected an SshException to be thrown");
 
-        verify(expect, times(3)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(3)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(6)).debug(debugXCaptor.capture());
         verify(logger, times(3)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
@@ -600,14 +589,14 @@ public class JSchSshTerminalTest2 {
         commandExpectationGroup.addExpectations(Arrays.asList(new String[] { "expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final Expect4j expect = mock(Expect4j.class);
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         SshException e = assertThrows(SshException.class, () -> {
             try {
                 new JSchSshTerminal(pool).executeCommandGroups(commandExpectationGroups);
             } catch (final SshException ex) {
-                verify(expect, times(0)).expect(ArgumentMatchers.<List<Match>> any());
+                verify(expect, times(0)).expect(ArgumentMatchers.<List<Pattern>> any());
                 verify(logger, times(1)).debug(stringCaptor.capture());
                 verify(logger, times(2)).debug(stringCaptor.capture(), commandExpectationGroupCaptor.capture());
                 final List<String> logMessages = stringCaptor.getAllValues();
@@ -655,15 +644,13 @@ public class JSchSshTerminalTest2 {
                 Arrays.asList(new String[] { "ok expecation 2", "(malformed expectation 2, ", "ok expectation 3" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0);
-        when(expect.getLastState()).thenReturn(expectState);
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0);
+        when(expect.getLastMatch()).thenReturn("match string");
 
         final ArgumentCaptor<String> commandCaptor = ArgumentCaptor.forClass(String.class);
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         final PrintStream err = System.err;
         final ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -672,13 +659,12 @@ public class JSchSshTerminalTest2 {
         new JSchSshTerminal(pool).executeCommandGroups(commandExpectationGroups);
 
         String outText = out.toString("UTF-8");
-        assertThat(outText)
-                .startsWith("org.apache.oro.text.regex.MalformedPatternException: Unmatched [] in expression.");
+        assertThat(outText).startsWith("java.util.regex.PatternSyntaxException: Unclosed character class");
         assertThat(outText)
                 .contains("\tat com.cerner.ccl.j4ccl.ssh.JSchSshTerminal.executeCommandGroups(JSchSshTerminal.java:");
         outText = outText.substring(80 + outText
                 .indexOf("\tat com.cerner.ccl.j4ccl.ssh.JSchSshTerminal.executeCommandGroups(JSchSshTerminal.java:"));
-        assertThat(outText).contains("org.apache.oro.text.regex.MalformedPatternException: Unmatched parentheses.");
+        assertThat(outText).contains("java.util.regex.PatternSyntaxException: Unclosed group");
         assertThat(outText)
                 .contains("\tat com.cerner.ccl.j4ccl.ssh.JSchSshTerminal.executeCommandGroups(JSchSshTerminal.java:");
         System.setErr(err);
@@ -716,7 +702,7 @@ public class JSchSshTerminalTest2 {
         assertThat(commands.get(8)).isEqualTo("command 3").as("exected to send command 3");
         assertThat(commands.get(9)).isEqualTo("\r").as("exected to send \r after command 3");
 
-        final List<List<Match>> matches = argumentCaptorListMatch.getAllValues();
+        final List<List<Pattern>> matches = argumentCaptorListMatch.getAllValues();
         assertThat(matches.get(0).size()).isEqualTo(1).as("exected command 1 to have 1 valid expectation");
         assertThat(matches.get(1).size()).isEqualTo(2).as("exected command 2 to have 2 valid expectations");
         assertThat(matches.get(2).size()).isEqualTo(2).as("exected command 3 to have 2 valid expectations");
@@ -761,14 +747,12 @@ public class JSchSshTerminalTest2 {
                 .addExpectations(Arrays.asList(new String[] { "expectation 4", "expectation 5", "expectation 6" }));
         commandExpectationGroups.add(commandExpectationGroup);
 
-        final ExpectState expectState = mock(ExpectState.class);
-        when(expectState.getMatch(0)).thenReturn("match string");
-        final Expect4j expect = mock(Expect4j.class);
-        when(expect.expect(ArgumentMatchers.<List<Match>> any())).thenReturn(0).thenReturn(0).thenReturn(0)
+        final PromptMatcher expect = mock(PromptMatcher.class);
+        when(expect.expect(ArgumentMatchers.<List<Pattern>> any())).thenReturn(0).thenReturn(0).thenReturn(0)
                 .thenReturn(0).thenReturn(0).thenReturn(0).thenReturn(1).thenReturn(-3);
-        when(expect.getLastState()).thenReturn(expectState);
+        when(expect.getLastMatch()).thenReturn("match string");
 
-        whenNew(Expect4j.class).withAnyArguments().thenReturn(expect);
+        whenNew(PromptMatcher.class).withAnyArguments().thenReturn(expect);
 
         final JSchSshTerminal someTerminal = new JSchSshTerminal(pool);
         final OutputStream os = new ByteArrayOutputStream();
@@ -777,7 +761,7 @@ public class JSchSshTerminalTest2 {
         os.flush();
         assertThat(os.toString().concat("match string")).as("expected the output stream to contain 'match string.");
 
-        verify(expect, times(8)).expect(ArgumentMatchers.<List<Match>> any());
+        verify(expect, times(8)).expect(ArgumentMatchers.<List<Pattern>> any());
         verify(logger, times(9)).debug(debugXCaptor.capture());
         verify(logger, times(4)).debug(debugXYCaptor1.capture(), debugXYCaptor2.capture());
         verify(logger, times(1)).debug(debugWXYZCaptor1.capture(), debugWXYZCaptor2.capture(),
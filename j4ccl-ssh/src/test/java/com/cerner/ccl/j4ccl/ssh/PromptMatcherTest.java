@@ -0,0 +1,269 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PromptMatcher}.
+ */
+public class PromptMatcherTest {
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    private final List<String> transcript = new ArrayList<String>();
+    private final TranscriptSink sink = new TranscriptSink() {
+        @Override
+        public void write(final String text) {
+            transcript.add(text);
+        }
+    };
+
+    /**
+     * Construction with a {@code null} input stream should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullInput() {
+        new PromptMatcher(null, sent, sink);
+    }
+
+    /**
+     * Construction with a {@code null} output stream should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullOutput() {
+        new PromptMatcher(input(""), null, sink);
+    }
+
+    /**
+     * Construction with a {@code null} sink should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullSink() {
+        new PromptMatcher(input(""), sent, null);
+    }
+
+    /**
+     * Verify that compiled expectations are cached.
+     */
+    @Test
+    public void testCompile() {
+        assertThat(PromptMatcher.compile("a.b")).isSameAs(PromptMatcher.compile("a.b"));
+        assertThat(PromptMatcher.compile("a.b").matcher("a\nb").matches()).isTrue();
+    }
+
+    /**
+     * Verify that the cache of compiled expectations stops growing once it is full.
+     */
+    @Test
+    public void testCompileCacheBounded() {
+        final Pattern cached = PromptMatcher.compile("a.b");
+        for (int index = 0; index < 512; index++) {
+            PromptMatcher.compile("prompt-" + index);
+        }
+        assertThat(PromptMatcher.compile("a.b")).isSameAs(cached);
+        assertThat(PromptMatcher.compile("uncached")).isNotSameAs(PromptMatcher.compile("uncached"));
+    }
+
+    /**
+     * Verify that closing the matcher closes the stream from which the shell's output is read.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testClose() throws Exception {
+        final PipedOutputStream shellOutput = new PipedOutputStream();
+        final PromptMatcher matcher = new PromptMatcher(new PipedInputStream(shellOutput), sent, sink);
+        matcher.close();
+        try {
+            shellOutput.write('a');
+        } catch (final IOException e) {
+            assertThat(e.getMessage()).isEqualTo("Pipe closed");
+            return;
+        } finally {
+            shellOutput.close();
+        }
+        throw new AssertionError("The shell's output should have been closed.");
+    }
+
+    /**
+     * Verify that input is written and flushed to the shell.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testSend() throws Exception {
+        final PromptMatcher matcher = new PromptMatcher(input(""), sent, sink);
+        matcher.send("select * from dual go");
+        matcher.send("\r");
+        assertThat(new String(sent.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("select * from dual go\r");
+        matcher.close();
+    }
+
+    /**
+     * Verify that a match consumes the output through the end of the match and that the remaining output is matched by
+     * the next expectation.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpect() throws Exception {
+        final PromptMatcher matcher = new PromptMatcher(input("login: \nwelcome\n$ more"), sent, sink);
+        matcher.setDefaultTimeout(5000);
+        assertThat(matcher.expect(PromptMatcher.compile("\\$ $|login: "))).isZero();
+        assertThat(matcher.getLastMatch()).isEqualTo("login: ");
+        assertThat(matcher.expect(PromptMatcher.compile("\\$ "))).isZero();
+        assertThat(transcript).containsExactly("login: ", "\nwelcome\n$ ");
+        matcher.close();
+    }
+
+    /**
+     * Verify that the match beginning earliest in the output is chosen, regardless of the order of the patterns.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpectEarliestMatch() throws Exception {
+        final PromptMatcher matcher = new PromptMatcher(input("output first-prompt output second-prompt"), sent, sink);
+        matcher.setDefaultTimeout(5000);
+        assertThat(matcher
+                .expect(Arrays.asList(PromptMatcher.compile("second-prompt"), PromptMatcher.compile("first-prompt"))))
+                        .isEqualTo(1);
+        assertThat(transcript).containsExactly("output first-prompt");
+        matcher.close();
+    }
+
+    /**
+     * Verify that the end of the output is reported and that the unmatched output is handed to the sink.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpectEof() throws Exception {
+        final PromptMatcher matcher = new PromptMatcher(input("Segmentation fault"), sent, sink);
+        assertThat(matcher.expect(PromptMatcher.compile("prompt"))).isEqualTo(PromptMatcher.RET_EOF);
+        assertThat(transcript).containsExactly("Segmentation fault");
+        matcher.close();
+    }
+
+    /**
+     * Verify that a timeout is reported and that output arriving afterwards can still be matched, even if the match
+     * spans the output read before and after the timeout.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpectTimeout() throws Exception {
+        final PipedOutputStream shellOutput = new PipedOutputStream();
+        final PromptMatcher matcher = new PromptMatcher(new PipedInputStream(shellOutput), sent, sink);
+        try {
+            shellOutput.write("  1".getBytes(StandardCharsets.UTF_8));
+            shellOutput.flush();
+            matcher.setDefaultTimeout(100);
+            assertThat(matcher.expect(PromptMatcher.compile("\\n\\s{2}1\\)$"))).isEqualTo(PromptMatcher.RET_TIMEOUT);
+            assertThat(transcript).isEmpty();
+
+            shellOutput.write(")".getBytes(StandardCharsets.UTF_8));
+            shellOutput.flush();
+            assertThat(matcher.expect(PromptMatcher.compile("\\s{2}1\\)$"))).isZero();
+            assertThat(transcript).containsExactly("  1)");
+        } finally {
+            matcher.close();
+            shellOutput.close();
+        }
+    }
+
+    /**
+     * Verify that long output is handed to the sink, a line at a time, before the prompt is found rather than held
+     * until the match.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpectLongOutput() throws Exception {
+        final StringBuilder output = new StringBuilder();
+        for (int line = 0; output.length() < 4 * PromptMatcher.WINDOW_SIZE; line++) {
+            output.append("output line ").append(line).append('\n');
+        }
+        output.append("  1)");
+
+        final PromptMatcher matcher = new PromptMatcher(input(output.toString()), sent, sink);
+        matcher.setDefaultTimeout(5000);
+        assertThat(matcher.expect(PromptMatcher.compile("\\n\\s{2}1\\)$"))).isZero();
+
+        assertThat(transcript.size()).isGreaterThan(1);
+        final StringBuilder joined = new StringBuilder();
+        for (final String text : transcript) {
+            assertThat(text.length()).isLessThanOrEqualTo(PromptMatcher.WINDOW_SIZE + 8192);
+            joined.append(text);
+        }
+        for (final String text : transcript.subList(0, transcript.size() - 1)) {
+            assertThat(text).endsWith("\n");
+        }
+        assertThat(joined.toString()).isEqualTo(output.toString());
+        matcher.close();
+    }
+
+    /**
+     * Verify that a prompt longer than the default overlap is matched when it arrives in more than one piece.
+     *
+     * @throws Exception
+     *             If an error occurs during the test run.
+     */
+    @Test
+    public void testExpectLongPrompt() throws Exception {
+        final StringBuilder prompt = new StringBuilder();
+        for (int line = 0; prompt.length() < 8 * PromptMatcher.MATCH_SLACK; line++) {
+            prompt.append("prompt line ").append(line).append(' ');
+        }
+        final byte[] bytes = prompt.toString().getBytes(StandardCharsets.UTF_8);
+
+        final PipedOutputStream shellOutput = new PipedOutputStream();
+        final PromptMatcher matcher = new PromptMatcher(new PipedInputStream(shellOutput, bytes.length), sent, sink);
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    shellOutput.write(bytes, bytes.length - 10, 10);
+                    shellOutput.flush();
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        try {
+            shellOutput.write(bytes, 0, bytes.length - 10);
+            shellOutput.flush();
+            writer.start();
+            matcher.setDefaultTimeout(5000);
+            assertThat(matcher.expect(PromptMatcher.compile(Pattern.quote(prompt.toString())))).isZero();
+            assertThat(transcript).containsExactly(prompt.toString());
+        } finally {
+            writer.join();
+            matcher.close();
+            shellOutput.close();
+        }
+    }
+
+    private InputStream input(final String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.cerner.ccl.j4ccl.ssh;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.cerner.ccl.j4ccl.ssh.exception.SshException;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelShell;
+
+/**
+ * Unit tests for {@link SessionCancellation}.
+ */
+
+public class SessionCancellationTest {
+    /**
+     * Remove any cancellation bound by a test.
+     */
+    @After
+    public void tearDown() {
+        SessionCancellation.unbind();
+    }
+
+    /**
+     * Verify that a cancellation is bound to and unbound from the current thread.
+     */
+    @Test
+    public void testBind() {
+        final SessionCancellation cancellation = new SessionCancellation();
+        assertThat(SessionCancellation.getCurrent()).isNull();
+        cancellation.bind();
+        assertThat(SessionCancellation.getCurrent()).isSameAs(cancellation);
+        SessionCancellation.unbind();
+        assertThat(SessionCancellation.getCurrent()).isNull();
+    }
+
+    /**
+     * Verify that cancelling sends an interrupt character to a registered shell and an interrupt signal to a registered
+     * exec channel before disconnecting each.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final OutputStream remoteInput = mock(OutputStream.class);
+        final ChannelShell shell = mock(ChannelShell.class);
+        when(shell.getOutputStream()).thenReturn(remoteInput);
+        final ChannelExec exec = mock(ChannelExec.class);
+
+        final SessionCancellation cancellation = new SessionCancellation();
+        cancellation.register(shell);
+        cancellation.register(exec);
+        cancellation.cancel();
+
+        assertThat(cancellation.isCancelled()).isTrue();
+        verify(remoteInput).write(3);
+        verify(shell).disconnect();
+        verify(exec).sendSignal("INT");
+        verify(exec).disconnect();
+    }
+
+    /**
+     * Verify that unregistered channels are left alone by a cancellation.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testUnregister() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        final SessionCancellation cancellation = new SessionCancellation();
+        cancellation.register(exec);
+        cancellation.unregister(exec);
+        cancellation.cancel();
+        verify(exec, never()).disconnect();
+    }
+
+    /**
+     * A channel registered after cancellation should be aborted and refused.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRegisterAfterCancel() throws Exception {
+        final ChannelExec exec = mock(ChannelExec.class);
+        final SessionCancellation cancellation = new SessionCancellation();
+        cancellation.cancel();
+
+        final SshException e = assertThrows(SshException.class, () -> cancellation.register(exec));
+        assertThat(e.getMessage()).isEqualTo("Execution was cancelled.");
+        verify(exec).disconnect();
+    }
+}
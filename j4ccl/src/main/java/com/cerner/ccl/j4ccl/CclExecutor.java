@@ -2,7 +2,12 @@ package com.cerner.ccl.j4ccl;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.Enumeration;
+import java.util.concurrent.CompletableFuture;
+
+import javax.security.auth.Subject;
 
 import org.apache.commons.discovery.tools.Service;
 
@@ -12,6 +17,8 @@ import com.cerner.ccl.j4ccl.adders.ScriptDropAdder;
 import com.cerner.ccl.j4ccl.adders.ScriptExecutionAdder;
 import com.cerner.ccl.j4ccl.enums.OutputType;
 import com.cerner.ccl.j4ccl.exception.CclException;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+import com.cerner.ccl.j4ccl.util.LineConsumerOutputStream;
 
 /**
  * A gateway to executing commands in a remote CCL session.
@@ -100,10 +107,76 @@ public abstract class CclExecutor {
      */
     public abstract void execute();
 
+    /**
+     * Execute all queued commands without blocking the calling thread. The commands are executed as the {@link Subject}
+     * in context when this method is called. Once the returned future completes, every record given to the queued
+     * commands has been populated and every output has been retrieved; this executor must not be otherwise used until
+     * then. <br>
+     * By default, {@link #execute()} is run on the common {@link java.util.concurrent.ForkJoinPool ForkJoinPool};
+     * implementations may instead use a bounded pool and abort the remote CCL session when the future is cancelled.
+     *
+     * @return A {@link CompletableFuture} that completes when all of the queued commands have been executed, or
+     *         completes exceptionally with the {@link CclException} raised by their processing.
+     */
+    public CompletableFuture<Void> executeAsync() {
+        final Subject subject = Subject.getSubject(AccessController.getContext());
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                Subject.doAs(subject, new PrivilegedAction<Void>() {
+                    @Override
+                    public Void run() {
+                        execute();
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Let at least the given number of {@link #executeAsync() asynchronous executions} run at once in this VM. By
+     * default, nothing is done; implementations that bound their asynchronous executions raise those bounds to at least
+     * the given number.
+     *
+     * @param executions
+     *            The number of executions that must be able to run at once.
+     */
+    public void ensureAsyncCapacity(final int executions) {
+        // the common ForkJoinPool is not bounded by this executor
+    }
+
+    /**
+     * Open a CCL session that is kept logged in for every subsequent {@link #execute()} until {@link #close()} is
+     * invoked. The session is drawn from a pool of warm sessions for the current credentials, so opening an executor
+     * avoids the cost of connecting, setting the environment and authenticating on each execution. <br>
+     * Because executions share the session, anything an execution leaves behind in CCL is visible to later executions.
+     * <br>
+     * By default, this does nothing and each execution launches its own session.
+     *
+     * @throws IllegalStateException
+     *             If this executor is already open.
+     * @throws CclException
+     *             If the session cannot be opened.
+     */
+    public void open() {
+        // no session is kept open by default
+    }
+
+    /**
+     * Release the CCL session opened by {@link #open()} back to its pool. This has no effect if the executor is not
+     * open.
+     */
+    public void close() {
+        // no session is kept open by default
+    }
+
     /**
      * Pipe the output to a given output stream. <br>
      * Only the last given stream is retained; invoking this multiple times will have no effect except to set the
-     * last-given output stream as the used output stream.
+     * last-given output stream as the used output stream. The output is written to the stream even if it is also a
+     * {@link LineConsumer}; use {@link #setOutputConsumer(LineConsumer, OutputType)} to have the output given to it a
+     * line at a time.
      *
      * @param stream
      *            An {@link OutputStream} object to which the output should be piped.
@@ -112,6 +185,21 @@ public abstract class CclExecutor {
      */
     public abstract void setOutputStream(OutputStream stream, OutputType outputType);
 
+    /**
+     * Give the output, a line at a time, to a given consumer. <br>
+     * This replaces any output stream or consumer previously given to this executor.
+     *
+     * @param consumer
+     *            A {@link LineConsumer} to which each line of the output should be given.
+     * @param outputType
+     *            An {@link OutputType} enum representing the type of output to be consumed.
+     * @throws NullPointerException
+     *             If the given consumer is {@code null}.
+     */
+    public void setOutputConsumer(final LineConsumer consumer, final OutputType outputType) {
+        setOutputStream(new LineConsumerOutputStream(consumer), outputType);
+    }
+
     /**
      * Sets the {@link TerminalProperties} that will be employed by the CclExecutor. <br>
      * Only the last given value is retained; invoking this multiple times will displace any previously set value.
@@ -23,7 +23,8 @@ public class TerminalProperties {
     private static final List<String> DEFAULT_CCL_LOGIN_FAILURE_PROMPT_PATTERNS = Arrays.asList(
             "V500 SECURITY LOGIN FAILURE", "V500 SECURITY LOGIN WARNING", "Retry \\(Y/N\\)", "Repeat New Password:");
 
-    private static TerminalProperties globalTerminalProperties;
+    private static volatile TerminalProperties globalTerminalProperties;
+    private static final ThreadLocal<TerminalProperties> threadTerminalProperties = new InheritableThreadLocal<TerminalProperties>();
 
     private final boolean skipEnvset;
     private final String osPromptPattern;
@@ -34,6 +35,13 @@ public class TerminalProperties {
     private final long expectationTimeout;
     private final String logfileLocation;
     private final boolean specifyDebugCcl;
+    private final boolean batchSessions;
+    private final boolean pipelineCommands;
+    private final boolean batchDynamicIncludes;
+    private final boolean batchExecution;
+    private final String cclSource;
+    private final long environmentCacheTtl;
+    private final long downloadCompressionThreshold;
 
     /**
      * private default constructor to inhibit use.
@@ -65,6 +73,13 @@ public class TerminalProperties {
         expectationTimeout = builder.expectationTimeout;
         logfileLocation = builder.logfileLocation != null ? builder.logfileLocation : "";
         specifyDebugCcl = builder.specifyDebugCcl;
+        batchSessions = builder.batchSessions;
+        pipelineCommands = builder.pipelineCommands;
+        batchDynamicIncludes = builder.batchDynamicIncludes;
+        batchExecution = builder.batchExecution;
+        cclSource = builder.cclSource;
+        environmentCacheTtl = builder.environmentCacheTtl;
+        downloadCompressionThreshold = builder.downloadCompressionThreshold;
     }
 
     /**
@@ -83,6 +98,13 @@ public class TerminalProperties {
         long expectationTimeout;
         String logfileLocation;
         boolean specifyDebugCcl = true;
+        boolean batchSessions;
+        boolean pipelineCommands;
+        boolean batchDynamicIncludes;
+        boolean batchExecution;
+        String cclSource;
+        long environmentCacheTtl;
+        long downloadCompressionThreshold = -1;
 
         /**
          * Sets the skipEnvset value of this TermimalPropertiesBuilder.
@@ -193,6 +215,90 @@ public class TerminalProperties {
             return this;
         }
 
+        /**
+         * Sets the batchSessions value for this TermimalPropertiesBuilder.
+         *
+         * @param batchSessions
+         *            The batchSessions value to set.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setBatchSessions(final boolean batchSessions) {
+            this.batchSessions = batchSessions;
+            return this;
+        }
+
+        /**
+         * Sets the pipelineCommands value for this TermimalPropertiesBuilder.
+         *
+         * @param pipelineCommands
+         *            The pipelineCommands value to set.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setPipelineCommands(final boolean pipelineCommands) {
+            this.pipelineCommands = pipelineCommands;
+            return this;
+        }
+
+        /**
+         * Sets the batchDynamicIncludes value for this TermimalPropertiesBuilder.
+         *
+         * @param batchDynamicIncludes
+         *            The batchDynamicIncludes value to set.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setBatchDynamicIncludes(final boolean batchDynamicIncludes) {
+            this.batchDynamicIncludes = batchDynamicIncludes;
+            return this;
+        }
+
+        /**
+         * Sets the batchExecution value for this TermimalPropertiesBuilder.
+         *
+         * @param batchExecution
+         *            The batchExecution value to set.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setBatchExecution(final boolean batchExecution) {
+            this.batchExecution = batchExecution;
+            return this;
+        }
+
+        /**
+         * Sets the cclSource value for this TermimalPropertiesBuilder.
+         *
+         * @param cclSource
+         *            The cclSource value to set.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setCclSource(final String cclSource) {
+            this.cclSource = cclSource;
+            return this;
+        }
+
+        /**
+         * Sets the environmentCacheTtl value for this TermimalPropertiesBuilder.
+         *
+         * @param environmentCacheTtl
+         *            The environmentCacheTtl value to set, in seconds.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setEnvironmentCacheTtl(final long environmentCacheTtl) {
+            this.environmentCacheTtl = environmentCacheTtl;
+            return this;
+        }
+
+        /**
+         * Sets the downloadCompressionThreshold value for this TermimalPropertiesBuilder.
+         *
+         * @param downloadCompressionThreshold
+         *            The downloadCompressionThreshold value to set, in bytes; a negative value disables compression.
+         * @return This TermimalPropertiesBuilder instance.
+         */
+        public TerminalPropertiesBuilder setDownloadCompressionThreshold(final long downloadCompressionThreshold) {
+            this.downloadCompressionThreshold = downloadCompressionThreshold;
+            return this;
+        }
+
         /**
          * Generates a new TermimalProperties instance based on the properties of this TermimalPropertiesBuilder.
          *
@@ -306,6 +412,85 @@ public class TerminalProperties {
         return specifyDebugCcl;
     }
 
+    /**
+     * Retrieves the batchSessions value of this TerminalProperties instance. When set, all of the commands queued on an
+     * executor are issued within a single CCL session rather than each command launching its own session.
+     *
+     * @return The batchSessions value of this TerminalProperties instance.
+     */
+    public boolean getBatchSessions() {
+        return batchSessions;
+    }
+
+    /**
+     * Retrieves the pipelineCommands value of this TerminalProperties instance. When set, the CCL commands of a session
+     * are sent in batches, each command followed by an echoed sentinel, rather than waiting for the CCL prompt after
+     * every command.
+     *
+     * @return The pipelineCommands value of this TerminalProperties instance.
+     */
+    public boolean getPipelineCommands() {
+        return pipelineCommands;
+    }
+
+    /**
+     * Retrieves the batchDynamicIncludes value of this TerminalProperties instance. When set, the wrapper scripts of
+     * all of the dynamic includes queued on an executor are compiled together by a single compile call and dropped
+     * together when the executor's session closes.
+     *
+     * @return The batchDynamicIncludes value of this TerminalProperties instance.
+     */
+    public boolean getBatchDynamicIncludes() {
+        return batchDynamicIncludes;
+    }
+
+    /**
+     * Retrieves the batchExecution value of this TerminalProperties instance. When set, commands that need neither
+     * authentication nor interaction with CCL are piped to a non-interactive CCL process over a single exec channel
+     * rather than being issued at the prompts of an interactive shell. <br>
+     * Batch execution is never used for a session that must be authenticated, which is always run interactively: the
+     * Millennium credentials are entered at the login prompts of CCL, and a rejected login can only be detected by
+     * matching the prompt that CCL displays in response, which a piped process does not allow.
+     *
+     * @return The batchExecution value of this TerminalProperties instance.
+     */
+    public boolean getBatchExecution() {
+        return batchExecution;
+    }
+
+    /**
+     * Retrieves the cclSource value of this TerminalProperties instance. When set, it identifies the location of the
+     * CCL source directory on the remote host in place of the value of the CCLSOURCE logical.
+     *
+     * @return The cclSource value of this TerminalProperties instance; {@code null} if none was set.
+     */
+    public String getCclSource() {
+        return cclSource;
+    }
+
+    /**
+     * Retrieves the environmentCacheTtl value of this TerminalProperties instance. When positive, it is the number of
+     * seconds for which the data of an environment, such as the location of CCLUSERDIR, is kept in a file for reuse by
+     * later builds and in memory for reuse within the JVM.
+     *
+     * @return The environmentCacheTtl value of this TerminalProperties instance; 0 if the data is not to be kept in a
+     *         file, in which case it is kept in memory for the life of the JVM.
+     */
+    public long getEnvironmentCacheTtl() {
+        return environmentCacheTtl;
+    }
+
+    /**
+     * Retrieves the downloadCompressionThreshold value of this TerminalProperties instance. Files downloaded from the
+     * remote host that are at least this many bytes are compressed on the host before being transferred.
+     *
+     * @return The downloadCompressionThreshold value of this TerminalProperties instance; negative if no files are to
+     *         be compressed.
+     */
+    public long getDownloadCompressionThreshold() {
+        return downloadCompressionThreshold;
+    }
+
     /**
      * Retrieves the logfileLocation for this TerminalProperties instance.
      *
@@ -335,7 +520,11 @@ public class TerminalProperties {
                 .append(cclLoginSuccessPromptPattern, rhs.cclLoginSuccessPromptPattern)
                 .append(cclLoginFailurePromptPatterns, rhs.cclLoginFailurePromptPatterns)
                 .append(expectationTimeout, rhs.expectationTimeout).append(logfileLocation, rhs.logfileLocation)
-                .append(specifyDebugCcl, rhs.specifyDebugCcl).isEquals();
+                .append(specifyDebugCcl, rhs.specifyDebugCcl).append(batchSessions, rhs.batchSessions)
+                .append(pipelineCommands, rhs.pipelineCommands).append(batchDynamicIncludes, rhs.batchDynamicIncludes)
+                .append(batchExecution, rhs.batchExecution).append(cclSource, rhs.cclSource)
+                .append(environmentCacheTtl, rhs.environmentCacheTtl)
+                .append(downloadCompressionThreshold, rhs.downloadCompressionThreshold).isEquals();
     }
 
     /**
@@ -346,7 +535,9 @@ public class TerminalProperties {
         return new HashCodeBuilder(17, 37).append(skipEnvset).append(osPromptPattern).append(cclPromptPattern)
                 .append(cclLoginPromptPattern).append(cclLoginSuccessPromptPattern)
                 .append(cclLoginFailurePromptPatterns).append(expectationTimeout).append(logfileLocation)
-                .append(specifyDebugCcl).toHashCode();
+                .append(specifyDebugCcl).append(batchSessions).append(pipelineCommands).append(batchDynamicIncludes)
+                .append(batchExecution).append(cclSource).append(environmentCacheTtl)
+                .append(downloadCompressionThreshold).toHashCode();
     }
 
     /**
@@ -369,4 +560,30 @@ public class TerminalProperties {
     public static TerminalProperties getGlobalTerminalProperties() {
         return globalTerminalProperties;
     }
+
+    /**
+     * Sets the TerminalProperties object of the current thread, which is inherited by the threads it goes on to create
+     * and takes precedence over the global one.
+     *
+     * @param terminalProperties
+     *            The TerminalProperties object of the current thread; {@code null} to fall back on the global one.
+     */
+    public static void setThreadTerminalProperties(final TerminalProperties terminalProperties) {
+        if (terminalProperties == null) {
+            threadTerminalProperties.remove();
+        } else {
+            threadTerminalProperties.set(terminalProperties);
+        }
+    }
+
+    /**
+     * Retrieves the TerminalProperties object of the current thread or, if it has none, the global TerminalProperties
+     * object, which could be null if neither has been set.
+     *
+     * @return The TerminalProperties object in effect for the current thread.
+     */
+    public static TerminalProperties getThreadTerminalProperties() {
+        final TerminalProperties threadProperties = threadTerminalProperties.get();
+        return threadProperties == null ? globalTerminalProperties : threadProperties;
+    }
 }
@@ -15,6 +15,18 @@ import org.apache.commons.discovery.tools.Service;
  */
 
 public abstract class CclResourceUploader {
+    /**
+     * The default maximum total size, in bytes, of the files that are uploaded as a single archive.
+     */
+    public static final long DEFAULT_BULK_UPLOAD_MAXIMUM_BYTES = 256L * 1024 * 1024;
+
+    private File manifestFile;
+    private boolean verifyRemote;
+    private int bulkUploadMinimumFiles;
+    private long bulkUploadMaximumBytes = DEFAULT_BULK_UPLOAD_MAXIMUM_BYTES;
+    private boolean compressBulkUploads = true;
+    private int channelCount = 1;
+
     /**
      * Get a resource uploader.
      *
@@ -29,6 +41,137 @@ public abstract class CclResourceUploader {
         return providers.nextElement();
     }
 
+    /**
+     * Set the location of a manifest used to upload incrementally. When set, files that have not changed since they
+     * were last uploaded to the same location are not uploaded again, although they are still included in the result of
+     * {@link #upload()}.
+     *
+     * @param manifestFile
+     *            A {@link File} representing the location of the manifest; {@code null} to upload every queued file.
+     */
+    public void setManifestFile(final File manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Set whether files that the manifest records as unchanged should be verified to still be present on the remote
+     * server before they are skipped. This has no effect unless a manifest file is set.
+     *
+     * @param verifyRemote
+     *            {@code true} if unchanged files should be verified against the remote server.
+     */
+    public void setVerifyRemote(final boolean verifyRemote) {
+        this.verifyRemote = verifyRemote;
+    }
+
+    /**
+     * Set the number of queued files at or above which the files are uploaded as a single archive that is extracted on
+     * the remote server rather than one by one.
+     *
+     * @param bulkUploadMinimumFiles
+     *            The minimum number of files for which an archive is used; less than one to never use an archive.
+     */
+    public void setBulkUploadMinimumFiles(final int bulkUploadMinimumFiles) {
+        this.bulkUploadMinimumFiles = bulkUploadMinimumFiles;
+    }
+
+    /**
+     * Set the maximum total size of the queued files for which they are uploaded as a single archive. By default, this
+     * is {@value #DEFAULT_BULK_UPLOAD_MAXIMUM_BYTES} bytes.
+     *
+     * @param bulkUploadMaximumBytes
+     *            The maximum total size, in bytes, of the files for which an archive is used.
+     * @throws IllegalArgumentException
+     *             If the given size is less than one.
+     */
+    public void setBulkUploadMaximumBytes(final long bulkUploadMaximumBytes) {
+        if (bulkUploadMaximumBytes < 1)
+            throw new IllegalArgumentException(
+                    "Bulk upload maximum must be at least 1 byte: " + bulkUploadMaximumBytes);
+
+        this.bulkUploadMaximumBytes = bulkUploadMaximumBytes;
+    }
+
+    /**
+     * Set whether the archive used to upload the queued files is gzipped in transit. By default, it is.
+     *
+     * @param compressBulkUploads
+     *            {@code true} if the archive should be compressed.
+     */
+    public void setCompressBulkUploads(final boolean compressBulkUploads) {
+        this.compressBulkUploads = compressBulkUploads;
+    }
+
+    /**
+     * Set the number of channels over which the queued files are uploaded concurrently.
+     *
+     * @param channelCount
+     *            The number of channels; by default, one channel is used and files are uploaded one after another.
+     * @throws IllegalArgumentException
+     *             If the given count is less than one.
+     */
+    public void setChannelCount(final int channelCount) {
+        if (channelCount < 1)
+            throw new IllegalArgumentException("Channel count must be at least 1: " + channelCount);
+
+        this.channelCount = channelCount;
+    }
+
+    /**
+     * Get the location of the manifest used to upload incrementally.
+     *
+     * @return A {@link File} representing the location of the manifest; {@code null} if every queued file is to be
+     *         uploaded.
+     */
+    protected File getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Determine whether files that the manifest records as unchanged should be verified against the remote server.
+     *
+     * @return {@code true} if unchanged files should be verified against the remote server.
+     */
+    protected boolean isVerifyRemote() {
+        return verifyRemote;
+    }
+
+    /**
+     * Get the number of queued files at or above which the files are uploaded as a single archive.
+     *
+     * @return The minimum number of files for which an archive is used; less than one if an archive is never used.
+     */
+    protected int getBulkUploadMinimumFiles() {
+        return bulkUploadMinimumFiles;
+    }
+
+    /**
+     * Get the maximum total size of the queued files for which they are uploaded as a single archive.
+     *
+     * @return The maximum total size, in bytes, of the files for which an archive is used.
+     */
+    protected long getBulkUploadMaximumBytes() {
+        return bulkUploadMaximumBytes;
+    }
+
+    /**
+     * Determine whether the archive used to upload the queued files is gzipped in transit.
+     *
+     * @return {@code true} if the archive is compressed.
+     */
+    protected boolean isCompressBulkUploads() {
+        return compressBulkUploads;
+    }
+
+    /**
+     * Get the number of channels over which the queued files are uploaded concurrently.
+     *
+     * @return The number of channels.
+     */
+    protected int getChannelCount() {
+        return channelCount;
+    }
+
     /**
      * Queue a file for upload.
      *
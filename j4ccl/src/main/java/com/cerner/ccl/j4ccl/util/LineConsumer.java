@@ -0,0 +1,20 @@
+package com.cerner.ccl.j4ccl.util;
+
+import com.cerner.ccl.j4ccl.CclExecutor;
+import com.cerner.ccl.j4ccl.enums.OutputType;
+
+/**
+ * A consumer of console output that receives it a line at a time, already decoded, rather than as bytes.
+ *
+ * @see CclExecutor#setOutputConsumer(LineConsumer, OutputType)
+ */
+
+public interface LineConsumer {
+    /**
+     * Consume a line of output.
+     *
+     * @param line
+     *            The line, decoded as UTF-8, without its line terminator.
+     */
+    void consume(String line);
+}
@@ -0,0 +1,71 @@
+package com.cerner.ccl.j4ccl.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An {@link OutputStream} that splits the data written to it into lines and hands each line to a {@link LineConsumer},
+ * decoded as UTF-8 and without its line terminator. Any unterminated data is handed over when the stream is closed.
+ */
+
+public class LineConsumerOutputStream extends OutputStream {
+    private final LineConsumer consumer;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    /**
+     * Create a stream.
+     *
+     * @param consumer
+     *            The {@link LineConsumer} to which lines are to be handed.
+     * @throws NullPointerException
+     *             If the given consumer is {@code null}.
+     */
+    public LineConsumerOutputStream(final LineConsumer consumer) {
+        if (consumer == null)
+            throw new NullPointerException("Line consumer cannot be null.");
+
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (b == '\n')
+            consumeLine();
+        else
+            line.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int lineStart = off;
+        final int end = off + len;
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                line.write(b, lineStart, i - lineStart);
+                consumeLine();
+                lineStart = i + 1;
+            }
+        }
+        line.write(b, lineStart, end - lineStart);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (line.size() > 0)
+            consumeLine();
+    }
+
+    /**
+     * Hand the buffered line, less any trailing {@code \r}, to the consumer.
+     */
+    private void consumeLine() {
+        final byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r')
+            length--;
+        line.reset();
+        consumer.consume(new String(bytes, 0, length, StandardCharsets.UTF_8));
+    }
+}
@@ -2,7 +2,12 @@ package com.cerner.ccl.j4ccl;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 
@@ -14,6 +19,10 @@ import org.junit.runner.RunWith;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import com.cerner.ccl.j4ccl.enums.OutputType;
+import com.cerner.ccl.j4ccl.util.LineConsumer;
+import com.cerner.ccl.j4ccl.util.LineConsumerOutputStream;
+
 /**
  * Unit test of {@link CclExecutor}.
  *
@@ -59,4 +68,38 @@ public class CclExecutorTest {
         });
         assertThat(e.getMessage()).isEqualTo("No implementations found of: " + CclExecutor.class.getName());
     }
+
+    /**
+     * By default, an asynchronous execution should run the queued commands off the calling thread.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testExecuteAsyncDefault() throws Exception {
+        final CclExecutor executor = mock(CclExecutor.class, CALLS_REAL_METHODS);
+        executor.executeAsync().get();
+        verify(executor).execute();
+    }
+
+    /**
+     * By default, opening and closing an executor should do nothing, leaving each execution to use its own session.
+     */
+    @Test
+    public void testOpenCloseDefault() {
+        final CclExecutor executor = mock(CclExecutor.class, CALLS_REAL_METHODS);
+        executor.open();
+        executor.close();
+        verify(executor, never()).setOutputStream(any(), any());
+    }
+
+    /**
+     * By default, a line consumer should be given the output through a stream that splits it into lines.
+     */
+    @Test
+    public void testSetOutputConsumerDefault() {
+        final CclExecutor executor = mock(CclExecutor.class, CALLS_REAL_METHODS);
+        executor.setOutputConsumer(mock(LineConsumer.class), OutputType.CCL_SESSION);
+        verify(executor).setOutputStream(any(LineConsumerOutputStream.class), eq(OutputType.CCL_SESSION));
+    }
 }
@@ -459,6 +459,141 @@ public class TerminalPropertiesTest {
         assertThat(terminalProperties.getLogfileLocation()).isEqualTo("");
     }
 
+    /**
+     * Confirms that the batchSessions property defaults to {@code false} and is set according to the builder's value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testBatchSessions() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getBatchSessions()).isEqualTo(false);
+
+        builder.setBatchSessions(true);
+        TerminalProperties terminalProperties = builder.build();
+        assertThat(terminalProperties.getBatchSessions()).isEqualTo(true);
+        assertThat(terminalProperties.getSpecifyDebugCcl()).isEqualTo(true);
+        assertThat(terminalProperties.getSkipEnvset()).isEqualTo(false);
+
+        builder.setBatchSessions(false);
+        terminalProperties = builder.build();
+        assertThat(terminalProperties.getBatchSessions()).isEqualTo(false);
+    }
+
+    /**
+     * Confirms that the pipelineCommands property defaults to {@code false} and is set according to the builder's
+     * value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testPipelineCommands() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getPipelineCommands()).isEqualTo(false);
+
+        builder.setPipelineCommands(true);
+        assertThat(builder.build().getPipelineCommands()).isEqualTo(true);
+        assertThat(builder.build().getBatchSessions()).isEqualTo(false);
+
+        builder.setPipelineCommands(false);
+        assertThat(builder.build().getPipelineCommands()).isEqualTo(false);
+    }
+
+    /**
+     * Confirms that the batchDynamicIncludes property defaults to {@code false} and is set according to the builder's
+     * value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testBatchDynamicIncludes() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getBatchDynamicIncludes()).isEqualTo(false);
+
+        builder.setBatchDynamicIncludes(true);
+        assertThat(builder.build().getBatchDynamicIncludes()).isEqualTo(true);
+
+        builder.setBatchDynamicIncludes(false);
+        assertThat(builder.build().getBatchDynamicIncludes()).isEqualTo(false);
+    }
+
+    /**
+     * Confirms that the batchExecution property defaults to {@code false} and is set according to the builder's value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testBatchExecution() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getBatchExecution()).isEqualTo(false);
+
+        builder.setBatchExecution(true);
+        assertThat(builder.build().getBatchExecution()).isEqualTo(true);
+
+        builder.setBatchExecution(false);
+        assertThat(builder.build().getBatchExecution()).isEqualTo(false);
+    }
+
+    /**
+     * Confirms that the cclSource property defaults to {@code null} and is set according to the builder's value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testCclSource() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getCclSource()).isNull();
+
+        builder.setCclSource("$ALTERNATE_CCLSOURCE");
+        assertThat(builder.build().getCclSource()).isEqualTo("$ALTERNATE_CCLSOURCE");
+        assertThat(builder.build()).isNotEqualTo(builder.setCclSource("/path/to/source").build());
+    }
+
+    /**
+     * Confirms that the environmentCacheTtl property defaults to 0 and is set according to the builder's value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testEnvironmentCacheTtl() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getEnvironmentCacheTtl()).isEqualTo(0L);
+
+        builder.setEnvironmentCacheTtl(3600);
+        assertThat(builder.build().getEnvironmentCacheTtl()).isEqualTo(3600L);
+        assertThat(builder.build()).isNotEqualTo(builder.setEnvironmentCacheTtl(60).build());
+    }
+
+    /**
+     * Confirms that the downloadCompressionThreshold property defaults to -1 and is set according to the builder's
+     * value.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testDownloadCompressionThreshold() throws Exception {
+        final TerminalProperties.TerminalPropertiesBuilder builder = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern");
+        assertThat(builder.build().getDownloadCompressionThreshold()).isEqualTo(-1L);
+
+        builder.setDownloadCompressionThreshold(65536);
+        assertThat(builder.build().getDownloadCompressionThreshold()).isEqualTo(65536L);
+        assertThat(builder.build()).isNotEqualTo(builder.setDownloadCompressionThreshold(1024).build());
+    }
+
     /**
      * Confirms that the logfileLocation property is set according to the builder's value and the last set value wins.
      *
@@ -546,7 +681,28 @@ public class TerminalPropertiesTest {
         builder.setLogfileLocation("logfile.dat");
         hashCodes.add(builder.build().hashCode());
 
-        assertThat(hashCodes.size()).isEqualTo(10);
+        builder.setBatchSessions(true);
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setPipelineCommands(true);
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setBatchDynamicIncludes(true);
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setBatchExecution(true);
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setCclSource("$ALTERNATE_CCLSOURCE");
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setEnvironmentCacheTtl(3600);
+        hashCodes.add(builder.build().hashCode());
+
+        builder.setDownloadCompressionThreshold(65536);
+        hashCodes.add(builder.build().hashCode());
+
+        assertThat(hashCodes.size()).isEqualTo(17);
     }
 
     /**
@@ -693,6 +849,49 @@ public class TerminalPropertiesTest {
         assertThat(TerminalProperties.getGlobalTerminalProperties().equals(terminalPropertiesChanged)).isTrue();
     }
 
+    /**
+     * Confirms that the TerminalProperties of a thread take precedence over the global ones on that thread only.
+     *
+     * @throws Exception
+     *             Not expected.
+     */
+    @Test
+    public void testThreadTerminalProperties() throws Exception {
+        final TerminalProperties globalProperties = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setSkipEnvset(true).build();
+        final TerminalProperties threadProperties = TerminalProperties.getNewBuilder()
+                .setOsPromptPattern("osPromptPattern").setSkipEnvset(false).build();
+        TerminalProperties.setGlobalTerminalProperties(globalProperties);
+        try {
+            assertThat(TerminalProperties.getThreadTerminalProperties()).isSameAs(globalProperties);
+
+            TerminalProperties.setThreadTerminalProperties(threadProperties);
+            assertThat(TerminalProperties.getThreadTerminalProperties()).isSameAs(threadProperties);
+            assertThat(TerminalProperties.getGlobalTerminalProperties()).isSameAs(globalProperties);
+
+            final TerminalProperties[] observed = new TerminalProperties[2];
+            final Thread child = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    observed[0] = TerminalProperties.getThreadTerminalProperties();
+                    TerminalProperties.setThreadTerminalProperties(null);
+                    observed[1] = TerminalProperties.getThreadTerminalProperties();
+                }
+            });
+            child.start();
+            child.join();
+            assertThat(observed[0]).isSameAs(threadProperties);
+            assertThat(observed[1]).isSameAs(globalProperties);
+            assertThat(TerminalProperties.getThreadTerminalProperties()).isSameAs(threadProperties);
+
+            TerminalProperties.setThreadTerminalProperties(null);
+            assertThat(TerminalProperties.getThreadTerminalProperties()).isSameAs(globalProperties);
+        } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+            TerminalProperties.setGlobalTerminalProperties(null);
+        }
+    }
+
     /**
      * Confirms constructDefaultOsPromptPattern behaves as expected.
      */
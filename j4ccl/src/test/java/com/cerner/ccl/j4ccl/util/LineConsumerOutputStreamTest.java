@@ -0,0 +1,50 @@
+package com.cerner.ccl.j4ccl.util;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LineConsumerOutputStream}.
+ */
+
+public class LineConsumerOutputStreamTest {
+    private final List<String> lines = new ArrayList<String>();
+    private final LineConsumer consumer = new LineConsumer() {
+        @Override
+        public void consume(final String line) {
+            lines.add(line);
+        }
+    };
+
+    /**
+     * Construction with a {@code null} consumer should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullConsumer() {
+        new LineConsumerOutputStream(null);
+    }
+
+    /**
+     * Verify that data is split into lines, however it is written, and that unterminated data is handed over on close.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        final LineConsumerOutputStream stream = new LineConsumerOutputStream(consumer);
+        final byte[] bytes = "first\r\nsecond \u00e9\n\nlast".getBytes(StandardCharsets.UTF_8);
+        stream.write(bytes, 0, 3);
+        stream.write(bytes[3]);
+        stream.write(bytes, 4, bytes.length - 4);
+        assertThat(lines).containsExactly("first", "second \u00e9", "");
+
+        stream.close();
+        assertThat(lines).containsExactly("first", "second \u00e9", "", "last");
+    }
+}
@@ -1,5 +1,6 @@
 package com.cerner.ftp.jsch;
 
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelShell;
 
@@ -32,6 +33,16 @@ public interface Connection {
      */
     ChannelSftp getSFtp();
 
+    /**
+     * Get a channel used to execute a single command on a remote server over SSH, with its standard input and output
+     * available as streams.
+     *
+     * @return A {@link ChannelExec} object.
+     * @throws IllegalStateException
+     *             If this connection is {@link #isClosed() closed}.
+     */
+    ChannelExec getExec();
+
     /**
      * Close this connection. This may either physically close the connection or return it to a pool.
      */
@@ -0,0 +1,314 @@
+package com.cerner.ftp.jsch.impl;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cerner.ftp.jsch.impl.CachedLibrarian.ConnectionCreator;
+import com.cerner.ftp.jsch.impl.DefaultConnectionPool.ConnectionLibrarian;
+
+/**
+ * A thread-safe {@link ConnectionLibrarian} that bounds the number of connections checked out per set of credentials.
+ * <br>
+ * A checkout blocks, first come first served, while the maximum number of connections for its credentials are checked
+ * out and fails once the checkout timeout elapses. Idle connections are validated with a round-trip to the server
+ * before they are handed out again and are physically closed once they have sat idle for longer than the idle timeout.
+ */
+
+public class BoundedLibrarian implements ConnectionLibrarian<CachedConnection> {
+    private final ConcurrentMap<String, KeyPool> pools = new ConcurrentHashMap<String, KeyPool>();
+    private final ConcurrentMap<CachedConnection, String> checkedOut = new ConcurrentHashMap<CachedConnection, String>();
+    private final IdentifierGenerator idGenerator;
+    private volatile int maxPerKey;
+    private final long checkoutTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final ScheduledExecutorService evictor;
+
+    private final Logger logger = LoggerFactory.getLogger(BoundedLibrarian.class);
+
+    /**
+     * Create a librarian.
+     *
+     * @param idGenerator
+     *            An {@link DefaultConnectionPool.ConnectionLibrarian.IdentifierGenerator IdentifierGenerator} used to
+     *            identify connections sharing common attributes.
+     * @param maxPerKey
+     *            The maximum number of connections that can be checked out at once for a set of credentials.
+     * @param checkoutTimeoutMillis
+     *            The number of milliseconds a checkout waits for a connection to become available.
+     * @param idleTimeoutMillis
+     *            The number of milliseconds a connection may sit idle before it is physically closed; if not positive,
+     *            idle connections are never evicted.
+     * @throws IllegalArgumentException
+     *             If the maximum per key is less than one or the checkout timeout is negative.
+     * @throws NullPointerException
+     *             If the given identifier generator is {@code null}.
+     */
+    public BoundedLibrarian(final IdentifierGenerator idGenerator, final int maxPerKey,
+            final long checkoutTimeoutMillis, final long idleTimeoutMillis) {
+        if (idGenerator == null) {
+            throw new NullPointerException("Identifier generator cannot be null.");
+        }
+
+        if (maxPerKey < 1) {
+            throw new IllegalArgumentException("Maximum connections per key must be at least 1: " + maxPerKey);
+        }
+
+        if (checkoutTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Checkout timeout cannot be negative: " + checkoutTimeoutMillis);
+        }
+
+        this.idGenerator = idGenerator;
+        this.maxPerKey = maxPerKey;
+        this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        if (idleTimeoutMillis > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "jsch-connection-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            evictor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictIdleConnections();
+                }
+            }, idleTimeoutMillis, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    @Override
+    public void checkIn(final CachedConnection connection) {
+        final String id = checkedOut.remove(connection);
+        if (id == null) {
+            throw new IllegalArgumentException(
+                    "The given connection is either unknown to this librarian or has already been checked in.");
+        }
+
+        final KeyPool pool = getPool(id);
+        try {
+            if (pool.idle.size() < maxPerKey) {
+                pool.idle.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+            } else {
+                connection.closePhysical();
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    @Override
+    public CachedConnection checkOut(final String username, final String password, final URI serverAddress) {
+        final String id = idGenerator.buildKey(username, password, serverAddress);
+        return checkOut(id, new ConnectionCreator() {
+            @Override
+            public CachedConnection create() {
+                return new CachedConnection(username, password, serverAddress, BoundedLibrarian.this);
+            }
+        });
+    }
+
+    @Override
+    public CachedConnection checkOut(final String username, final String salt, final URI privateKeyLocation,
+            final URI serverAddress) {
+        final String id = idGenerator.buildKey(username, salt, privateKeyLocation, serverAddress);
+        return checkOut(id, new ConnectionCreator() {
+            @Override
+            public CachedConnection create() {
+                return new CachedConnection(username, salt, privateKeyLocation, serverAddress, BoundedLibrarian.this);
+            }
+        });
+    }
+
+    /**
+     * Raise the maximum number of connections that can be checked out at once for a set of credentials. Checkouts
+     * waiting for a connection may proceed at once.
+     *
+     * @param minimum
+     *            The number of connections that must at least be allowed per set of credentials; if the maximum is
+     *            already at least this number, it is left as it is.
+     */
+    public void ensureMaxPerKey(final int minimum) {
+        synchronized (pools) {
+            final int added = minimum - maxPerKey;
+            if (added <= 0) {
+                return;
+            }
+
+            maxPerKey = minimum;
+            for (final KeyPool pool : pools.values()) {
+                pool.permits.release(added);
+            }
+        }
+    }
+
+    /**
+     * Physically close every idle connection that has been idle for longer than the idle timeout.
+     */
+    public void evictIdleConnections() {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+
+        final long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        for (final KeyPool pool : pools.values()) {
+            final Iterator<IdleConnection> iterator = pool.idle.iterator();
+            while (iterator.hasNext()) {
+                final IdleConnection idle = iterator.next();
+                if (idle.returnedAt < cutoff && pool.idle.removeFirstOccurrence(idle)) {
+                    logger.debug("Evicting connection idle since {}", idle.returnedAt);
+                    idle.connection.closePhysical();
+                }
+            }
+        }
+    }
+
+    /**
+     * Physically close all idle connections and stop evicting. Connections that are checked out are closed physically
+     * as they are checked in.
+     */
+    public void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+
+        for (final KeyPool pool : pools.values()) {
+            IdleConnection idle;
+            while ((idle = pool.idle.pollFirst()) != null) {
+                idle.connection.closePhysical();
+            }
+        }
+    }
+
+    /**
+     * Check out a connection. This method is package-private for testing.
+     *
+     * @param id
+     *            The identifier of the credentials for which a connection is to be checked out.
+     * @param creator
+     *            The {@link ConnectionCreator} used to create a connection if no valid idle connection is available.
+     * @return An open {@link CachedConnection}.
+     * @throws IllegalStateException
+     *             If no connection becomes available within the checkout timeout.
+     */
+    CachedConnection checkOut(final String id, final ConnectionCreator creator) {
+        final KeyPool pool = getPool(id);
+        try {
+            if (!pool.permits.tryAcquire(checkoutTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Timed out after " + checkoutTimeoutMillis
+                        + "ms waiting for one of the " + maxPerKey + " connections available for " + id);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a connection.", e);
+        }
+
+        CachedConnection connection = null;
+        try {
+            connection = borrowIdleOrCreate(pool, creator);
+            connection.open();
+            checkedOut.put(connection, id);
+            return connection;
+        } catch (final RuntimeException e) {
+            if (connection != null) {
+                connection.closePhysical();
+            }
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of idle connections retained for a set of credentials. This method is package-private for testing.
+     *
+     * @param id
+     *            The identifier of the credentials.
+     * @return The number of idle connections.
+     */
+    int getIdleCount(final String id) {
+        final KeyPool pool = pools.get(id);
+        return pool == null ? 0 : pool.idle.size();
+    }
+
+    private CachedConnection borrowIdleOrCreate(final KeyPool pool, final ConnectionCreator creator) {
+        IdleConnection idle;
+        while ((idle = pool.idle.pollFirst()) != null) {
+            if (idle.connection.validate()) {
+                return idle.connection;
+            }
+            logger.debug("Discarding idle connection that failed validation.");
+            idle.connection.closePhysical();
+        }
+        return creator.create();
+    }
+
+    private KeyPool getPool(final String id) {
+        KeyPool pool = pools.get(id);
+        if (pool == null) {
+            // created under the same lock as the maximum is raised, so that it is not created with a stale maximum
+            synchronized (pools) {
+                pool = pools.get(id);
+                if (pool == null) {
+                    pool = new KeyPool(maxPerKey);
+                    pools.put(id, pool);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * The connections and checkout permits for a single set of credentials.
+     */
+    private static class KeyPool {
+        private final Semaphore permits;
+        private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<IdleConnection>();
+
+        /**
+         * Create a key pool.
+         *
+         * @param maxPerKey
+         *            The number of connections that can be checked out at once.
+         */
+        public KeyPool(final int maxPerKey) {
+            this.permits = new Semaphore(maxPerKey, true);
+        }
+    }
+
+    /**
+     * A connection that is waiting in the pool, along with the time at which it was checked in.
+     */
+    private static class IdleConnection {
+        private final CachedConnection connection;
+        private final long returnedAt;
+
+        /**
+         * Create an idle connection.
+         *
+         * @param connection
+         *            The idle {@link CachedConnection}.
+         * @param returnedAt
+         *            The time, in milliseconds since the epoch, at which the connection was checked in.
+         */
+        public IdleConnection(final CachedConnection connection, final long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+}
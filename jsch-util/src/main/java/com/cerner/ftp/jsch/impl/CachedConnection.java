@@ -1,8 +1,9 @@
 package com.cerner.ftp.jsch.impl;
 
 import java.net.URI;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.jsch.impl.DefaultConnectionPool.ConnectionLibrarian;
 import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSch;
@@ -24,11 +26,12 @@ import com.jcraft.jsch.UserInfo;
  *
  */
 public class CachedConnection implements Connection {
-    private final Set<Channel> channels = new HashSet<Channel>();
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
     private final Session session;
     private final ConnectionLibrarian<CachedConnection> librarian;
-    private boolean closed;
+    private volatile boolean closed;
 
+    private static final int VALIDATION_TIMEOUT_MILLIS = 10000;
     private static final Logger LOGGER = LoggerFactory.getLogger(CachedConnection.class);
 
     /**
@@ -73,14 +76,19 @@ public class CachedConnection implements Connection {
     public void close() {
         closed = true;
 
-        for (final Channel channel : channels) {
+        /*
+         * Remove each channel as it is disconnected rather than clearing the set afterwards, so that a channel opened
+         * by another thread while this iterates is not dropped without being disconnected.
+         */
+        final Iterator<Channel> iterator = channels.iterator();
+        while (iterator.hasNext()) {
+            final Channel channel = iterator.next();
+            iterator.remove();
             if (!channel.isClosed()) {
                 channel.disconnect();
             }
         }
 
-        channels.clear();
-
         librarian.checkIn(this);
     }
 
@@ -132,6 +140,21 @@ public class CachedConnection implements Connection {
         }
     }
 
+    @Override
+    public ChannelExec getExec() {
+        if (isClosed()) {
+            throw new IllegalStateException("Connection is closed.");
+        }
+
+        try {
+            final ChannelExec exec = (ChannelExec) session.openChannel("exec");
+            channels.add(exec);
+            return exec;
+        } catch (final JSchException e) {
+            throw new RuntimeException("Failed to open exec channel.", e);
+        }
+    }
+
     @Override
     public ChannelShell getShell() {
         if (isClosed()) {
@@ -276,6 +299,43 @@ public class CachedConnection implements Connection {
         }
     }
 
+    /**
+     * Determine whether the session wrapped by this object is still connected to the remote server.
+     *
+     * @return {@code true} if the session is connected; {@code false} if it is absent or has been disconnected.
+     */
+    boolean isConnected() {
+        return session != null && session.isConnected();
+    }
+
+    /**
+     * Determine whether the session wrapped by this object still answers the remote server by opening, and then
+     * closing, an exec channel on it.
+     *
+     * @return {@code true} if the server confirmed the channel; {@code false} if the session is disconnected or the
+     *         channel could not be opened within {@value #VALIDATION_TIMEOUT_MILLIS} milliseconds.
+     */
+    boolean validate() {
+        if (!isConnected()) {
+            return false;
+        }
+
+        ChannelExec exec = null;
+        try {
+            exec = (ChannelExec) session.openChannel("exec");
+            exec.setCommand("true");
+            exec.connect(VALIDATION_TIMEOUT_MILLIS);
+            return true;
+        } catch (final JSchException e) {
+            LOGGER.debug("Connection failed validation.", e);
+            return false;
+        } finally {
+            if (exec != null) {
+                exec.disconnect();
+            }
+        }
+    }
+
     /**
      * Mark the connection as opened.
      *
@@ -1,13 +1,11 @@
 package com.cerner.ftp.jsch.impl;
 
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 import com.cerner.ftp.jsch.Connection;
 import com.cerner.ftp.jsch.ConnectionPool;
 
-import net.sf.ehcache.Cache;
-import net.sf.ehcache.CacheManager;
-
 /**
  * A connection pool implementation.
  *
@@ -16,12 +14,35 @@ import net.sf.ehcache.CacheManager;
  */
 
 public class DefaultConnectionPool implements ConnectionPool {
+    /**
+     * The system property used to set the maximum number of connections that can be checked out at once for a set of
+     * credentials.
+     */
+    public static final String MAX_PER_KEY_PROPERTY = "jsch.pool.maxPerKey";
+    /**
+     * The system property used to set the number of milliseconds to wait for a connection to become available.
+     */
+    public static final String CHECKOUT_TIMEOUT_PROPERTY = "jsch.pool.checkoutTimeoutMillis";
+    /**
+     * The system property used to set the number of milliseconds a connection may sit idle before it is closed.
+     */
+    public static final String IDLE_TIMEOUT_PROPERTY = "jsch.pool.idleTimeoutMillis";
+
+    private static final BoundedLibrarian LIBRARIAN;
     private static ConnectionPool INSTANCE;
 
     static {
-        final CacheManager manager = CacheManager.create(ConnectionPool.class.getResource("/cache/cache.config.xml"));
-        final Cache cache = manager.getCache("jsch-connection-cache");
-        INSTANCE = new DefaultConnectionPool(new CachedLibrarian(new CacheKeyBuilder(), cache));
+        final int maxPerKey = Integer.getInteger(MAX_PER_KEY_PROPERTY, 8);
+        final long checkoutTimeout = Long.getLong(CHECKOUT_TIMEOUT_PROPERTY, TimeUnit.MINUTES.toMillis(5));
+        final long idleTimeout = Long.getLong(IDLE_TIMEOUT_PROPERTY, TimeUnit.MINUTES.toMillis(10));
+        LIBRARIAN = new BoundedLibrarian(new CacheKeyBuilder(), maxPerKey, checkoutTimeout, idleTimeout);
+        INSTANCE = new DefaultConnectionPool(LIBRARIAN);
+        Runtime.getRuntime().addShutdownHook(new Thread("jsch-connection-pool-shutdown") {
+            @Override
+            public void run() {
+                LIBRARIAN.shutdown();
+            }
+        });
     }
 
     /**
@@ -33,6 +54,17 @@ public class DefaultConnectionPool implements ConnectionPool {
         return INSTANCE;
     }
 
+    /**
+     * Raise the maximum number of connections the singleton ConnectionPool instance lets be checked out at once for a
+     * set of credentials, which is otherwise given by the {@value #MAX_PER_KEY_PROPERTY} system property.
+     *
+     * @param minimum
+     *            The number of connections that must at least be allowed per set of credentials.
+     */
+    public static void ensureMaxPerKey(final int minimum) {
+        LIBRARIAN.ensureMaxPerKey(minimum);
+    }
+
     /**
      * A librarian that's used to manage checking in and checking out connections from the connection pool.
      *
@@ -0,0 +1,258 @@
+package com.cerner.ftp.jsch.impl;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cerner.ftp.jsch.impl.CachedLibrarian.ConnectionCreator;
+import com.cerner.ftp.jsch.impl.DefaultConnectionPool.ConnectionLibrarian.IdentifierGenerator;
+
+/**
+ * Unit tests for {@link BoundedLibrarian}.
+ */
+
+public class BoundedLibrarianTest {
+    private static final String ID = "user@server";
+    private final Deque<CachedConnection> createdConnections = new ArrayDeque<CachedConnection>();
+    private final ConnectionCreator creator = new ConnectionCreator() {
+        @Override
+        public CachedConnection create() {
+            return createdConnections.pop();
+        }
+    };
+    private IdentifierGenerator generator;
+
+    /**
+     * Create a mock identifier generator for each test.
+     */
+    @Before
+    public void setUp() {
+        generator = mock(IdentifierGenerator.class);
+    }
+
+    /**
+     * Construction with a {@code null} identifier generator should fail.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testConstructNullGenerator() {
+        new BoundedLibrarian(null, 1, 0, 0);
+    }
+
+    /**
+     * Construction with a maximum per key of less than one should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructZeroMaximum() {
+        new BoundedLibrarian(generator, 0, 0, 0);
+    }
+
+    /**
+     * Construction with a negative checkout timeout should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructNegativeTimeout() {
+        new BoundedLibrarian(generator, 1, -1, 0);
+    }
+
+    /**
+     * Verify that a new connection is created and opened when none is idle.
+     */
+    @Test
+    public void testCheckOutCreatesConnection() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, 0);
+        final CachedConnection connection = createConnection();
+
+        assertThat(librarian.checkOut(ID, creator)).isSameAs(connection);
+        verify(connection).open();
+    }
+
+    /**
+     * Verify that a checked-in connection is reused if it passes validation.
+     */
+    @Test
+    public void testCheckOutReusesConnection() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, 0);
+        final CachedConnection connection = createConnection();
+
+        librarian.checkIn(librarian.checkOut(ID, creator));
+        assertThat(librarian.getIdleCount(ID)).isEqualTo(1);
+
+        assertThat(librarian.checkOut(ID, creator)).isSameAs(connection);
+        assertThat(librarian.getIdleCount(ID)).isEqualTo(0);
+        verify(connection).validate();
+        verify(connection, never()).closePhysical();
+    }
+
+    /**
+     * Verify that an idle connection that fails validation is closed and replaced.
+     */
+    @Test
+    public void testCheckOutDiscardsInvalid() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, 0);
+        final CachedConnection stale = createConnection();
+        final CachedConnection fresh = createConnection();
+
+        librarian.checkIn(librarian.checkOut(ID, creator));
+        when(stale.validate()).thenReturn(false);
+
+        assertThat(librarian.checkOut(ID, creator)).isSameAs(fresh);
+        verify(stale).closePhysical();
+    }
+
+    /**
+     * Verify that a checkout fails once the timeout elapses with every connection checked out.
+     */
+    @Test
+    public void testCheckOutTimeout() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 10, 0);
+        createConnection();
+        librarian.checkOut(ID, creator);
+
+        try {
+            librarian.checkOut(ID, creator);
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage()).contains("Timed out");
+            return;
+        }
+        throw new AssertionError("The second checkout should have timed out.");
+    }
+
+    /**
+     * Verify that raising the maximum per key lets more connections be checked out at once, and that it is never
+     * lowered.
+     */
+    @Test
+    public void testEnsureMaxPerKey() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 10, 0);
+        createConnection();
+        final CachedConnection second = createConnection();
+        final CachedConnection third = createConnection();
+        librarian.checkOut(ID, creator);
+
+        librarian.ensureMaxPerKey(3);
+        librarian.ensureMaxPerKey(2);
+        assertThat(librarian.checkOut(ID, creator)).isSameAs(second);
+        assertThat(librarian.checkOut("other", creator)).isSameAs(third);
+        createConnection();
+        librarian.checkOut(ID, creator);
+        try {
+            librarian.checkOut(ID, creator);
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage()).contains("3 connections");
+            return;
+        }
+        throw new AssertionError("The fourth checkout should have timed out.");
+    }
+
+    /**
+     * Verify that a blocked checkout is satisfied once a connection is checked in.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCheckOutWaitsForCheckIn() throws Exception {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, TimeUnit.SECONDS.toMillis(30), 0);
+        final CachedConnection connection = createConnection();
+        librarian.checkOut(ID, creator);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<CachedConnection> waiting = executor.submit(new Callable<CachedConnection>() {
+                @Override
+                public CachedConnection call() {
+                    return librarian.checkOut(ID, creator);
+                }
+            });
+            librarian.checkIn(connection);
+            assertThat(waiting.get(30, TimeUnit.SECONDS)).isSameAs(connection);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verify that a failure to open a connection closes it and frees its slot.
+     */
+    @Test
+    public void testCheckOutOpenFailure() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, 0);
+        final CachedConnection broken = createConnection();
+        final CachedConnection working = createConnection();
+        doThrow(new IllegalStateException("closed")).when(broken).open();
+
+        try {
+            librarian.checkOut(ID, creator);
+        } catch (final IllegalStateException e) {
+            verify(broken).closePhysical();
+            assertThat(librarian.checkOut(ID, creator)).isSameAs(working);
+            return;
+        }
+        throw new AssertionError("The checkout should have failed.");
+    }
+
+    /**
+     * Checking in a connection that was not checked out should fail.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckInUnknown() {
+        new BoundedLibrarian(generator, 1, 0, 0).checkIn(mock(CachedConnection.class));
+    }
+
+    /**
+     * Verify that connections idle for longer than the idle timeout are closed.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testEvictIdleConnections() throws Exception {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, 1);
+        final CachedConnection connection = createConnection();
+        try {
+            librarian.checkIn(librarian.checkOut(ID, creator));
+            Thread.sleep(10);
+
+            librarian.evictIdleConnections();
+            assertThat(librarian.getIdleCount(ID)).isEqualTo(0);
+            verify(connection).closePhysical();
+        } finally {
+            librarian.shutdown();
+        }
+    }
+
+    /**
+     * Verify that shutting down the librarian closes its idle connections.
+     */
+    @Test
+    public void testShutdown() {
+        final BoundedLibrarian librarian = new BoundedLibrarian(generator, 1, 0, TimeUnit.MINUTES.toMillis(10));
+        final CachedConnection connection = createConnection();
+
+        librarian.checkIn(librarian.checkOut(ID, creator));
+        librarian.shutdown();
+        assertThat(librarian.getIdleCount(ID)).isEqualTo(0);
+        verify(connection).closePhysical();
+    }
+
+    private CachedConnection createConnection() {
+        final CachedConnection connection = mock(CachedConnection.class);
+        when(connection.validate()).thenReturn(true);
+        createdConnections.add(connection);
+        return connection;
+    }
+}
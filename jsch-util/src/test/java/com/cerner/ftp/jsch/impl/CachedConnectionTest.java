@@ -23,6 +23,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import com.cerner.ftp.jsch.impl.DefaultConnectionPool.ConnectionLibrarian;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSch;
@@ -190,6 +191,39 @@ public class CachedConnectionTest {
         }
     }
 
+    /**
+     * Test the retrieval of an exec channel.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetExec() throws Exception {
+        prepareUsernamePasswordSession();
+        final CachedConnection connection = new CachedConnection(USERNAME, PASSWORD, SERVER_ADDRESS, librarian);
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(usernamePasswordSession.openChannel("exec")).thenReturn(exec);
+        assertThat(connection.getExec()).isEqualTo(exec);
+    }
+
+    /**
+     * Test that retrieving an exec channel from a closed connection fails.
+     */
+    @Test
+    public void testGetExecClosed() {
+        prepareUsernamePasswordSession();
+        final CachedConnection connection = new CachedConnection(USERNAME, PASSWORD, SERVER_ADDRESS, librarian);
+
+        connection.close();
+        try {
+            connection.getExec();
+            fail("No exception thrown.");
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("Connection is closed.");
+        }
+    }
+
     /**
      * Test the retrieval of a shell object.
      *
@@ -235,6 +269,61 @@ public class CachedConnectionTest {
         assertThat(connection.isClosed()).isTrue();
     }
 
+    /**
+     * Test that a connection is valid once the server confirms an exec channel opened on it.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidate() throws Exception {
+        prepareUsernamePasswordSession();
+        final CachedConnection connection = new CachedConnection(USERNAME, PASSWORD, SERVER_ADDRESS, librarian);
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(usernamePasswordSession.isConnected()).thenReturn(true);
+        when(usernamePasswordSession.openChannel("exec")).thenReturn(exec);
+        assertThat(connection.validate()).isTrue();
+        verify(exec).setCommand("true");
+        verify(exec).connect(10000);
+        verify(exec).disconnect();
+    }
+
+    /**
+     * Test that a connection whose exec channel cannot be opened is not valid.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidateChannelFailure() throws Exception {
+        prepareUsernamePasswordSession();
+        final CachedConnection connection = new CachedConnection(USERNAME, PASSWORD, SERVER_ADDRESS, librarian);
+
+        final ChannelExec exec = mock(ChannelExec.class);
+        when(usernamePasswordSession.isConnected()).thenReturn(true);
+        when(usernamePasswordSession.openChannel("exec")).thenReturn(exec);
+        doThrow(new JSchException("timeout")).when(exec).connect(10000);
+        assertThat(connection.validate()).isFalse();
+        verify(exec).disconnect();
+    }
+
+    /**
+     * Test that a disconnected connection is not valid and is not sent a channel request.
+     *
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testValidateDisconnected() throws Exception {
+        prepareUsernamePasswordSession();
+        final CachedConnection connection = new CachedConnection(USERNAME, PASSWORD, SERVER_ADDRESS, librarian);
+
+        when(usernamePasswordSession.isConnected()).thenReturn(false);
+        assertThat(connection.validate()).isFalse();
+        verify(usernamePasswordSession, never()).openChannel("exec");
+    }
+
     /**
      * Test the re-opening of a connection.
      */
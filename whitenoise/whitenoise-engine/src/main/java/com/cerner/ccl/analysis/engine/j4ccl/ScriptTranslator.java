@@ -1,24 +1,25 @@
 package com.cerner.ccl.analysis.engine.j4ccl;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import com.cerner.ccl.analysis.exception.TranslationException;
 import com.cerner.ccl.j4ccl.CclExecutor;
+import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.record.DynamicRecordList;
 import com.cerner.ccl.j4ccl.record.Record;
 import com.cerner.ccl.j4ccl.record.Structure;
 import com.cerner.ccl.j4ccl.record.StructureBuilder;
 import com.cerner.ccl.j4ccl.record.factory.RecordFactory;
 import com.cerner.ftp.Downloader;
-import com.cerner.ftp.data.factory.FileRequestFactory;
 import com.cerner.ftp.sftp.SftpDownloader;
 
 /**
@@ -78,13 +79,11 @@ public class ScriptTranslator {
 
         final DynamicRecordList programsList = reply.getDynamicList("programs");
         final Map<String, String> translations = new HashMap<String, String>(programsList.getSize());
+        final Downloader downloader = SftpDownloader.createDownloader(productProvider.getProduct());
+        downloader.setCompressionThreshold(getDownloadCompressionThreshold());
         for (final Record program : programsList) {
-            final File localDestination = createTempFile();
-            final Downloader downloader = SftpDownloader.createDownloader(productProvider.getProduct());
-            downloader.download(Collections.singleton(FileRequestFactory
-                    .create(URI.create(program.getVC("translation_xml_file")), localDestination.toURI())));
-
-            translations.put(program.getVC("program_name"), readFile(localDestination));
+            final URI translationFile = URI.create(program.getVC("translation_xml_file"));
+            translations.put(program.getVC("program_name"), readStream(downloader.openStream(translationFile)));
         }
 
         return translations;
@@ -112,11 +111,45 @@ public class ScriptTranslator {
                 .build();
     }
 
+    /**
+     * Get the size above which translations are compressed on the remote server before they are downloaded, as
+     * configured by the TerminalProperties of the current thread.
+     * 
+     * @return The threshold, in bytes; a negative value if translations are never to be compressed.
+     */
+    protected long getDownloadCompressionThreshold() {
+        final TerminalProperties terminalProperties = TerminalProperties.getThreadTerminalProperties();
+        return terminalProperties == null ? -1 : terminalProperties.getDownloadCompressionThreshold();
+    }
+
+    /**
+     * Read a stream to a string, closing the stream once it has been read.
+     * 
+     * @param stream
+     *            An {@link InputStream} of the contents to be read.
+     * @return A {@link String} object representing the textual contents of the given stream.
+     */
+    protected String readStream(final InputStream stream) {
+        // TODO: verify that this is the encoding used by CCL
+        try {
+            try {
+                return IOUtils.toString(stream, "utf-8");
+            } finally {
+                stream.close();
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to read translation.", e);
+        }
+    }
+
     /**
      * Create a temporary file.
      * 
      * @return A {@link File} reference to a temporary file.
+     * @deprecated Translations are read from the wire through {@link #readStream(InputStream)} and are no longer
+     *             downloaded to temporary files; this is not called by {@link #getTranslations(Collection)}.
      */
+    @Deprecated
     protected File createTempFile() {
         try {
             return File.createTempFile("analysisEngine-analyze", null);
@@ -131,13 +164,17 @@ public class ScriptTranslator {
      * @param file
      *            A {@link File} reference to the file to be read.
      * @return A {@link String} object representing the textual contents of the given file.
+     * @deprecated Use {@link #readStream(InputStream)}, to which this delegates; this is not called by
+     *             {@link #getTranslations(Collection)}.
      */
+    @Deprecated
     protected String readFile(final File file) {
-        // TODO: verify that this is the encoding used by CCL
+        final InputStream stream;
         try {
-            return FileUtils.readFileToString(file, "utf-8");
+            stream = new FileInputStream(file);
         } catch (final IOException e) {
             throw new RuntimeException("Failed to read file " + file, e);
         }
+        return readStream(stream);
     }
 }
@@ -53,6 +53,7 @@ import com.cerner.ccl.j4ccl.TerminalProperties;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePasswordCredential;
 import com.cerner.ccl.j4ccl.impl.jaas.BackendNodePrincipal;
 import com.cerner.ccl.j4ccl.impl.jaas.PrivateKeyPrincipal;
+import com.cerner.ccl.j4ccl.impl.util.CompileCache;
 
 /**
  * A mojo to generate static analysis reports on CCL code.
@@ -61,7 +62,7 @@ import com.cerner.ccl.j4ccl.impl.jaas.PrivateKeyPrincipal;
  */
 
 // TODO: test this class
-@Mojo(name = "whitenoise-report", defaultPhase = LifecyclePhase.SITE)
+@Mojo(name = "whitenoise-report", defaultPhase = LifecyclePhase.SITE, threadSafe = true)
 public class WhitenoiseMojo extends AbstractMavenReport {
     /**
      * The output directory.
@@ -317,11 +318,14 @@ public class WhitenoiseMojo extends AbstractMavenReport {
 
         try {
             final Subject subject = getSubject();
-            TerminalProperties.setGlobalTerminalProperties(TerminalProperties.getNewBuilder().setSkipEnvset(skipEnvset)
+            final TerminalProperties terminalProperties = TerminalProperties.getNewBuilder().setSkipEnvset(skipEnvset)
                     .setOsPromptPattern(osPromptPattern != null && !osPromptPattern.isEmpty() ? osPromptPattern
                             : TerminalProperties.constructDefaultOsPromptPattern(hostAddress, environmentName,
                                     defaultOSPromptUsername))
-                    .setExpectationTimeout(expectationTimeout).setSpecifyDebugCcl(false).build());
+                    .setExpectationTimeout(expectationTimeout).setSpecifyDebugCcl(false).setCclSource(cclsourcePath)
+                    .build();
+            TerminalProperties.setGlobalTerminalProperties(terminalProperties);
+            TerminalProperties.setThreadTerminalProperties(terminalProperties);
             final List<File> files = getFiles();
             if (doCompile) {
                 getLog().info(
@@ -399,6 +403,9 @@ public class WhitenoiseMojo extends AbstractMavenReport {
                 sink.paragraph_();
             }
         } finally {
+            TerminalProperties.setThreadTerminalProperties(null);
+            CompileCache.setThreadFileProperty(null);
+            CompileCache.setThreadSourceRoot(null);
 
             sink.paragraph();
             sink.horizontalRule();
@@ -579,7 +586,7 @@ public class WhitenoiseMojo extends AbstractMavenReport {
 
     private void doCompile(final Subject subject, final Collection<File> files) {
         final CclExecutor executor = CclExecutor.getExecutor();
-        executor.setTerminalProperties(TerminalProperties.getGlobalTerminalProperties());
+        executor.setTerminalProperties(TerminalProperties.getThreadTerminalProperties());
         for (final File file : files) {
             executor.addScriptCompiler(file).withDebugModeEnabled(true).commit();
         }
@@ -629,9 +636,6 @@ public class WhitenoiseMojo extends AbstractMavenReport {
         if (!isEmpty(keyFile)) {
             subject.getPrincipals().add(new PrivateKeyPrincipal(keyFile));
         }
-        if (cclsourcePath != null) {
-            System.setProperty("ccl-cclsource", cclsourcePath);
-        }
         return subject;
     }
 